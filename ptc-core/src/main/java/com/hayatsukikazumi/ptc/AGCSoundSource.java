@@ -0,0 +1,385 @@
+/**
+ * @(#)AGCSoundSource.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.IOException;
+
+/**
+ * 自動利得制御（AGC）をかける音声データの読み取り元
+ * <p>
+ * 元の読み取り元から読み取ったデータの直流成分を除き、半波（0を横切る間）ごとの
+ * ピークから包絡線（アタック/リリース）を求めて、一定のレベルになるように利得をかける。
+ * 音量が上がった部分にはすぐに追従し、下がった部分にはリリース時間（数ビット分）で追従する。
+ * 利得は0を横切る位置で変えるため、波形は不連続にならない。
+ * <p>
+ * 半波のピークが基準レベル（包絡線のゆっくりした平均）より大きく（約-12dB）下がった部分から、
+ * 直前の包絡線の約-6dBまで戻るまでをドロップアウトとして、包絡線を直前の値のままにする。ドロップアウト中の半波は、ビットの解析で
+ * 音量の段差を誤判定しないように半波ごとのピークで復元するが、利得は直前の利得の50倍（34dB）までとし、
+ * 信号のない雑音は増幅しすぎない。信号が戻ると、直前の利得にすぐに戻る。
+ * ドロップアウト中は基準レベルのみがゆっくり下がるため、長く続く場合は音量が下がったものとして追従する。
+ * 信号が最小の長さ以上戻った時に、ドロップアウトとして数える長さの範囲内であれば1つと数える
+ * （テープの終わりやブロックの間の無音は数えない。雑音で一瞬戻ったものは続きとする）。
+ * 元の読み取り元が整数のPCMデータの場合も、浮動小数点で処理する。
+ * 読み取るチャネルは1つのみ。整数のPCMデータのままでは読み取れない。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class AGCSoundSource implements SoundSource {
+
+    /** 半波の最大の長さ（秒）（低周波数の1周期） */
+    private static final double MAX_HALF_WAVE_TIME = 1 / 1200.0;
+
+    /** バッファの長さ（秒） */
+    private static final double BUFFER_TIME = 0.05;
+
+    /** 出力の目標レベル */
+    private static final double TARGET_LEVEL = 0.5;
+
+    /** 直流成分を除くハイパスフィルタの時定数（秒） */
+    private static final double DC_TIME = 0.01;
+
+    /** 包絡線のアタック時間（秒） */
+    private static final double ATTACK_TIME = 0.0002;
+
+    /** 包絡線のリリース時間（秒）（1200ボーの約6ビット分） */
+    private static final double RELEASE_TIME = 0.005;
+
+    /** 基準レベルの時定数（秒） */
+    private static final double REFERENCE_TIME = 0.5;
+
+    /** 利得の上限（無音を増幅しすぎないため） */
+    private static final double MAX_GAIN = 1000;
+
+    /** ドロップアウトとみなす半波のピーク（基準レベルに対する割合、約-12dB） */
+    private static final double DROPOUT_RATIO = 0.25;
+
+    /** ドロップアウトから戻ったとみなす半波のピーク（直前の包絡線に対する割合、約-6dB） */
+    private static final double RECOVER_RATIO = 0.5;
+
+    /** ドロップアウト中に復元する利得の上限（直前の利得に対する倍率） */
+    private static final double DROPOUT_MAX_BOOST = 50;
+
+    /** ドロップアウトとして数える最小の長さ（秒） */
+    private static final double DROPOUT_MIN_TIME = 0.002;
+
+    /** ドロップアウトとして数える最大の長さ（秒）（これより長いものは無音部分） */
+    private static final double DROPOUT_MAX_TIME = 0.25;
+
+    private SoundSource _src;
+
+    private int _channel;
+
+    private int _maxHalfWave;
+
+    /** ドロップアウトとみなす半波の最小の長さ（高周波数の半波の半分。0交差付近の雑音の断片は除く） */
+    private int _minDropoutHalfWave;
+
+    private double _dcCoeff;
+
+    /** アタック時間、リリース時間、基準レベルの時定数（サンプル数） */
+    private double _attackLen;
+
+    private double _releaseLen;
+
+    private double _refLen;
+
+    private int _dropoutMin;
+
+    private int _dropoutMax;
+
+    /** 直流成分を除いたデータ（出力済みでない部分） */
+    private float[] _buf;
+
+    /** _bufの有効なデータ数 */
+    private int _len;
+
+    /** _bufの出力済みの位置 */
+    private int _outPos;
+
+    /** _bufの利得をかけ終わった位置 */
+    private int _outLen;
+
+    private boolean _eof;
+
+    /** 直流成分 */
+    private double _dc;
+
+    /** 包絡線 */
+    private double _env;
+
+    /** 基準レベル */
+    private double _ref;
+
+    /** 利得 */
+    private double _gain = 1;
+
+    /** ドロップアウトが続いている長さ */
+    private int _dropoutLen;
+
+    /** ドロップアウトの後、信号が戻っている長さ */
+    private int _recoverLen;
+
+    /** ドロップアウトの数 */
+    private int _dropouts;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param src 元の読み取り元
+     * @param channel 読み取るチャネル
+     */
+    public AGCSoundSource(SoundSource src, int channel) {
+        if (channel < 0 || channel >= src.getChannels()) {
+            throw new IllegalArgumentException("Illegal channel.");
+        }
+
+        _src = src;
+        _channel = channel;
+
+        double rate = src.getSamplingRate();
+        _maxHalfWave = Math.max(1, (int) (rate * MAX_HALF_WAVE_TIME));
+        _minDropoutHalfWave = _maxHalfWave / 8;
+        _dcCoeff = 1 / (DC_TIME * rate);
+        _attackLen = ATTACK_TIME * rate;
+        _releaseLen = RELEASE_TIME * rate;
+        _refLen = REFERENCE_TIME * rate;
+        _dropoutMin = (int) (DROPOUT_MIN_TIME * rate);
+        _dropoutMax = (int) (DROPOUT_MAX_TIME * rate);
+        _buf = new float[Math.max(_maxHalfWave * 2, (int) (rate * BUFFER_TIME))];
+    }
+
+    public int getChannels() {
+        return _src.getChannels();
+    }
+
+    public int getSamplingRate() {
+        return _src.getSamplingRate();
+    }
+
+    public boolean canReadInt() {
+        return false;
+    }
+
+    /**
+     * 利得を制御した音声データを読み取る。
+     *
+     * @param channel どのチャネルを取得するか（コンストラクタで指定したチャネルのみ可）
+     * @param buf 出力先
+     * @param off 書き込み位置
+     * @param len 最大書き込み数
+     * @return 書き込んだ配列の数。既にストリームの終端に達している場合は-1
+     * @throws IOException
+     * @throws IllegalArgumentException channelがコンストラクタで指定したチャネルと異なる場合
+     */
+    public int readSound(int channel, float[] buf, int off, int len) throws IOException {
+        if (channel != _channel) {
+            throw new IllegalArgumentException("Illegal channel.");
+        }
+
+        int retlen = 0;
+        while (retlen < len) {
+            if (_outPos >= _outLen && !process()) {
+                break;
+            }
+
+            int n = Math.min(len - retlen, _outLen - _outPos);
+            System.arraycopy(_buf, _outPos, buf, off + retlen, n);
+            _outPos += n;
+            retlen += n;
+        }
+        return (retlen == 0) ? -1 : retlen;
+    }
+
+    /**
+     * 整数のPCMデータのままでは読み取れない。
+     *
+     * @throws UnsupportedOperationException 常に発生する
+     */
+    public int readSound(int channel, int[] buf, int off, int len) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 指定のフレーム数を読み飛ばす。
+     * 元の読み取り元で読み飛ばし、最後の基準レベルの時定数分だけは読み取って包絡線を追従させる。
+     *
+     * @param frames 読み飛ばすフレーム数
+     * @return 読み飛ばしたフレーム数。ストリームの終端に達した場合は指定より少ない
+     * @throws IOException
+     */
+    public long skipSound(long frames) throws IOException {
+        long done = 0;
+        long settle = (long) _refLen;
+        long buffered = _len - _outPos;
+        if (frames > buffered + settle) {
+            // バッファ内のデータを捨てる
+            _len = 0;
+            _outPos = 0;
+            _outLen = 0;
+            done = buffered;
+
+            long n = frames - done - settle;
+            long skipped = _eof ? 0 : _src.skipSound(n);
+            done += skipped;
+            if (skipped < n) {
+                _eof = true;
+                return done;
+            }
+        }
+
+        float[] buf = new float[_buf.length];
+        while (done < frames) {
+            int n = readSound(_channel, buf, 0, (int) Math.min(frames - done, buf.length));
+            if (n <= 0) {
+                break;
+            }
+            done += n;
+        }
+        return done;
+    }
+
+    /**
+     * 続きを読み取り、半波ごとに利得をかける。
+     * 最後の半波は終わりが分かってから利得をかけるため、バッファに残す。
+     *
+     * @return 利得をかけたデータがある場合はtrue
+     * @throws IOException
+     */
+    private boolean process() throws IOException {
+        // 出力済みの部分を捨てる
+        int rest = _len - _outPos;
+        System.arraycopy(_buf, _outPos, _buf, 0, rest);
+        _len = rest;
+        _outPos = 0;
+        _outLen = 0;
+
+        // 読み取り、直流成分を除く
+        while (!_eof && _len < _buf.length) {
+            int n = _src.readSound(_channel, _buf, _len, _buf.length - _len);
+            if (n <= 0) {
+                _eof = true;
+                break;
+            }
+            for (int i = _len; i < _len + n; i++) {
+                _dc += (_buf[i] - _dc) * _dcCoeff;
+                _buf[i] -= _dc;
+            }
+            _len += n;
+        }
+
+        // 半波（0を横切るまで。長い場合は最大の長さで区切る）ごとに利得をかける
+        int pos = 0;
+        while (pos < _len) {
+            boolean negative = _buf[pos] < 0;
+            int end = pos + 1;
+            while (end < _len && end - pos < _maxHalfWave && (_buf[end] < 0) == negative) {
+                end++;
+            }
+            if (end >= _len && !_eof && end - pos < _maxHalfWave) {
+                break;
+            }
+
+            end = findStep(pos, end);
+            float gain = (float) getGain(pos, end);
+            for (int i = pos; i < end; i++) {
+                _buf[i] *= gain;
+            }
+            pos = end;
+        }
+        _outLen = pos;
+        return _outLen > 0;
+    }
+
+    /**
+     * 半波の途中で急に音量が下がった場合（ドロップアウトの始まり）に、下がった位置を得る。
+     * 下がった後の部分は次の半波として利得を求める。
+     *
+     * @param pos 半波の先頭
+     * @param end 半波の終わり
+     * @return 音量が下がった位置。下がっていない場合はend
+     */
+    private int findStep(int pos, int end) {
+        float peak = 0;
+        for (int i = pos; i < end; i++) {
+            peak = Math.max(peak, Math.abs(_buf[i]));
+        }
+
+        // 終わりからピークの約-12dB未満が続く部分（正弦波では半波の1割に満たない）
+        int step = end;
+        while (step > pos && Math.abs(_buf[step - 1]) < peak * DROPOUT_RATIO) {
+            step--;
+        }
+        return (step > pos && end - step >= 2 && (end - step) * 4 >= end - pos) ? step : end;
+    }
+
+    /**
+     * 半波のピークから包絡線を更新し、利得を求める。
+     *
+     * @param pos 半波の先頭
+     * @param end 半波の終わり
+     * @return 利得
+     */
+    private double getGain(int pos, int end) {
+        float peak = 0;
+        for (int i = pos; i < end; i++) {
+            peak = Math.max(peak, Math.abs(_buf[i]));
+        }
+
+        int len = end - pos;
+        if (len < _minDropoutHalfWave) {
+            // 0交差付近の雑音の断片では、包絡線、利得を変えない
+            return _gain;
+        }
+
+        if (_dropoutLen > _dropoutMax) {
+            // 長く続いた場合は、無音部分か音量が下がったものとして、ドロップアウトを終える（数えない）
+            _dropoutLen = 0;
+            _recoverLen = 0;
+        } else if ((_dropoutLen > 0) ? peak < _env * RECOVER_RATIO : peak < _ref * DROPOUT_RATIO) {
+            // ドロップアウト中は包絡線、利得を変えず、基準レベルのみ追従させる（長く続いた場合のため）
+            _ref += (peak - _ref) * (1 - Math.exp(-len / _refLen));
+            _dropoutLen += len;
+            _recoverLen = 0;
+            return Math.min(_gain * DROPOUT_MAX_BOOST, TARGET_LEVEL / Math.max(peak, TARGET_LEVEL / MAX_GAIN));
+        } else if (_dropoutLen > 0 && (_recoverLen += len) >= _dropoutMin) {
+            // 信号が戻った
+            if (_dropoutLen >= _dropoutMin) {
+                _dropouts++;
+            }
+            _dropoutLen = 0;
+            _recoverLen = 0;
+        }
+
+        // 包絡線
+        double time = (peak > _env) ? _attackLen : _releaseLen;
+        _env += (peak - _env) * (1 - Math.exp(-len / time));
+
+        // 基準レベル
+        _ref += (_env - _ref) * (1 - Math.exp(-len / _refLen));
+
+        _gain = TARGET_LEVEL / Math.max(_env, TARGET_LEVEL / MAX_GAIN);
+        return _gain;
+    }
+
+    /**
+     * 検出したドロップアウトの数を得る。
+     *
+     * @return ドロップアウトの数
+     */
+    public int getDropoutCount() {
+        return _dropouts;
+    }
+
+    /**
+     * 元の読み取り元を閉じる。
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        _src.close();
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * @(#)BitClock.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+/**
+ * テープ速度の変動に追従するビットクロック
+ * <p>
+ * 測定した波の間隔から低周波数の周期を指数移動平均で推定し、FSKBitAnalyzerの判定位置を更新する。
+ * 高周波数の波の間隔は2倍して使う。ブランク（高周波数の連続）で推定値が定まり、
+ * その後のデータ部分でも推定し続ける。推定値から大きく外れた間隔（誤判定、雑音）は使わない。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+class BitClock {
+
+    /** 周期の変動を許す範囲（元の周期に対する割合） */
+    static final double DRIFT_LIMIT = 0.15;
+
+    /** 移動平均の重み（1/SMOOTHING） */
+    private static final int SMOOTHING = 16;
+
+    /** 推定値から外れているとみなす割合 */
+    private static final double OUTLIER_RATIO = 0.25;
+
+    private FSKBitAnalyzer _fsk;
+
+    private double _nominal;
+
+    /**
+     * コンストラクタ。解析クラスに周期の変動を許す範囲を設定する。
+     *
+     * @param fsk FSK変調の解析クラス
+     */
+    BitClock(FSKBitAnalyzer fsk) {
+        _fsk = fsk;
+        _nominal = fsk.getPeriod();
+        _fsk.setDriftLimit(DRIFT_LIMIT);
+    }
+
+    /**
+     * 測定した波の間隔で、周期の推定値を更新する。
+     *
+     * @param interval 波の間隔（サンプル数）
+     * @param isHighFreq 高周波数であるか
+     */
+    void update(int interval, boolean isHighFreq) {
+        double period = _fsk.getPeriod();
+        double measured = isHighFreq ? interval * 2 : interval;
+        if (Math.abs(measured - period) > period * OUTLIER_RATIO) {
+            return;
+        }
+        _fsk.setPeriod(period + (measured - period) / SMOOTHING);
+    }
+
+    /**
+     * 推定したテープ速度を得る。
+     *
+     * @return 元の速度に対する割合（1.0で等速）
+     */
+    double getSpeed() {
+        return _nominal / _fsk.getPeriod();
+    }
+}
@@ -0,0 +1,401 @@
+/**
+ * @(#)ConversionCache.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * 変換結果のキャッシュ
+ * <p>
+ * WAVファイルのdataチャンクとフォーマット（FLACファイルの場合はファイル全体）、変換パラメータ、デコーダのバージョンから
+ * 求めたハッシュ値をキーとして、P6ファイルとレポートをディレクトリに保存する。
+ * 合計サイズが上限を超えた場合は、最後に使われた日時が古いものから削除する。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class ConversionCache {
+
+    /** キャッシュサイズのデフォルト値（MB） */
+    public static final int SIZE_DEFAULT = 1024;
+
+    private static final String FILE_P6 = "data.P6";
+
+    private static final String FILE_REPORT = "report.log";
+
+    private static final String FILE_RESULT = "result";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** 同じJVM内での保存、削除の排他用 */
+    private static final Object LOCK = new Object();
+
+    private File _dir;
+
+    private long _maxSize;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param dir キャッシュディレクトリ
+     * @param maxSize キャッシュの合計サイズの上限（バイト）
+     */
+    public ConversionCache(File dir, long maxSize) {
+        _dir = dir;
+        _maxSize = maxSize;
+    }
+
+    /**
+     * キャッシュのキーを求める。
+     *
+     * @param wavFile WAVファイル
+     * @param params 変換パラメータ
+     * @return キー
+     * @throws IOException 読み取りに失敗した場合
+     * @throws UnsupportedAudioFileException WAVファイルの形式が正しくない場合
+     */
+    public String getKey(File wavFile, String params) throws IOException, UnsupportedAudioFileException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e.toString());
+        }
+
+        md.update((PTCLogic.DECODER_VERSION + "\n" + params + "\n").getBytes("UTF-8"));
+
+        // FLACはフォーマットがSTREAMINFOに含まれるため、ファイル全体
+        if (FLACInputStream.isFLAC(wavFile)) {
+            InputStream in = new FileInputStream(wavFile);
+            try {
+                md.update("flac\n".getBytes("UTF-8"));
+                byte[] buf = new byte[65536];
+                int len;
+                while ((len = in.read(buf)) > 0) {
+                    md.update(buf, 0, len);
+                }
+            } finally {
+                in.close();
+            }
+            return toHex(md.digest());
+        }
+
+        WAVInputStream in = new WAVInputStream(new FileInputStream(wavFile));
+        try {
+            md.update((in.getFormatId() + "," + in.getChannels() + "," + in.getSamplingRate() + ","
+                    + in.getBits() + "\n").getBytes("UTF-8"));
+
+            // dataチャンク
+            byte[] buf = new byte[65536];
+            int len;
+            while ((len = in.read(buf)) > 0) {
+                md.update(buf, 0, len);
+            }
+        } finally {
+            in.close();
+        }
+
+        return toHex(md.digest());
+    }
+
+    /**
+     * ハッシュ値を16進数の文字列にする。
+     *
+     * @param digest ハッシュ値
+     * @return 16進数の文字列
+     */
+    private static String toHex(byte[] digest) {
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX[(digest[i] >> 4) & 15];
+            hex[i * 2 + 1] = HEX[digest[i] & 15];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * キャッシュされた処理結果を得る。
+     *
+     * @param key キー
+     * @return 処理結果。キャッシュされていない場合は-1
+     */
+    public int getResult(String key) {
+        File entry = new File(_dir, key);
+        File resultFile = new File(entry, FILE_RESULT);
+        if (!resultFile.isFile()) {
+            return -1;
+        }
+
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(resultFile)));
+            try {
+                int result = Integer.parseInt(reader.readLine().trim());
+
+                // 最後に使われた日時を更新
+                entry.setLastModified(System.currentTimeMillis());
+                return result;
+            } finally {
+                reader.close();
+            }
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * キャッシュされたP6ファイルが、指定のファイルと同じ内容かを返す。
+     *
+     * @param key キー
+     * @param p6File 比較するP6ファイル
+     * @return 同じ内容の場合はtrue
+     */
+    public boolean isSameP6(String key, File p6File) {
+        File cached = new File(new File(_dir, key), FILE_P6);
+        if (!p6File.isFile() || cached.length() != p6File.length()) {
+            return false;
+        }
+
+        try {
+            InputStream a = new FileInputStream(cached);
+            InputStream b = new FileInputStream(p6File);
+            try {
+                byte[] bufA = new byte[8192];
+                byte[] bufB = new byte[8192];
+                int len;
+                while ((len = readFully(a, bufA)) > 0) {
+                    if (readFully(b, bufB) != len || !Arrays.equals(bufA, bufB)) {
+                        return false;
+                    }
+                }
+                return true;
+            } finally {
+                a.close();
+                b.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * キャッシュされたP6ファイルとレポートを書き出す。
+     * レポートの1行目（出力ファイル名）は、書き出し先に合わせて書き換える。
+     *
+     * @param key キー
+     * @param p6File P6ファイルの書き出し先
+     * @param repFile レポートファイルの書き出し先
+     * @throws IOException 書き出しに失敗した場合
+     */
+    public void restore(String key, File p6File, File repFile) throws IOException {
+        File entry = new File(_dir, key);
+
+        copy(new File(entry, FILE_P6), p6File);
+
+        PrintStream report = new PrintStream(new FileOutputStream(repFile));
+        try {
+            report.print(P6TapeConvertorMain.REPORT_OUTPUT_FILE);
+            report.println(p6File.getAbsolutePath());
+            InputStream in = new FileInputStream(new File(entry, FILE_REPORT));
+            try {
+                copy(in, report);
+            } finally {
+                in.close();
+            }
+        } finally {
+            report.close();
+        }
+    }
+
+    /**
+     * P6ファイルとレポートをキャッシュに保存する。
+     * レポートの1行目（出力ファイル名）は保存しない。
+     *
+     * @param key キー
+     * @param result 処理結果
+     * @param p6File P6ファイル
+     * @param repFile レポートファイル
+     * @throws IOException 保存に失敗した場合
+     */
+    public void store(String key, int result, File p6File, File repFile) throws IOException {
+        _dir.mkdirs();
+        File entry = new File(_dir, key);
+        if (entry.exists()) {
+            return;
+        }
+
+        // 一時ディレクトリに作ってから名前を変える
+        File tmp = new File(_dir, key + ".tmp" + Thread.currentThread().getId());
+        tmp.mkdirs();
+        copy(p6File, new File(tmp, FILE_P6));
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(repFile)));
+        PrintStream report = new PrintStream(new FileOutputStream(new File(tmp, FILE_REPORT)));
+        try {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                report.println(line);
+            }
+        } finally {
+            reader.close();
+            report.close();
+        }
+
+        PrintStream out = new PrintStream(new FileOutputStream(new File(tmp, FILE_RESULT)));
+        out.println(result);
+        out.close();
+
+        if (!tmp.renameTo(entry)) {
+            deleteEntry(tmp);
+        }
+
+        evict();
+    }
+
+    /**
+     * 合計サイズが上限を超えている場合、最後に使われた日時が古いものから削除する。
+     */
+    private void evict() {
+        synchronized (LOCK) {
+            File[] entries = _dir.listFiles(new FileFilter() {
+
+                public boolean accept(File f) {
+                    return f.isDirectory() && f.getName().indexOf('.') < 0;
+                }
+            });
+            if (entries == null) return;
+
+            long total = 0;
+            final long[] modified = new long[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                total += getSize(entries[i]);
+            }
+            if (total <= _maxSize) return;
+
+            for (int i = 0; i < entries.length; i++) {
+                modified[i] = entries[i].lastModified();
+            }
+            Integer[] order = new Integer[entries.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = Integer.valueOf(i);
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+
+                public int compare(Integer a, Integer b) {
+                    long d = modified[a.intValue()] - modified[b.intValue()];
+                    return (d < 0) ? -1 : ((d > 0) ? 1 : 0);
+                }
+            });
+
+            for (int i = 0; i < order.length && total > _maxSize; i++) {
+                File entry = entries[order[i].intValue()];
+                total -= getSize(entry);
+                deleteEntry(entry);
+            }
+        }
+    }
+
+    /**
+     * エントリのサイズを得る。
+     *
+     * @param entry エントリのディレクトリ
+     * @return サイズ（バイト）
+     */
+    private static long getSize(File entry) {
+        long size = 0;
+        File[] files = entry.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                size += f.length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * エントリを削除する。
+     *
+     * @param entry エントリのディレクトリ
+     */
+    private static void deleteEntry(File entry) {
+        File[] files = entry.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        entry.delete();
+    }
+
+    /**
+     * ファイルをコピーする。
+     *
+     * @param src コピー元
+     * @param dest コピー先
+     * @throws IOException
+     */
+    private static void copy(File src, File dest) throws IOException {
+        InputStream in = new FileInputStream(src);
+        try {
+            OutputStream out = new FileOutputStream(dest);
+            try {
+                copy(in, out);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * ストリームの内容をコピーする。
+     *
+     * @param in コピー元
+     * @param out コピー先
+     * @throws IOException
+     */
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buf = new byte[8192];
+        int len;
+        while ((len = in.read(buf)) > 0) {
+            out.write(buf, 0, len);
+        }
+    }
+
+    /**
+     * バッファが一杯になるか、ストリームの終端に達するまで読み取る。
+     *
+     * @param in 入力
+     * @param buf バッファ
+     * @return 読み取ったバイト数
+     * @throws IOException
+     */
+    private static int readFully(InputStream in, byte[] buf) throws IOException {
+        int pos = 0;
+        int len;
+        while (pos < buf.length && (len = in.read(buf, pos, buf.length - pos)) > 0) {
+            pos += len;
+        }
+        Arrays.fill(buf, pos, buf.length, (byte) 0);
+        return pos;
+    }
+}
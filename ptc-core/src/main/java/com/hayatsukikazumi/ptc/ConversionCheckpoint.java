@@ -0,0 +1,303 @@
+/**
+ * @(#)ConversionCheckpoint.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 変換の途中経過（チェックポイント）
+ * <p>
+ * 長時間の音声の変換が途中で終了しても、次回は最後に記録した位置から
+ * 再開して、同じP6ファイルとレポートファイルに続きを書き込むためのもの。
+ * 変換の開始時に出力ファイル名を記録し、ブランクを検出するたびと、ブロックの途中では一定の間隔ごとに
+ * バイトを読み終えた位置で、その位置、P6ファイル内の位置、残りのブランクの数、ブランクの中か、
+ * 低周波数の周期、無音、雑音とFSK変調の信号の判定状況、出力ファイルのサイズを記録する。
+ * 変換の解析は読み取り位置より後のデータのみを使うため、再開した変換結果は
+ * 途中で終了しなかった場合と同じになる。ただし、自動利得制御は再開した位置から（包絡線、
+ * ドロップアウトの数も0から）やり直すため、自動利得制御をかけた場合の変換結果とドロップアウトの数は
+ * 異なることがある。
+ * <p>
+ * 音声ファイルと同じ名前で拡張子を.ptkにしたファイルに保存する（一時ファイルに書き込んでから置き換える）。
+ * 音声ファイルのサイズ、更新日時、デコード結果に影響するオプションが異なる場合は使わない。
+ * <p>
+ * ファイルの形式（テキスト）<br>
+ * 1行目：PTK2 音声ファイルのサイズ 更新日時<br>
+ * 2行目：デコード結果に影響するパラメータ<br>
+ * 3行目：P6ファイル名<br>
+ * 4行目：レポートファイル名<br>
+ * 5行目（記録した後のみ）：位置 P6ファイル内の位置 残りのブランクの数 書き込み済みか ブランクの中か 周期
+ * 無音、雑音の判定済みの位置 FSK変調の信号を調べる範囲の終わり 調べ終わった位置 続いている数
+ * P6ファイルのサイズ レポートファイルのサイズ 判定結果ごとのバイト数
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class ConversionCheckpoint {
+
+    /** チェックポイントファイルの拡張子 */
+    public static final String EXT_CHECKPOINT = ".ptk";
+
+    private static final String MAGIC = "PTK2";
+
+    private File _file;
+
+    private long _sourceLength;
+
+    private long _sourceModified;
+
+    private String _params;
+
+    private File _p6File;
+
+    private File _reportFile;
+
+    /** 変換の途中の状態を記録したか */
+    private boolean _saved;
+
+    long _position;
+    int _destpos;
+    int _leaders;
+    boolean _written;
+    boolean _inLeader;
+    double _period;
+    long _gapCheckedTo;
+    long _toneCheckTo;
+    long _toneCheckedTo;
+    int _toneBlocks;
+    int[] _judgeCounts = new int[FSKBitAnalyzer.SignalJudge.values().length];
+
+    private long _p6Length;
+
+    private long _reportLength;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param file チェックポイントファイル
+     * @param source 音声ファイル
+     * @param params デコード結果に影響するパラメータ
+     * @param p6File P6ファイル
+     * @param reportFile レポートファイル
+     */
+    public ConversionCheckpoint(File file, File source, String params, File p6File, File reportFile) {
+        _file = file;
+        _sourceLength = source.length();
+        _sourceModified = source.lastModified();
+        _params = params;
+        _p6File = p6File;
+        _reportFile = reportFile;
+    }
+
+    /**
+     * 音声ファイルのチェックポイントファイルを得る。
+     *
+     * @param fileName 音声ファイル名
+     * @param dir チェックポイントファイルのディレクトリ（nullの場合はカレントディレクトリ）
+     * @return チェックポイントファイル
+     */
+    public static File getCheckpointFile(String fileName, File dir) {
+        int dot = fileName.lastIndexOf('.');
+        String base = (dot > 0) ? fileName.substring(0, dot) : fileName;
+        return new File(dir, base + EXT_CHECKPOINT);
+    }
+
+    /**
+     * 途中経過を記録できるオプションかを返す。
+     * インデックスの記録（-x）、ブロックの指定（-bN）、P6Tファイルの書き込み（-T）とは同時に使えない。
+     *
+     * @param options 変換オプション
+     * @return 途中経過を記録しない場合、または記録できる場合はtrue
+     */
+    public static boolean isSupported(PTCOptions options) {
+        return !options.isCheckpoint()
+                || (!options.isWriteIndex() && options.getBlock() == 0 && !options.isWriteP6T());
+    }
+
+    /**
+     * P6ファイルを得る。
+     *
+     * @return P6ファイル
+     */
+    public File getP6File() {
+        return _p6File;
+    }
+
+    /**
+     * レポートファイルを得る。
+     *
+     * @return レポートファイル
+     */
+    public File getReportFile() {
+        return _reportFile;
+    }
+
+    /**
+     * 変換の途中の状態を記録したかを返す。
+     *
+     * @return 記録した場合はtrue（その位置から再開できる）。falseの場合は最初から変換する
+     */
+    public boolean isSaved() {
+        return _saved;
+    }
+
+    /**
+     * 出力ファイルを、記録したサイズに切り詰める（記録した後に書き込んだ部分を捨てる）。
+     * 記録していない場合は空にする。
+     *
+     * @throws IOException 切り詰めに失敗した場合
+     */
+    public void truncate() throws IOException {
+        truncate(_p6File, _saved ? _p6Length : 0);
+        truncate(_reportFile, _saved ? _reportLength : 0);
+    }
+
+    /**
+     * 現在の状態を記録する。出力ファイルは書き出し済み（flush済み）であること。
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void save() throws IOException {
+        _p6Length = _p6File.length();
+        _reportLength = _reportFile.length();
+        _saved = true;
+        write();
+    }
+
+    /**
+     * チェックポイントファイルに書き込む。一時ファイルに書き込んでから置き換える。
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void write() throws IOException {
+        File dir = _file.getAbsoluteFile().getParentFile();
+        Path temp = Files.createTempFile(dir.toPath(), _file.getName() + ".", ".tmp");
+        PrintStream out = new PrintStream(temp.toFile(), "UTF-8");
+        try {
+            out.println(MAGIC + " " + _sourceLength + " " + _sourceModified);
+            out.println(_params);
+            out.println(_p6File.getName());
+            out.println(_reportFile.getName());
+            if (_saved) {
+                StringBuilder sb = new StringBuilder();
+                sb.append(_position).append(' ').append(_destpos).append(' ').append(_leaders).append(' ')
+                        .append(_written).append(' ').append(_inLeader).append(' ').append(_period).append(' ').append(_gapCheckedTo).append(' ')
+                        .append(_toneCheckTo).append(' ').append(_toneCheckedTo).append(' ').append(_toneBlocks)
+                        .append(' ').append(_p6Length).append(' ').append(_reportLength);
+                for (int c : _judgeCounts) {
+                    sb.append(' ').append(c);
+                }
+                out.println(sb);
+            }
+        } finally {
+            out.close();
+        }
+        Files.move(temp, _file.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+    }
+
+    /**
+     * チェックポイントファイルを削除する（変換を終えた場合）。
+     */
+    public void delete() {
+        _file.delete();
+    }
+
+    /**
+     * チェックポイントファイルを読み込む。
+     *
+     * @param file チェックポイントファイル
+     * @param source 音声ファイル
+     * @param params デコード結果に影響するパラメータ
+     * @return チェックポイント。ファイルがない、形式が正しくない、音声ファイルかパラメータが異なる、
+     *         または出力ファイルが記録したサイズより短い場合はnull
+     */
+    public static ConversionCheckpoint read(File file, File source, String params) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            try {
+                String line = in.readLine();
+                String[] head = (line != null) ? line.split(" ") : new String[0];
+                if (head.length < 3 || !MAGIC.equals(head[0]) || Long.parseLong(head[1]) != source.length()
+                        || Long.parseLong(head[2]) != source.lastModified() || !params.equals(in.readLine())) {
+                    return null;
+                }
+
+                File dir = file.getParentFile();
+                String p6Name = in.readLine();
+                String reportName = in.readLine();
+                if (p6Name == null || reportName == null) {
+                    return null;
+                }
+                ConversionCheckpoint cp = new ConversionCheckpoint(file, source, params, new File(dir, p6Name),
+                        new File(dir, reportName));
+                if (!cp._p6File.isFile() || !cp._reportFile.isFile()) {
+                    return null;
+                }
+
+                line = in.readLine();
+                if (line == null) {
+                    return cp;
+                }
+                String[] v = line.split(" ");
+                if (v.length < 12 + cp._judgeCounts.length) {
+                    return null;
+                }
+                cp._position = Long.parseLong(v[0]);
+                cp._destpos = Integer.parseInt(v[1]);
+                cp._leaders = Integer.parseInt(v[2]);
+                cp._written = Boolean.parseBoolean(v[3]);
+                cp._inLeader = Boolean.parseBoolean(v[4]);
+                cp._period = Double.parseDouble(v[5]);
+                cp._gapCheckedTo = Long.parseLong(v[6]);
+                cp._toneCheckTo = Long.parseLong(v[7]);
+                cp._toneCheckedTo = Long.parseLong(v[8]);
+                cp._toneBlocks = Integer.parseInt(v[9]);
+                cp._p6Length = Long.parseLong(v[10]);
+                cp._reportLength = Long.parseLong(v[11]);
+                for (int i = 0; i < cp._judgeCounts.length; i++) {
+                    cp._judgeCounts[i] = Integer.parseInt(v[12 + i]);
+                }
+                if (cp._p6File.length() < cp._p6Length || cp._reportFile.length() < cp._reportLength) {
+                    return null;
+                }
+                cp._saved = true;
+                return cp;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * ファイルを指定のサイズに切り詰める。
+     */
+    private static void truncate(File file, long length) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(length);
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,758 @@
+/**
+ * @(#)FLACInputStream.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * FLACフォーマットを読み取るクラス
+ * <p>
+ * ストリームの先頭からフレームを順にデコードする。フレームのヘッダのCRC-8とフレーム全体のCRC-16を検査する。
+ * シークテーブル、MD5による検証は行わない。サンプルあたり24ビットまでに対応する。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class FLACInputStream implements SoundSource {
+
+    /** ストリームの先頭の識別子 */
+    private static final byte[] MAGIC = { 'f', 'L', 'a', 'C' };
+
+    /** 対応する最大のビット数 */
+    private static final int MAX_BITS = 24;
+
+    private static final int BLOCK_STREAMINFO = 0;
+
+    private static final int CHANNELS_LEFT_SIDE = 8;
+    private static final int CHANNELS_SIDE_RIGHT = 9;
+    private static final int CHANNELS_MID_SIDE = 10;
+
+    /** CRC-8（多項式 x^8+x^2+x+1）の表 */
+    private static final int[] CRC8 = new int[256];
+    /** CRC-16（多項式 x^16+x^15+x^2+1）の表 */
+    private static final int[] CRC16 = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int c8 = i;
+            int c16 = i << 8;
+            for (int j = 0; j < 8; j++) {
+                c8 = ((c8 & 0x80) != 0) ? (c8 << 1) ^ 0x07 : c8 << 1;
+                c16 = ((c16 & 0x8000) != 0) ? (c16 << 1) ^ 0x8005 : c16 << 1;
+            }
+            CRC8[i] = c8 & 0xff;
+            CRC16[i] = c16 & 0xffff;
+        }
+    }
+
+    /** 元となるInputStream */
+    private InputStream _in;
+    /** 入力バッファ */
+    private byte[] _inBuf = new byte[8192];
+    private int _inPos;
+    private int _inLimit;
+
+    /** ビット読み取り用バッファ */
+    private long _bitBuf;
+    /** ビット読み取り用バッファの有効ビット数 */
+    private int _bitCount;
+
+    /** 読み取ったバイトのCRC-8、CRC-16 */
+    private int _crc8;
+    private int _crc16;
+
+    /** チャネル数 */
+    private int _channels;
+    /** サンプリング周波数 */
+    private int _samplingRate;
+    /** ビット数 */
+    private int _bits;
+    /** 全サンプル数（不明の場合は0） */
+    private long _totalSamples;
+
+    /** デコードしたブロック */
+    private int[][] _block;
+    /** デコードしたブロックのサンプル数 */
+    private int _blockSize;
+    /** ブロック内の読み取り位置 */
+    private int _blockPos;
+    /** ストリームの終端に達したか */
+    private boolean _eof;
+
+    /**
+     * 元となるInputStreamからメタデータを読みこむ。
+     *
+     * @param in 元となるInputStream
+     * @throws UnsupportedAudioFileException FLACファイルの形式が正しくない場合
+     * @throws IOException 読み取りに失敗した場合
+     */
+    public FLACInputStream(InputStream in) throws UnsupportedAudioFileException, IOException {
+        _in = in;
+        readMetadata();
+    }
+
+    /**
+     * ファイルがFLACフォーマットかを、先頭の識別子で判定する。
+     *
+     * @param file ファイル
+     * @return FLACフォーマットの場合はtrue
+     * @throws IOException 読み取りに失敗した場合
+     */
+    public static boolean isFLAC(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return readMagic(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * ストリームがFLACフォーマットかを、先頭の識別子で判定する。読み取り位置は変えない。
+     *
+     * @param in ストリーム（markに対応していること）
+     * @return FLACフォーマットの場合はtrue
+     * @throws IOException 読み取りに失敗した場合
+     */
+    public static boolean isFLAC(InputStream in) throws IOException {
+        in.mark(MAGIC.length);
+        try {
+            return readMagic(in);
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * 先頭の識別子を読み取り、FLACフォーマットかを判定する。
+     *
+     * @param in ストリーム
+     * @return FLACフォーマットの場合はtrue
+     * @throws IOException 読み取りに失敗した場合
+     */
+    private static boolean readMagic(InputStream in) throws IOException {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (in.read() != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getChannels() {
+        return _channels;
+    }
+
+    public int getSamplingRate() {
+        return _samplingRate;
+    }
+
+    /**
+     * ビット数を得る。
+     *
+     * @return ビット数
+     */
+    public int getBits() {
+        return _bits;
+    }
+
+    /**
+     * 全サンプル数（1チャネル分）を得る。
+     *
+     * @return 全サンプル数。不明の場合は0
+     */
+    public long getTotalSamples() {
+        return _totalSamples;
+    }
+
+    /**
+     * 音声データを読み取る。値はWAVファイルのリニアPCMと同じく-1〜1の範囲になる。
+     * channelに負の数を指定した場合、出力先配列にはステレオ音声ではL,R,L,R,…の順に出力される。
+     *
+     * @param channel どのチャネルを取得するか（負の数：全部のチャネル）
+     * @param buf 出力先
+     * @param off 書き込み位置
+     * @param len 最大書き込み数
+     * @return 書き込んだ配列の数。既にストリームの終端に達している場合は-1
+     * @throws IOException
+     * @throws IllegalArgumentException channel &gt;= チャネル数の場合
+     */
+    public int readSound(int channel, float[] buf, int off, int len) throws IOException {
+        if (channel >= _channels) {
+            throw new IllegalArgumentException("Illegal channel.");
+        }
+
+        float scale = 1.0f / (1 << (_bits - 1));
+        int maxlen = (channel < 0) ? (len / _channels) * _channels : len;
+        int retlen = 0;
+
+        while (retlen < maxlen) {
+            if (_blockPos >= _blockSize && !readFrame()) {
+                return (retlen == 0) ? -1 : retlen;
+            }
+
+            int n = Math.min(_blockSize - _blockPos, (channel < 0) ? (maxlen - retlen) / _channels : maxlen - retlen);
+            if (channel < 0) {
+                int pos = off + retlen;
+                for (int i = _blockPos; i < _blockPos + n; i++) {
+                    for (int j = 0; j < _channels; j++) {
+                        buf[pos++] = _block[j][i] * scale;
+                    }
+                }
+                retlen += n * _channels;
+            } else {
+                int[] src = _block[channel];
+                int pos = off + retlen;
+                for (int i = 0; i < n; i++) {
+                    buf[pos + i] = src[_blockPos + i] * scale;
+                }
+                retlen += n;
+            }
+            _blockPos += n;
+        }
+
+        return retlen;
+    }
+
+    /**
+     * 整数のPCMデータのまま読み取れるかを返す。
+     *
+     * @return readSound(int, int[], int, int)で読み取れる場合はtrue
+     */
+    public boolean canReadInt() {
+        return true;
+    }
+
+    /**
+     * 音声データを整数のPCMデータのまま読み取る。
+     * channelに負の数を指定した場合、出力先配列にはステレオ音声ではL,R,L,R,…の順に出力される。
+     *
+     * @param channel どのチャネルを取得するか（負の数：全部のチャネル）
+     * @param buf 出力先
+     * @param off 書き込み位置
+     * @param len 最大書き込み数
+     * @return 書き込んだ配列の数。既にストリームの終端に達している場合は-1
+     * @throws IOException
+     * @throws IllegalArgumentException channel &gt;= チャネル数の場合
+     */
+    public int readSound(int channel, int[] buf, int off, int len) throws IOException {
+        if (channel >= _channels) {
+            throw new IllegalArgumentException("Illegal channel.");
+        }
+
+        int maxlen = (channel < 0) ? (len / _channels) * _channels : len;
+        int retlen = 0;
+
+        while (retlen < maxlen) {
+            if (_blockPos >= _blockSize && !readFrame()) {
+                return (retlen == 0) ? -1 : retlen;
+            }
+
+            int n = Math.min(_blockSize - _blockPos, (channel < 0) ? (maxlen - retlen) / _channels : maxlen - retlen);
+            if (channel < 0) {
+                int pos = off + retlen;
+                for (int i = _blockPos; i < _blockPos + n; i++) {
+                    for (int j = 0; j < _channels; j++) {
+                        buf[pos++] = _block[j][i];
+                    }
+                }
+                retlen += n * _channels;
+            } else {
+                System.arraycopy(_block[channel], _blockPos, buf, off + retlen, n);
+                retlen += n;
+            }
+            _blockPos += n;
+        }
+
+        return retlen;
+    }
+
+    /**
+     * 指定のフレーム数を読み飛ばす。フレームはデコードするが、出力先には書き込まない。
+     *
+     * @param frames 読み飛ばすフレーム数
+     * @return 読み飛ばしたフレーム数。ストリームの終端に達した場合は指定より少ない
+     * @throws IOException
+     */
+    public long skipSound(long frames) throws IOException {
+        long done = 0;
+        while (done < frames) {
+            if (_blockPos >= _blockSize && !readFrame()) {
+                break;
+            }
+            int n = (int) Math.min(_blockSize - _blockPos, frames - done);
+            _blockPos += n;
+            done += n;
+        }
+        return done;
+    }
+
+    public void close() throws IOException {
+        _in.close();
+    }
+
+    /**
+     * 識別子とメタデータブロックを読み取る。STREAMINFO以外のブロックは読み飛ばす。
+     *
+     * @throws UnsupportedAudioFileException FLACファイルの形式が正しくない場合
+     * @throws IOException 読み取りに失敗した場合
+     */
+    private void readMetadata() throws UnsupportedAudioFileException, IOException {
+        try {
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (readBits(8) != MAGIC[i]) {
+                    throw new UnsupportedAudioFileException();
+                }
+            }
+
+            boolean hasInfo = false;
+            boolean last = false;
+            while (!last) {
+                last = readBits(1) != 0;
+                int type = readBits(7);
+                int length = readBits(24);
+
+                if (type == BLOCK_STREAMINFO) {
+                    // 最小、最大ブロックサイズ、最小、最大フレームサイズ
+                    readBits(16);
+                    int maxBlockSize = readBits(16);
+                    readBits(24);
+                    readBits(24);
+
+                    _samplingRate = readBits(20);
+                    _channels = readBits(3) + 1;
+                    _bits = readBits(5) + 1;
+                    _totalSamples = ((long) readBits(4) << 32) | (readBits(32) & 0xffffffffL);
+
+                    // MD5
+                    skipBytes(length - 18);
+
+                    _block = new int[_channels][Math.max(maxBlockSize, 16)];
+                    hasInfo = true;
+                } else {
+                    skipBytes(length);
+                }
+            }
+
+            if (!hasInfo || _samplingRate == 0 || _bits > MAX_BITS) {
+                throw new UnsupportedAudioFileException();
+            }
+        } catch (EOFException e) {
+            throw new UnsupportedAudioFileException();
+        }
+    }
+
+    /**
+     * 1フレームを読み取り、デコードする。
+     *
+     * @return フレームを読み取れた場合はtrue、ストリームの終端に達した場合はfalse
+     * @throws IOException 読み取りに失敗した場合、フレームの形式が正しくない場合、CRCが一致しない場合
+     */
+    private boolean readFrame() throws IOException {
+        if (_eof) {
+            return false;
+        }
+
+        // フレームの先頭はバイト境界から始まる
+        _bitCount = 0;
+        _crc8 = 0;
+        _crc16 = 0;
+        int b = readByte();
+        if (b < 0) {
+            _eof = true;
+            return false;
+        }
+
+        // 同期コード(14ビット)、予約(1ビット)、ブロック方式(1ビット)
+        int sync = (b << 8) | readBits(8);
+        if ((sync & 0xfffe) != 0xfff8) {
+            throw new IOException("FLAC frame sync not found.");
+        }
+
+        int blockSizeCode = readBits(4);
+        int rateCode = readBits(4);
+        int channelCode = readBits(4);
+        int bitsCode = readBits(3);
+        readBits(1);
+
+        // フレーム番号またはサンプル番号（UTF-8の形式）
+        int head = readBits(8);
+        int extra = 0;
+        while ((head & (0x80 >> extra)) != 0 && extra < 7) {
+            extra++;
+        }
+        for (int i = 1; i < extra; i++) {
+            readBits(8);
+        }
+
+        int blockSize;
+        if (blockSizeCode == 1) {
+            blockSize = 192;
+        } else if (blockSizeCode >= 2 && blockSizeCode <= 5) {
+            blockSize = 576 << (blockSizeCode - 2);
+        } else if (blockSizeCode == 6) {
+            blockSize = readBits(8) + 1;
+        } else if (blockSizeCode == 7) {
+            blockSize = readBits(16) + 1;
+        } else if (blockSizeCode >= 8) {
+            blockSize = 256 << (blockSizeCode - 8);
+        } else {
+            throw new IOException("FLAC reserved block size.");
+        }
+
+        if (rateCode == 12) {
+            readBits(8);
+        } else if (rateCode == 13 || rateCode == 14) {
+            readBits(16);
+        }
+
+        int bits;
+        switch (bitsCode) {
+        case 0:
+            bits = _bits;
+            break;
+        case 1:
+            bits = 8;
+            break;
+        case 2:
+            bits = 12;
+            break;
+        case 4:
+            bits = 16;
+            break;
+        case 5:
+            bits = 20;
+            break;
+        case 6:
+            bits = 24;
+            break;
+        default:
+            throw new IOException("FLAC unsupported sample size.");
+        }
+
+        // CRC-8（ヘッダはバイト単位なので、ここまでに読んだバイトがヘッダ全体）
+        int crc8 = _crc8;
+        if (readBits(8) != crc8) {
+            throw new IOException("FLAC frame header CRC mismatch.");
+        }
+
+        int channels = (channelCode < CHANNELS_LEFT_SIDE) ? channelCode + 1 : 2;
+        if (channels != _channels || channelCode > CHANNELS_MID_SIDE) {
+            throw new IOException("FLAC illegal channel assignment.");
+        }
+        if (_block[0].length < blockSize) {
+            _block = new int[_channels][blockSize];
+        }
+
+        // サブフレーム（side チャネルは1ビット多い）
+        for (int ch = 0; ch < channels; ch++) {
+            boolean side = (channelCode == CHANNELS_LEFT_SIDE && ch == 1)
+                    || (channelCode == CHANNELS_SIDE_RIGHT && ch == 0)
+                    || (channelCode == CHANNELS_MID_SIDE && ch == 1);
+            readSubframe(_block[ch], blockSize, side ? bits + 1 : bits);
+        }
+
+        // チャネル間の相関を戻す
+        int[] a = _block[0];
+        int[] c = (channels > 1) ? _block[1] : null;
+        switch (channelCode) {
+        case CHANNELS_LEFT_SIDE:
+            for (int i = 0; i < blockSize; i++) {
+                c[i] = a[i] - c[i];
+            }
+            break;
+        case CHANNELS_SIDE_RIGHT:
+            for (int i = 0; i < blockSize; i++) {
+                a[i] += c[i];
+            }
+            break;
+        case CHANNELS_MID_SIDE:
+            for (int i = 0; i < blockSize; i++) {
+                int mid = (a[i] << 1) | (c[i] & 1);
+                int side = c[i];
+                a[i] = (mid + side) >> 1;
+                c[i] = (mid - side) >> 1;
+            }
+            break;
+        default:
+            break;
+        }
+
+        // バイト境界までの詰め物、CRC-16
+        _bitCount -= _bitCount % 8;
+        int crc16 = _crc16;
+        if (readBits(16) != crc16) {
+            throw new IOException("FLAC frame CRC mismatch.");
+        }
+
+        _blockSize = blockSize;
+        _blockPos = 0;
+        return true;
+    }
+
+    /**
+     * サブフレームを読み取り、デコードする。
+     *
+     * @param out 出力先
+     * @param blockSize サンプル数
+     * @param bits ビット数
+     * @throws IOException 読み取りに失敗した場合、サブフレームの形式が正しくない場合
+     */
+    private void readSubframe(int[] out, int blockSize, int bits) throws IOException {
+        readBits(1);
+        int type = readBits(6);
+
+        // 下位の使われないビット数
+        int wasted = 0;
+        if (readBits(1) != 0) {
+            wasted = readUnary() + 1;
+            bits -= wasted;
+        }
+
+        if (type == 0) {
+            // CONSTANT
+            int v = readSignedBits(bits);
+            for (int i = 0; i < blockSize; i++) {
+                out[i] = v;
+            }
+        } else if (type == 1) {
+            // VERBATIM
+            for (int i = 0; i < blockSize; i++) {
+                out[i] = readSignedBits(bits);
+            }
+        } else if (type >= 8 && type <= 12) {
+            // FIXED
+            int order = type - 8;
+            for (int i = 0; i < order; i++) {
+                out[i] = readSignedBits(bits);
+            }
+            readResidual(out, blockSize, order);
+            restoreFixed(out, blockSize, order);
+        } else if (type >= 32) {
+            // LPC
+            int order = type - 31;
+            for (int i = 0; i < order; i++) {
+                out[i] = readSignedBits(bits);
+            }
+            int precision = readBits(4) + 1;
+            if (precision == 16) {
+                throw new IOException("FLAC illegal LPC precision.");
+            }
+            int shift = readSignedBits(5);
+            int[] coefs = new int[order];
+            for (int i = 0; i < order; i++) {
+                coefs[i] = readSignedBits(precision);
+            }
+            readResidual(out, blockSize, order);
+            restoreLPC(out, blockSize, coefs, shift);
+        } else {
+            throw new IOException("FLAC reserved subframe type.");
+        }
+
+        if (wasted > 0) {
+            for (int i = 0; i < blockSize; i++) {
+                out[i] <<= wasted;
+            }
+        }
+    }
+
+    /**
+     * 残差（Riceコード）を読み取る。
+     *
+     * @param out 出力先（予測次数の位置から書き込む）
+     * @param blockSize サンプル数
+     * @param order 予測次数
+     * @throws IOException 読み取りに失敗した場合、残差の形式が正しくない場合
+     */
+    private void readResidual(int[] out, int blockSize, int order) throws IOException {
+        int method = readBits(2);
+        if (method > 1) {
+            throw new IOException("FLAC reserved residual coding method.");
+        }
+        int paramBits = (method == 0) ? 4 : 5;
+        int escape = (1 << paramBits) - 1;
+
+        int partitionOrder = readBits(4);
+        int partitions = 1 << partitionOrder;
+        int pos = order;
+
+        for (int p = 0; p < partitions; p++) {
+            int count = (blockSize >> partitionOrder) - ((p == 0) ? order : 0);
+            int param = readBits(paramBits);
+
+            if (param == escape) {
+                // 符号化されていない値
+                int n = readBits(5);
+                for (int i = 0; i < count; i++) {
+                    out[pos++] = readSignedBits(n);
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    int u = (readUnary() << param) | readBits(param);
+                    out[pos++] = (u >>> 1) ^ -(u & 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * 固定の予測式で、残差から値を復元する。
+     *
+     * @param s 残差（復元した値で上書きする）
+     * @param blockSize サンプル数
+     * @param order 予測次数
+     */
+    private static void restoreFixed(int[] s, int blockSize, int order) {
+        switch (order) {
+        case 1:
+            for (int i = 1; i < blockSize; i++) {
+                s[i] += s[i - 1];
+            }
+            break;
+        case 2:
+            for (int i = 2; i < blockSize; i++) {
+                s[i] += 2 * s[i - 1] - s[i - 2];
+            }
+            break;
+        case 3:
+            for (int i = 3; i < blockSize; i++) {
+                s[i] += 3 * s[i - 1] - 3 * s[i - 2] + s[i - 3];
+            }
+            break;
+        case 4:
+            for (int i = 4; i < blockSize; i++) {
+                s[i] += 4 * s[i - 1] - 6 * s[i - 2] + 4 * s[i - 3] - s[i - 4];
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * 線形予測の係数で、残差から値を復元する。
+     *
+     * @param s 残差（復元した値で上書きする）
+     * @param blockSize サンプル数
+     * @param coefs 係数
+     * @param shift 予測値の右シフト量
+     */
+    private static void restoreLPC(int[] s, int blockSize, int[] coefs, int shift) {
+        int order = coefs.length;
+        for (int i = order; i < blockSize; i++) {
+            long sum = 0;
+            for (int j = 0; j < order; j++) {
+                sum += (long) coefs[j] * s[i - 1 - j];
+            }
+            s[i] += (int) (sum >> shift);
+        }
+    }
+
+    /**
+     * 符号なしの値を読み取る。
+     *
+     * @param n ビット数（32以下）
+     * @return 値
+     * @throws IOException 読み取りに失敗した場合、ストリームの終端に達した場合
+     */
+    private int readBits(int n) throws IOException {
+        if (n == 0) {
+            return 0;
+        }
+        while (_bitCount < n) {
+            int b = readByte();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            _bitBuf = (_bitBuf << 8) | b;
+            _bitCount += 8;
+        }
+        _bitCount -= n;
+        return (int) ((_bitBuf >>> _bitCount) & ((1L << n) - 1));
+    }
+
+    /**
+     * 符号付きの値を読み取る。
+     *
+     * @param n ビット数（32以下）
+     * @return 値
+     * @throws IOException 読み取りに失敗した場合、ストリームの終端に達した場合
+     */
+    private int readSignedBits(int n) throws IOException {
+        if (n == 0) {
+            return 0;
+        }
+        return (readBits(n) << (32 - n)) >> (32 - n);
+    }
+
+    /**
+     * アルファベット符号（1までの0の数）を読み取る。
+     *
+     * @return 0の数
+     * @throws IOException 読み取りに失敗した場合、ストリームの終端に達した場合
+     */
+    private int readUnary() throws IOException {
+        int count = 0;
+        while (true) {
+            long rest = _bitBuf & ((1L << _bitCount) - 1);
+            if (rest != 0) {
+                int zeros = Long.numberOfLeadingZeros(rest) - (64 - _bitCount);
+                _bitCount -= zeros + 1;
+                return count + zeros;
+            }
+
+            count += _bitCount;
+            int b = readByte();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            _bitBuf = b;
+            _bitCount = 8;
+        }
+    }
+
+    /**
+     * 指定のバイト数を読み飛ばす（バイト境界で呼び出すこと）。
+     *
+     * @param len バイト数
+     * @throws IOException 読み取りに失敗した場合、ストリームの終端に達した場合
+     */
+    private void skipBytes(long len) throws IOException {
+        _bitCount = 0;
+        for (long i = 0; i < len; i++) {
+            if (readByte() < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    /**
+     * 1バイト読み取り、CRCを更新する。
+     *
+     * @return 値。ストリームの終端に達した場合は-1
+     * @throws IOException 読み取りに失敗した場合
+     */
+    private int readByte() throws IOException {
+        if (_inPos >= _inLimit) {
+            _inLimit = _in.read(_inBuf);
+            _inPos = 0;
+            if (_inLimit <= 0) {
+                _inLimit = 0;
+                return -1;
+            }
+        }
+        int b = _inBuf[_inPos++] & 0xff;
+        _crc8 = CRC8[_crc8 ^ b];
+        _crc16 = ((_crc16 << 8) & 0xffff) ^ CRC16[(_crc16 >> 8) ^ b];
+        return b;
+    }
+}
@@ -0,0 +1,327 @@
+package com.hayatsukikazumi.ptc;
+
+/**
+ * FSK変調の解析クラス
+ * 
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class FSKBitAnalyzer {
+
+    public enum SignalJudge { A, B, C, D };
+
+    private int _pos34;
+    private int _pos54;
+    private int _pos94;
+
+    /** 低周波数の周期（サンプル数） */
+    private double _period;
+    /** 周期の最小値、最大値 */
+    private double _minPeriod;
+    private double _maxPeriod;
+
+    private double _avg = 0;
+    private double _low = -0.1;
+    private double _high = 0.1;
+
+    // 整数のPCMデータ用の閾値（8倍した値）
+    private int _avg8 = 0;
+    private int _low8 = 0;
+    private int _high8 = 0;
+
+    /***
+     * コンストラクタ。
+     * @param sampleRate サンプリングレート(Hz)
+     * @param lowFreq 低い側の周波数(Hz)
+     */
+    public FSKBitAnalyzer(int sampleRate, double lowFreq) {
+
+        if (sampleRate <= 0 || lowFreq <= 0) {
+            throw new IllegalArgumentException("Please set positive value in parameters.");
+        }
+
+        _minPeriod = _maxPeriod = sampleRate / lowFreq;
+        setPeriod(_minPeriod);
+    }
+
+    /**
+     * 周期の変動を許す範囲を設定する（テープ速度の変動への追従用）。
+     * 解析に必要なデータの長さは、最大の周期に合わせて長くなる。
+     * @param limit 元の周期に対する変動の割合の上限（0.1の場合は±10%）
+     */
+    public void setDriftLimit(double limit) {
+        double nominal = (_minPeriod + _maxPeriod) / 2;
+        _minPeriod = nominal * (1 - limit);
+        _maxPeriod = nominal * (1 + limit);
+        setPeriod(nominal);
+    }
+
+    /**
+     * 低周波数の周期を設定し、判定位置を更新する。変動を許す範囲外の場合は範囲内にする。
+     * @param period 低周波数の周期（サンプル数）
+     */
+    public void setPeriod(double period) {
+        _period = Math.max(_minPeriod, Math.min(_maxPeriod, period));
+        _pos34 = (int) (_period * 2.75 / 8.0);
+        _pos54 = (int) (_period * 5.25 / 8.0);
+        _pos94 = (int) (_period * 8.25 / 8.0) + 1;
+    }
+
+    /**
+     * 低周波数の周期を得る。
+     * @return 低周波数の周期（サンプル数）
+     */
+    public double getPeriod() {
+        return _period;
+    }
+
+    /**
+     * 1ビット（高周波数の場合は2波）の解析に必要なデータの長さを得る。
+     * 周期の変動を許す場合は、最大の周期での長さ。
+     * @return 読み取り位置から必要なデータの長さ（サンプル数）
+     */
+    public int getLookAhead() {
+        return ((int) (_maxPeriod * 8.25 / 8.0) + 1) * 2 + 2;
+    }
+
+    /**
+     * 次の波形0位置を得る。
+     * @param buf 信号バッファ
+     * @param startPos 読み取り開始位置
+     * @return 次の波形0位置
+     */
+    public int getNextZeroPosition(float[] buf, int startPos) {
+        return getNextZeroPosition(buf, startPos, buf.length);
+    }
+
+    /**
+     * 次の波形0位置を得る。
+     * 読み取るのは読み取り開始位置から有効なデータ数の前まで（通常はgetLookAhead()の長さのデータがあること）。
+     * @param buf 信号バッファ
+     * @param startPos 読み取り開始位置
+     * @param length 信号バッファ内の有効なデータ数
+     * @return 次の波形0位置
+     */
+    public int getNextZeroPosition(float[] buf, int startPos, int length) {
+
+        // 次のbit開始位置の最小値、最大値を算出（上限の位置も読むため、有効なデータの最後までとする）
+        int limitPos = Math.min(startPos + _pos94, length - 1);
+        float fmax = buf[startPos];
+        float fmin = buf[startPos];
+
+        // floatのまま比較する（doubleへの変換をループの外に出す）
+        for (int i = startPos; i < limitPos; i++) {
+            fmax = Math.max(fmax, buf[i]);
+            fmin = Math.min(fmin, buf[i]);
+        }
+        double max = fmax;
+        double min = fmin;
+
+        _avg = (max + min) / 2.0;
+        _high = (max + _avg * 3) / 4.0;
+        _low = (min + _avg * 3) / 4.0;
+
+        // 信号がLOWになるまで進む
+        int spos = startPos + (int) _pos34;
+        int pos = spos;
+        ;
+        while (pos < limitPos && buf[pos] > _low) {
+            pos++;
+        }
+
+        // 信号がHIGHになるまで進む
+        while (pos < limitPos && buf[pos] < _high) {
+            pos++;
+        }
+
+        if (pos >= limitPos && buf[pos] >= _avg) {
+            pos--;
+            return pos;
+        }
+
+        
+
+        // 信号がAVERAGEになるまで戻す
+        while (buf[pos] >= _avg && pos > spos) {
+            pos--;
+        }
+
+        return pos;
+    }
+
+    /**
+     * 次の波形0位置を得る（整数のPCMデータ用）。
+     * 閾値を8倍した整数で比較するため、floatのデータと同じ結果になる。
+     * @param buf 信号バッファ
+     * @param startPos 読み取り開始位置
+     * @return 次の波形0位置
+     */
+    public int getNextZeroPosition(int[] buf, int startPos) {
+        return getNextZeroPosition(buf, startPos, buf.length);
+    }
+
+    /**
+     * 次の波形0位置を得る（整数のPCMデータ用）。
+     * 閾値を8倍した整数で比較するため、floatのデータと同じ結果になる。
+     * @param buf 信号バッファ
+     * @param startPos 読み取り開始位置
+     * @param length 信号バッファ内の有効なデータ数
+     * @return 次の波形0位置
+     */
+    public int getNextZeroPosition(int[] buf, int startPos, int length) {
+
+        // 次のbit開始位置の最小値、最大値を算出（上限の位置も読むため、有効なデータの最後までとする）
+        int limitPos = Math.min(startPos + _pos94, length - 1);
+        int max = buf[startPos];
+        int min = buf[startPos];
+
+        for (int i = startPos; i < limitPos; i++) {
+            max = Math.max(max, buf[i]);
+            min = Math.min(min, buf[i]);
+        }
+
+        // avg = (max + min) / 2, high = (max + avg * 3) / 4, low = (min + avg * 3) / 4 の8倍
+        _avg8 = (max + min) * 4;
+        _high8 = max * 5 + min * 3;
+        _low8 = min * 5 + max * 3;
+
+        // 信号がLOWになるまで進む
+        int spos = startPos + _pos34;
+        int pos = spos;
+        while (pos < limitPos && buf[pos] * 8 > _low8) {
+            pos++;
+        }
+
+        // 信号がHIGHになるまで進む
+        while (pos < limitPos && buf[pos] * 8 < _high8) {
+            pos++;
+        }
+
+        if (pos >= limitPos && buf[pos] * 8 >= _avg8) {
+            pos--;
+            return pos;
+        }
+
+        // 信号がAVERAGEになるまで戻す
+        while (buf[pos] * 8 >= _avg8 && pos > spos) {
+            pos--;
+        }
+
+        return pos;
+    }
+
+    /**
+     * 高周波数であるかを返す。
+     * @param pos1 最初の信号0位置
+     * @param pos2 次の信号0位置
+     * @return 高周波数ならばtrue
+     */
+    public boolean isHighFrequency(int pos1, int pos2) {
+        return (pos2 - pos1) <= _pos54;
+    }
+
+    /**
+     * ビット判定。
+     * @param buf 信号バッファ
+     * @param pos1 最初の信号0位置
+     * @param pos2 次の信号0位置
+     * @param
+     * @return 判定結果
+     */
+    public SignalJudge judgeBit(float[] buf, int pos1, int pos2, boolean isHighFreq) {
+
+        return judge(compare(buf[pos1 + _pos34]), compare(buf[pos1 + _pos54]), isHighFreq);
+    }
+
+    /**
+     * 信号レベルを、閾値との比較結果（0:LOW未満、1:AVERAGE未満、2:HIGH未満、3:HIGH以上）にする。
+     * @param v 信号レベル
+     * @return 比較結果
+     */
+    private int compare(float v) {
+        return (v < _low) ? 0 : ((v < _avg) ? 1 : ((v < _high) ? 2 : 3));
+    }
+
+    /**
+     * 2点の信号レベルの比較結果からビット判定する。
+     * @param v34 3/4位置の比較結果
+     * @param v54 5/4位置の比較結果
+     * @param isHighFreq 高周波数であるか
+     * @return 判定結果
+     */
+    private static SignalJudge judge(int v34, int v54, boolean isHighFreq) {
+
+        SignalJudge judge;
+        if (v34 == 0) { // おそらく高周波数
+            if (v54 == 0) {
+                judge = SignalJudge.C;
+            } else if (v54 == 1) {
+                judge = isHighFreq ? SignalJudge.B : SignalJudge.D;
+            } else {
+                judge = isHighFreq ? SignalJudge.A : SignalJudge.D;
+            }
+        } else if (v34 == 1) {
+            if (v54 == 0) {
+                judge = isHighFreq ? SignalJudge.D : SignalJudge.B; // おそらく低周波数（違ったー）
+            } else if (v54 == 1) {
+                judge = SignalJudge.C;
+            } else if (v54 == 2) {
+                judge = isHighFreq ? SignalJudge.B : SignalJudge.D; // おそらく高周波数
+            } else {
+                judge = isHighFreq ? SignalJudge.A : SignalJudge.D;
+            }
+        } else if (v34 == 2) {
+            if (v54 == 0) {
+                judge = isHighFreq ? SignalJudge.D : SignalJudge.A; // おそらく低周波数
+            } else if (v54 == 1) {
+                judge = isHighFreq ? SignalJudge.D : SignalJudge.B;
+            } else if (v54 == 2) {
+                judge = SignalJudge.C;
+            } else {
+                judge = isHighFreq ? SignalJudge.B : SignalJudge.D; // おそらく高周波数（違ったー）
+            }
+        } else { // おそらく低周波数
+            if (v54 <= 1) {
+                judge = isHighFreq ? SignalJudge.D : SignalJudge.A;
+            } else if (v54 == 2) {
+                judge = isHighFreq ? SignalJudge.D : SignalJudge.B;
+            } else {
+                judge = SignalJudge.C;
+            }
+        }
+
+        return judge;
+    }
+
+    /**
+     * ビット判定（整数のPCMデータ用）。
+     * @param buf 信号バッファ
+     * @param pos1 最初の信号0位置
+     * @param pos2 次の信号0位置
+     * @param isHighFreq 高周波数であるか
+     * @return 判定結果
+     */
+    public SignalJudge judgeBit(int[] buf, int pos1, int pos2, boolean isHighFreq) {
+        return judge(compare8(buf[pos1 + _pos34]), compare8(buf[pos1 + _pos54]), isHighFreq);
+    }
+
+    /**
+     * 整数の信号レベルを、閾値との比較結果（0:LOW未満、1:AVERAGE未満、2:HIGH未満、3:HIGH以上）にする。
+     * @param v 信号レベル
+     * @return 比較結果
+     */
+    private int compare8(int v) {
+        int v8 = v * 8;
+        return (v8 < _low8) ? 0 : ((v8 < _avg8) ? 1 : ((v8 < _high8) ? 2 : 3));
+    }
+
+    /**
+     * 2つのSignalJudgeのうち低い方を返す。
+     * @param a
+     * @param b
+     * @return
+     */
+    public static SignalJudge min(SignalJudge a, SignalJudge b) {
+        return a.ordinal() < b.ordinal() ? b : a;
+    }
+}
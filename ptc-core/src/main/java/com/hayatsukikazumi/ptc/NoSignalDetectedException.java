@@ -0,0 +1,20 @@
+/**
+ * @(#)NoSignalDetectedException.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+/**
+ * FSK変調の信号が見つからない（テープの音声でない）と判定したときに発生される例外。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class NoSignalDetectedException extends Exception {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+}
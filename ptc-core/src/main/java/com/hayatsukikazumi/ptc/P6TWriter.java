@@ -0,0 +1,193 @@
+/**
+ * @(#)P6TWriter.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * P6ファイルとテープの構造のインデックスから、P6Tファイル（Ver.2）を書き込むクラス
+ * <p>
+ * P6Tファイルは、P6ファイルと同じ内容（ベタイメージ）の後ろにフッタと
+ * ブロックごとの情報（DATAブロック）を置き、最後の4バイトにベタイメージのサイズを書く。
+ * エミュレータはブロックの先頭に直接移動でき、ブランク（ぴー音）や無音の長さも再現できる。
+ * 数値はリトルエンディアン。
+ * <p>
+ * フッタ：ID "P6"（2）、バージョン（1）、DATAブロック数（1）、オートスタート（1）、
+ * BASICモード（1）、ページ数（1）、オートスタートコマンドのサイズ（2）、拡張情報のサイズ（2）<br>
+ * DATAブロック：ID "TI"（2）、ID番号（1）、名前（16）、ボーレート（2）、無音の時間(ms)（2）、
+ * ぴー音の時間(ms)（2）、ベタイメージ内の位置（4）、サイズ（4）
+ * <p>
+ * BASICのヘッダ（0xD3が10個とファイル名）のブロックと、その直後のブロックは
+ * 同じID番号とファイル名にする。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class P6TWriter {
+
+    private static final int VERSION = 2;
+
+    /** DATAブロック数の最大値 */
+    private static final int MAX_BLOCKS = 255;
+
+    /** PC-6001のテープのボーレート */
+    private static final int BAUD = 1200;
+
+    /** BASICモード、ページ数（PC-6001では使われない） */
+    private static final int BASIC_MODE = 1;
+
+    private static final int PAGES = 1;
+
+    /** 名前の長さ（最後の0を含む） */
+    private static final int NAME_LENGTH = 16;
+
+    /** 時間の最大値(ms) */
+    private static final int TIME_MAX = 0xffff;
+
+    /** BASICのヘッダ */
+    private static final int HEADER_MARK = 0xd3;
+
+    private static final int HEADER_MARK_COUNT = 10;
+
+    private static final int HEADER_LENGTH = 16;
+
+    private P6TWriter() {
+    }
+
+    /**
+     * P6Tファイルを書き込む。
+     * ブロックのP6ファイル内の位置は、最初のブロックからの相対位置とする（1ブロックのみを変換した場合）。
+     * ブロックが255を超える場合は、残りを最後のブロックにまとめる。
+     *
+     * @param p6File P6ファイル
+     * @param index 変換時に記録したインデックス
+     * @param p6tFile 書き込み先のP6Tファイル
+     * @throws IOException 読み書きに失敗した場合
+     */
+    public static void write(File p6File, TapeIndex index, File p6tFile) throws IOException {
+        byte[] image = new byte[(int) p6File.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(p6File));
+        try {
+            in.readFully(image);
+        } finally {
+            in.close();
+        }
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(p6tFile));
+        try {
+            out.write(image);
+            writeFooter(out, image, index);
+            writeInt(out, image.length, 4);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * フッタとDATAブロックを書き込む。
+     */
+    private static void writeFooter(OutputStream out, byte[] image, TapeIndex index) throws IOException {
+        int count = Math.min(MAX_BLOCKS, index.getBlockCount());
+        int base = (count > 0) ? index.getBlock(1).getOffset() : 0;
+        double msPerFrame = 1000.0 / Math.max(1, index.getSamplingRate());
+
+        out.write('P');
+        out.write('6');
+        out.write(VERSION);
+        out.write(count);
+        out.write(0);
+        out.write(BASIC_MODE);
+        out.write(PAGES);
+        writeInt(out, 0, 2);
+        writeInt(out, 0, 2);
+
+        int id = 0;
+        String name = "";
+        boolean afterHeader = false;
+        long prevEnd = 0;
+        for (int no = 1; no <= count; no++) {
+            TapeIndex.Block b = index.getBlock(no);
+            int offset = Math.max(0, Math.min(image.length, b.getOffset() - base));
+            int size = Math.min(image.length - offset, b.getLength());
+            if (no == count) {
+                // 残りのブロックを含める
+                size = image.length - offset;
+            }
+
+            // BASICのヘッダと、その直後のブロックは同じID番号にする
+            String header = getHeaderName(image, offset, size);
+            if (header != null) {
+                id++;
+                name = header;
+                afterHeader = true;
+            } else if (afterHeader) {
+                afterHeader = false;
+            } else {
+                id++;
+                name = "";
+            }
+
+            out.write('T');
+            out.write('I');
+            out.write(id & 0xff);
+            byte[] nb = new byte[NAME_LENGTH];
+            for (int i = 0; i < name.length() && i < NAME_LENGTH - 1; i++) {
+                nb[i] = (byte) name.charAt(i);
+            }
+            out.write(nb);
+            writeInt(out, BAUD, 2);
+            writeInt(out, toMillis(b.getLeaderPosition() - prevEnd, msPerFrame), 2);
+            writeInt(out, toMillis(b.getDataPosition() - b.getLeaderPosition(), msPerFrame), 2);
+            writeInt(out, offset, 4);
+            writeInt(out, size, 4);
+            prevEnd = b.getEndPosition();
+        }
+    }
+
+    /**
+     * BASICのヘッダのブロックの場合は、ファイル名を得る。
+     *
+     * @return ファイル名。ヘッダでない場合はnull
+     */
+    private static String getHeaderName(byte[] image, int offset, int size) {
+        if (size != HEADER_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < HEADER_MARK_COUNT; i++) {
+            if ((image[offset + i] & 0xff) != HEADER_MARK) {
+                return null;
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = HEADER_MARK_COUNT; i < HEADER_LENGTH; i++) {
+            int c = image[offset + i] & 0xff;
+            sb.append((c >= 0x20 && c < 0x7f) ? (char) c : ' ');
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * フレーム数をミリ秒に変換する。
+     */
+    private static int toMillis(long frames, double msPerFrame) {
+        return (int) Math.max(0, Math.min(TIME_MAX, Math.round(frames * msPerFrame)));
+    }
+
+    /**
+     * リトルエンディアンで整数を書き込む。
+     */
+    private static void writeInt(OutputStream out, long value, int bytes) throws IOException {
+        for (int i = 0; i < bytes; i++) {
+            out.write((int) (value >> (i * 8)) & 0xff);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/**
+ * @(#)P6TapeConvertorCLI.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PAPICOM TAPE CONVERTORのコマンドライン用メインクラス
+ * <p>
+ * AWTのクラスを読み込まずに変換処理を実行する。ファイル名の指定がない場合のみ、
+ * GUI画面（P6TapeConvertor）をリフレクションで呼び出す。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class P6TapeConvertorCLI {
+
+    /** アプリケーション名 */
+    public static final String APP_NAME = "PAPICOM TAPE CONVERTOR";
+
+    /** バージョン */
+    public static final String APP_VERSION = "1.2.0";
+
+    /** 著作権情報 */
+    public static final String APP_COPYRIGHT = "Copyright(c) はやつきかづみ 2005-2019";
+
+    /** 処理結果（同時に使えないオプション） */
+    private static final int RESULT_BAD_OPTION = 8;
+
+    /** 処理結果（GUI画面が利用できない） */
+    private static final int RESULT_NO_GUI = 9;
+
+    private static final String GUI_CLASS = "com.hayatsukikazumi.ptc.P6TapeConvertor";
+
+    private static final String MSG_OK = "変換処理が完了しました";
+
+    private static final String MSG_ILLEGAL_END = "読み込み途中でファイルの終わりに達しました";
+
+    private static final String MSG_NO_SIGNAL = "テープの信号が見つかりません";
+
+    private static final String MSG_WAV_FORMAT = "8/16/24/32ビットのリニアPCM、32ビット浮動小数点、A-law、μ-lawのWAVファイルと24ビットまでのFLACファイルのみ対応しています";
+
+    private static final String MSG_WRONG_FORMAT = "ファイルフォーマットが正しくありません";
+
+    private static final String MSG_FAILED = "処理に失敗しました";
+
+    private static final String MSG_CANNOT_READ = "ファイルを読み取ることができません";
+
+    private static final String MSG_SKIP_TIME = "スキップ時間は、0〜1000の数値を入力して\nください（小数可）";
+
+    private static final String MSG_NO_GUI = "GUI画面を利用できません。ファイル名を指定してください";
+
+    private static final String MSG_ARCHIVE_OPTION = "ZIPファイルには-x、-bN、-kオプションを指定できません";
+
+    private static final String MSG_CHECKPOINT_OPTION = "-kオプションは-x、-bN、-Tオプションと同時に指定できません";
+
+    /**
+     * mainメソッド。
+     * <p>
+     * 実行オプション<br>
+     * java -jar PTC.jar [options] [fileName]<br>
+     * fileName : ファイル名（ZIPファイルの場合は、中のWAVファイルをすべて変換する。-x、-bN、-kは指定できない）<br>
+     * -sXXXX : 頭だしスキップ時間をXXXX秒に設定する。<br>
+     * -n : 極性反転モードにする。<br>
+     * -d[port] : 常駐モードにする（portを省略した場合は標準入出力で要求を受け付ける）。<br>
+     * -w[threads] : 監視モードにする（fileNameには監視対象ディレクトリを指定する）。<br>
+     * -j[threads] : 分担変換モードにする（fileNameには共有のキューのディレクトリを指定する）。<br>
+     * -cDIR : 変換結果をDIRにキャッシュする。<br>
+     * -CXXXX : キャッシュサイズの上限をXXXXMBにする。<br>
+     * -a : 別スレッドでWAVファイルを先読みする。<br>
+     * -lXXXX : 解析ウインドウの長さをXXXXサンプルにする。<br>
+     * -g : 無音、雑音部分を読み飛ばす。<br>
+     * -r[XXXX] : 最初のXXXX秒にFSK変調の信号がない場合は変換を打ち切る。<br>
+     * -t : 寛容モードにする（ドロップアウトを読み飛ばして変換を続ける）。<br>
+     * -f : テープ速度の変動に追従する。<br>
+     * -e : 自動利得制御をかける（音量の変動、ドロップアウトの検出）。<br>
+     * -x : テープの構造のインデックスファイル（.ptx）を書き込む。<br>
+     * -bN : インデックスを使って、N番目のブロックのみを変換する。<br>
+     * -T : ブロックの情報を含むP6Tファイルも書き込む。<br>
+     * -pNAME : テープの記録方式を指定する（P6、MSX1200、MSX2400、KCS300、CUTS1200）。<br>
+     * -k : 途中経過（.ptk）を記録し、途中で終了した変換を次回は続きから再開する（-x、-bN、-Tと同時に指定できない）。<br>
+     * その他 ファイル名を指定する。<br>
+     * ※ファイル名の指定がない場合は、GUI画面が開く。
+     *
+     * @param args パラメータ
+     */
+    public static void main(String[] args) {
+        // パラメータ解析
+        PTCOptions options;
+        try {
+            options = PTCOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            printTitle();
+            System.out.println("使い方: java -jar PTC.jar [options] file");
+            System.out.println("        java -jar PTC.jar [options] -w[threads] dir...");
+            System.out.println("        java -jar PTC.jar [options] -j[threads] dir...");
+            System.out.println("        java -jar PTC.jar [options] archive.zip");
+            System.out.println("  -sXXXX    スキップ時間を指定");
+            System.out.println("  -n        極性反転する");
+            System.out.println("  -d[port]  常駐して変換要求を受け付ける");
+            System.out.println("  -w[threads] ディレクトリを監視して変換する");
+            System.out.println("  -j[threads] 共有ディレクトリのファイルを他のプロセスと分担して変換する");
+            System.out.println("  -cDIR     変換結果をDIRにキャッシュする");
+            System.out.println("  -CXXXX    キャッシュサイズの上限(MB)を指定");
+            System.out.println("  -a        WAVファイルを先読みする");
+            System.out.println("  -lXXXX    解析ウインドウの長さ(サンプル数)を指定");
+            System.out.println("  -g        無音、雑音部分を読み飛ばす");
+            System.out.println("  -r[XXXX]  最初のXXXX秒にテープの信号がなければ打ち切る");
+            System.out.println("  -t        ドロップアウトを読み飛ばして変換を続ける");
+            System.out.println("  -f        テープ速度の変動に追従する");
+            System.out.println("  -e        自動利得制御をかける");
+            System.out.println("  -x        テープの構造のインデックスを書き込む");
+            System.out.println("  -bN       N番目のブロックのみを変換する");
+            System.out.println("  -T        P6Tファイルも書き込む");
+            System.out.println("  -pNAME    テープの記録方式(P6/MSX1200/MSX2400/KCS300/CUTS1200)を指定");
+            System.out.println("  -k        途中で終了した変換を続きから再開する");
+            System.exit(0);
+            return;
+        }
+        if (!ConversionCheckpoint.isSupported(options)) {
+            System.out.println(MSG_CHECKPOINT_OPTION + " (" + RESULT_BAD_OPTION + ")");
+            System.exit(RESULT_BAD_OPTION);
+            return;
+        }
+
+        // 常駐モード
+        if (options.isDaemon()) {
+            PTCDaemon daemon = new PTCDaemon(options);
+            try {
+                if (options.getPort() > 0) {
+                    daemon.runSocket(options.getPort());
+                } else {
+                    daemon.runStdio();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.exit(P6TapeConvertorMain.RESULT_IO_ERROR);
+            }
+            System.exit(P6TapeConvertorMain.RESULT_OK);
+            return;
+        }
+
+        // 監視モード
+        List<String> files = options.getFiles();
+        if (options.isWatch()) {
+            List<File> dirs = new ArrayList<File>();
+            for (String f : files) {
+                dirs.add(new File(f));
+            }
+            if (dirs.isEmpty()) {
+                dirs.add(new File("."));
+            }
+
+            PTCWatcher watcher = new PTCWatcher(options, Math.max(1, options.getThreads()), System.out);
+            try {
+                watcher.watch(dirs);
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.exit(P6TapeConvertorMain.RESULT_IO_ERROR);
+            }
+            System.exit(P6TapeConvertorMain.RESULT_OK);
+            return;
+        }
+
+        // 分担変換モード
+        if (options.isBatch()) {
+            List<File> dirs = new ArrayList<File>();
+            for (String f : files) {
+                dirs.add(new File(f));
+            }
+            if (dirs.isEmpty()) {
+                dirs.add(new File("."));
+            }
+
+            PTCBatchWorker worker = new PTCBatchWorker(options, Math.max(1, options.getThreads()), System.out);
+            int result;
+            try {
+                result = worker.run(dirs);
+            } catch (IOException e) {
+                e.printStackTrace();
+                result = P6TapeConvertorMain.RESULT_IO_ERROR;
+            }
+            System.exit(result);
+            return;
+        }
+
+        // GUIモード、テキストモード切替
+        if (files.isEmpty()) {
+            if (!openWindow(options.getSkipTime(), options.isNegate())) {
+                System.out.println(MSG_NO_GUI);
+                System.exit(RESULT_NO_GUI);
+            }
+            return;
+        }
+        String fileName = files.get(files.size() - 1);
+
+        printTitle();
+        System.out.println("Source File = " + fileName);
+
+        // 実行する。
+        File wavFile = new File(fileName);
+        int result;
+        if (PTCArchive.isArchive(wavFile)) {
+            if (!PTCArchive.isSupported(options)) {
+                System.out.println(MSG_ARCHIVE_OPTION + " (" + RESULT_BAD_OPTION + ")");
+                System.exit(RESULT_BAD_OPTION);
+                return;
+            }
+            result = new PTCArchive(options, Math.max(1, options.getThreads()), System.out).convert(wavFile);
+        } else {
+            result = P6TapeConvertorMain.execute(wavFile, wavFile.getParentFile(), options);
+        }
+        if (result == P6TapeConvertorMain.RESULT_OK) {
+            System.out.print(MSG_OK);
+        } else if (getResultMessage(result) != null) {
+            System.out.print(getResultMessage(result));
+        }
+        System.out.println(" (" + result + ")");
+        System.exit(result);
+    }
+
+    /**
+     * 処理結果に対応するエラーメッセージを得る。
+     *
+     * @param result 処理結果
+     * @return エラーメッセージ。正常終了の場合はnull
+     */
+    public static String getResultMessage(int result) {
+        switch (result) {
+        case P6TapeConvertorMain.RESULT_FILE_NOT_FOUND:
+            return MSG_CANNOT_READ;
+        case P6TapeConvertorMain.RESULT_ILLEGAL_END:
+            return MSG_ILLEGAL_END;
+        case P6TapeConvertorMain.RESULT_NO_SIGNAL:
+            return MSG_NO_SIGNAL;
+        case P6TapeConvertorMain.RESULT_IO_ERROR:
+            return MSG_FAILED;
+        case P6TapeConvertorMain.RESULT_NOT_SUPPORTED_WAV:
+            return MSG_WAV_FORMAT;
+        case P6TapeConvertorMain.RESULT_SKIP_TIME:
+            return MSG_SKIP_TIME;
+        case P6TapeConvertorMain.RESULT_WRONG_FORMAT:
+            return MSG_WRONG_FORMAT;
+        case P6TapeConvertorMain.RESULT_OK:
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * タイトルを表示する。
+     */
+    private static void printTitle() {
+        System.out.println(APP_NAME);
+        System.out.println("Ver. " + APP_VERSION);
+        System.out.println(APP_COPYRIGHT);
+        System.out.println();
+    }
+
+    /**
+     * GUI画面を開く。
+     * GUIモジュールがクラスパスにない場合、またはヘッドレス環境の場合は開かない。
+     *
+     * @param skip スキップ時間（秒）
+     * @param negate 極性反転フラグ
+     * @return 開けた場合はtrue
+     */
+    private static boolean openWindow(String skip, boolean negate) {
+        try {
+            Class<?> c = Class.forName(GUI_CLASS);
+            Method open = c.getMethod("open", String.class, boolean.class);
+            open.invoke(null, skip, Boolean.valueOf(negate));
+            return true;
+        } catch (Exception e) {
+            return false;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
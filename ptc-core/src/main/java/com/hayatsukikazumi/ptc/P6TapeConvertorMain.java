@@ -0,0 +1,588 @@
+/**
+ * @(#)P6TapeConvertorMain.java 2005/08/04
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * WAV→P6の変換機能ロジッククラスを呼び出すクラス
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class P6TapeConvertorMain {
+
+    /** 処理結果（OK） */
+    public static final int RESULT_OK = 0;
+
+    /** 処理結果（スキップ時間指定誤り） */
+    public static final int RESULT_SKIP_TIME = 1;
+
+    /** 処理結果（サポートされていないWAVフォーマット） */
+    public static final int RESULT_NOT_SUPPORTED_WAV = 2;
+
+    /** 処理結果（不正なファイルを指定） */
+    public static final int RESULT_WRONG_FORMAT = 3;
+
+    /** 処理結果（ファイルが見つからない） */
+    public static final int RESULT_FILE_NOT_FOUND = 4;
+
+    /** 処理結果（途中で不正にファイル終了） */
+    public static final int RESULT_ILLEGAL_END = 5;
+
+    /** 処理結果（IOエラー） */
+    public static final int RESULT_IO_ERROR = 6;
+
+    /** 処理結果（FSK変調の信号が見つからない） */
+    public static final int RESULT_NO_SIGNAL = 7;
+
+    /** 最大スキップ時間（秒） */
+    public static final int SKIP_MAX_TIME = 1000;
+
+    /** P6ファイルの拡張子 */
+    public static final String EXT_P6 = ".P6";
+
+    /** P6Tファイルの拡張子 */
+    public static final String EXT_P6T = ".p6t";
+
+    /** レポートファイルの拡張子 */
+    public static final String EXT_REPORT = ".log";
+
+    /** レポートファイルの1行目（出力ファイル名）の見出し */
+    public static final String REPORT_OUTPUT_FILE = "Output File = ";
+
+    /**
+     * 変換処理を実行する。
+     *
+     * @param dirName ディレクトリ名
+     * @param fileName ファイル名（必須）
+     * @param skip スキップ時間（秒）（必須）
+     * @param negate 極性反転フラグ
+     * @return 処理結果
+     */
+    public static int execute(String dirName, String fileName,
+            String skipTime, boolean negate) {
+        PTCOptions options = new PTCOptions();
+        options.setSkipTime(skipTime);
+        options.setNegate(negate);
+
+        File wavFile = new File(dirName, fileName);
+        return execute(wavFile, wavFile.getParentFile(), options);
+    }
+
+    /**
+     * 変換処理を実行する。
+     * 複数のスレッドから同時に呼び出してもよい。
+     *
+     * @param wavFile WAVファイル（必須）
+     * @param outDir P6ファイル、レポートファイルの出力先ディレクトリ（nullの場合はカレントディレクトリ）
+     * @param options オプション（必須）
+     * @return 処理結果
+     */
+    public static int execute(File wavFile, File outDir, PTCOptions options) {
+        // ファイルが読み取り可能かをチェック
+        if (!wavFile.canRead()) {
+            return RESULT_FILE_NOT_FOUND;
+        }
+
+        // スキップ時間のパラメータを取得
+        double skip = getSkip(options);
+        if (skip < 0) {
+            return RESULT_SKIP_TIME;
+        }
+
+        // テープの構造のインデックス
+        TapeIndex index = null;
+        TapeIndex.Block block = null;
+        File indexFile = null;
+        if (options.isWriteIndex() || options.getBlock() > 0) {
+            indexFile = TapeIndex.getIndexFile(wavFile.getName(), outDir);
+            if (options.getBlock() > 0) {
+                index = TapeIndex.read(indexFile, wavFile);
+                if (index == null) {
+                    // インデックスがない場合は、全体を読み取って作成する
+                    index = new TapeIndex(wavFile);
+                    int result = buildIndex(wavFile, index, skip, options);
+                    if (result != RESULT_OK) {
+                        return result;
+                    }
+                    try {
+                        index.write(indexFile);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+                block = index.getBlock(options.getBlock());
+                if (block == null) {
+                    return RESULT_ILLEGAL_END;
+                }
+                index = null;
+            } else {
+                index = new TapeIndex(wavFile);
+            }
+        }
+
+        // キャッシュ（インデックスを使う場合、P6Tファイルを書き込む場合は使わない）
+        ConversionCache cache = null;
+        String key = null;
+        if (options.getCacheDir() != null && indexFile == null && !options.isWriteP6T()) {
+            cache = new ConversionCache(options.getCacheDir(), options.getCacheSize() * 1024L * 1024L);
+            try {
+                key = cache.getKey(wavFile, options.getDecodeParams());
+            } catch (IOException e) {
+                e.printStackTrace();
+                return RESULT_IO_ERROR;
+            } catch (UnsupportedAudioFileException e) {
+                return RESULT_WRONG_FORMAT;
+            }
+
+            int cached = cache.getResult(key);
+            if (cached >= 0) {
+                return restore(cache, key, cached, wavFile.getName(), outDir);
+            }
+        }
+
+        // 途中経過（インデックスを使う場合、P6Tファイルを書き込む場合は記録しない）
+        ConversionCheckpoint checkpoint = null;
+        if (options.isCheckpoint() && indexFile == null && !options.isWriteP6T()) {
+            String params = PTCLogic.DECODER_VERSION + "," + options.getDecodeParams();
+            File checkpointFile = ConversionCheckpoint.getCheckpointFile(wavFile.getName(), outDir);
+            checkpoint = ConversionCheckpoint.read(checkpointFile, wavFile, params);
+            if (checkpoint == null) {
+                File[] outFiles;
+                try {
+                    outFiles = createOutputFiles(wavFile.getName(), outDir);
+                    checkpoint = new ConversionCheckpoint(checkpointFile, wavFile, params, outFiles[0], outFiles[1]);
+                    checkpoint.write();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return RESULT_IO_ERROR;
+                }
+            }
+        }
+
+        // 既存と重ならないファイル名をつける（途中で終了した変換を再開する場合は同じファイル）
+        File p6File;
+        File repFile;
+        if (checkpoint != null) {
+            p6File = checkpoint.getP6File();
+            repFile = checkpoint.getReportFile();
+        } else {
+            File[] outFiles;
+            try {
+                outFiles = createOutputFiles(wavFile.getName(), outDir);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return RESULT_IO_ERROR;
+            }
+            p6File = outFiles[0];
+            repFile = outFiles[1];
+        }
+
+        InputStream src;
+        try {
+            src = new FileInputStream(wavFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return RESULT_IO_ERROR;
+        }
+        int result = convert(src, p6File, repFile, skip, options, index, block, checkpoint);
+
+        // 変換を終えた場合は途中経過を削除する（読み書きの失敗の場合は、次回に再開する）
+        if (checkpoint != null && result != RESULT_IO_ERROR) {
+            checkpoint.delete();
+        }
+
+        // インデックスを保存（途中で終了した場合も、そこまでのブロックを保存する）
+        if (index != null) {
+            try {
+                index.write(indexFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // 結果が変換内容で決まる場合はキャッシュに保存
+        if (cache != null && (result == RESULT_OK || result == RESULT_ILLEGAL_END || result == RESULT_NO_SIGNAL)) {
+            try {
+                cache.store(key, result, p6File, repFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * ZIPファイル内の1ファイルの変換処理を実行する。キャッシュは使わない。
+     * 複数のスレッドから同時に呼び出してもよい。
+     *
+     * @param zip ZIPファイル（必須）
+     * @param entry 変換するエントリ（必須）
+     * @param outDir P6ファイル、レポートファイルの出力先ディレクトリ（必須）
+     * @param options オプション（必須）
+     * @return 処理結果
+     */
+    public static int execute(ZipFile zip, ZipEntry entry, File outDir, PTCOptions options) {
+        double skip = getSkip(options);
+        if (skip < 0) {
+            return RESULT_SKIP_TIME;
+        }
+
+        // ディレクトリ部分を除いたファイル名で出力する
+        String name = entry.getName();
+        name = name.substring(name.lastIndexOf('/') + 1);
+
+        File[] outFiles;
+        InputStream src;
+        try {
+            outFiles = createOutputFiles(name, outDir);
+            src = zip.getInputStream(entry);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return RESULT_IO_ERROR;
+        }
+
+        return convert(src, outFiles[0], outFiles[1], skip, options, null, null, null);
+    }
+
+    /**
+     * スキップ時間のパラメータを取得する。
+     *
+     * @param options オプション
+     * @return スキップ時間（秒）。指定が正しくない場合は-1
+     */
+    static double getSkip(PTCOptions options) {
+        double skip;
+        try {
+            skip = Double.parseDouble(options.getSkipTime());
+        } catch (Exception e) {
+            return -1;
+        }
+
+        if (skip < 0 || skip > SKIP_MAX_TIME) {
+            return -1;
+        }
+        return skip;
+    }
+
+    /**
+     * オプションを設定した変換ロジックを生成する。
+     *
+     * @param options オプション
+     * @return 変換ロジック
+     */
+    static PTCLogic createLogic(PTCOptions options) {
+        PTCLogic biz = new PTCLogic();
+        biz.setWindowSize(options.getWindowSize());
+        biz.setSkipGaps(options.isSkipGaps());
+        biz.setRejectTime(options.getRejectTime());
+        biz.setTolerant(options.isTolerant());
+        biz.setAdaptiveClock(options.isAdaptiveClock());
+        biz.setProfile(options.getProfile());
+        return biz;
+    }
+
+    /**
+     * 音声ファイル全体を読み取り、テープの構造のインデックスを作成する。
+     * 変換結果とレポートは捨てる。途中で終了した場合は、そこまでのブロックを記録する。
+     *
+     * @param wavFile 音声ファイル
+     * @param index 記録先のインデックス
+     * @param skip スキップ時間（秒）
+     * @param options オプション
+     * @return 処理結果（途中で終了した場合もRESULT_OK）
+     */
+    private static int buildIndex(File wavFile, TapeIndex index, double skip, PTCOptions options) {
+        SoundSource in = null;
+        try {
+            in = openSoundSource(wavFile);
+            if (options.isAutoGain()) {
+                in = new AGCSoundSource(in, 0);
+            }
+
+            PTCLogic biz = createLogic(options);
+            biz.setIndex(index);
+            OutputStream nul = new NullOutputStream();
+            biz.analyze(in, nul, new PrintStream(nul), skip, options.isNegate());
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            return RESULT_IO_ERROR;
+        } catch (IllegalEndDetectedException e) {
+        } catch (NoSignalDetectedException e) {
+            return RESULT_NO_SIGNAL;
+        } catch (UnsupportedAudioFileException e) {
+            return RESULT_WRONG_FORMAT;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+        return RESULT_OK;
+    }
+
+    /**
+     * 音声データを読み取り、P6ファイルとレポートファイルに書き出す。
+     *
+     * @param src 音声ファイルの内容（処理後に閉じる）
+     * @param p6File P6ファイル
+     * @param repFile レポートファイル
+     * @param skip スキップ時間（秒）
+     * @param options オプション
+     * @param index テープの構造を記録するインデックス（nullの場合は記録しない）
+     * @param block 変換するブロック（nullの場合はスキップ後のすべてを変換する）
+     * @param checkpoint 途中経過（nullの場合は記録しない。記録済みの場合は続きから再開する）
+     * @return 処理結果
+     */
+    static int convert(InputStream src, File p6File, File repFile, double skip, PTCOptions options,
+            TapeIndex index, TapeIndex.Block block, ConversionCheckpoint checkpoint) {
+        boolean negate = options.isNegate();
+
+        // ファイル読み書き開始
+        SoundSource in = null;
+        AGCSoundSource agc = null;
+        OutputStream out = null;
+        PrintStream report = null;
+        int result = RESULT_OK;
+
+        try {
+            in = openSoundSource(src);
+            if (options.isAutoGain()) {
+                agc = new AGCSoundSource(in, 0);
+                in = agc;
+            }
+            if (options.isReadAhead()) {
+                in = new ReadAheadSoundSource(in, 0, ReadAheadSoundSource.BLOCK_SIZE_DEFAULT,
+                        ReadAheadSoundSource.BLOCKS_DEFAULT);
+            }
+
+            // 再開する場合は、記録した時点のサイズに切り詰めて追記する
+            boolean resume = checkpoint != null && checkpoint.isSaved();
+            if (checkpoint != null) {
+                checkpoint.truncate();
+            }
+            out = new BufferedOutputStream(new FileOutputStream(p6File, resume));
+            report = new PrintStream(new FileOutputStream(repFile, resume));
+            if (!resume) {
+                report.print(REPORT_OUTPUT_FILE);
+                report.println(p6File.getAbsolutePath());
+                report.print("Negative Mode = ");
+                report.println(negate);
+                report.println();
+            }
+
+            // P6Tファイルのブロックの情報もインデックスに記録する
+            if (options.isWriteP6T() && index == null) {
+                index = new TapeIndex(null);
+            }
+
+            PTCLogic biz = createLogic(options);
+            biz.setIndex(index);
+            biz.setBlock(block);
+            biz.setCheckpoint(checkpoint);
+            biz.analyze(in, out, report, skip, negate);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            result = RESULT_IO_ERROR;
+        } catch (IllegalEndDetectedException e) {
+            result = RESULT_ILLEGAL_END;
+        } catch (NoSignalDetectedException e) {
+            result = RESULT_NO_SIGNAL;
+        } catch (UnsupportedAudioFileException e) {
+            result = RESULT_WRONG_FORMAT;
+        } finally {
+            try {
+                if (in != null) {
+                    in.close();
+                } else {
+                    src.close();
+                }
+            } catch (IOException e) {
+            }
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                }
+            }
+            if (report != null) {
+                if (agc != null) {
+                    PTCReport.writeAutoGainReport(report, agc.getDropoutCount());
+                }
+                report.close();
+            }
+        }
+
+        // P6Tファイルは、途中で終了した場合もそこまでのブロックで書き込む
+        if (options.isWriteP6T() && index != null && (result == RESULT_OK || result == RESULT_ILLEGAL_END)) {
+            try {
+                P6TWriter.write(p6File, index,
+                        new File(p6File.getParentFile(), getFilePrefix(p6File.getName()) + EXT_P6T));
+            } catch (IOException e) {
+                e.printStackTrace();
+                result = RESULT_IO_ERROR;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 音声ファイルを開く。先頭の識別子でFLACとWAVを判別する。
+     *
+     * @param file 音声ファイル
+     * @return 音声データの読み取り元
+     * @throws UnsupportedAudioFileException ファイルの形式が正しくない場合
+     * @throws IOException 読み取りに失敗した場合
+     */
+    public static SoundSource openSoundSource(File file) throws UnsupportedAudioFileException, IOException {
+        return openSoundSource(new FileInputStream(file));
+    }
+
+    /**
+     * 音声ファイルの内容を開く。先頭の識別子でFLACとWAVを判別する。
+     *
+     * @param src 音声ファイルの内容
+     * @return 音声データの読み取り元
+     * @throws UnsupportedAudioFileException ファイルの形式が正しくない場合
+     * @throws IOException 読み取りに失敗した場合
+     */
+    public static SoundSource openSoundSource(InputStream src) throws UnsupportedAudioFileException, IOException {
+        InputStream in = new BufferedInputStream(src);
+        if (FLACInputStream.isFLAC(in)) {
+            return new FLACInputStream(in);
+        }
+        return new WAVInputStream(in);
+    }
+
+    /**
+     * キャッシュされた変換結果を書き出す。
+     * 前回の変換結果と同じ内容のP6ファイルが既にある場合は、新しいファイルを作らない。
+     *
+     * @param cache キャッシュ
+     * @param key キー
+     * @param result キャッシュされた処理結果
+     * @param fileName WAVファイル名
+     * @param outDir 出力先ディレクトリ
+     * @return 処理結果
+     */
+    private static int restore(ConversionCache cache, String key, int result, String fileName, File outDir) {
+        if (cache.isSameP6(key, new File(outDir, getFilePrefix(fileName) + EXT_P6))) {
+            return result;
+        }
+
+        try {
+            File[] outFiles = createOutputFiles(fileName, outDir);
+            cache.restore(key, outFiles[0], outFiles[1]);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return RESULT_IO_ERROR;
+        }
+        return result;
+    }
+
+    /**
+     * 音声ファイルの最新のレポートファイルを得る。
+     * 同じ名前のファイルが既にあった場合は、連番（_1、_2…）が最も大きいものを返す。
+     *
+     * @param wavFile 音声ファイル
+     * @param outDir レポートファイルのディレクトリ（nullの場合はカレントディレクトリ）
+     * @return レポートファイル。ない場合はnull
+     */
+    public static File findReportFile(File wavFile, File outDir) {
+        String filePrefix = getFilePrefix(wavFile.getName());
+        File repFile = new File(outDir, filePrefix + EXT_REPORT);
+        if (!repFile.exists()) {
+            return null;
+        }
+        for (int i = 1;; i++) {
+            File next = new File(outDir, filePrefix + "_" + i + EXT_REPORT);
+            if (!next.exists()) {
+                return repFile;
+            }
+            repFile = next;
+        }
+    }
+
+    /**
+     * 既存と重ならない名前で、P6ファイルとレポートファイルを作成する。
+     * 他のプロセスが同じ名前のファイルを先に作成した場合は、次の連番を使う。
+     *
+     * @param fileName WAVファイル名
+     * @param outDir 出力先ディレクトリ
+     * @return P6ファイル、レポートファイルの順の配列
+     * @throws IOException ファイルを作成できない場合
+     */
+    private static synchronized File[] createOutputFiles(String fileName, File outDir) throws IOException {
+        // ファイルネーム生成
+        String filePrefix = getFilePrefix(fileName);
+        for (int i = 0;; i++) {
+            String name = (i == 0) ? filePrefix : filePrefix + "_" + i;
+            File p6File = new File(outDir, name + EXT_P6);
+            File repFile = new File(outDir, name + EXT_REPORT);
+            if (p6File.exists() || repFile.exists()) {
+                continue;
+            }
+
+            // 他のスレッド、プロセスに同じ名前を使わせないように、空のファイルを作っておく
+            if (!p6File.createNewFile()) {
+                continue;
+            }
+            if (!repFile.createNewFile()) {
+                p6File.delete();
+                continue;
+            }
+            return new File[] { p6File, repFile };
+        }
+    }
+
+    /**
+     * 書き込んだデータを捨てるOutputStream
+     */
+    static class NullOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    /**
+     * 拡張子を除いたファイル名を得る。
+     *
+     * @param fileName ファイル名
+     * @return 拡張子を除いたファイル名
+     */
+    private static String getFilePrefix(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot > 0) {
+            return fileName.substring(0, dot);
+        } else {
+            return fileName;
+        }
+    }
+}
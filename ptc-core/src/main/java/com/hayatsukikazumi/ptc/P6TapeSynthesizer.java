@@ -0,0 +1,528 @@
+/**
+ * @(#)P6TapeSynthesizer.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * P6ファイルからPC-6001のテープの音声（WAVファイル）を合成するクラス
+ * <p>
+ * ブロックごとに2400Hzのブランク（リーダー）を置き、1バイトを
+ * スタートビット（1200Hz 1波）、データビット8つ（下位から、0は1200Hz 1波、1は2400Hz 2波）、
+ * ストップビット（2400Hz 6波）で出力する。
+ * BASICのヘッダ（0xD3が10個＋ファイル名6文字）の後ろはブロックを分ける。
+ * <p>
+ * 記録方式（TapeProfile）を指定した場合は、その周波数、1ビットの周期数、ストップビット数で出力する。
+ * <p>
+ * 変換処理の試験用に、雑音、ワウ・フラッター（テープ速度の変動）、直流成分、
+ * ドロップアウト（一定間隔の音量低下）を加えられる。
+ * 正弦波は表引きで求め、まとめてWAVOutputStreamに書き込む。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class P6TapeSynthesizer {
+
+    /** サンプリング周波数のデフォルト値 */
+    public static final int SAMPLING_RATE_DEFAULT = 44100;
+
+    /** 振幅のデフォルト値 */
+    public static final double LEVEL_DEFAULT = 0.6;
+
+    /** 先頭と末尾の無音の長さ（秒） */
+    private static final double SILENCE_TIME = 0.5;
+
+    /** ブランクの長さ（秒） */
+    private static final double LEADER_TIME = 1.0;
+
+    /** BASICのヘッダ */
+    private static final int HEADER_MARK = 0xd3;
+
+    private static final int HEADER_MARK_COUNT = 10;
+
+    private static final int HEADER_LENGTH = 16;
+
+    /** ワウ、フラッターの周波数(Hz) */
+    private static final double WOW_FREQ = 0.5;
+
+    private static final double FLUTTER_FREQ = 10.0;
+
+    /** ドロップアウトの長さ（秒）と音量 */
+    private static final double DROPOUT_TIME = 0.02;
+
+    private static final double DROPOUT_LEVEL = 0.05;
+
+    /** 正弦波の表の長さ（2のべき乗） */
+    private static final int TABLE_BITS = 12;
+
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+
+    private static final float[] SINE = new float[TABLE_SIZE];
+
+    /** 一様乱数2つの和のRMSを1にする係数 */
+    private static final double NOISE_SCALE = Math.sqrt(1.5) / 0x80000000L;
+
+    /** まとめて書き込む数 */
+    private static final int CHUNK_SAMPLES = 4096;
+
+    static {
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            SINE[i] = (float) Math.sin(2 * Math.PI * i / TABLE_SIZE);
+        }
+    }
+
+    private int _samplingRate;
+
+    private TapeProfile _profile = TapeProfile.P6;
+
+    private double _level = LEVEL_DEFAULT;
+
+    /** 雑音のRMS */
+    private double _noise;
+
+    /** ワウ、フラッターの深さ（速度の変動の割合） */
+    private double _wow;
+
+    private double _flutter;
+
+    /** 直流成分 */
+    private double _dcOffset;
+
+    /** ドロップアウトの間隔（秒）（0の場合はドロップアウトなし） */
+    private double _dropoutInterval;
+
+    /** 雑音の乱数の状態 */
+    private int _seed = 1;
+
+    /** 以下、合成中の状態 */
+    private WAVOutputStream _out;
+
+    private float[] _buf = new float[CHUNK_SAMPLES];
+
+    private int _len;
+
+    private long _samples;
+
+    /** 波の位相（周期単位、0〜1） */
+    private double _phase;
+
+    private int _random;
+
+    /** ドロップアウトの周期と長さ（サンプル数）、周期内の位置 */
+    private long _dropoutPeriod;
+
+    private long _dropoutLen;
+
+    private long _dropoutPos;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param samplingRate サンプリング周波数
+     */
+    public P6TapeSynthesizer(int samplingRate) {
+        if (samplingRate < TapeProfile.P6.getHighFrequency() * 2) {
+            throw new IllegalArgumentException("Sampling rate is too low.");
+        }
+        _samplingRate = samplingRate;
+    }
+
+    /**
+     * 記録方式を設定する。
+     *
+     * @param profile 記録方式（デフォルトはPC-6001）
+     * @throws IllegalArgumentException サンプリング周波数が高周波数の2倍未満の場合
+     */
+    public void setProfile(TapeProfile profile) {
+        if (_samplingRate < profile.getHighFrequency() * 2) {
+            throw new IllegalArgumentException("Sampling rate is too low.");
+        }
+        _profile = profile;
+    }
+
+    /**
+     * 振幅を設定する。
+     *
+     * @param level 振幅（0〜1）
+     */
+    public void setLevel(double level) {
+        _level = level;
+    }
+
+    /**
+     * 雑音の大きさを設定する。
+     *
+     * @param noise 雑音のRMS（0の場合は雑音なし）
+     */
+    public void setNoise(double noise) {
+        _noise = noise;
+    }
+
+    /**
+     * ワウ（0.5Hzの速度の変動）の深さを設定する。
+     *
+     * @param wow 速度の変動の割合（0.05の場合は±5%）
+     */
+    public void setWow(double wow) {
+        _wow = wow;
+    }
+
+    /**
+     * フラッター（10Hzの速度の変動）の深さを設定する。
+     *
+     * @param flutter 速度の変動の割合
+     */
+    public void setFlutter(double flutter) {
+        _flutter = flutter;
+    }
+
+    /**
+     * 直流成分を設定する。
+     *
+     * @param dcOffset 直流成分
+     */
+    public void setDcOffset(double dcOffset) {
+        _dcOffset = dcOffset;
+    }
+
+    /**
+     * ドロップアウトの間隔を設定する。
+     * 間隔ごとに0.02秒間、音量を-26dBに下げる。
+     *
+     * @param interval 間隔（秒）（0の場合はドロップアウトなし）
+     */
+    public void setDropoutInterval(double interval) {
+        _dropoutInterval = interval;
+    }
+
+    /**
+     * 雑音の乱数の種を設定する。
+     *
+     * @param seed 種（0以外）
+     */
+    public void setSeed(int seed) {
+        _seed = (seed == 0) ? 1 : seed;
+    }
+
+    /**
+     * P6ファイルのデータをテープの音声にして書き込む。
+     *
+     * @param data P6ファイルのデータ
+     * @param out 書き込み先（サンプリング周波数はコンストラクタで指定したもの）
+     * @return 書き込んだサンプル数
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public synchronized long synthesize(byte[] data, WAVOutputStream out) throws IOException {
+        _out = out;
+        _len = 0;
+        _samples = 0;
+        _phase = 0;
+        _random = _seed;
+        _dropoutPeriod = (long) (_dropoutInterval * _samplingRate);
+        _dropoutLen = (long) (DROPOUT_TIME * _samplingRate);
+        _dropoutPos = 0;
+
+        silence(SILENCE_TIME);
+        int from = 0;
+        for (int to : getBlockEnds(data)) {
+            leader(LEADER_TIME);
+            for (int i = from; i < to; i++) {
+                writeByte(data[i] & 0xff);
+            }
+            from = to;
+        }
+        leader(LEADER_TIME);
+        silence(SILENCE_TIME);
+
+        flushBuffer();
+        _out = null;
+        return _samples;
+    }
+
+    /**
+     * ブロックの終わりの位置を得る。
+     * BASICのヘッダがあれば、その前後で分ける。
+     *
+     * @param data P6ファイルのデータ
+     * @return ブロックの終わりの位置
+     */
+    static List<Integer> getBlockEnds(byte[] data) {
+        List<Integer> ends = new ArrayList<Integer>();
+        int run = 0;
+        for (int i = 0; i < data.length; i++) {
+            run = ((data[i] & 0xff) == HEADER_MARK) ? run + 1 : 0;
+            int start = i + 1 - HEADER_MARK_COUNT;
+            if (run == HEADER_MARK_COUNT && start + HEADER_LENGTH <= data.length) {
+                if (start > 0 && (ends.isEmpty() || ends.get(ends.size() - 1).intValue() < start)) {
+                    ends.add(Integer.valueOf(start));
+                }
+                ends.add(Integer.valueOf(start + HEADER_LENGTH));
+                i = start + HEADER_LENGTH - 1;
+                run = 0;
+            }
+        }
+        if (ends.isEmpty() || ends.get(ends.size() - 1).intValue() < data.length) {
+            ends.add(Integer.valueOf(data.length));
+        }
+        return ends;
+    }
+
+    /**
+     * 1バイトを書き込む。
+     */
+    private void writeByte(int b) throws IOException {
+        double low = _profile.getLowFrequency();
+        double high = _profile.getHighFrequency();
+        int cycles = _profile.getCyclesPerBit();
+        waves(low, cycles);
+        for (int i = 0; i < _profile.getDataBits(); i++) {
+            if ((b & (1 << i)) != 0) {
+                waves(high, cycles * 2);
+            } else {
+                waves(low, cycles);
+            }
+        }
+        waves(high, cycles * 2 * _profile.getStopBits());
+    }
+
+    /**
+     * ブランクを書き込む。
+     */
+    private void leader(double time) throws IOException {
+        waves(_profile.getHighFrequency(), (int) (_profile.getHighFrequency() * time));
+    }
+
+    /**
+     * 無音を書き込む。
+     */
+    private void silence(double time) throws IOException {
+        long n = (long) (_samplingRate * time);
+        for (long i = 0; i < n; i++) {
+            put(0);
+        }
+    }
+
+    /**
+     * 正弦波を指定の波数だけ書き込む。
+     * 位相は次の波に引き継ぐため、周波数が変わっても波形は連続する。
+     * ワウ、フラッターによる速度は1波ごとに求める。
+     */
+    private void waves(double freq, int count) throws IOException {
+        double step = freq / _samplingRate;
+        boolean vary = _wow != 0 || _flutter != 0;
+        for (int i = 0; i < count; i++) {
+            double inc = vary ? step * getSpeed() : step;
+            while (_phase < 1) {
+                put(SINE[(int) (_phase * TABLE_SIZE)]);
+                _phase += inc;
+            }
+            _phase -= 1;
+        }
+    }
+
+    /**
+     * ワウ、フラッターによる現在の速度を得る。
+     */
+    private double getSpeed() {
+        double t = (double) _samples / _samplingRate;
+        double wow = t * WOW_FREQ;
+        double flutter = t * FLUTTER_FREQ;
+        return 1 + _wow * SINE[(int) ((wow - Math.floor(wow)) * TABLE_SIZE)]
+                + _flutter * SINE[(int) ((flutter - Math.floor(flutter)) * TABLE_SIZE)];
+    }
+
+    /**
+     * 音量、ドロップアウト、雑音、直流成分を加えてバッファに入れる。
+     */
+    private void put(float wave) throws IOException {
+        double v = wave * _level;
+        if (_dropoutPeriod > 0) {
+            if (++_dropoutPos == _dropoutPeriod) {
+                _dropoutPos = 0;
+            }
+            if (_dropoutPos < _dropoutLen && _samples >= _dropoutPeriod) {
+                v *= DROPOUT_LEVEL;
+            }
+        }
+        if (_noise != 0) {
+            v += nextNoise() * _noise;
+        }
+        _buf[_len++] = (float) (v + _dcOffset);
+        _samples++;
+
+        if (_len == CHUNK_SAMPLES) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * RMSが1の雑音（一様乱数2つの和による三角分布）を得る。
+     * 乱数はxorshiftで求める。
+     */
+    private double nextNoise() {
+        int r1 = nextRandom();
+        int r2 = nextRandom();
+        return ((double) r1 + (double) r2) * NOISE_SCALE;
+    }
+
+    private int nextRandom() {
+        _random ^= _random << 13;
+        _random ^= _random >>> 17;
+        _random ^= _random << 5;
+        return _random;
+    }
+
+    /**
+     * バッファの内容を書き込む。
+     */
+    private void flushBuffer() throws IOException {
+        _out.writeSound(_buf, 0, _len);
+        _len = 0;
+    }
+
+    /**
+     * mainメソッド。
+     * <p>
+     * 実行オプション<br>
+     * java -cp PTC.jar com.hayatsukikazumi.ptc.P6TapeSynthesizer [options] src.P6 [dest.wav]<br>
+     * -rXXXX : サンプリング周波数をXXXXHzにする（デフォルトは44100）。<br>
+     * -bXX : ビット数をXXにする（8、16、24、32。デフォルトは16）。<br>
+     * -F : 32ビットの浮動小数点にする。<br>
+     * -vX.X : 振幅を設定する（0〜1、デフォルトは0.6）。<br>
+     * -NX.X : 雑音のRMSを設定する。<br>
+     * -WX.X : ワウの深さを設定する。<br>
+     * -UX.X : フラッターの深さを設定する。<br>
+     * -DX.X : 直流成分を設定する。<br>
+     * -OX.X : X.X秒ごとにドロップアウトを入れる。<br>
+     * -iXXXX : 雑音の乱数の種を設定する。<br>
+     * -pNAME : 記録方式をNAMEにする（P6、MSX1200、MSX2400、KCS300、CUTS1200）。<br>
+     * ※dest.wavを省略した場合は、src.P6の拡張子をwavにしたファイルに書き込む。
+     *
+     * @param args パラメータ
+     */
+    public static void main(String[] args) {
+        int rate = SAMPLING_RATE_DEFAULT;
+        int bits = 16;
+        int formatId = WAVDecoder.FORMAT_ID_LINEAR_PCM;
+        List<String> files = new ArrayList<String>();
+        P6TapeSynthesizer synth;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("-r")) {
+                    rate = Integer.parseInt(arg.substring(2));
+                } else if (arg.startsWith("-b")) {
+                    bits = Integer.parseInt(arg.substring(2));
+                } else if (arg.startsWith("-F")) {
+                    formatId = WAVDecoder.FORMAT_ID_IEEE_FLOAT;
+                    bits = 32;
+                } else if (!arg.startsWith("-")) {
+                    files.add(arg);
+                }
+            }
+            if (files.isEmpty() || files.size() > 2) {
+                throw new IllegalArgumentException("No file.");
+            }
+
+            synth = new P6TapeSynthesizer(rate);
+            for (String arg : args) {
+                if (arg.startsWith("-v")) {
+                    synth.setLevel(Double.parseDouble(arg.substring(2)));
+                } else if (arg.startsWith("-N")) {
+                    synth.setNoise(Double.parseDouble(arg.substring(2)));
+                } else if (arg.startsWith("-W")) {
+                    synth.setWow(Double.parseDouble(arg.substring(2)));
+                } else if (arg.startsWith("-U")) {
+                    synth.setFlutter(Double.parseDouble(arg.substring(2)));
+                } else if (arg.startsWith("-D")) {
+                    synth.setDcOffset(Double.parseDouble(arg.substring(2)));
+                } else if (arg.startsWith("-O")) {
+                    synth.setDropoutInterval(Double.parseDouble(arg.substring(2)));
+                } else if (arg.startsWith("-i")) {
+                    synth.setSeed(Integer.parseInt(arg.substring(2)));
+                } else if (arg.startsWith("-p")) {
+                    synth.setProfile(TapeProfile.forName(arg.substring(2)));
+                } else if (arg.startsWith("-") && "rbF".indexOf(arg.charAt(1)) < 0) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.out.println("使い方: java -cp PTC.jar " + P6TapeSynthesizer.class.getName()
+                    + " [options] src.P6 [dest.wav]");
+            System.out.println("  -rXXXX    サンプリング周波数(Hz)を指定");
+            System.out.println("  -bXX      ビット数(8/16/24/32)を指定");
+            System.out.println("  -F        32ビットの浮動小数点にする");
+            System.out.println("  -vX.X     振幅(0〜1)を指定");
+            System.out.println("  -NX.X     雑音のRMSを指定");
+            System.out.println("  -WX.X     ワウ(0.5Hz)の深さを指定");
+            System.out.println("  -UX.X     フラッター(10Hz)の深さを指定");
+            System.out.println("  -DX.X     直流成分を指定");
+            System.out.println("  -OX.X     X.X秒ごとにドロップアウトを入れる");
+            System.out.println("  -iXXXX    雑音の乱数の種を指定");
+            System.out.println("  -pNAME    記録方式(P6/MSX1200/MSX2400/KCS300/CUTS1200)を指定");
+            System.exit(0);
+            return;
+        }
+
+        File src = new File(files.get(0));
+        File dest;
+        if (files.size() > 1) {
+            dest = new File(files.get(1));
+        } else {
+            String name = src.getName();
+            int dot = name.lastIndexOf('.');
+            dest = new File(src.getAbsoluteFile().getParentFile(),
+                    ((dot > 0) ? name.substring(0, dot) : name) + ".wav");
+        }
+
+        try {
+            byte[] data = readFile(src);
+            long start = System.nanoTime();
+            WAVOutputStream out = new WAVOutputStream(dest, rate, formatId, bits);
+            long samples;
+            try {
+                samples = synth.synthesize(data, out);
+            } finally {
+                out.close();
+            }
+            double sec = (System.nanoTime() - start) / 1e9;
+            System.out.println(dest + " : " + samples + " samples, "
+                    + String.format(Locale.ROOT, "%.1f", samples / (double) rate) + " sec ("
+                    + String.format(Locale.ROOT, "%.0f", samples / Math.max(sec, 1e-9)) + " samples/sec)");
+        } catch (UnsupportedAudioFileException e) {
+            System.out.println(e.getMessage());
+            System.exit(P6TapeConvertorMain.RESULT_NOT_SUPPORTED_WAV);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(P6TapeConvertorMain.RESULT_IO_ERROR);
+        }
+    }
+
+    /**
+     * ファイルの内容を読み取る。
+     */
+    private static byte[] readFile(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] data = new byte[(int) file.length()];
+            int pos = 0;
+            int n;
+            while (pos < data.length && (n = in.read(data, pos, data.length - pos)) > 0) {
+                pos += n;
+            }
+            return data;
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * @(#)PTCArchive.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * ZIPファイル内のWAVファイルを変換するクラス
+ * <p>
+ * ZIPファイル内のWAVファイル（またはFLACファイル）を展開せずに読み取り、並行して変換する。
+ * P6ファイルとレポートファイルは、ZIPファイルと同じディレクトリの
+ * 「ZIPファイル名_results」ディレクトリに出力する。
+ * 音声ファイルが必要なオプション（インデックス、ブロックの指定、途中経過の記録）は使えない。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class PTCArchive {
+
+    /** 出力先ディレクトリ名の末尾 */
+    public static final String DIR_SUFFIX = "_results";
+
+    private static final String EXT_ZIP = ".zip";
+
+    private static final String EXT_WAV = ".wav";
+
+    private static final String EXT_FLAC = ".flac";
+
+    private PTCOptions _options;
+
+    private int _threads;
+
+    private PrintStream _log;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param options 変換オプション
+     * @param threads 同時に変換するファイル数の上限
+     * @param log 処理状況の出力先
+     */
+    public PTCArchive(PTCOptions options, int threads, PrintStream log) {
+        _options = options;
+        _threads = threads;
+        _log = log;
+    }
+
+    /**
+     * ZIPファイルかを拡張子で判定する。
+     *
+     * @param file ファイル
+     * @return ZIPファイルの場合はtrue
+     */
+    public static boolean isArchive(File file) {
+        return file.getName().toLowerCase().endsWith(EXT_ZIP);
+    }
+
+    /**
+     * ZIPファイルの変換で使えるオプションかを判定する。
+     * インデックスファイル（-x）、ブロックの指定（-bN）、途中経過の記録（-k）は、
+     * 音声ファイルの隣に書き込む、または音声ファイルを読み直すため、ZIPファイル内のファイルには使えない。
+     *
+     * @param options オプション
+     * @return 使える場合はtrue
+     */
+    public static boolean isSupported(PTCOptions options) {
+        return !options.isWriteIndex() && options.getBlock() == 0 && !options.isCheckpoint();
+    }
+
+    /**
+     * ZIPファイル内のWAVファイルをすべて変換する。
+     * オプションはisSupported(PTCOptions)で確認しておくこと。
+     *
+     * @param zipFile ZIPファイル
+     * @return 処理結果（最初に失敗したファイルの処理結果。すべて成功した場合はRESULT_OK）
+     */
+    public int convert(File zipFile) {
+        if (!zipFile.canRead()) {
+            return P6TapeConvertorMain.RESULT_FILE_NOT_FOUND;
+        }
+
+        final ZipFile zip;
+        try {
+            zip = new ZipFile(zipFile);
+        } catch (ZipException e) {
+            return P6TapeConvertorMain.RESULT_WRONG_FORMAT;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return P6TapeConvertorMain.RESULT_IO_ERROR;
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(_threads);
+        try {
+            String name = zipFile.getName();
+            final File outDir = new File(zipFile.getAbsoluteFile().getParentFile(),
+                    name.substring(0, name.length() - EXT_ZIP.length()) + DIR_SUFFIX);
+            outDir.mkdirs();
+
+            // 変換対象のエントリ
+            List<ZipEntry> entries = new ArrayList<ZipEntry>();
+            Enumeration<? extends ZipEntry> e = zip.entries();
+            while (e.hasMoreElements()) {
+                ZipEntry entry = e.nextElement();
+                String entryName = entry.getName().toLowerCase();
+                if (!entry.isDirectory() && (entryName.endsWith(EXT_WAV) || entryName.endsWith(EXT_FLAC))) {
+                    entries.add(entry);
+                }
+            }
+            if (entries.isEmpty()) {
+                return P6TapeConvertorMain.RESULT_WRONG_FORMAT;
+            }
+
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (final ZipEntry entry : entries) {
+                futures.add(workers.submit(new Callable<Integer>() {
+
+                    public Integer call() {
+                        return Integer.valueOf(P6TapeConvertorMain.execute(zip, entry, outDir, _options));
+                    }
+                }));
+            }
+
+            // ZIPファイル内の順に結果を出力する
+            int result = P6TapeConvertorMain.RESULT_OK;
+            for (int i = 0; i < entries.size(); i++) {
+                int r;
+                try {
+                    r = futures.get(i).get().intValue();
+                } catch (ExecutionException ex) {
+                    ex.getCause().printStackTrace();
+                    r = P6TapeConvertorMain.RESULT_IO_ERROR;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return P6TapeConvertorMain.RESULT_IO_ERROR;
+                }
+
+                _log.println(entries.get(i).getName() + " (" + r + ")");
+                if (result == P6TapeConvertorMain.RESULT_OK) {
+                    result = r;
+                }
+            }
+            return result;
+
+        } finally {
+            workers.shutdownNow();
+            try {
+                zip.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+}
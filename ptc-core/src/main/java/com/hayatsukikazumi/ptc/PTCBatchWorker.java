@@ -0,0 +1,513 @@
+/**
+ * @(#)PTCBatchWorker.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 共有ディレクトリのWAVファイルを、複数のプロセス（別のホストを含む）で分担して変換するクラス
+ * <p>
+ * キューのディレクトリに置かれたWAVファイル（またはFLACファイル）を1つずつ取得して変換し、
+ * 監視モードと同じく、成功した場合はdoneディレクトリに、失敗した場合はfailedディレクトリに移動する。
+ * キューのディレクトリを共有すれば、プロセスやホストを増やすだけで変換を分担できる。
+ * 取得できるファイルがなくなると終了する。
+ * <p>
+ * ファイルの取得は、workディレクトリのロックファイル（ファイル名.lock）をFileChannelでロックしてから、
+ * WAVファイルをworkディレクトリに名前の変更で移動する。名前の変更はアトミックなので、
+ * 同じファイルを2つのプロセスが取得することはない。
+ * 変換中はロックを保持するため、ロックできるのにworkディレクトリに残っているファイルは、
+ * 変換中にプロセスが終了したものとみなし、開始時にキューに戻す。
+ * ロックファイルは、終了したファイルのものは削除する。ロックした後に、ロックファイルの名前が
+ * 開く前と同じファイル（fileKey）を指していることを確認し、他のプロセスが削除したファイルを
+ * ロックした場合はやり直す。fileKeyを得られないファイルシステムでは、ロックファイルを削除しない。
+ * 共有ディレクトリはファイルロックに対応している必要がある（NFSv4など）。
+ * <p>
+ * 出力ファイルはworkディレクトリ内の作業ディレクトリ（ファイル名.ptc）に作成し、完成してから名前の変更で移動する。
+ * 途中経過を記録する場合（-k）は、キューに戻したファイルの作業ディレクトリを残し、
+ * 次に取得したプロセスが続きから変換する。読み書きの失敗で終了した場合も、
+ * 変換中に終了した場合と同じくworkディレクトリに残し、次の開始時にキューに戻す。
+ * ファイルごとの状態（running、done、failed、queued）は、statusディレクトリの
+ * 「ファイル名.status」に書き込む（一時ファイルに書き込んでから置き換える）。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class PTCBatchWorker {
+
+    /** 取得したファイルの置き場所 */
+    public static final String DIR_WORK = "work";
+
+    /** 状態ファイルの置き場所 */
+    public static final String DIR_STATUS = "status";
+
+    /** 状態ファイルの拡張子 */
+    public static final String EXT_STATUS = ".status";
+
+    /** 状態ファイルの項目 */
+    public static final String STATUS_STATE = "State = ";
+
+    public static final String STATUS_RESULT = "Result = ";
+
+    public static final String STATUS_WORKER = "Worker = ";
+
+    public static final String STATUS_TIME = "Time = ";
+
+    /** 変換中 */
+    public static final String STATE_RUNNING = "running";
+
+    /** 変換に成功した */
+    public static final String STATE_DONE = "done";
+
+    /** 変換に失敗した */
+    public static final String STATE_FAILED = "failed";
+
+    /** 変換中に終了したため、キューに戻した */
+    public static final String STATE_QUEUED = "queued";
+
+    /** 読み書きの失敗で中断した（次の開始時にキューに戻し、続きから変換する） */
+    public static final String STATE_SUSPENDED = "suspended";
+
+    private static final String EXT_LOCK = ".lock";
+
+    private static final String EXT_WAV = ".wav";
+
+    private static final String EXT_FLAC = ".flac";
+
+    private PTCOptions _options;
+
+    private int _threads;
+
+    private PrintStream _log;
+
+    /** このプロセスの名前（プロセスID@ホスト名） */
+    private String _worker = ManagementFactory.getRuntimeMXBean().getName();
+
+    /**
+     * 取得したファイル
+     */
+    private static class Job {
+
+        /** キューのディレクトリ */
+        File dir;
+
+        /** workディレクトリに移動したファイル */
+        File file;
+
+        File lockFile;
+
+        FileChannel channel;
+
+        FileLock lock;
+
+        /** ロックしたロックファイルのfileKey（nullの場合はロックファイルを削除しない） */
+        Object lockKey;
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param options 変換オプション
+     * @param threads このプロセスで同時に変換するファイル数の上限
+     * @param log 処理状況の出力先
+     */
+    public PTCBatchWorker(PTCOptions options, int threads, PrintStream log) {
+        _options = options;
+        _threads = threads;
+        _log = log;
+    }
+
+    /**
+     * キューのファイルがなくなるまで変換する。
+     *
+     * @param dirs キューのディレクトリ
+     * @return 処理結果（このプロセスで最初に失敗したファイルの処理結果。すべて成功した場合はRESULT_OK）
+     * @throws IOException ディレクトリを作成できない場合
+     */
+    public int run(final List<File> dirs) throws IOException {
+        for (File dir : dirs) {
+            Files.createDirectories(new File(dir, DIR_WORK).toPath());
+            Files.createDirectories(new File(dir, DIR_STATUS).toPath());
+            Files.createDirectories(new File(dir, PTCWatcher.DIR_DONE).toPath());
+            Files.createDirectories(new File(dir, PTCWatcher.DIR_FAILED).toPath());
+            _log.println("Worker " + _worker + " : " + dir.getAbsolutePath());
+
+            // 変換中に終了したプロセスのファイル
+            recover(dir);
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(_threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < _threads; i++) {
+                futures.add(workers.submit(new Callable<Integer>() {
+
+                    public Integer call() throws IOException {
+                        int result = P6TapeConvertorMain.RESULT_OK;
+                        Job job;
+                        while ((job = claimNext(dirs)) != null) {
+                            int r = convert(job);
+                            if (result == P6TapeConvertorMain.RESULT_OK) {
+                                result = r;
+                            }
+                        }
+                        return Integer.valueOf(result);
+                    }
+                }));
+            }
+
+            int result = P6TapeConvertorMain.RESULT_OK;
+            for (Future<Integer> f : futures) {
+                int r;
+                try {
+                    r = f.get().intValue();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                    r = P6TapeConvertorMain.RESULT_IO_ERROR;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return P6TapeConvertorMain.RESULT_IO_ERROR;
+                }
+                if (result == P6TapeConvertorMain.RESULT_OK) {
+                    result = r;
+                }
+            }
+            return result;
+
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * キューのファイルを名前の順に取得する。
+     *
+     * @param dirs キューのディレクトリ
+     * @return 取得したファイル。取得できるファイルがない場合はnull
+     * @throws IOException ロックファイルを作成できない場合
+     */
+    private Job claimNext(List<File> dirs) throws IOException {
+        for (File dir : dirs) {
+            File[] files = dir.listFiles();
+            if (files == null) continue;
+            Arrays.sort(files);
+
+            for (File f : files) {
+                if (!isSoundFile(f) || !f.isFile()) continue;
+                Job job = claim(dir, f);
+                if (job != null) {
+                    return job;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * ファイルを取得する。
+     *
+     * @param dir キューのディレクトリ
+     * @param file ファイル
+     * @return 取得したファイル。他のプロセス、スレッドが取得した場合はnull
+     * @throws IOException ロックファイルを作成できない場合
+     */
+    private Job claim(File dir, File file) throws IOException {
+        Job job = new Job();
+        job.dir = dir;
+        job.file = new File(new File(dir, DIR_WORK), file.getName());
+        job.lockFile = new File(job.file.getPath() + EXT_LOCK);
+        if (!lock(job)) {
+            return null;
+        }
+
+        boolean claimed = false;
+        try {
+            // ロックしたまま前のファイルが残っていることはない（開始時にキューに戻す）が、念のため上書きしない
+            if (!job.file.exists()) {
+                Files.move(file.toPath(), job.file.toPath(), ATOMIC_MOVE);
+                claimed = true;
+            }
+        } catch (NoSuchFileException e) {
+            // 他のプロセスが取得した
+        } finally {
+            if (!claimed) {
+                unlock(job, false);
+            }
+        }
+        if (!claimed) {
+            return null;
+        }
+
+        writeStatus(job.dir, job.file.getName(), STATE_RUNNING, -1);
+        return job;
+    }
+
+    /**
+     * 変換中に終了したプロセスのファイルを、キューに戻す。
+     *
+     * @param dir キューのディレクトリ
+     * @throws IOException ロックファイルを作成できない場合
+     */
+    private void recover(File dir) throws IOException {
+        File[] files = new File(dir, DIR_WORK).listFiles();
+        if (files == null) return;
+
+        for (File f : files) {
+            if (!isSoundFile(f)) continue;
+
+            Job job = new Job();
+            job.dir = dir;
+            job.file = f;
+            job.lockFile = new File(f.getPath() + EXT_LOCK);
+            if (!lock(job)) {
+                // 変換中
+                continue;
+            }
+
+            try {
+                File[] temps = f.getParentFile().listFiles();
+                if (temps != null) {
+                    for (File t : temps) {
+                        if (t.isDirectory() && t.getName().startsWith(f.getName() + ".")
+                                && !PTCWatcher.isResumable(t, f.getName(), _options)) {
+                            PTCWatcher.deleteTree(t);
+                        }
+                    }
+                }
+
+                File dest = new File(dir, f.getName());
+                if (f.exists() && !dest.exists()) {
+                    Files.move(f.toPath(), dest.toPath(), ATOMIC_MOVE);
+                    writeStatus(dir, f.getName(), STATE_QUEUED, -1);
+                    synchronized (_log) {
+                        _log.println(f.getName() + " (requeued)");
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // 他のプロセスがキューに戻した
+            } finally {
+                unlock(job, true);
+            }
+        }
+    }
+
+    /**
+     * 取得したファイルを変換して、結果に応じたディレクトリに移動する。
+     * 出力ファイルとWAVファイルは、監視モードと同じく同じ連番をつけてまとめて移動する。
+     * 移動に失敗した場合は、作業ディレクトリを削除して、WAVファイルをfailedディレクトリに移動する。
+     * 読み書きの失敗で途中経過が残っている場合は、ファイル、作業ディレクトリ、ロックファイルを
+     * workディレクトリに残す（次の開始時にキューに戻し、続きから変換する）。
+     *
+     * @param job 取得したファイル
+     * @return 処理結果
+     */
+    private int convert(Job job) {
+        String name = job.file.getName();
+        int result;
+        File workDir = null;
+        boolean suspended = false;
+        try {
+            // 作業ディレクトリ名はファイル名で始める（キューに戻す時に削除するため）
+            workDir = PTCWatcher.prepareWorkDir(new File(job.file.getParentFile(), name + PTCWatcher.EXT_WORK), name,
+                    _options);
+            result = P6TapeConvertorMain.execute(job.file, workDir, _options);
+            suspended = result == P6TapeConvertorMain.RESULT_IO_ERROR
+                    && PTCWatcher.isResumable(workDir, name, _options);
+
+            if (suspended) {
+                writeStatus(job.dir, name, STATE_SUSPENDED, result);
+            } else {
+                File destDir = new File(job.dir,
+                        (result == P6TapeConvertorMain.RESULT_OK) ? PTCWatcher.DIR_DONE : PTCWatcher.DIR_FAILED);
+                List<File> files = new ArrayList<File>();
+                File[] outputs = workDir.listFiles();
+                if (outputs != null) {
+                    Collections.addAll(files, outputs);
+                }
+                files.add(job.file);
+                PTCWatcher.moveAll(files, destDir);
+                workDir.delete();
+                writeStatus(job.dir, name,
+                        (result == P6TapeConvertorMain.RESULT_OK) ? STATE_DONE : STATE_FAILED, result);
+            }
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            result = P6TapeConvertorMain.RESULT_IO_ERROR;
+            suspended = workDir != null && PTCWatcher.isResumable(workDir, name, _options);
+            if (!suspended) {
+                if (workDir != null) {
+                    PTCWatcher.deleteTree(workDir);
+                }
+                try {
+                    if (job.file.exists()) {
+                        PTCWatcher.moveAll(Collections.singletonList(job.file),
+                                new File(job.dir, PTCWatcher.DIR_FAILED));
+                    }
+                    writeStatus(job.dir, name, STATE_FAILED, result);
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        } finally {
+            // 中断した場合はロックファイルを残す（次の開始時に、ロックできることでキューに戻す）
+            unlock(job, !suspended);
+        }
+
+        synchronized (_log) {
+            _log.println(name + " (" + result + (suspended ? ", suspended" : "") + ")");
+        }
+        return result;
+    }
+
+    /**
+     * ロックファイルをロックする。
+     *
+     * @param job ファイル
+     * @return ロックできた場合はtrue。他のプロセス、スレッドがロックしている場合はfalse
+     * @throws IOException ロックファイルを作成できない場合
+     */
+    private static boolean lock(Job job) throws IOException {
+        Path path = job.lockFile.toPath();
+        while (true) {
+            Object key;
+            try {
+                Files.createFile(path);
+            } catch (FileAlreadyExistsException e) {
+                // 既にある
+            }
+            try {
+                key = getFileKey(path);
+                job.channel = FileChannel.open(path, WRITE);
+            } catch (NoSuchFileException e) {
+                // 他のプロセスが解除して削除した
+                continue;
+            }
+
+            try {
+                job.lock = job.channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // 同じプロセスの他のスレッドがロックしている
+                job.lock = null;
+            }
+            if (job.lock == null) {
+                job.channel.close();
+                return false;
+            }
+
+            // 開いた後に、他のプロセスが解除して削除した場合は、削除されたファイルをロックしている
+            Object locked;
+            try {
+                locked = getFileKey(path);
+            } catch (NoSuchFileException e) {
+                locked = null;
+            }
+            if (key == null && locked == null && job.lockFile.exists()) {
+                // fileKeyを得られないファイルシステム（ロックファイルを削除しないので、置き換わることはない）
+                job.lockKey = null;
+                return true;
+            }
+            if (key != null && key.equals(locked)) {
+                job.lockKey = key;
+                return true;
+            }
+            job.lock.release();
+            job.channel.close();
+        }
+    }
+
+    /**
+     * ファイルのfileKeyを得る。
+     *
+     * @param path ファイル
+     * @return fileKey。ファイルシステムが対応していない場合はnull
+     * @throws IOException ファイルがない場合
+     */
+    private static Object getFileKey(Path path) throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+
+    /**
+     * ロックを解除する。
+     *
+     * @param job ファイル
+     * @param delete ロックファイルを削除する場合はtrue（fileKeyを得られない場合は削除しない）
+     */
+    private static void unlock(Job job, boolean delete) {
+        if (delete && job.lockKey != null) {
+            // 削除してから解除する（解除を待っていた他のプロセスは、fileKeyが変わったことで判断する）
+            job.lockFile.delete();
+        }
+        try {
+            job.lock.release();
+            job.channel.close();
+        } catch (IOException e) {
+            // 何もしない
+        }
+    }
+
+    /**
+     * 状態ファイルを書き込む。一時ファイルに書き込んでから置き換える。
+     *
+     * @param dir キューのディレクトリ
+     * @param name ファイル名
+     * @param state 状態
+     * @param result 処理結果（未定の場合は-1）
+     * @throws IOException 書き込めない場合
+     */
+    private void writeStatus(File dir, String name, String state, int result) throws IOException {
+        File statusDir = new File(dir, DIR_STATUS);
+        Path temp = Files.createTempFile(statusDir.toPath(), name + ".", ".tmp");
+        PrintStream out = new PrintStream(temp.toFile(), "UTF-8");
+        try {
+            out.println(STATUS_STATE + state);
+            if (result >= 0) {
+                out.println(STATUS_RESULT + result);
+            }
+            out.println(STATUS_WORKER + _worker);
+            out.println(STATUS_TIME + new SimpleDateFormat("yyyy/MM/dd HH:mm:ss").format(new Date()));
+        } finally {
+            out.close();
+        }
+        Files.move(temp, new File(statusDir, name + EXT_STATUS).toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+    }
+
+    /**
+     * 変換対象のファイルかを拡張子で判定する。
+     *
+     * @param file ファイル
+     * @return WAVファイル、FLACファイルの場合はtrue
+     */
+    private static boolean isSoundFile(File file) {
+        String name = file.getName().toLowerCase();
+        return name.endsWith(EXT_WAV) || name.endsWith(EXT_FLAC);
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * @(#)PTCDaemon.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 常駐して変換要求を受け付けるクラス
+ * <p>
+ * JVMを起動したままにすることで、ファイルごとの起動時間とJITのウォームアップを省く。
+ * 要求は1行1件で、コマンドラインと同じ形式のオプションに続けてファイル名を指定する。
+ * （例）<code>-s2.5 -n /data/tape01.wav</code><br>
+ * 応答は処理結果（P6TapeConvertorMain.RESULT_XXX）を1行で返す。
+ * ZIPファイルは中のファイルをすべて変換し、最初に失敗したファイルの処理結果を返す。
+ * -kの途中経過はWAVファイルと同じディレクトリに記録するため、同じ要求を再び送ると続きから変換する
+ * （-x、-bN、-Tと同時に指定した場合は、要求の形式誤りとする）。
+ * 空行は無視し、QUITで接続（標準入出力の場合は常駐）を終了、SHUTDOWNで常駐を終了する。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class PTCDaemon {
+
+    /** 処理結果（要求の形式が正しくない） */
+    public static final int RESULT_BAD_REQUEST = -1;
+
+    private static final String CMD_QUIT = "QUIT";
+
+    private static final String CMD_SHUTDOWN = "SHUTDOWN";
+
+    private PTCOptions _defaults;
+
+    private volatile boolean _shutdown;
+
+    private ServerSocket _server;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param defaults 各要求のオプションの初期値
+     */
+    public PTCDaemon(PTCOptions defaults) {
+        _defaults = defaults;
+    }
+
+    /**
+     * 標準入出力で要求を受け付ける。入力の終わりに達するまで戻らない。
+     *
+     * @throws IOException
+     */
+    public void runStdio() throws IOException {
+        serve(System.in, System.out);
+    }
+
+    /**
+     * ループバックアドレスの指定ポートで要求を受け付ける。SHUTDOWNを受けるまで戻らない。
+     *
+     * @param port ポート番号
+     * @throws IOException
+     */
+    public void runSocket(int port) throws IOException {
+        _server = new ServerSocket(port, 50, InetAddress.getByName(null));
+        try {
+            while (!_shutdown) {
+                final Socket socket;
+                try {
+                    socket = _server.accept();
+                } catch (IOException e) {
+                    if (_shutdown) break;
+                    throw e;
+                }
+
+                Thread t = new Thread(new Runnable() {
+
+                    public void run() {
+                        try {
+                            serve(socket.getInputStream(), socket.getOutputStream());
+                        } catch (IOException e) {
+                            // 接続が切れた場合は何もしない
+                        } finally {
+                            try {
+                                socket.close();
+                            } catch (IOException e) {
+                            }
+                        }
+                    }
+                }, "PTCDaemon-" + socket.getPort());
+                t.setDaemon(true);
+                t.start();
+            }
+        } finally {
+            _server.close();
+        }
+    }
+
+    /**
+     * 1つの接続の要求を処理する。
+     *
+     * @param in 要求の入力
+     * @param out 応答の出力
+     * @throws IOException
+     */
+    private void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+        PrintStream writer = new PrintStream(out, true);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.length() == 0) {
+                continue;
+            }
+            if (CMD_QUIT.equals(line)) {
+                break;
+            }
+            if (CMD_SHUTDOWN.equals(line)) {
+                shutdown();
+                break;
+            }
+
+            writer.println(execute(line));
+        }
+    }
+
+    /**
+     * 1件の要求を処理する。
+     *
+     * @param line 要求
+     * @return 処理結果
+     */
+    int execute(String line) {
+        // オプションとファイル名に分割する（ファイル名は空白を含んでもよい）
+        List<String> args = new ArrayList<String>();
+        int pos = 0;
+        while (pos < line.length() && line.charAt(pos) == '-') {
+            int end = line.indexOf(' ', pos);
+            if (end < 0) end = line.length();
+            args.add(line.substring(pos, end));
+            pos = end;
+            while (pos < line.length() && line.charAt(pos) == ' ') {
+                pos++;
+            }
+        }
+        String fileName = line.substring(pos);
+
+        PTCOptions options = _defaults.copy();
+        try {
+            options.apply(args.toArray(new String[args.size()]));
+        } catch (IllegalArgumentException e) {
+            return RESULT_BAD_REQUEST;
+        }
+        if (fileName.length() == 0 || options.isDaemon() || options.isWatch() || options.isBatch()
+                || !ConversionCheckpoint.isSupported(options)) {
+            return RESULT_BAD_REQUEST;
+        }
+
+        File wavFile = new File(fileName);
+        if (PTCArchive.isArchive(wavFile)) {
+            if (!PTCArchive.isSupported(options)) {
+                return RESULT_BAD_REQUEST;
+            }
+            // 応答の出力と混ざらないように、ファイルごとの結果は出力しない
+            PrintStream log = new PrintStream(new P6TapeConvertorMain.NullOutputStream());
+            return new PTCArchive(options, Math.max(1, options.getThreads()), log).convert(wavFile);
+        }
+        return P6TapeConvertorMain.execute(wavFile, wavFile.getParentFile(), options);
+    }
+
+    /**
+     * 常駐を終了する。
+     */
+    private void shutdown() {
+        _shutdown = true;
+        if (_server != null) {
+            try {
+                _server.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+}
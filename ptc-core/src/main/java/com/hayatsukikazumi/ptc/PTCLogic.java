@@ -0,0 +1,733 @@
+package com.hayatsukikazumi.ptc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * WAV→P6の変換機能ロジッククラス
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class PTCLogic {
+
+    /** デコード結果に影響する変更を加えた場合に更新する、デコーダのバージョン */
+    public static final String DECODER_VERSION = "1.2.1";
+
+    /** 解析ウインドウの長さのデフォルト値 */
+    public static final int WINDOW_SIZE_DEFAULT = 65536;
+
+    /** FSK変調の信号の有無を調べる長さのデフォルト値（秒） */
+    public static final int REJECT_TIME_DEFAULT = 30;
+
+    private enum StartBitType {
+        STREAM_END, START_BIT, LEADER, DROPOUT
+    };
+
+    private static final int BUF_HALF_SIZE = 512;
+
+    /** 無音、雑音判定のブロックの長さ（1ビットの解析に必要な長さの倍数） */
+    private static final int GAP_BLOCK_LOOK_AHEADS = 4;
+    /** 読み飛ばす無音、雑音部分の最小ブロック数 */
+    private static final int GAP_MIN_BLOCKS = 4;
+    /** FSK変調の音とみなす波高率の上限 */
+    private static final double GAP_CREST_MAX = 2.5;
+
+    /** ドロップアウトとみなす無音、雑音部分の最大の長さ（秒）（これより長い場合はブランク） */
+    private static final double DROPOUT_MAX_TIME = 0.25;
+
+    /** FSK変調の音とみなす、2つの周波数の成分の割合の下限 */
+    private static final double TONE_RATIO_MIN = 0.35;
+    /** FSK変調の信号があるとみなす、FSK変調の音が続く長さ（秒） */
+    private static final double TONE_MIN_TIME = 0.25;
+    /** ブロックの途中で途中経過を記録する間隔（秒） */
+    private static final int CHECKPOINT_INTERVAL = 10;
+
+    /** テープの記録方式 */
+    private TapeProfile _profile = TapeProfile.P6;
+    private double _freqLow;
+    /** ブランクとみなす高周波数の最小の波数 */
+    private int _minLeaderLen;
+
+    private SoundSource _in;
+
+    private OutputStream _out;
+
+    private PrintStream _report;
+
+    private FSKBitAnalyzer _fsk;
+
+    private int _samplingRate;
+
+    private int _windowSize = WINDOW_SIZE_DEFAULT;
+
+    private SampleWindow _win;
+    private int _lookAhead;
+    int _pos;
+    int _destpos;
+
+    private boolean _skipGaps;
+    private int _gapBlock;
+    private int _gapMinInterval;
+    private int _gapMaxInterval;
+    /** 無音、雑音の判定が済んだ位置（ストリーム先頭から） */
+    private long _gapCheckedTo;
+
+    /** 最後に読み飛ばした無音、雑音部分の長さ */
+    private long _gapSkipped;
+
+    private boolean _tolerant;
+    private int _dropoutMax;
+
+    private boolean _adaptiveClock;
+    private BitClock _clock;
+
+    private int _rejectTime;
+    private ToneDetector _tone;
+    private int _toneMinBlocks;
+    private int _toneBlocks;
+    /** FSK変調の信号の有無を調べる範囲の終わり（信号が見つかった場合はLong.MIN_VALUE） */
+    private long _toneCheckTo;
+    /** FSK変調の信号の有無を調べ終わった位置（ストリーム先頭から） */
+    private long _toneCheckedTo;
+    /** FSK変調の信号が見つからなかったか */
+    private boolean _noSignal;
+
+    /** 記録するインデックス */
+    private TapeIndex _index;
+    /** 記録中のブロック */
+    private TapeIndex.Block _indexBlock;
+    /** 最後に検出したブランクの位置 */
+    private long _leaderPos;
+    /** 変換するブロック（nullの場合はスキップ後のすべて） */
+    private TapeIndex.Block _block;
+
+    /** 途中経過の記録先（nullの場合は記録しない） */
+    private ConversionCheckpoint _checkpoint;
+    /** 最後に途中経過を記録した位置 */
+    private long _checkpointPos;
+
+    /** 読み込み中のバイトの判定 */
+    private FSKBitAnalyzer.SignalJudge _judge;
+
+    /** バイトごとの判定結果の数 */
+    private int[] _judgeCounts = new int[FSKBitAnalyzer.SignalJudge.values().length];
+
+    public PTCLogic() {
+    }
+
+    /**
+     * 解析ウインドウの長さを設定する。
+     * 1ビットの解析に必要な長さの4倍より短い場合は、その長さになる。
+     * @param windowSize 解析ウインドウの長さ（サンプル数）
+     */
+    public void setWindowSize(int windowSize) {
+        _windowSize = windowSize;
+    }
+
+    /**
+     * 無音、雑音部分の読み飛ばしを設定する。
+     * 読み飛ばす場合は、スタートビットを待っている間にブロック単位でRMSと0交差数を調べ、
+     * FSK変調の音でない部分が続く場合はまとめて読み飛ばす（ブランクとして扱う）。
+     * @param skipGaps 読み飛ばす場合はtrue
+     */
+    public void setSkipGaps(boolean skipGaps) {
+        _skipGaps = skipGaps;
+    }
+
+    /**
+     * 寛容モードを設定する。
+     * 寛容モードでは、ブランクとして検出した部分が短い無音、雑音の場合はドロップアウトとして読み飛ばし、
+     * ブランクとして数えない。また、最初のブランクより前のスタートビットは無視して、ブランクを探す。
+     * @param tolerant 寛容モードの場合はtrue
+     */
+    public void setTolerant(boolean tolerant) {
+        _tolerant = tolerant;
+    }
+
+    /**
+     * テープの記録方式を設定する。
+     * @param profile 記録方式（デフォルトはPC-6001）
+     */
+    public void setProfile(TapeProfile profile) {
+        _profile = profile;
+    }
+
+    /**
+     * テープ速度の変動への追従を設定する。
+     * 追従する場合は、測定した波の間隔から周期を推定し続け、ビット判定の位置を更新する。
+     * @param adaptiveClock 追従する場合はtrue
+     */
+    public void setAdaptiveClock(boolean adaptiveClock) {
+        _adaptiveClock = adaptiveClock;
+    }
+
+    /**
+     * FSK変調の信号がない音声の打ち切りを設定する。
+     * 読み取ったデータをブロック単位で調べ、スキップ後の指定時間内に
+     * 2つの周波数の成分が大半を占める部分が一定時間続かない場合は、
+     * テープの音声でないとして変換を打ち切る。
+     * @param rejectTime 調べる長さ（秒）。0の場合は打ち切らない
+     */
+    public void setRejectTime(int rejectTime) {
+        _rejectTime = rejectTime;
+    }
+
+    /**
+     * テープの構造を記録するインデックスを設定する。
+     * ブランクに続くデータごとに、位置、音量、周期を記録する。
+     * @param index インデックス（nullの場合は記録しない）
+     */
+    public void setIndex(TapeIndex index) {
+        _index = index;
+    }
+
+    /**
+     * 変換するブロックを設定する。
+     * 設定した場合は、スキップ時間によらずブロックのブランクの先頭から読み取り、
+     * 次のブランクまでを変換する。
+     * @param block インデックスのブロック（nullの場合はスキップ後のすべてを変換する）
+     */
+    public void setBlock(TapeIndex.Block block) {
+        _block = block;
+    }
+
+    /**
+     * 途中経過の記録先を設定する。
+     * 設定した場合は、ブランクを検出するたびと、ブロックの途中では一定の間隔（10秒）ごとに
+     * バイトを読み終えた位置で、出力を書き出して状態を記録する。
+     * 記録済みの場合は、スキップ時間によらず記録した位置から再開する
+     * （出力ストリームは、記録した時点のサイズに切り詰めて追記すること）。
+     * インデックスの記録、ブロックの指定とは同時に使えない。
+     * @param checkpoint 途中経過（nullの場合は記録しない）
+     */
+    public void setCheckpoint(ConversionCheckpoint checkpoint) {
+        _checkpoint = checkpoint;
+    }
+
+    /**
+     * 直前の変換処理で書き込んだバイトの、判定結果ごとの数を得る。
+     * @return 判定結果ごとの数（FSKBitAnalyzer.SignalJudgeの順）
+     */
+    public int[] getJudgeCounts() {
+        return _judgeCounts.clone();
+    }
+
+    /**
+     * 変換処理を実行する。
+     * @param in 入力ストリーム
+     * @param out 結果出力ストリーム
+     * @param report レポート出力
+     * @param skip スキップする時間(sec.)
+     * @param negate 極性反転フラグ
+     * @throws IOException
+     * @throws IllegalEndDetectedException
+     * @throws NoSignalDetectedException FSK変調の信号がない音声を打ち切った場合
+     */
+    public void analyze(SoundSource in, OutputStream out, PrintStream report, double skip, boolean negate)
+            throws IOException, IllegalEndDetectedException, NoSignalDetectedException {
+
+        _in = in;
+        _out = out;
+        _report = report;
+        _samplingRate = _in.getSamplingRate();
+        _freqLow = _profile.getLowFrequency();
+        _minLeaderLen = _profile.getMinLeaderWaves();
+        _fsk = new FSKBitAnalyzer(_samplingRate, _freqLow);
+        _clock = _adaptiveClock ? new BitClock(_fsk) : null;
+
+        _lookAhead = _fsk.getLookAhead();
+        int winSize = Math.max(_windowSize, _lookAhead * 4);
+
+        // 無音、雑音判定のブロック
+        _gapBlock = _lookAhead * GAP_BLOCK_LOOK_AHEADS;
+        // 交差の間隔（高周波数の半周期の0.7倍〜低周波数の半周期の1.5倍）
+        _gapMinInterval = (int) (_samplingRate * 0.7 / (_freqLow * 4));
+        _gapMaxInterval = (int) (_samplingRate * 1.5 / (_freqLow * 2)) + 1;
+        _gapCheckedTo = Long.MIN_VALUE;
+        if (_skipGaps) {
+            winSize = Math.max(winSize, _gapBlock * (GAP_MIN_BLOCKS + 1) + _lookAhead);
+        }
+        _dropoutMax = (int) (_samplingRate * DROPOUT_MAX_TIME);
+        if (_tolerant) {
+            winSize = Math.max(winSize, _dropoutMax + _gapBlock * 2 + _lookAhead * _minLeaderLen);
+        }
+
+        _win = SampleWindow.create(_in, winSize, negate);
+        _destpos = 0;
+        if (_index != null) {
+            _index.setSamplingRate(_samplingRate);
+        }
+        Arrays.fill(_judgeCounts, 0);
+
+        // スキップする
+        // 開始位置は、従来の半バッファ（BUF_HALF_SIZE）単位の読み飛ばしと同じ位置とする
+        long topos = (long) (_samplingRate * skip) - BUF_HALF_SIZE;
+        long halfs = Math.max(0, (topos + BUF_HALF_SIZE * 2 - 1) / BUF_HALF_SIZE);
+        long start = 2 * (halfs * BUF_HALF_SIZE - BUF_HALF_SIZE) - topos;
+
+        // ブロックを指定した場合は、ブランクを検出した位置の少し前から読み取る
+        if (_block != null) {
+            start = Math.max(0, _block.getLeaderPosition() - _lookAhead);
+            _destpos = _block.getOffset();
+            if (_clock != null) {
+                _fsk.setPeriod(_block.getPeriod());
+            }
+        }
+
+        // 途中経過を記録済みの場合は、記録した位置から再開する
+        boolean resume = _checkpoint != null && _checkpoint.isSaved();
+        if (resume) {
+            start = _checkpoint._position;
+            _destpos = _checkpoint._destpos;
+            _fsk.setPeriod(_checkpoint._period);
+            _gapCheckedTo = _checkpoint._gapCheckedTo;
+            System.arraycopy(_checkpoint._judgeCounts, 0, _judgeCounts, 0, _judgeCounts.length);
+        }
+
+        _pos = 0;
+        if (!_win.seek(start)) {
+            PTCReport.writeBreakReport(_report, _win.getPosition(_pos));
+            throw new IllegalEndDetectedException();
+        }
+        if (!resume) {
+            PTCReport.writeHeaderReport(_report, _win.getPosition(_pos), _samplingRate, skip);
+        }
+
+        // FSK変調の信号の有無を調べる範囲
+        _toneCheckTo = Long.MIN_VALUE;
+        _noSignal = false;
+        if (_rejectTime > 0) {
+            _tone = new ToneDetector(_samplingRate, _freqLow);
+            _toneMinBlocks = (int) (_samplingRate * TONE_MIN_TIME / _tone.getBlockSize());
+            _toneBlocks = 0;
+            _toneCheckTo = start + (long) _samplingRate * _rejectTime;
+            _toneCheckedTo = start;
+            if (resume) {
+                _toneBlocks = _checkpoint._toneBlocks;
+                _toneCheckTo = _checkpoint._toneCheckTo;
+                _toneCheckedTo = _checkpoint._toneCheckedTo;
+            }
+            checkTone();
+        }
+
+        // 頭出し（再開する場合は、記録した位置が波形0位置）
+        if (!resume) {
+            _pos = _win.getNextZeroPosition(_fsk, _pos);
+            _pos = _win.getNextZeroPosition(_fsk, _pos);
+        }
+
+        // ブロックを指定した場合は、そのブランクと次のブランクのみ数える
+        int leaders = (_block != null) ? 2 : _profile.getLeaderCount();
+        int block = resume ? _checkpoint._leaders : leaders;
+        _indexBlock = null;
+        _checkpointPos = _win.getPosition(_pos);
+        boolean inLeader = resume && _checkpoint._inLeader;
+        boolean written = resume && _checkpoint._written;
+        boolean ignoring = false;
+        while (true) {
+            // FSK変調の信号が見つからない場合は打ち切る
+            if (_noSignal) {
+                throwNoSignal();
+            }
+
+            // スタートビット検出
+            switch (detectStartBit()) {
+            case START_BIT:
+                if (block == leaders) {
+                    // 寛容モードとブロックを指定した場合は、最初のブランクまで無視する
+                    if (_tolerant || _block != null) {
+                        if (!ignoring) {
+                            ignoring = true;
+                            PTCReport.writeIgnoredReport(_report, _win.getPosition(_pos));
+                        }
+                        break;
+                    }
+                    throwIllegalEnd();
+                }
+
+                if (_index != null && inLeader) {
+                    _indexBlock = _index.addBlock(_leaderPos, _win.getPosition(_pos), _destpos, _fsk.getPeriod());
+                }
+                inLeader = false;
+                if (!readAndWriteByte()) {
+                    throwIllegalEnd();
+                }
+                written = true;
+                if (_indexBlock != null) {
+                    _indexBlock._length++;
+                    _indexBlock._end = _win.getPosition(_pos);
+                }
+                if (_checkpoint != null
+                        && _win.getPosition(_pos) - _checkpointPos >= (long) _samplingRate * CHECKPOINT_INTERVAL) {
+                    saveCheckpoint(block, written, false);
+                }
+                break;
+
+            case LEADER:
+                ignoring = false;
+                if (!inLeader) {
+                    inLeader = true;
+                    block--;
+                    PTCReport.writeBlankReport(_report, _win.getPosition(_pos));
+                    if (_index != null) {
+                        _leaderPos = _win.getPosition(_pos);
+                        _indexBlock = null;
+                    }
+                    if (_clock != null) {
+                        PTCReport.writeSpeedReport(_report, _win.getPosition(_pos), _clock.getSpeed());
+                    }
+                    if (block <= 0) {
+                        return;
+                    }
+                    if (_checkpoint != null) {
+                        saveCheckpoint(block, written, true);
+                    }
+                }
+                break;
+
+            case DROPOUT:
+                // ブランクとして数えずに、続きを読む
+                break;
+
+            case STREAM_END:
+                // 記録方式によっては、データの後のファイルの終わりで正常終了する
+                if (_profile.isEndAtStreamEnd() && written) {
+                    return;
+                }
+                throwIllegalEnd();
+            }
+        }
+
+    }
+
+    /**
+     * 出力を書き出して、ブランクを検出した直後、またはバイトを読み終えた直後の状態を記録する。
+     * どちらも読み取り位置は波形0位置なので、再開時は頭出しをしない。
+     * @param leaders 残りのブランクの数
+     * @param written バイトを書き込み済みか
+     * @param inLeader ブランクの中か
+     * @throws IOException
+     */
+    private void saveCheckpoint(int leaders, boolean written, boolean inLeader) throws IOException {
+        _out.flush();
+        _report.flush();
+
+        _checkpoint._position = _win.getPosition(_pos);
+        _checkpoint._destpos = _destpos;
+        _checkpoint._leaders = leaders;
+        _checkpoint._written = written;
+        _checkpoint._inLeader = inLeader;
+        _checkpoint._period = _fsk.getPeriod();
+        _checkpoint._gapCheckedTo = _gapCheckedTo;
+        _checkpoint._toneCheckTo = _toneCheckTo;
+        _checkpoint._toneCheckedTo = _toneCheckedTo;
+        _checkpoint._toneBlocks = _toneBlocks;
+        System.arraycopy(_judgeCounts, 0, _checkpoint._judgeCounts, 0, _judgeCounts.length);
+        _checkpoint.save();
+        _checkpointPos = _checkpoint._position;
+    }
+
+    /**
+     * 不正なファイル終了の例外を発生させる。
+     * FSK変調の信号の有無を調べていて、まだ見つかっていない場合は、信号なしとする。
+     * @throws IllegalEndDetectedException
+     * @throws NoSignalDetectedException
+     */
+    private void throwIllegalEnd() throws IllegalEndDetectedException, NoSignalDetectedException {
+        if (_toneCheckTo != Long.MIN_VALUE) {
+            throwNoSignal();
+        }
+        PTCReport.writeBreakReport(_report, _win.getPosition(_pos));
+        throw new IllegalEndDetectedException();
+    }
+
+    /**
+     * FSK変調の信号が見つからない場合の例外を発生させる。
+     * @throws NoSignalDetectedException
+     */
+    private void throwNoSignal() throws NoSignalDetectedException {
+        PTCReport.writeNoSignalReport(_report, _win.getPosition(_pos));
+        throw new NoSignalDetectedException();
+    }
+
+    /**
+     * 読み取ったデータに、FSK変調の信号があるかを調べる。
+     * 調べる範囲を過ぎても見つからない場合は、打ち切りを指示する。
+     */
+    private void checkTone() {
+        if (_toneCheckTo == Long.MIN_VALUE) return;
+
+        int size = _tone.getBlockSize();
+        int pos = (int) Math.max(0, _toneCheckedTo - _win.getPosition(0));
+        for (; pos + size <= _win.length(); pos += size) {
+            if (_win.getPosition(pos) >= _toneCheckTo) {
+                _noSignal = true;
+                break;
+            }
+            if (_win.getToneRatio(_tone, pos) < TONE_RATIO_MIN) {
+                _toneBlocks = 0;
+            } else if (++_toneBlocks >= _toneMinBlocks) {
+                _toneCheckTo = Long.MIN_VALUE;
+                return;
+            }
+        }
+        _toneCheckedTo = _win.getPosition(pos);
+    }
+
+    /**
+     * データ読み取り
+     * 読み取り位置から、1ビットの解析に必要な長さのデータがウインドウ内にあるようにする。
+     * @return 読み取れた場合はtrue
+     * @throws IOException
+     */
+    private boolean read() throws IOException {
+        return read(_lookAhead);
+    }
+
+    /**
+     * データ読み取り
+     * 読み取り位置から、指定の長さのデータがウインドウ内にあるようにする。
+     * @param len 必要な長さ
+     * @return 読み取れた場合はtrue
+     * @throws IOException
+     */
+    private boolean read(int len) throws IOException {
+
+        // 必要な長さのデータがあれば何もしない
+        if (_pos + len <= _win.length()) return true;
+
+        // 未解析の部分をウインドウの先頭に移動して（必要な長さ以下なのでコピーは短い）、
+        // 残りを読み取る
+        _pos -= _win.compact(_pos);
+        checkTone();
+
+        return _pos + len <= _win.length();
+    }
+
+    /**
+     * 読み取り位置から無音、雑音部分が続く場合は読み飛ばす。
+     * @param startBit スタートビットを検出した位置で調べる場合はtrue。
+     * 無音、雑音の始まりでスタートビットを誤検出していないかを、次のブロックから調べる
+     * @return 読み飛ばした場合はtrue
+     * @throws IOException
+     */
+    private boolean skipGap(boolean startBit) throws IOException {
+        if (!startBit && _win.getPosition(_pos) < _gapCheckedTo) return false;
+
+        // 最小ブロック数続くかを調べる
+        int first = startBit ? 1 : 0;
+        read(_gapBlock * (first + GAP_MIN_BLOCKS));
+        int blocks = first;
+        while (blocks < first + GAP_MIN_BLOCKS && _pos + (blocks + 1) * _gapBlock <= _win.length()
+                && isGap(_pos + blocks * _gapBlock)) {
+            blocks++;
+        }
+        if (blocks < first + GAP_MIN_BLOCKS) {
+            if (!startBit) {
+                _gapCheckedTo = _win.getPosition(_pos + (blocks + 1) * _gapBlock);
+            }
+            return false;
+        }
+
+        // FSK変調の音らしいブロックまで読み飛ばす
+        long from = _win.getPosition(_pos);
+        _pos += blocks * _gapBlock;
+        while (read(_gapBlock) && isGap(_pos)) {
+            _pos += _gapBlock;
+        }
+
+        // 音の始まりを含むブロックも読み飛ばす（ブランクの途中から解析を再開する）
+        if (read(_gapBlock * 2)) {
+            _pos += _gapBlock;
+        }
+        _gapCheckedTo = _win.getPosition(_pos + _gapBlock);
+        _gapSkipped = _win.getPosition(_pos) - from;
+        PTCReport.writeGapReport(_report, from, _win.getPosition(_pos));
+
+        // 頭出し
+        for (int i = 0; i < 2 && read(); i++) {
+            _pos = _win.getNextZeroPosition(_fsk, _pos);
+        }
+        return true;
+    }
+
+    /**
+     * ブロックがFSK変調の音でない（無音、雑音）かを判定する。
+     * @param pos ブロックの先頭
+     * @return FSK変調の音でない場合はtrue
+     */
+    private boolean isGap(int pos) {
+        return isGap(pos, _gapBlock);
+    }
+
+    /**
+     * 範囲がFSK変調の音でない（無音、雑音）かを判定する。
+     * FSK変調の音とみなす0交差数は、低周波数の半分〜高周波数の1.5倍。
+     * @param pos 範囲の先頭
+     * @param len 範囲の長さ
+     * @return FSK変調の音でない場合はtrue
+     */
+    private boolean isGap(int pos, int len) {
+        int cross = _win.countCrossings(pos, len, GAP_CREST_MAX, _gapMinInterval, _gapMaxInterval);
+        return cross < (int) (len * _freqLow / _samplingRate)
+                || cross > (int) (len * _freqLow * 6 / _samplingRate) + 1;
+    }
+
+    /**
+     * 読み取り位置からの無音、雑音部分が、ドロップアウトとみなす長さ以内で終わる場合は、
+     * FSK変調の音らしいブロックまで読み飛ばす。
+     * @param from 無音、雑音部分の開始位置（ストリーム先頭から）
+     * @return 読み飛ばした場合はtrue
+     * @throws IOException
+     */
+    private boolean skipDropout(long from) throws IOException {
+        read(_dropoutMax + _gapBlock);
+        for (int pos = _pos; pos + _gapBlock <= _win.length()
+                && _win.getPosition(pos) - from <= _dropoutMax; pos += _gapBlock) {
+            if (!isGap(pos)) {
+                _pos = pos;
+                PTCReport.writeDropoutReport(_report, from, _win.getPosition(_pos));
+
+                // 頭出し
+                for (int i = 0; i < 2 && read(); i++) {
+                    _pos = _win.getNextZeroPosition(_fsk, _pos);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * スタートビットのところまで読み取り位置を進める。
+     * @return スタートビットの型
+     * @throws IOException
+     */
+    private StartBitType detectStartBit() throws IOException {
+        //寛容モードでは、ブランクの波形を後で調べるため、ウインドウ内に残す
+        if (_tolerant) read(_lookAhead * _minLeaderLen);
+        long start = _win.getPosition(_pos);
+
+        for (int i = 0; i < _minLeaderLen; i++) {
+
+            //読み込めない場合は、終了扱い
+            if (!read()) return StartBitType.STREAM_END;
+
+            //無音、雑音部分を読み飛ばした場合は、ブランク扱い（寛容モードで短い場合はドロップアウト）
+            if (_skipGaps && skipGap(false)) return getGapType();
+
+            int oldpos = _pos;
+            _pos = _win.getNextZeroPosition(_fsk, oldpos);
+            boolean high = _fsk.isHighFrequency(oldpos, _pos);
+            if (_clock != null) {
+                _clock.update(_pos - oldpos, high);
+            }
+            if (!high) {
+                if (_skipGaps) {
+                    int bitpos = _pos;
+                    _pos = oldpos;
+                    if (skipGap(true)) return getGapType();
+                    _pos -= oldpos - bitpos;
+                }
+                return StartBitType.START_BIT;
+            }
+        }
+
+        //寛容モードでは、短い無音、雑音はドロップアウト
+        if (_tolerant) {
+            int from = (int) (start - _win.getPosition(0));
+            if (from >= 0 && isGap(from, _pos - from) && skipDropout(start)) {
+                return StartBitType.DROPOUT;
+            }
+        }
+
+        return StartBitType.LEADER;
+    }
+
+    /**
+     * 読み飛ばした無音、雑音部分の型を得る。
+     * @return 寛容モードで、ドロップアウトとみなす長さ以内の場合はDROPOUT、それ以外はLEADER
+     */
+    private StartBitType getGapType() {
+        if (_tolerant && _gapSkipped <= _dropoutMax) {
+            return StartBitType.DROPOUT;
+        }
+        return StartBitType.LEADER;
+    }
+
+    /**
+     * １バイトのデータを読み込んで書き込む。
+     * 1ビットが複数の周期の記録方式では、スタートビットの残りの周期を読み飛ばし、
+     * データの各ビットは周期ごとの判別の多数決とする（判別が分かれた場合は判定を下げる）。
+     * ストップビットはここでは読まず、呼び出し元が次のスタートビットまでの高周波数として読み飛ばす
+     * （記録方式のストップビット数は使わない）。
+     * @return 
+     * @throws IOException
+     */
+    private boolean readAndWriteByte() throws IOException {
+
+        _judge = FSKBitAnalyzer.SignalJudge.A;
+        int value = 0;
+        int cycles = _profile.getCyclesPerBit();
+
+        //スタートビットの残りの周期を読み飛ばす。
+        for (int c = 1; c < cycles; c++) {
+            if (readCycle() < 0) return false;
+        }
+        _judge = FSKBitAnalyzer.SignalJudge.A;
+
+        //下位ビットから読み込む。
+        for (int i = 0; i < _profile.getDataBits(); i++) {
+            int marks = 0;
+            for (int c = 0; c < cycles; c++) {
+                int mark = readCycle();
+                if (mark < 0) return false;
+                marks += mark;
+            }
+            if (marks * 2 > cycles) {
+                value |= (1 << i);
+            }
+            if (marks != 0 && marks != cycles) {
+                _judge = FSKBitAnalyzer.min(_judge,
+                        (marks * 2 == cycles) ? FSKBitAnalyzer.SignalJudge.D : FSKBitAnalyzer.SignalJudge.C);
+            }
+        }
+
+        _out.write(value);
+        PTCReport.writeDataReport(_report, _win.getPosition(_pos), _destpos, value, _judge);
+        _judgeCounts[_judge.ordinal()]++;
+        _destpos++;
+
+        return true;
+    }
+
+    /**
+     * 低周波数の1周期分（低周波数の1波、または高周波数の2波）を読み込み、判定を_judgeに反映する。
+     * @return 高周波数の場合は1、低周波数の場合は0、読み込めない場合は-1
+     * @throws IOException
+     */
+    private int readCycle() throws IOException {
+        if (!read()) return -1;
+
+        int oldpos = _pos;
+        _pos = _win.getNextZeroPosition(_fsk, oldpos);
+        boolean mark = _fsk.isHighFrequency(oldpos, _pos);
+        _judge = FSKBitAnalyzer.min(_judge, _win.judgeBit(_fsk, oldpos, _pos, mark));
+        if (_clock != null) {
+            _clock.update(_pos - oldpos, mark);
+        }
+        if (mark) {
+            oldpos = _pos;
+            _pos = _win.getNextZeroPosition(_fsk, _pos);    //高周波数の場合は1波スキップ
+            if (_clock != null) {
+                _clock.update(_pos - oldpos, true);
+            }
+            return 1;
+        }
+        return 0;
+    }
+
+}
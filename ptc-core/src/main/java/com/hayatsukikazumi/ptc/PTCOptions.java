@@ -0,0 +1,568 @@
+/**
+ * @(#)PTCOptions.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 変換処理のオプション（コマンドラインパラメータ）を保持するクラス
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class PTCOptions implements Cloneable {
+
+    /** 頭だしスキップ時間のデフォルト値（秒） */
+    public static final double SKIP_DEFAULT = 1.0;
+
+    /** スキップ時間 */
+    private String _skipTime = String.valueOf(SKIP_DEFAULT);
+
+    /** 極性反転フラグ */
+    private boolean _negate;
+
+    /** 常駐モード */
+    private boolean _daemon;
+
+    /** 常駐モードのポート番号（0の場合は標準入出力） */
+    private int _port;
+
+    /** 監視モード */
+    private boolean _watch;
+
+    /** 分担変換モード */
+    private boolean _batch;
+
+    /** 監視モード、分担変換モードで同時に変換するファイル数 */
+    private int _threads = Runtime.getRuntime().availableProcessors();
+
+    /** キャッシュディレクトリ */
+    private File _cacheDir;
+
+    /** キャッシュサイズの上限（MB） */
+    private int _cacheSize = ConversionCache.SIZE_DEFAULT;
+
+    /** 先読みフラグ */
+    private boolean _readAhead;
+
+    /** 解析ウインドウの長さ */
+    private int _windowSize = PTCLogic.WINDOW_SIZE_DEFAULT;
+
+    /** 無音、雑音部分の読み飛ばしフラグ */
+    private boolean _skipGaps;
+
+    /** 寛容モード */
+    private boolean _tolerant;
+
+    /** テープ速度の変動への追従フラグ */
+    private boolean _adaptiveClock;
+
+    /** 自動利得制御フラグ */
+    private boolean _autoGain;
+
+    /** インデックスファイルの書き込みフラグ */
+    private boolean _writeIndex;
+
+    /** 変換するブロックの番号（0の場合はすべて） */
+    private int _block;
+
+    /** P6Tファイルの書き込みフラグ */
+    private boolean _writeP6T;
+
+    /** 途中経過の記録、再開フラグ */
+    private boolean _checkpoint;
+
+    /** テープの記録方式 */
+    private TapeProfile _profile = TapeProfile.P6;
+
+    /** FSK変調の信号の有無を調べる長さ（秒）（0の場合は調べない） */
+    private int _rejectTime;
+
+    /** ファイル名 */
+    private List<String> _files = new ArrayList<String>();
+
+    /**
+     * パラメータを解析してオプションを生成する。
+     *
+     * @param args パラメータ
+     * @return オプション
+     * @throws IllegalArgumentException 不明なオプションが指定された場合
+     */
+    public static PTCOptions parse(String[] args) {
+        PTCOptions options = new PTCOptions();
+        options.apply(args);
+        return options;
+    }
+
+    /**
+     * パラメータを解析して、このオプションに反映する。
+     * <p>
+     * -sXXXX : 頭だしスキップ時間をXXXX秒に設定する。<br>
+     * -n : 極性反転モードにする。<br>
+     * -d[port] : 常駐モードにする。<br>
+     * -w[threads] : 監視モードにする（ファイル名には監視対象ディレクトリを指定する）。<br>
+     * -j[threads] : 分担変換モードにする（ファイル名には共有のキューのディレクトリを指定する）。<br>
+     * -cDIR : 変換結果をDIRにキャッシュする。<br>
+     * -CXXXX : キャッシュサイズの上限をXXXXMBにする。<br>
+     * -a : 別スレッドでWAVファイルを先読みする。<br>
+     * -lXXXX : 解析ウインドウの長さをXXXXサンプルにする。<br>
+     * -g : 無音、雑音部分を読み飛ばす。<br>
+     * -r[XXXX] : 最初のXXXX秒にFSK変調の信号がない場合は変換を打ち切る。<br>
+     * -t : 寛容モードにする（ドロップアウトを読み飛ばして変換を続ける）。<br>
+     * -f : テープ速度の変動に追従する。<br>
+     * -e : 自動利得制御をかける（音量の変動、ドロップアウトの検出）。<br>
+     * -x : テープの構造のインデックスファイルを書き込む。<br>
+     * -bN : インデックスを使って、N番目のブロックのみを変換する。<br>
+     * -T : P6ファイルと共に、ブロックの情報を含むP6Tファイルを書き込む。<br>
+     * -pNAME : テープの記録方式をNAMEにする（P6、MSX1200、MSX2400、KCS300、CUTS1200）。<br>
+     * -k : 途中経過を記録し、途中で終了した変換を次回は続きから再開する。<br>
+     * その他 ファイル名を指定する。
+     *
+     * @param args パラメータ
+     * @throws IllegalArgumentException 不明なオプションが指定された場合
+     */
+    public void apply(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("-s")) {
+                _skipTime = args[i].substring(2);
+            } else if (args[i].startsWith("-n")) {
+                _negate = true;
+            } else if (args[i].startsWith("-d")) {
+                _daemon = true;
+                _port = parseInt(args[i].substring(2), 0);
+            } else if (args[i].startsWith("-w")) {
+                _watch = true;
+                _threads = parseInt(args[i].substring(2), _threads);
+            } else if (args[i].startsWith("-j")) {
+                _batch = true;
+                _threads = parseInt(args[i].substring(2), _threads);
+            } else if (args[i].startsWith("-c")) {
+                _cacheDir = new File(args[i].substring(2));
+            } else if (args[i].startsWith("-C")) {
+                _cacheSize = parseInt(args[i].substring(2), _cacheSize);
+            } else if (args[i].startsWith("-a")) {
+                _readAhead = true;
+            } else if (args[i].startsWith("-l")) {
+                _windowSize = parseInt(args[i].substring(2), _windowSize);
+            } else if (args[i].startsWith("-g")) {
+                _skipGaps = true;
+            } else if (args[i].startsWith("-t")) {
+                _tolerant = true;
+            } else if (args[i].startsWith("-f")) {
+                _adaptiveClock = true;
+            } else if (args[i].startsWith("-e")) {
+                _autoGain = true;
+            } else if (args[i].startsWith("-x")) {
+                _writeIndex = true;
+            } else if (args[i].startsWith("-b")) {
+                _block = parseInt(args[i].substring(2), 0);
+                if (_block <= 0) {
+                    throw new IllegalArgumentException("Illegal block: " + args[i]);
+                }
+            } else if (args[i].startsWith("-T")) {
+                _writeP6T = true;
+            } else if (args[i].startsWith("-p")) {
+                _profile = TapeProfile.forName(args[i].substring(2));
+            } else if (args[i].startsWith("-k")) {
+                _checkpoint = true;
+            } else if (args[i].startsWith("-r")) {
+                _rejectTime = parseInt(args[i].substring(2), PTCLogic.REJECT_TIME_DEFAULT);
+            } else if (args[i].startsWith("-")) {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            } else {
+                _files.add(args[i]);
+            }
+        }
+    }
+
+    /**
+     * スキップ時間を得る。
+     *
+     * @return スキップ時間（秒）
+     */
+    public String getSkipTime() {
+        return _skipTime;
+    }
+
+    /**
+     * スキップ時間を設定する。
+     *
+     * @param skipTime スキップ時間（秒）
+     */
+    public void setSkipTime(String skipTime) {
+        _skipTime = skipTime;
+    }
+
+    /**
+     * 極性反転フラグを得る。
+     *
+     * @return 極性反転する場合はtrue
+     */
+    public boolean isNegate() {
+        return _negate;
+    }
+
+    /**
+     * 極性反転フラグを設定する。
+     *
+     * @param negate 極性反転フラグ
+     */
+    public void setNegate(boolean negate) {
+        _negate = negate;
+    }
+
+    /**
+     * 常駐モードであるかを返す。
+     *
+     * @return 常駐モードの場合はtrue
+     */
+    public boolean isDaemon() {
+        return _daemon;
+    }
+
+    /**
+     * 常駐モードのポート番号を得る。
+     *
+     * @return ポート番号（0の場合は標準入出力）
+     */
+    public int getPort() {
+        return _port;
+    }
+
+    /**
+     * 監視モードであるかを返す。
+     *
+     * @return 監視モードの場合はtrue
+     */
+    public boolean isWatch() {
+        return _watch;
+    }
+
+    /**
+     * 分担変換モードであるかを返す。
+     *
+     * @return 分担変換モードの場合はtrue
+     */
+    public boolean isBatch() {
+        return _batch;
+    }
+
+    /**
+     * 監視モード、分担変換モードで同時に変換するファイル数を得る。
+     *
+     * @return 同時に変換するファイル数
+     */
+    public int getThreads() {
+        return _threads;
+    }
+
+    /**
+     * キャッシュディレクトリを得る。
+     *
+     * @return キャッシュディレクトリ（キャッシュしない場合はnull）
+     */
+    public File getCacheDir() {
+        return _cacheDir;
+    }
+
+    /**
+     * キャッシュサイズの上限を得る。
+     *
+     * @return キャッシュサイズの上限（MB）
+     */
+    public int getCacheSize() {
+        return _cacheSize;
+    }
+
+    /**
+     * 先読みフラグを得る。
+     *
+     * @return 別スレッドで先読みする場合はtrue
+     */
+    public boolean isReadAhead() {
+        return _readAhead;
+    }
+
+    /**
+     * 先読みフラグを設定する。
+     *
+     * @param readAhead 先読みフラグ
+     */
+    public void setReadAhead(boolean readAhead) {
+        _readAhead = readAhead;
+    }
+
+    /**
+     * 解析ウインドウの長さを得る。
+     *
+     * @return 解析ウインドウの長さ（サンプル数）
+     */
+    public int getWindowSize() {
+        return _windowSize;
+    }
+
+    /**
+     * 無音、雑音部分の読み飛ばしフラグを得る。
+     *
+     * @return 読み飛ばす場合はtrue
+     */
+    public boolean isSkipGaps() {
+        return _skipGaps;
+    }
+
+    /**
+     * 無音、雑音部分の読み飛ばしフラグを設定する。
+     *
+     * @param skipGaps 読み飛ばしフラグ
+     */
+    public void setSkipGaps(boolean skipGaps) {
+        _skipGaps = skipGaps;
+    }
+
+    /**
+     * 寛容モードであるかを返す。
+     *
+     * @return 寛容モードの場合はtrue
+     */
+    public boolean isTolerant() {
+        return _tolerant;
+    }
+
+    /**
+     * 寛容モードを設定する。
+     *
+     * @param tolerant 寛容モード
+     */
+    public void setTolerant(boolean tolerant) {
+        _tolerant = tolerant;
+    }
+
+    /**
+     * テープ速度の変動への追従フラグを得る。
+     *
+     * @return 追従する場合はtrue
+     */
+    public boolean isAdaptiveClock() {
+        return _adaptiveClock;
+    }
+
+    /**
+     * テープ速度の変動への追従フラグを設定する。
+     *
+     * @param adaptiveClock 追従フラグ
+     */
+    public void setAdaptiveClock(boolean adaptiveClock) {
+        _adaptiveClock = adaptiveClock;
+    }
+
+    /**
+     * 自動利得制御フラグを得る。
+     *
+     * @return 自動利得制御をかける場合はtrue
+     */
+    public boolean isAutoGain() {
+        return _autoGain;
+    }
+
+    /**
+     * 自動利得制御フラグを設定する。
+     *
+     * @param autoGain 自動利得制御フラグ
+     */
+    public void setAutoGain(boolean autoGain) {
+        _autoGain = autoGain;
+    }
+
+    /**
+     * インデックスファイルの書き込みフラグを得る。
+     *
+     * @return インデックスファイルを書き込む場合はtrue
+     */
+    public boolean isWriteIndex() {
+        return _writeIndex;
+    }
+
+    /**
+     * インデックスファイルの書き込みフラグを設定する。
+     *
+     * @param writeIndex インデックスファイルの書き込みフラグ
+     */
+    public void setWriteIndex(boolean writeIndex) {
+        _writeIndex = writeIndex;
+    }
+
+    /**
+     * 変換するブロックの番号を得る。
+     *
+     * @return ブロックの番号（1から）。0の場合はすべて
+     */
+    public int getBlock() {
+        return _block;
+    }
+
+    /**
+     * 変換するブロックの番号を設定する。
+     *
+     * @param block ブロックの番号（1から）。0の場合はすべて
+     */
+    public void setBlock(int block) {
+        _block = block;
+    }
+
+    /**
+     * P6Tファイルの書き込みフラグを得る。
+     *
+     * @return P6Tファイルを書き込む場合はtrue
+     */
+    public boolean isWriteP6T() {
+        return _writeP6T;
+    }
+
+    /**
+     * P6Tファイルの書き込みフラグを設定する。
+     *
+     * @param writeP6T P6Tファイルの書き込みフラグ
+     */
+    public void setWriteP6T(boolean writeP6T) {
+        _writeP6T = writeP6T;
+    }
+
+    /**
+     * テープの記録方式を得る。
+     *
+     * @return 記録方式
+     */
+    public TapeProfile getProfile() {
+        return _profile;
+    }
+
+    /**
+     * テープの記録方式を設定する。
+     *
+     * @param profile 記録方式
+     */
+    public void setProfile(TapeProfile profile) {
+        _profile = profile;
+    }
+
+    /**
+     * 途中経過の記録、再開フラグを得る。
+     *
+     * @return 途中経過を記録して、途中で終了した変換を再開する場合はtrue
+     */
+    public boolean isCheckpoint() {
+        return _checkpoint;
+    }
+
+    /**
+     * 途中経過の記録、再開フラグを設定する。
+     *
+     * @param checkpoint 途中経過の記録、再開フラグ
+     */
+    public void setCheckpoint(boolean checkpoint) {
+        _checkpoint = checkpoint;
+    }
+
+    /**
+     * FSK変調の信号の有無を調べる長さを得る。
+     *
+     * @return 調べる長さ（秒）。0の場合は調べない
+     */
+    public int getRejectTime() {
+        return _rejectTime;
+    }
+
+    /**
+     * FSK変調の信号の有無を調べる長さを設定する。
+     *
+     * @param rejectTime 調べる長さ（秒）。0の場合は調べない
+     */
+    public void setRejectTime(int rejectTime) {
+        _rejectTime = rejectTime;
+    }
+
+    /**
+     * デコード結果に影響するパラメータを、キャッシュのキー用の文字列で得る。
+     * 指定しなかったオプションは含めない（既存のキャッシュのキーを変えないため）。
+     *
+     * @return パラメータ
+     */
+    public String getDecodeParams() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("s=").append(_skipTime).append(",n=").append(_negate);
+        if (_skipGaps) {
+            sb.append(",g");
+        }
+        if (_rejectTime > 0) {
+            sb.append(",r=").append(_rejectTime);
+        }
+        if (_tolerant) {
+            sb.append(",t");
+        }
+        if (_adaptiveClock) {
+            sb.append(",f");
+        }
+        if (_autoGain) {
+            sb.append(",e");
+        }
+        if (_block > 0) {
+            sb.append(",b=").append(_block);
+        }
+        if (_profile != TapeProfile.P6) {
+            sb.append(",p=").append(_profile.name());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * ファイル名を得る。
+     *
+     * @return ファイル名のリスト
+     */
+    public List<String> getFiles() {
+        return _files;
+    }
+
+    /**
+     * ファイル名、動作モード以外のオプションを引き継いだ複製を作る。
+     *
+     * @return 複製
+     */
+    public PTCOptions copy() {
+        try {
+            PTCOptions options = (PTCOptions) clone();
+            options._files = new ArrayList<String>();
+            options._daemon = false;
+            options._port = 0;
+            options._watch = false;
+            options._batch = false;
+            return options;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
+    /**
+     * 数値を解析する。
+     *
+     * @param s 文字列
+     * @param def 空文字列の場合の値
+     * @return 数値
+     * @throws IllegalArgumentException 数値でない場合
+     */
+    private static int parseInt(String s, int def) {
+        if (s.length() == 0) {
+            return def;
+        }
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Illegal number: " + s);
+        }
+    }
+}
@@ -0,0 +1,509 @@
+/**
+ * @(#)PTCRegression.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * 変換結果の回帰試験と、変換速度の測定を行うクラス
+ * <p>
+ * ディレクトリ内のWAVファイル（またはFLACファイル）を変換し、同じ名前のP6ファイル
+ * （期待する結果）と比較する。バイトごとの判定結果（A〜D）の数、サンプル数、
+ * 処理時間（サンプル/秒、実時間に対する倍率）をファイルごとにまとめて出力する。
+ * 前回の結果（CSV）を指定すると、判定結果の数の変化も調べる。
+ * 変換結果はファイルに書き込まない（P6ファイル、ログファイルは作らない）。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class PTCRegression {
+
+    /** 結果の列名 */
+    private static final String[] COLUMNS = { "file", "result", "bytes", "match", "firstDiff",
+            "A", "B", "C", "D", "judge", "samples", "seconds", "elapsed", "samplesPerSec", "realtime" };
+
+    private static final String MATCH_OK = "OK";
+
+    private static final String MATCH_NG = "NG";
+
+    /** 比較対象なし */
+    private static final String NONE = "-";
+
+    private static final String EXT_WAV = ".wav";
+
+    private static final String EXT_FLAC = ".flac";
+
+    private static final String EXT_P6 = ".P6";
+
+    private PTCOptions _options;
+
+    private int _repeat = 1;
+
+    /** 前回の結果（ファイル名→列名→値） */
+    private Map<String, Map<String, String>> _baseline;
+
+    /**
+     * 1ファイルの試験結果
+     */
+    public static class Entry {
+        String _file;
+        int _result;
+        int _bytes;
+        String _match = NONE;
+        int _firstDiff = -1;
+        int[] _judges = new int[FSKBitAnalyzer.SignalJudge.values().length];
+        String _judge = NONE;
+        long _samples;
+        int _samplingRate;
+        long _elapsed = Long.MAX_VALUE;
+
+        /**
+         * 列の値を得る。
+         *
+         * @return COLUMNSの順の値
+         */
+        String[] getValues() {
+            double sec = (_samplingRate > 0) ? (double) _samples / _samplingRate : 0;
+            double elapsed = _elapsed / 1e9;
+            String[] v = new String[COLUMNS.length];
+            int i = 0;
+            v[i++] = _file;
+            v[i++] = String.valueOf(_result);
+            v[i++] = String.valueOf(_bytes);
+            v[i++] = _match;
+            v[i++] = String.valueOf(_firstDiff);
+            for (int n : _judges) {
+                v[i++] = String.valueOf(n);
+            }
+            v[i++] = _judge;
+            v[i++] = String.valueOf(_samples);
+            v[i++] = String.format(Locale.ROOT, "%.3f", sec);
+            v[i++] = String.format(Locale.ROOT, "%.3f", elapsed);
+            v[i++] = String.format(Locale.ROOT, "%.0f", (elapsed > 0) ? _samples / elapsed : 0);
+            v[i++] = String.format(Locale.ROOT, "%.1f", (elapsed > 0) ? sec / elapsed : 0);
+            return v;
+        }
+
+        /**
+         * 試験に失敗したかを返す。
+         *
+         * @return 期待する結果と異なる、または判定結果の数が前回と異なる場合はtrue
+         */
+        boolean isFailed() {
+            return MATCH_NG.equals(_match) || MATCH_NG.equals(_judge);
+        }
+    }
+
+    /**
+     * 読み取ったサンプル数を数える読み取り元
+     */
+    static class CountingSoundSource implements SoundSource {
+
+        private SoundSource _src;
+
+        private long _count;
+
+        CountingSoundSource(SoundSource src) {
+            _src = src;
+        }
+
+        long getCount() {
+            return _count;
+        }
+
+        public int getChannels() {
+            return _src.getChannels();
+        }
+
+        public int getSamplingRate() {
+            return _src.getSamplingRate();
+        }
+
+        public int readSound(int channel, float[] buf, int off, int len) throws IOException {
+            int n = _src.readSound(channel, buf, off, len);
+            if (n > 0) _count += n;
+            return n;
+        }
+
+        public boolean canReadInt() {
+            return _src.canReadInt();
+        }
+
+        public int readSound(int channel, int[] buf, int off, int len) throws IOException {
+            int n = _src.readSound(channel, buf, off, len);
+            if (n > 0) _count += n;
+            return n;
+        }
+
+        public long skipSound(long frames) throws IOException {
+            long n = _src.skipSound(frames);
+            _count += n;
+            return n;
+        }
+
+        public void close() throws IOException {
+            _src.close();
+        }
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param options 変換オプション
+     */
+    public PTCRegression(PTCOptions options) {
+        _options = options;
+    }
+
+    /**
+     * 各ファイルを変換する回数を設定する。処理時間は最も速かった回の値とする。
+     *
+     * @param repeat 回数
+     */
+    public void setRepeat(int repeat) {
+        _repeat = Math.max(1, repeat);
+    }
+
+    /**
+     * 前回の結果（CSV）を読み込む。
+     *
+     * @param file 前回の結果のファイル
+     * @throws IOException 読み取りに失敗した場合
+     */
+    public void loadBaseline(File file) throws IOException {
+        _baseline = new HashMap<String, Map<String, String>>();
+        BufferedReader in = new BufferedReader(new FileReader(file));
+        try {
+            String line = in.readLine();
+            if (line == null) return;
+            String[] names = line.split(",");
+            while ((line = in.readLine()) != null) {
+                String[] values = line.split(",");
+                Map<String, String> row = new HashMap<String, String>();
+                for (int i = 0; i < names.length && i < values.length; i++) {
+                    row.put(names[i], values[i]);
+                }
+                _baseline.put(values[0], row);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * ディレクトリ内の音声ファイルをすべて試験する。
+     *
+     * @param dir ディレクトリ
+     * @return 試験結果（ファイル名順）
+     */
+    public List<Entry> run(File dir) {
+        List<Entry> entries = new ArrayList<Entry>();
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return entries;
+        }
+
+        Arrays.sort(files);
+        for (File f : files) {
+            String name = f.getName().toLowerCase();
+            if (f.isFile() && (name.endsWith(EXT_WAV) || name.endsWith(EXT_FLAC))) {
+                entries.add(test(f));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 1ファイルを試験する。
+     *
+     * @param file 音声ファイル
+     * @return 試験結果
+     */
+    public Entry test(File file) {
+        Entry e = new Entry();
+        e._file = file.getName();
+
+        byte[] p6 = null;
+        for (int i = 0; i < _repeat; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long start = System.nanoTime();
+            e._result = convert(file, out, e);
+            e._elapsed = Math.min(e._elapsed, System.nanoTime() - start);
+            p6 = out.toByteArray();
+        }
+        e._bytes = p6.length;
+
+        // 期待する結果との比較
+        byte[] expected = readExpected(file);
+        if (expected != null) {
+            int n = Math.min(p6.length, expected.length);
+            int diff = 0;
+            while (diff < n && p6[diff] == expected[diff]) {
+                diff++;
+            }
+            if (diff == n && p6.length == expected.length) {
+                e._match = MATCH_OK;
+            } else {
+                e._match = MATCH_NG;
+                e._firstDiff = diff;
+            }
+        }
+
+        // 前回の判定結果の数との比較
+        if (_baseline != null && _baseline.containsKey(e._file)) {
+            Map<String, String> row = _baseline.get(e._file);
+            String[] values = e.getValues();
+            e._judge = MATCH_OK;
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (COLUMNS[i].matches("result|bytes|[A-D]") && !values[i].equals(row.get(COLUMNS[i]))) {
+                    e._judge = MATCH_NG;
+                }
+            }
+        }
+        return e;
+    }
+
+    /**
+     * 音声ファイルを変換する。
+     *
+     * @param file 音声ファイル
+     * @param out 変換結果の出力先
+     * @param e 試験結果（判定結果の数、サンプル数を設定する）
+     * @return 処理結果
+     */
+    private int convert(File file, OutputStream out, Entry e) {
+        double skip = P6TapeConvertorMain.getSkip(_options);
+        if (skip < 0) {
+            return P6TapeConvertorMain.RESULT_SKIP_TIME;
+        }
+
+        PrintStream report = new PrintStream(new P6TapeConvertorMain.NullOutputStream());
+
+        SoundSource in = null;
+        CountingSoundSource counter = null;
+        PTCLogic biz = P6TapeConvertorMain.createLogic(_options);
+        int result = P6TapeConvertorMain.RESULT_OK;
+        try {
+            counter = new CountingSoundSource(P6TapeConvertorMain.openSoundSource(file));
+            in = counter;
+            e._samplingRate = in.getSamplingRate();
+            if (_options.isAutoGain()) {
+                in = new AGCSoundSource(in, 0);
+            }
+            if (_options.isReadAhead()) {
+                in = new ReadAheadSoundSource(in, 0, ReadAheadSoundSource.BLOCK_SIZE_DEFAULT,
+                        ReadAheadSoundSource.BLOCKS_DEFAULT);
+            }
+            biz.analyze(in, out, report, skip, _options.isNegate());
+
+        } catch (IOException ex) {
+            result = P6TapeConvertorMain.RESULT_IO_ERROR;
+        } catch (IllegalEndDetectedException ex) {
+            result = P6TapeConvertorMain.RESULT_ILLEGAL_END;
+        } catch (NoSignalDetectedException ex) {
+            result = P6TapeConvertorMain.RESULT_NO_SIGNAL;
+        } catch (UnsupportedAudioFileException ex) {
+            result = P6TapeConvertorMain.RESULT_WRONG_FORMAT;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ex) {
+                }
+            }
+        }
+
+        e._judges = biz.getJudgeCounts();
+        e._samples = (counter != null) ? counter.getCount() : 0;
+        return result;
+    }
+
+    /**
+     * 期待する結果（拡張子をP6にしたファイル）を読み取る。
+     *
+     * @param file 音声ファイル
+     * @return 期待する結果。ファイルがない場合はnull
+     */
+    private static byte[] readExpected(File file) {
+        String name = file.getName();
+        String base = name.substring(0, name.lastIndexOf('.'));
+        File p6 = new File(file.getParentFile(), base + EXT_P6);
+        if (!p6.isFile()) {
+            p6 = new File(file.getParentFile(), base + EXT_P6.toLowerCase());
+            if (!p6.isFile()) {
+                return null;
+            }
+        }
+
+        try {
+            InputStream in = new FileInputStream(p6);
+            try {
+                byte[] data = new byte[(int) p6.length()];
+                int pos = 0;
+                int n;
+                while (pos < data.length && (n = in.read(data, pos, data.length - pos)) > 0) {
+                    pos += n;
+                }
+                return data;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 試験結果をCSVで書き出す。
+     *
+     * @param entries 試験結果
+     * @param out 出力先
+     */
+    public static void writeCSV(List<Entry> entries, PrintStream out) {
+        StringBuilder sb = new StringBuilder();
+        for (String c : COLUMNS) {
+            sb.append(sb.length() > 0 ? "," : "").append(c);
+        }
+        out.println(sb);
+        for (Entry e : entries) {
+            sb.setLength(0);
+            for (String v : e.getValues()) {
+                sb.append(sb.length() > 0 ? "," : "").append(v.replace(',', '_'));
+            }
+            out.println(sb);
+        }
+    }
+
+    /**
+     * 試験結果をJSONで書き出す。
+     *
+     * @param entries 試験結果
+     * @param out 出力先
+     */
+    public static void writeJSON(List<Entry> entries, PrintStream out) {
+        out.println("[");
+        for (int i = 0; i < entries.size(); i++) {
+            String[] values = entries.get(i).getValues();
+            StringBuilder sb = new StringBuilder("  {");
+            for (int j = 0; j < COLUMNS.length; j++) {
+                if (j > 0) sb.append(", ");
+                sb.append('"').append(COLUMNS[j]).append("\": ");
+                if (values[j].matches("-?[0-9]+(\\.[0-9]+)?")) {
+                    sb.append(values[j]);
+                } else {
+                    sb.append('"').append(values[j].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+                }
+            }
+            sb.append((i < entries.size() - 1) ? "}," : "}");
+            out.println(sb);
+        }
+        out.println("]");
+    }
+
+    /**
+     * mainメソッド。
+     * <p>
+     * 実行オプション<br>
+     * java -cp PTC.jar com.hayatsukikazumi.ptc.PTCRegression [options] dir...<br>
+     * -oFILE : 結果をFILEに書き出す（拡張子が.jsonの場合はJSON、それ以外はCSV）。
+     * 省略した場合は標準出力にCSVで出力する。<br>
+     * -BFILE : 前回の結果（CSV）と判定結果の数を比較する。<br>
+     * -RXX : 各ファイルをXX回変換し、最も速かった回の処理時間を出力する。<br>
+     * その他のオプションは変換処理と同じ。<br>
+     * ※期待する結果と異なるファイルがある場合は、終了コードを1にする。
+     *
+     * @param args パラメータ
+     */
+    public static void main(String[] args) {
+        List<String> rest = new ArrayList<String>();
+        File summary = null;
+        File baseline = null;
+        int repeat = 1;
+        PTCOptions options;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("-o")) {
+                    summary = new File(arg.substring(2));
+                } else if (arg.startsWith("-B")) {
+                    baseline = new File(arg.substring(2));
+                } else if (arg.startsWith("-R")) {
+                    repeat = Integer.parseInt(arg.substring(2));
+                } else {
+                    rest.add(arg);
+                }
+            }
+            options = PTCOptions.parse(rest.toArray(new String[rest.size()]));
+            if (options.getFiles().isEmpty()) {
+                throw new IllegalArgumentException("No directory.");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("使い方: java -cp PTC.jar " + PTCRegression.class.getName()
+                    + " [options] dir...");
+            System.out.println("  -oFILE    結果をFILE(.csvまたは.json)に書き出す");
+            System.out.println("  -BFILE    前回の結果(CSV)と判定結果の数を比較する");
+            System.out.println("  -RXX      各ファイルをXX回変換する（処理時間は最速の回）");
+            System.out.println("  その他の変換オプションも指定できます");
+            System.exit(0);
+            return;
+        }
+
+        PTCRegression regression = new PTCRegression(options);
+        regression.setRepeat(repeat);
+        List<Entry> entries = new ArrayList<Entry>();
+        try {
+            if (baseline != null) {
+                regression.loadBaseline(baseline);
+            }
+            for (String dir : options.getFiles()) {
+                entries.addAll(regression.run(new File(dir)));
+            }
+
+            if (summary == null) {
+                writeCSV(entries, System.out);
+            } else {
+                PrintStream out = new PrintStream(summary, "UTF-8");
+                try {
+                    if (summary.getName().toLowerCase().endsWith(".json")) {
+                        writeJSON(entries, out);
+                    } else {
+                        writeCSV(entries, out);
+                    }
+                } finally {
+                    out.close();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(P6TapeConvertorMain.RESULT_IO_ERROR);
+        }
+
+        int failed = 0;
+        for (Entry e : entries) {
+            if (e.isFailed()) {
+                System.err.println("NG: " + e._file);
+                failed++;
+            }
+        }
+        System.err.println(entries.size() + " files, " + failed + " failed.");
+        System.exit((failed > 0) ? 1 : 0);
+    }
+}
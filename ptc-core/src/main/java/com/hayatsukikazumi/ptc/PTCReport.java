@@ -0,0 +1,268 @@
+package com.hayatsukikazumi.ptc;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 変換結果のレポートを出力するクラス。
+ * @author HayaTsukiKazumi
+ * @version 1.2.0
+ */
+public class PTCReport {
+
+    /** 位置と内容の区切り */
+    private static final String SEPARATOR = "  -  ";
+
+    /**
+     * レポートの位置のある1行の内容。
+     */
+    public static class Mark {
+        long _position;
+        String _message;
+        int _writePos = -1;
+        int _value;
+        String _judge;
+
+        /**
+         * 位置を得る。
+         * @return ストリーム先頭からの位置（サンプル数）
+         */
+        public long getPosition() {
+            return _position;
+        }
+
+        /**
+         * 内容を得る。
+         * @return 位置より後ろの文字列
+         */
+        public String getMessage() {
+            return _message;
+        }
+
+        /**
+         * データ部分の行かを返す。
+         * @return データ部分の行の場合はtrue
+         */
+        public boolean isData() {
+            return _writePos >= 0;
+        }
+
+        /**
+         * P6ファイルの書き込み位置を得る。
+         * @return 書き込み位置。データ部分の行でない場合は-1
+         */
+        public int getWritePosition() {
+            return _writePos;
+        }
+
+        /**
+         * P6ファイルに書き込んだ値を得る。
+         * @return 値
+         */
+        public int getValue() {
+            return _value;
+        }
+
+        /**
+         * 信頼度の判定を得る。
+         * @return 判定（A〜D）。データ部分の行でない場合はnull
+         */
+        public String getJudge() {
+            return _judge;
+        }
+    }
+
+    /**
+     * レポートファイルから、位置のある行を読み取る。
+     * @param file レポートファイル
+     * @return 位置のある行（ファイル内の順）
+     * @throws IOException 読み取りに失敗した場合
+     */
+    public static List<Mark> readMarks(File file) throws IOException {
+        List<Mark> marks = new ArrayList<Mark>();
+        BufferedReader in = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                int sep = line.indexOf(SEPARATOR);
+                if (sep <= 0) {
+                    continue;
+                }
+                Mark m = new Mark();
+                try {
+                    m._position = Long.parseLong(line.substring(0, sep));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                m._message = line.substring(sep + SEPARATOR.length());
+
+                // データ部分（XXXX:XX (A)、書き込み位置は4桁以上）
+                String s = m._message;
+                int colon = s.indexOf(':');
+                if (colon >= 4 && s.length() == colon + 7 && s.startsWith(" (", colon + 3) && s.endsWith(")")) {
+                    try {
+                        m._writePos = Integer.parseInt(s.substring(0, colon), 16);
+                        m._value = Integer.parseInt(s.substring(colon + 1, colon + 3), 16);
+                        m._judge = s.substring(colon + 5, colon + 6);
+                    } catch (NumberFormatException e) {
+                        m._writePos = -1;
+                    }
+                }
+                marks.add(m);
+            }
+        } finally {
+            in.close();
+        }
+        return marks;
+    }
+
+    /**
+     * ヘッダ部分のレポートを書き込む。
+     * @param report 出力先
+     * @param position 現在のbit位置
+     * @param samplingRate サンプリング周波数
+     * @param skip スキップ時間
+     */
+    public static void writeHeaderReport(PrintStream report, long position, int samplingRate, double skip) {
+        report.print("Sampling Rate = ");
+        report.print(samplingRate);
+        report.println(" Hz");
+        report.println();
+        report.print(position);
+        report.print("  -  Skiped ");
+        report.print(skip);
+        report.println(" sec.");
+    }
+
+    /**
+     * ブランク部分のレポートを書き込む。
+     * @param report 出力先
+     * @param position 現在のbit位置
+     */
+    public static void writeBlankReport(PrintStream report, long position) {
+        report.print(position);
+        report.println("  -  Detected 2400Hz header signal.");
+    }
+
+    /**
+     * 読み飛ばした無音、雑音部分のレポートを書き込む。
+     * @param report 出力先
+     * @param position 読み飛ばし開始位置
+     * @param endPosition 読み飛ばし終了位置
+     */
+    public static void writeGapReport(PrintStream report, long position, long endPosition) {
+        report.print(position);
+        report.print("  -  Skipped silence or noise to ");
+        report.print(endPosition);
+        report.println(".");
+    }
+
+    /**
+     * 自動利得制御で検出したドロップアウトの数のレポートを書き込む。
+     * @param report 出力先
+     * @param dropouts ドロップアウトの数
+     */
+    public static void writeAutoGainReport(PrintStream report, int dropouts) {
+        report.println();
+        report.print("AGC Dropouts = ");
+        report.println(dropouts);
+    }
+
+    /**
+     * 推定したテープ速度のレポートを書き込む。
+     * @param report 出力先
+     * @param position 現在のbit位置
+     * @param speed 元の速度に対する割合
+     */
+    public static void writeSpeedReport(PrintStream report, long position, double speed) {
+        report.print(position);
+        report.print("  -  Estimated tape speed ");
+        report.print(Math.round(speed * 1000) / 10.0);
+        report.println("%.");
+    }
+
+    /**
+     * ドロップアウトを読み飛ばした時のレポートを書き込む。
+     * @param report 出力先
+     * @param position ドロップアウトの開始位置
+     * @param endPosition 読み取りを再開した位置
+     */
+    public static void writeDropoutReport(PrintStream report, long position, long endPosition) {
+        report.print(position);
+        report.print("  -  Detected dropout, resynchronized at ");
+        report.print(endPosition);
+        report.println(".");
+    }
+
+    /**
+     * 最初のブランクより前のデータを無視した時のレポートを書き込む。
+     * @param report 出力先
+     * @param position 現在のbit位置
+     */
+    public static void writeIgnoredReport(PrintStream report, long position) {
+        report.print(position);
+        report.println("  -  Ignored data before 2400Hz header signal.");
+    }
+
+    /**
+     * FSK変調の信号が見つからず、変換を打ち切った時のレポートを書き込む。
+     * @param report 出力先
+     * @param position 現在のbit位置
+     */
+    public static void writeNoSignalReport(PrintStream report, long position) {
+        report.print(position);
+        report.println("  -  No FSK signal detected.");
+    }
+
+    /**
+     * 異常終了時のレポートを書き込む。
+     * @param report 出力先
+     * @param position 現在のbit位置
+     */
+    public static void writeBreakReport(PrintStream report, long position) {
+        report.print(position);
+        report.println("  -  Detected illegal end of file.");
+    }
+
+    /**
+     * データ部分のレポートを書き込む。
+     * @param report 出力先
+     * @param position 現在のbit位置
+     * @param writePos P6ファイルの書き込み位置
+     * @param value P6ファイルに書き込んだ値
+     * @param judge 信頼度の判定
+     */
+    public static void writeDataReport(PrintStream report, long position, int writePos, int value,
+            FSKBitAnalyzer.SignalJudge judge) {
+        report.print(position);
+        report.print("  -  ");
+        report.print(getHex(writePos, 4));
+        report.print(":");
+        report.print(getHex(value, 2));
+        report.print(" (");
+        report.print(judge.toString());
+        report.println(")");
+    }
+
+    /**
+     * 16進数表現の値を返す。
+     * @param value 値
+     * @param digit 桁数
+     * @return 16進数表現した値
+     */
+    private static String getHex(int value, int digit) {
+        String hex = Integer.toHexString(value).toUpperCase();
+        StringBuffer sb = new StringBuffer();
+        for (int i = hex.length(); i < digit; i++) {
+            sb.append("0");
+        }
+        sb.append(hex);
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,380 @@
+/**
+ * @(#)PTCWatcher.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ディレクトリを監視して、置かれたWAVファイルを変換するクラス
+ * <p>
+ * 監視対象ディレクトリにWAVファイル（またはFLACファイル）が置かれると、書き込みが終わる（サイズと更新日時が
+ * 一定時間変わらなくなる）のを待ってから変換する。変換に成功した場合はWAV、P6、
+ * レポートファイルを監視対象ディレクトリの下のdoneディレクトリに、失敗した場合は
+ * failedディレクトリに移動する。移動先に同じ名前のファイルがある場合は、
+ * 1つのWAVファイルの出力すべてに同じ連番をつける。
+ * <p>
+ * 変換中の出力ファイルは、監視対象ディレクトリの「.ファイル名.ptc」ディレクトリに作成する。
+ * 途中経過を記録する場合（-k）は、強制終了した変換や読み書きの失敗で終了した変換を、
+ * 次回の起動時に続きから再開できるように、チェックポイントファイルが残っている作業ディレクトリは削除しない
+ * （WAVファイルも移動しない）。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class PTCWatcher {
+
+    /** 変換に成功したファイルの移動先 */
+    public static final String DIR_DONE = "done";
+
+    /** 変換に失敗したファイルの移動先 */
+    public static final String DIR_FAILED = "failed";
+
+    /** 作業ディレクトリの拡張子 */
+    static final String EXT_WORK = ".ptc";
+
+    /** 書き込み完了の確認間隔（ミリ秒） */
+    private static final long SETTLE_INTERVAL = 1000;
+
+    private static final String EXT_WAV = ".wav";
+
+    private static final String EXT_FLAC = ".flac";
+
+    private PTCOptions _options;
+
+    private PrintStream _log;
+
+    private ExecutorService _workers;
+
+    private ScheduledExecutorService _timer;
+
+    /** 書き込み完了待ち、または変換中のファイル */
+    private Set<File> _pending = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+
+    /**
+     * コンストラクタ。
+     *
+     * @param options 変換オプション
+     * @param threads 同時に変換するファイル数の上限
+     * @param log 処理状況の出力先
+     */
+    public PTCWatcher(PTCOptions options, int threads, PrintStream log) {
+        _options = options;
+        _log = log;
+        _workers = Executors.newFixedThreadPool(threads);
+        _timer = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    /**
+     * ディレクトリの監視を開始する。中断されるまで戻らない。
+     *
+     * @param dirs 監視対象ディレクトリ
+     * @throws IOException
+     */
+    public void watch(List<File> dirs) throws IOException {
+        WatchService service = FileSystems.getDefault().newWatchService();
+        Map<WatchKey, File> keys = new HashMap<WatchKey, File>();
+
+        try {
+            for (File dir : dirs) {
+                new File(dir, DIR_DONE).mkdirs();
+                new File(dir, DIR_FAILED).mkdirs();
+                keys.put(dir.toPath().register(service, ENTRY_CREATE, ENTRY_MODIFY), dir);
+                _log.println("Watching " + dir.getAbsolutePath());
+
+                // 監視開始前に置かれていたファイル
+                scan(dir);
+            }
+
+            while (true) {
+                WatchKey key;
+                try {
+                    key = service.take();
+                } catch (InterruptedException e) {
+                    break;
+                }
+
+                File dir = keys.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        scan(dir);
+                    } else {
+                        offer(new File(dir, ((Path) event.context()).toString()));
+                    }
+                }
+
+                if (!key.reset()) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) break;
+                }
+            }
+        } finally {
+            service.close();
+            shutdown();
+        }
+    }
+
+    /**
+     * 処理を終了する。変換中のファイルは最後まで処理する。
+     */
+    public void shutdown() {
+        _timer.shutdownNow();
+        _workers.shutdown();
+        try {
+            _workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            // 何もしない
+        }
+    }
+
+    /**
+     * ディレクトリ内のWAVファイルをすべて受け付ける。
+     *
+     * @param dir ディレクトリ
+     */
+    private void scan(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+
+        for (File f : files) {
+            offer(f);
+        }
+    }
+
+    /**
+     * ファイルを受け付け、書き込みの完了待ちを開始する。
+     *
+     * @param file ファイル
+     */
+    private void offer(File file) {
+        String name = file.getName().toLowerCase();
+        if (!(name.endsWith(EXT_WAV) || name.endsWith(EXT_FLAC)) || !file.isFile()) {
+            return;
+        }
+        if (!_pending.add(file)) {
+            return;
+        }
+
+        settle(file, -1, -1);
+    }
+
+    /**
+     * サイズと更新日時が変わらなくなったら変換を開始する。
+     *
+     * @param file ファイル
+     * @param lastLength 前回確認時のサイズ
+     * @param lastModified 前回確認時の更新日時
+     */
+    private void settle(final File file, final long lastLength, final long lastModified) {
+        _timer.schedule(new Runnable() {
+
+            public void run() {
+                if (!file.isFile()) {
+                    _pending.remove(file);
+                    return;
+                }
+
+                long length = file.length();
+                long modified = file.lastModified();
+                if (length != lastLength || modified != lastModified) {
+                    settle(file, length, modified);
+                    return;
+                }
+
+                _workers.execute(new Runnable() {
+
+                    public void run() {
+                        try {
+                            convert(file);
+                        } finally {
+                            _pending.remove(file);
+                        }
+                    }
+                });
+            }
+        }, SETTLE_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 1ファイルを変換して、結果に応じたディレクトリに移動する。
+     * 変換中の出力ファイルは、ジョブごとの作業ディレクトリに作成する。
+     * 移動に失敗した場合は、作業ディレクトリを削除して、WAVファイルをfailedディレクトリに移動する。
+     * 読み書きの失敗で途中経過が残っている場合は、次回の起動時に続きから変換できるように、
+     * WAVファイルと作業ディレクトリをそのまま残す。
+     *
+     * @param wavFile WAVファイル
+     */
+    private void convert(File wavFile) {
+        File dir = wavFile.getParentFile();
+
+        int result;
+        File workDir = null;
+        boolean resumable = false;
+        try {
+            workDir = prepareWorkDir(new File(dir, "." + wavFile.getName() + EXT_WORK), wavFile.getName(), _options);
+            result = P6TapeConvertorMain.execute(wavFile, workDir, _options);
+            resumable = result == P6TapeConvertorMain.RESULT_IO_ERROR
+                    && isResumable(workDir, wavFile.getName(), _options);
+
+            if (!resumable) {
+                File destDir = new File(dir, (result == P6TapeConvertorMain.RESULT_OK) ? DIR_DONE : DIR_FAILED);
+                List<File> files = new ArrayList<File>();
+                File[] outputs = workDir.listFiles();
+                if (outputs != null) {
+                    Collections.addAll(files, outputs);
+                }
+                files.add(wavFile);
+                moveAll(files, destDir);
+                workDir.delete();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            result = P6TapeConvertorMain.RESULT_IO_ERROR;
+            resumable = workDir != null && isResumable(workDir, wavFile.getName(), _options);
+            if (!resumable) {
+                if (workDir != null) {
+                    deleteTree(workDir);
+                }
+                try {
+                    if (wavFile.exists()) {
+                        moveAll(Collections.singletonList(wavFile), new File(dir, DIR_FAILED));
+                    }
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }
+
+        synchronized (_log) {
+            _log.println(wavFile.getName() + " (" + result + (resumable ? ", resumable" : "") + ")");
+        }
+    }
+
+    /**
+     * ジョブの作業ディレクトリを用意する。
+     * 作業ディレクトリ名はWAVファイルごとに決まった名前にし、前回の残りは削除する
+     * （途中経過を再開できる場合を除く）。
+     *
+     * @param workDir 作業ディレクトリ
+     * @param wavName WAVファイル名
+     * @param options 変換オプション
+     * @return 作業ディレクトリ
+     * @throws IOException 作成できない場合
+     */
+    static File prepareWorkDir(File workDir, String wavName, PTCOptions options) throws IOException {
+        if (!isResumable(workDir, wavName, options)) {
+            deleteTree(workDir);
+        }
+        Files.createDirectories(workDir.toPath());
+        return workDir;
+    }
+
+    /**
+     * 作業ディレクトリに、前回途中で終了した変換のチェックポイントファイルがあるかを返す。
+     *
+     * @param workDir 作業ディレクトリ
+     * @param wavName WAVファイル名
+     * @param options 変換オプション
+     * @return 途中経過を記録する場合で、チェックポイントファイルがある場合はtrue
+     */
+    static boolean isResumable(File workDir, String wavName, PTCOptions options) {
+        return options.isCheckpoint() && ConversionCheckpoint.getCheckpointFile(wavName, workDir).isFile();
+    }
+
+    /**
+     * ファイルをまとめてディレクトリに名前の変更で移動する。
+     * 同じ名前のファイルがある場合は、すべてのファイルに同じ連番（_1、_2…）をつける。
+     * 移動先の名前は、先に空のファイルを作成して確保する（他のスレッド、プロセスと重ならないように）。
+     *
+     * @param files ファイル
+     * @param dir 移動先ディレクトリ
+     * @throws IOException 移動できない場合
+     */
+    static void moveAll(List<File> files, File dir) throws IOException {
+        List<File> dests = new ArrayList<File>();
+        int moved = 0;
+        try {
+            for (int i = 0; dests.size() < files.size(); i++) {
+                for (File d : dests) {
+                    d.delete();
+                }
+                dests.clear();
+
+                for (File f : files) {
+                    String name = f.getName();
+                    String prefix = getPrefix(name);
+                    File dest = new File(dir, (i == 0) ? name : prefix + "_" + i + name.substring(prefix.length()));
+                    try {
+                        Files.createFile(dest.toPath());
+                    } catch (FileAlreadyExistsException e) {
+                        break;
+                    }
+                    dests.add(dest);
+                }
+            }
+
+            for (; moved < files.size(); moved++) {
+                Files.move(files.get(moved).toPath(), dests.get(moved).toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+            }
+        } finally {
+            // 確保に失敗した場合、移動できなかったファイルの分は、確保した名前を返す
+            for (int i = moved; i < dests.size(); i++) {
+                dests.get(i).delete();
+            }
+        }
+    }
+
+    /**
+     * ディレクトリを中身ごと削除する。
+     *
+     * @param file ディレクトリ
+     */
+    static void deleteTree(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                deleteTree(f);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * 拡張子を除いたファイル名を得る。
+     *
+     * @param name ファイル名
+     * @return 拡張子を除いたファイル名
+     */
+    private static String getPrefix(String name) {
+        int dot = name.lastIndexOf('.');
+        return (dot > 0) ? name.substring(0, dot) : name;
+    }
+}
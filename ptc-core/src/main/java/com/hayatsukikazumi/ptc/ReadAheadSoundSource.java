@@ -0,0 +1,330 @@
+/**
+ * @(#)ReadAheadSoundSource.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 別スレッドで先読みする音声データの読み取り元
+ * <p>
+ * 読み取りスレッドが元の読み取り元から固定長のブロックを読み、リングバッファに入れる。
+ * 解析側のスレッドはリングバッファからブロックを取り出す。取り出し終わったブロックは
+ * 読み取りスレッドが再利用する。リングバッファが一杯の場合は読み取りスレッドが、
+ * 空の場合は解析側のスレッドが待つ。
+ * <p>
+ * 読み取りスレッドと解析側のスレッドはそれぞれ1つのみとする（ロックを使わないため）。
+ * 読み飛ばす場合は、読み取りスレッドを止めて先読み済みのブロックを捨て、残りは元の読み取り元で
+ * 読み飛ばしてから（WAVファイルなどではシークになる）、読み取りスレッドを再開する。
+ * 元の読み取り元が整数のPCMデータのまま読み取れる場合は、ブロックも整数で保持する。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class ReadAheadSoundSource implements SoundSource {
+
+    /** ブロックの長さのデフォルト値 */
+    public static final int BLOCK_SIZE_DEFAULT = 4096;
+
+    /** ブロック数のデフォルト値 */
+    public static final int BLOCKS_DEFAULT = 16;
+
+    /** 待つ時の最大時間（ナノ秒） */
+    private static final long PARK_NANOS = 1000000L;
+
+    private SoundSource _src;
+
+    private int _channel;
+
+    /** ブロック（float[]またはint[]） */
+    private Object[] _blocks;
+
+    /** ブロックが整数のPCMデータであるか */
+    private boolean _intMode;
+
+    /** ブロックに入っているデータ数（-1はストリームの終端） */
+    private int[] _lengths;
+
+    /** 次に書き込むブロックの通し番号 */
+    private AtomicLong _tail = new AtomicLong();
+
+    /** 次に取り出すブロックの通し番号 */
+    private AtomicLong _head = new AtomicLong();
+
+    /** 取り出し中のブロック内の位置 */
+    private int _blockPos;
+
+    /** 読み取りスレッドで発生した例外 */
+    private volatile IOException _error;
+
+    private volatile boolean _closed;
+
+    private volatile Thread _consumer;
+
+    private Thread _producer;
+
+    /**
+     * コンストラクタ。読み取りスレッドを開始する。
+     *
+     * @param src 元の読み取り元
+     * @param channel 読み取るチャネル（負の数：全部のチャネル）
+     * @param blockSize ブロックの長さ
+     * @param blocks ブロック数
+     */
+    public ReadAheadSoundSource(SoundSource src, int channel, int blockSize, int blocks) {
+        if (channel >= src.getChannels()) {
+            throw new IllegalArgumentException("Illegal channel.");
+        }
+
+        _src = src;
+        _channel = channel;
+        _intMode = src.canReadInt();
+        _blocks = _intMode ? new int[blocks][blockSize] : new float[blocks][blockSize];
+        _lengths = new int[blocks];
+
+        startProducer();
+    }
+
+    /**
+     * 読み取りスレッドを開始する。
+     */
+    private void startProducer() {
+        _closed = false;
+        _producer = new Thread(new Runnable() {
+
+            public void run() {
+                produce();
+            }
+        }, "ReadAhead");
+        _producer.setDaemon(true);
+        _producer.start();
+    }
+
+    /**
+     * 読み取りスレッドを終了する。読み取り済みのデータはすべてリングバッファに入っている。
+     */
+    private void stopProducer() {
+        _closed = true;
+        LockSupport.unpark(_producer);
+        try {
+            _producer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getChannels() {
+        return _src.getChannels();
+    }
+
+    public int getSamplingRate() {
+        return _src.getSamplingRate();
+    }
+
+    public boolean canReadInt() {
+        return _intMode;
+    }
+
+    /**
+     * 音声データを読み取る。
+     *
+     * @param channel どのチャネルを取得するか（コンストラクタで指定したチャネルのみ可）
+     * @param buf 出力先
+     * @param off 書き込み位置
+     * @param len 最大書き込み数
+     * @return 書き込んだ配列の数。既にストリームの終端に達している場合は-1
+     * @throws IOException 読み取りスレッドで例外が発生した場合
+     * @throws IllegalArgumentException channelがコンストラクタで指定したチャネルと異なる場合
+     */
+    public int readSound(int channel, float[] buf, int off, int len) throws IOException {
+        if (_intMode) {
+            throw new UnsupportedOperationException();
+        }
+        return readBlocks(channel, buf, off, len);
+    }
+
+    /**
+     * 音声データを整数のPCMデータのまま読み取る。
+     *
+     * @param channel どのチャネルを取得するか（コンストラクタで指定したチャネルのみ可）
+     * @param buf 出力先
+     * @param off 書き込み位置
+     * @param len 最大書き込み数
+     * @return 書き込んだ配列の数。既にストリームの終端に達している場合は-1
+     * @throws IOException 読み取りスレッドで例外が発生した場合
+     * @throws IllegalArgumentException channelがコンストラクタで指定したチャネルと異なる場合
+     * @throws UnsupportedOperationException 元の読み取り元が整数のPCMデータのまま読み取れない場合
+     */
+    public int readSound(int channel, int[] buf, int off, int len) throws IOException {
+        if (!_intMode) {
+            throw new UnsupportedOperationException();
+        }
+        return readBlocks(channel, buf, off, len);
+    }
+
+    /**
+     * リングバッファからブロックを取り出して、出力先にコピーする。
+     *
+     * @param channel どのチャネルを取得するか
+     * @param buf 出力先（ブロックと同じ型の配列）
+     * @param off 書き込み位置
+     * @param len 最大書き込み数
+     * @return 書き込んだ配列の数。既にストリームの終端に達している場合は-1
+     * @throws IOException 読み取りスレッドで例外が発生した場合
+     */
+    private int readBlocks(int channel, Object buf, int off, int len) throws IOException {
+        if (channel != _channel) {
+            throw new IllegalArgumentException("Illegal channel.");
+        }
+
+        int retlen = 0;
+        while (retlen < len) {
+            long head = _head.get();
+
+            // ブロックが入るまで待つ
+            if (head == _tail.get()) {
+                _consumer = Thread.currentThread();
+                while (head == _tail.get()) {
+                    if (_error != null) throw _error;
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+            }
+
+            int slot = (int) (head % _blocks.length);
+            int blockLen = _lengths[slot];
+            if (blockLen < 0) {
+                if (_error != null) throw _error;
+                break;
+            }
+
+            int n = Math.min(len - retlen, blockLen - _blockPos);
+            System.arraycopy(_blocks[slot], _blockPos, buf, off + retlen, n);
+            retlen += n;
+            _blockPos += n;
+
+            // 取り出し終わったブロックを読み取りスレッドに返す
+            if (_blockPos >= blockLen) {
+                _blockPos = 0;
+                _head.lazySet(head + 1);
+                LockSupport.unpark(_producer);
+            }
+        }
+
+        return (retlen == 0) ? -1 : retlen;
+    }
+
+    /**
+     * 指定のフレーム数を読み飛ばす。
+     * 先読みしたブロックを捨て、残りは元の読み取り元で読み飛ばす。
+     *
+     * @param frames 読み飛ばすフレーム数
+     * @return 読み飛ばしたフレーム数。ストリームの終端に達した場合は指定より少ない
+     * @throws IOException 読み取りスレッドで例外が発生した場合、または読み飛ばしに失敗した場合
+     */
+    public long skipSound(long frames) throws IOException {
+        stopProducer();
+
+        // 先読みしたブロックを捨てる
+        long done = 0;
+        long head = _head.get();
+        boolean end = false;
+        while (done < frames && head != _tail.get()) {
+            int slot = (int) (head % _blocks.length);
+            int blockLen = _lengths[slot];
+            if (blockLen < 0) {
+                // ストリームの終端（終端のブロックは残し、次の読み取りで-1を返す）
+                end = true;
+                break;
+            }
+
+            int n = (int) Math.min(frames - done, blockLen - _blockPos);
+            done += n;
+            _blockPos += n;
+            if (_blockPos >= blockLen) {
+                _blockPos = 0;
+                head++;
+            }
+        }
+        _head.set(head);
+
+        // 終端に達した場合は、読み取りスレッドは終了している
+        if (end) {
+            if (_error != null) throw _error;
+            return done;
+        }
+
+        // 残りは元の読み取り元で読み飛ばす
+        if (done < frames) {
+            done += _src.skipSound(frames - done);
+        }
+
+        startProducer();
+        return done;
+    }
+
+    /**
+     * 読み取りスレッドを終了し、元の読み取り元を閉じる。
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        stopProducer();
+        _src.close();
+    }
+
+    /**
+     * 読み取りスレッドの処理。
+     */
+    private void produce() {
+        try {
+            while (!_closed) {
+                long tail = _tail.get();
+
+                // 空きブロックができるまで待つ
+                while (tail - _head.get() >= _blocks.length) {
+                    if (_closed) return;
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+
+                int slot = (int) (tail % _blocks.length);
+                int len;
+                if (_intMode) {
+                    int[] block = (int[]) _blocks[slot];
+                    len = _src.readSound(_channel, block, 0, block.length);
+                } else {
+                    float[] block = (float[]) _blocks[slot];
+                    len = _src.readSound(_channel, block, 0, block.length);
+                }
+                _lengths[slot] = len;
+                _tail.lazySet(tail + 1);
+                LockSupport.unpark(_consumer);
+
+                if (len < 0) return;
+            }
+        } catch (IOException e) {
+            _error = e;
+            publishEnd();
+        } catch (RuntimeException e) {
+            _error = new IOException(e.toString());
+            publishEnd();
+        }
+    }
+
+    /**
+     * 例外発生時に、解析側のスレッドに終端を知らせる。
+     */
+    private void publishEnd() {
+        long tail = _tail.get();
+        while (tail - _head.get() >= _blocks.length) {
+            if (_closed) return;
+            LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        _lengths[(int) (tail % _blocks.length)] = -1;
+        _tail.lazySet(tail + 1);
+        LockSupport.unpark(_consumer);
+    }
+}
@@ -0,0 +1,407 @@
+/**
+ * @(#)SampleWindow.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 解析ウインドウ（読み取った音声データを保持するバッファ）
+ * <p>
+ * 整数のPCMデータを読み取れる場合は整数のまま、それ以外はfloatで保持する。
+ * FSKBitAnalyzerの判定はどちらでも同じ結果になる。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+abstract class SampleWindow {
+
+    /** 読み取り元 */
+    protected SoundSource _in;
+
+    /** 極性反転フラグ */
+    protected boolean _negate;
+
+    /** 有効なデータ数 */
+    protected int _len;
+
+    /** ウインドウの先頭の、ストリーム先頭からの位置 */
+    protected long _start;
+
+    /** ストリームの終端に達したか */
+    protected boolean _eof;
+
+    /**
+     * 読み取り元に合った解析ウインドウを生成する。
+     *
+     * @param in 読み取り元
+     * @param size ウインドウの長さ
+     * @param negate 極性反転フラグ
+     * @return 解析ウインドウ
+     */
+    static SampleWindow create(SoundSource in, int size, boolean negate) {
+        SampleWindow win = in.canReadInt() ? new IntWindow(size) : new FloatWindow(size);
+        win._in = in;
+        win._negate = negate;
+        return win;
+    }
+
+    /**
+     * 有効なデータ数を得る。
+     *
+     * @return 有効なデータ数
+     */
+    int length() {
+        return _len;
+    }
+
+    /**
+     * ウインドウ内の位置を、ストリーム先頭からの位置に変換する。
+     *
+     * @param pos ウインドウ内の位置
+     * @return ストリーム先頭からの位置
+     */
+    long getPosition(int pos) {
+        return _start + pos;
+    }
+
+    /**
+     * 指定の位置がウインドウの先頭になるまで読み飛ばし、ウインドウを満たす。
+     * 負の位置の場合は、ファイルの先頭より前を無音とする。
+     *
+     * @param start ウインドウの先頭にする位置
+     * @return 指定の位置まで読み飛ばせた場合はtrue
+     * @throws IOException
+     */
+    boolean seek(long start) throws IOException {
+        if (start < 0) {
+            _len = (int) -start;
+            clear(_len);
+            _start = start;
+        } else {
+            _len = 0;
+            _start = _in.skipSound(start);
+            if (_start < start) {
+                _eof = true;
+                return false;
+            }
+        }
+
+        fill();
+        return true;
+    }
+
+    /**
+     * 指定位置より前のデータを捨てて、空いた部分を読み取る。
+     * 移動するのは指定位置以降の未解析のデータのみ。
+     *
+     * @param pos 残す先頭の位置
+     * @return 移動した量（指定位置から引くと移動後の位置になる）
+     * @throws IOException
+     */
+    int compact(int pos) throws IOException {
+        if (_eof) return 0;
+
+        int rest = _len - pos;
+        move(pos, rest);
+        _start += pos;
+        _len = rest;
+        fill();
+        return pos;
+    }
+
+    /**
+     * ウインドウの空いている部分を読み取る。
+     *
+     * @throws IOException
+     */
+    private void fill() throws IOException {
+        while (_len < capacity()) {
+            int len = read(_len, capacity() - _len);
+            if (len <= 0) {
+                _eof = true;
+                return;
+            }
+
+            // 極性反転
+            if (_negate) {
+                negate(_len, len);
+            }
+
+            _len += len;
+        }
+    }
+
+    /**
+     * ウインドウの長さを得る。
+     *
+     * @return ウインドウの長さ
+     */
+    abstract int capacity();
+
+    /**
+     * 読み取り元から読み取る。
+     *
+     * @param off 書き込み位置
+     * @param len 最大書き込み数
+     * @return 書き込んだ数。ストリームの終端に達している場合は-1
+     * @throws IOException
+     */
+    protected abstract int read(int off, int len) throws IOException;
+
+    /**
+     * データをウインドウの先頭に移動する。
+     *
+     * @param from 移動元の位置
+     * @param len 移動する数
+     */
+    protected abstract void move(int from, int len);
+
+    /**
+     * 先頭から指定の数を無音にする。
+     *
+     * @param len 無音にする数
+     */
+    protected abstract void clear(int len);
+
+    /**
+     * 極性を反転する。
+     *
+     * @param off 開始位置
+     * @param len 反転する数
+     */
+    protected abstract void negate(int off, int len);
+
+    /**
+     * 次の波形0位置を得る。
+     *
+     * @param fsk FSK変調の解析クラス
+     * @param pos 読み取り開始位置
+     * @return 次の波形0位置
+     */
+    abstract int getNextZeroPosition(FSKBitAnalyzer fsk, int pos);
+
+    /**
+     * ビット判定。
+     *
+     * @param fsk FSK変調の解析クラス
+     * @param pos1 最初の信号0位置
+     * @param pos2 次の信号0位置
+     * @param isHighFreq 高周波数であるか
+     * @return 判定結果
+     */
+    abstract FSKBitAnalyzer.SignalJudge judgeBit(FSKBitAnalyzer fsk, int pos1, int pos2, boolean isHighFreq);
+
+    /**
+     * ブロックの0交差数を数える。
+     * 平均からの偏差がRMSの半分を超えて正負が入れ替わった回数を数える（ヒステリシス付き）。
+     * 無音、波高率（ピーク/RMS）が上限を超える（雑音、クリック）、
+     * または交差の間隔が範囲外のものが1/8を超える（雑音）場合は-1を返す。
+     *
+     * @param pos ブロックの先頭
+     * @param len ブロックの長さ
+     * @param crestMax 波高率の上限
+     * @param minInterval 交差の間隔の最小値
+     * @param maxInterval 交差の間隔の最大値
+     * @return 0交差数。FSK変調の音でない場合は-1
+     */
+    abstract int countCrossings(int pos, int len, double crestMax, int minInterval, int maxInterval);
+
+    /**
+     * ブロック内の、FSK変調の2つの周波数の成分の割合を得る。
+     *
+     * @param tone 周波数成分の解析クラス
+     * @param pos ブロックの先頭
+     * @return 成分の割合
+     */
+    abstract double getToneRatio(ToneDetector tone, int pos);
+
+    /**
+     * floatで保持する解析ウインドウ
+     */
+    static class FloatWindow extends SampleWindow {
+
+        private float[] _buf;
+
+        FloatWindow(int size) {
+            _buf = new float[size];
+        }
+
+        @Override
+        int capacity() {
+            return _buf.length;
+        }
+
+        @Override
+        protected int read(int off, int len) throws IOException {
+            return _in.readSound(0, _buf, off, len);
+        }
+
+        @Override
+        protected void move(int from, int len) {
+            System.arraycopy(_buf, from, _buf, 0, len);
+        }
+
+        @Override
+        protected void clear(int len) {
+            Arrays.fill(_buf, 0, len, 0f);
+        }
+
+        @Override
+        protected void negate(int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                _buf[i] = -_buf[i];
+            }
+        }
+
+        @Override
+        int getNextZeroPosition(FSKBitAnalyzer fsk, int pos) {
+            return fsk.getNextZeroPosition(_buf, pos, _len);
+        }
+
+        @Override
+        FSKBitAnalyzer.SignalJudge judgeBit(FSKBitAnalyzer fsk, int pos1, int pos2, boolean isHighFreq) {
+            return fsk.judgeBit(_buf, pos1, pos2, isHighFreq);
+        }
+
+        @Override
+        double getToneRatio(ToneDetector tone, int pos) {
+            return tone.getToneRatio(_buf, pos);
+        }
+
+        @Override
+        int countCrossings(int pos, int len, double crestMax, int minInterval, int maxInterval) {
+            double sum = 0;
+            double sum2 = 0;
+            float max = _buf[pos];
+            float min = _buf[pos];
+            for (int i = pos; i < pos + len; i++) {
+                float v = _buf[i];
+                sum += v;
+                sum2 += v * v;
+                max = Math.max(max, v);
+                min = Math.min(min, v);
+            }
+
+            double mean = sum / len;
+            double rms = Math.sqrt(Math.max(0, sum2 / len - mean * mean));
+            if (rms <= 0 || Math.max(max - mean, mean - min) > rms * crestMax) {
+                return -1;
+            }
+
+            double high = mean + rms / 2;
+            double low = mean - rms / 2;
+            boolean upper = _buf[pos] >= mean;
+            int count = 0;
+            int irregular = 0;
+            int last = -1;
+            for (int i = pos; i < pos + len; i++) {
+                if (upper ? _buf[i] < low : _buf[i] > high) {
+                    upper = !upper;
+                    count++;
+                    if (last >= 0 && (i - last < minInterval || i - last > maxInterval)) {
+                        irregular++;
+                    }
+                    last = i;
+                }
+            }
+            return (irregular * 8 > count) ? -1 : count;
+        }
+    }
+
+    /**
+     * 整数のPCMデータのまま保持する解析ウインドウ
+     */
+    static class IntWindow extends SampleWindow {
+
+        private int[] _buf;
+
+        IntWindow(int size) {
+            _buf = new int[size];
+        }
+
+        @Override
+        int capacity() {
+            return _buf.length;
+        }
+
+        @Override
+        protected int read(int off, int len) throws IOException {
+            return _in.readSound(0, _buf, off, len);
+        }
+
+        @Override
+        protected void move(int from, int len) {
+            System.arraycopy(_buf, from, _buf, 0, len);
+        }
+
+        @Override
+        protected void clear(int len) {
+            Arrays.fill(_buf, 0, len, 0);
+        }
+
+        @Override
+        protected void negate(int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                _buf[i] = -_buf[i];
+            }
+        }
+
+        @Override
+        int getNextZeroPosition(FSKBitAnalyzer fsk, int pos) {
+            return fsk.getNextZeroPosition(_buf, pos, _len);
+        }
+
+        @Override
+        FSKBitAnalyzer.SignalJudge judgeBit(FSKBitAnalyzer fsk, int pos1, int pos2, boolean isHighFreq) {
+            return fsk.judgeBit(_buf, pos1, pos2, isHighFreq);
+        }
+
+        @Override
+        double getToneRatio(ToneDetector tone, int pos) {
+            return tone.getToneRatio(_buf, pos);
+        }
+
+        @Override
+        int countCrossings(int pos, int len, double crestMax, int minInterval, int maxInterval) {
+            long sum = 0;
+            long sum2 = 0;
+            int max = _buf[pos];
+            int min = _buf[pos];
+            for (int i = pos; i < pos + len; i++) {
+                int v = _buf[i];
+                sum += v;
+                sum2 += (long) v * v;
+                max = Math.max(max, v);
+                min = Math.min(min, v);
+            }
+
+            double mean = (double) sum / len;
+            double rms = Math.sqrt(Math.max(0, (double) sum2 / len - mean * mean));
+            if (rms <= 0 || Math.max(max - mean, mean - min) > rms * crestMax) {
+                return -1;
+            }
+
+            double high = mean + rms / 2;
+            double low = mean - rms / 2;
+            boolean upper = _buf[pos] >= mean;
+            int count = 0;
+            int irregular = 0;
+            int last = -1;
+            for (int i = pos; i < pos + len; i++) {
+                if (upper ? _buf[i] < low : _buf[i] > high) {
+                    upper = !upper;
+                    count++;
+                    if (last >= 0 && (i - last < minInterval || i - last > maxInterval)) {
+                        irregular++;
+                    }
+                    last = i;
+                }
+            }
+            return (irregular * 8 > count) ? -1 : count;
+        }
+    }
+}
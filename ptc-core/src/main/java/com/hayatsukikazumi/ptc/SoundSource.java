@@ -0,0 +1,78 @@
+/**
+ * @(#)SoundSource.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 音声データの読み取り元
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public interface SoundSource extends Closeable {
+
+    /**
+     * チャンネル数を得る。
+     *
+     * @return チャンネル数
+     */
+    int getChannels();
+
+    /**
+     * サンプリング周波数を得る。
+     *
+     * @return サンプリング周波数(Hz)
+     */
+    int getSamplingRate();
+
+    /**
+     * 音声データを読み取る。 channelに負の数を指定した場合、出力先配列にはステレオ音声ではL,R,L,R,…の順に出力される。
+     * ストリームの終端に達した場合を除き、lenで指定した数を書き込むまで戻らない。
+     *
+     * @param channel どのチャネルを取得するか（負の数：全部のチャネル）
+     * @param buf 出力先
+     * @param off 書き込み位置
+     * @param len 最大書き込み数
+     * @return 書き込んだ配列の数。既にストリームの終端に達している場合は-1
+     * @throws IOException
+     * @throws IllegalArgumentException channel &gt;= チャネル数の場合
+     */
+    int readSound(int channel, float[] buf, int off, int len) throws IOException;
+
+    /**
+     * 整数のPCMデータのまま読み取れるかを返す。
+     *
+     * @return readSound(int, int[], int, int)で読み取れる場合はtrue
+     */
+    boolean canReadInt();
+
+    /**
+     * 音声データを整数のPCMデータのまま読み取る。
+     * 値の比率はreadSound(int, float[], int, int)と同じ（定数倍になる）。
+     *
+     * @param channel どのチャネルを取得するか（負の数：全部のチャネル）
+     * @param buf 出力先
+     * @param off 書き込み位置
+     * @param len 最大書き込み数
+     * @return 書き込んだ配列の数。既にストリームの終端に達している場合は-1
+     * @throws IOException
+     * @throws IllegalArgumentException channel &gt;= チャネル数の場合
+     * @throws UnsupportedOperationException 整数のPCMデータのまま読み取れない場合
+     */
+    int readSound(int channel, int[] buf, int off, int len) throws IOException;
+
+    /**
+     * 指定のフレーム数を読み飛ばす。
+     * 読み取り元によっては、データを読み取らずに位置だけを移動する。
+     *
+     * @param frames 読み飛ばすフレーム数
+     * @return 読み飛ばしたフレーム数。ストリームの終端に達した場合は指定より少ない
+     * @throws IOException
+     */
+    long skipSound(long frames) throws IOException;
+}
@@ -0,0 +1,252 @@
+/**
+ * @(#)TapeIndex.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * テープの構造（ブロックの位置）のインデックス
+ * <p>
+ * 変換時に、ブロック（ブランクに続くデータ）ごとの、ブランクとデータの先頭の位置（サンプル数）、
+ * P6ファイル内の位置とバイト数、低周波数の周期を記録する。
+ * 音声ファイルと同じ名前で拡張子を.ptxにしたファイルに保存し、
+ * 次回以降は1ブロックだけを、その位置から変換できる。
+ * <p>
+ * ファイルの形式（テキスト）<br>
+ * 1行目：PTX2 音声ファイルのサイズ 音声ファイルの更新日時 サンプリング周波数<br>
+ * 2行目以降：ブランクの位置 データの位置 P6ファイル内の位置 バイト数 周期 データの終わりの位置
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class TapeIndex {
+
+    /** インデックスファイルの拡張子 */
+    public static final String EXT_INDEX = ".ptx";
+
+    private static final String MAGIC = "PTX2";
+
+    /**
+     * 1ブロックの情報
+     */
+    public static class Block {
+        long _leader;
+        long _data;
+        int _offset;
+        int _length;
+        double _period;
+        long _end;
+
+        /**
+         * ブランクを検出した位置を得る。
+         * @return ストリーム先頭からの位置（サンプル数）
+         */
+        public long getLeaderPosition() {
+            return _leader;
+        }
+
+        /**
+         * 最初のスタートビットの位置を得る。
+         * @return ストリーム先頭からの位置（サンプル数）
+         */
+        public long getDataPosition() {
+            return _data;
+        }
+
+        /**
+         * 最後のバイトの終わりの位置を得る。
+         * @return ストリーム先頭からの位置（サンプル数）
+         */
+        public long getEndPosition() {
+            return _end;
+        }
+
+        /**
+         * P6ファイル内の位置を得る。
+         * @return 先頭のバイトの位置
+         */
+        public int getOffset() {
+            return _offset;
+        }
+
+        /**
+         * バイト数を得る。
+         * @return バイト数
+         */
+        public int getLength() {
+            return _length;
+        }
+
+        /**
+         * ブロックの先頭での低周波数の周期を得る。
+         * @return 周期（サンプル数）
+         */
+        public double getPeriod() {
+            return _period;
+        }
+    }
+
+    private long _fileLength;
+
+    private long _fileModified;
+
+    private int _samplingRate;
+
+    private List<Block> _blocks = new ArrayList<Block>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param source 音声ファイル（インデックスが同じファイルのものかの確認用。nullの場合は確認しない）
+     */
+    public TapeIndex(File source) {
+        if (source != null) {
+            _fileLength = source.length();
+            _fileModified = source.lastModified();
+        }
+    }
+
+    /**
+     * 音声ファイルのインデックスファイルを得る。
+     *
+     * @param fileName 音声ファイル名
+     * @param dir インデックスファイルのディレクトリ（nullの場合はカレントディレクトリ）
+     * @return インデックスファイル
+     */
+    public static File getIndexFile(String fileName, File dir) {
+        int dot = fileName.lastIndexOf('.');
+        String base = (dot > 0) ? fileName.substring(0, dot) : fileName;
+        return new File(dir, base + EXT_INDEX);
+    }
+
+    /**
+     * サンプリング周波数を得る。
+     *
+     * @return サンプリング周波数
+     */
+    public int getSamplingRate() {
+        return _samplingRate;
+    }
+
+    /**
+     * サンプリング周波数を設定する。
+     *
+     * @param samplingRate サンプリング周波数
+     */
+    void setSamplingRate(int samplingRate) {
+        _samplingRate = samplingRate;
+    }
+
+    /**
+     * ブロック数を得る。
+     *
+     * @return ブロック数
+     */
+    public int getBlockCount() {
+        return _blocks.size();
+    }
+
+    /**
+     * ブロックの情報を得る。
+     *
+     * @param no ブロック番号（1から）
+     * @return ブロックの情報。範囲外の場合はnull
+     */
+    public Block getBlock(int no) {
+        return (no >= 1 && no <= _blocks.size()) ? _blocks.get(no - 1) : null;
+    }
+
+    /**
+     * ブロックを追加する。
+     *
+     * @param leader ブランクを検出した位置
+     * @param data 最初のスタートビットの位置
+     * @param offset P6ファイル内の位置
+     * @param period 低周波数の周期
+     * @return 追加したブロック（バイト数は0）
+     */
+    synchronized Block addBlock(long leader, long data, int offset, double period) {
+        Block b = new Block();
+        b._leader = leader;
+        b._data = data;
+        b._offset = offset;
+        b._period = period;
+        b._end = data;
+        _blocks.add(b);
+        return b;
+    }
+
+    /**
+     * インデックスファイルに書き込む。
+     *
+     * @param file インデックスファイル
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public synchronized void write(File file) throws IOException {
+        PrintStream out = new PrintStream(file, "UTF-8");
+        try {
+            out.println(MAGIC + " " + _fileLength + " " + _fileModified + " " + _samplingRate);
+            for (Block b : _blocks) {
+                out.println(b._leader + " " + b._data + " " + b._offset + " " + b._length + " "
+                        + (float) b._period + " " + b._end);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * インデックスファイルを読み込む。
+     *
+     * @param file インデックスファイル
+     * @param source 音声ファイル
+     * @return インデックス。ファイルがない、形式が正しくない、または音声ファイルのサイズか
+     *         更新日時が異なる場合はnull
+     */
+    public static TapeIndex read(File file, File source) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try {
+            BufferedReader in = new BufferedReader(new FileReader(file));
+            try {
+                String line = in.readLine();
+                String[] head = (line != null) ? line.split(" ") : new String[0];
+                if (head.length < 4 || !MAGIC.equals(head[0]) || Long.parseLong(head[1]) != source.length()
+                        || Long.parseLong(head[2]) != source.lastModified()) {
+                    return null;
+                }
+
+                TapeIndex index = new TapeIndex(source);
+                index.setSamplingRate(Integer.parseInt(head[3]));
+                while ((line = in.readLine()) != null) {
+                    String[] v = line.split(" ");
+                    if (v.length < 6) {
+                        return null;
+                    }
+                    Block b = index.addBlock(Long.parseLong(v[0]), Long.parseLong(v[1]), Integer.parseInt(v[2]),
+                            Double.parseDouble(v[4]));
+                    b._length = Integer.parseInt(v[3]);
+                    b._end = Long.parseLong(v[5]);
+                }
+                return index;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * @(#)TapeProfile.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+/**
+ * テープの記録方式（FSK変調の周波数、ボーレート、フレーム構成、ブランクの規則、終了の条件）
+ * <p>
+ * いずれの方式も、高周波数は低周波数の2倍で、1ビットは低周波数の整数倍の周期
+ * （0は低周波数、1は同じ時間の高周波数）、スタートビットは0、データは下位ビットから。
+ * このため、FSKBitAnalyzerの1周期単位の判定をそのまま使い、1ビットの周期数だけ繰り返す。
+ * ストップビット数は合成用で、変換ではストップビットを数えない。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public enum TapeProfile {
+
+    /** PC-6001（1200ボー、1200Hz/2400Hz、ストップビット3） */
+    P6(1200.0, 1, 8, 3, 28, 3, false),
+
+    /** MSX（1200ボー、1200Hz/2400Hz、ストップビット2） */
+    MSX1200(1200.0, 1, 8, 2, 28, 3, true),
+
+    /** MSX（2400ボー、2400Hz/4800Hz、ストップビット2） */
+    MSX2400(2400.0, 1, 8, 2, 28, 3, true),
+
+    /** カンサスシティスタンダード（300ボー、1200Hz/2400Hz、ストップビット2） */
+    KCS300(1200.0, 4, 8, 2, 96, 3, true),
+
+    /** CUTS（1200ボー、600Hz/1200Hz、ストップビット2） */
+    CUTS1200(600.0, 1, 8, 2, 28, 3, true);
+
+    private double _lowFrequency;
+
+    private int _cyclesPerBit;
+
+    private int _dataBits;
+
+    private int _stopBits;
+
+    private int _minLeaderWaves;
+
+    private int _leaderCount;
+
+    private boolean _endAtStreamEnd;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param lowFrequency 低周波数(Hz)
+     * @param cyclesPerBit 1ビットの低周波数の周期数
+     * @param dataBits データのビット数
+     * @param stopBits ストップビット数
+     * @param minLeaderWaves ブランクとみなす高周波数の最小の波数
+     * @param leaderCount 変換を終えるまでのブランクの数
+     * @param endAtStreamEnd データの後のファイルの終わりを正常終了とする場合はtrue
+     */
+    private TapeProfile(double lowFrequency, int cyclesPerBit, int dataBits, int stopBits, int minLeaderWaves,
+            int leaderCount, boolean endAtStreamEnd) {
+        _lowFrequency = lowFrequency;
+        _cyclesPerBit = cyclesPerBit;
+        _dataBits = dataBits;
+        _stopBits = stopBits;
+        _minLeaderWaves = minLeaderWaves;
+        _leaderCount = leaderCount;
+        _endAtStreamEnd = endAtStreamEnd;
+    }
+
+    /**
+     * 名前から記録方式を得る（大文字、小文字は区別しない）。
+     *
+     * @param name 名前
+     * @return 記録方式
+     * @throws IllegalArgumentException 不明な名前の場合
+     */
+    public static TapeProfile forName(String name) {
+        for (TapeProfile p : values()) {
+            if (p.name().equalsIgnoreCase(name)) {
+                return p;
+            }
+        }
+        throw new IllegalArgumentException("Unknown profile: " + name);
+    }
+
+    /**
+     * 低周波数を得る。
+     *
+     * @return 低周波数(Hz)
+     */
+    public double getLowFrequency() {
+        return _lowFrequency;
+    }
+
+    /**
+     * 高周波数を得る。
+     *
+     * @return 高周波数(Hz)
+     */
+    public double getHighFrequency() {
+        return _lowFrequency * 2;
+    }
+
+    /**
+     * ボーレートを得る。
+     *
+     * @return ボーレート
+     */
+    public int getBaudRate() {
+        return (int) Math.round(_lowFrequency / _cyclesPerBit);
+    }
+
+    /**
+     * 1ビットの低周波数の周期数を得る。
+     *
+     * @return 周期数
+     */
+    public int getCyclesPerBit() {
+        return _cyclesPerBit;
+    }
+
+    /**
+     * データのビット数を得る。
+     *
+     * @return ビット数
+     */
+    public int getDataBits() {
+        return _dataBits;
+    }
+
+    /**
+     * ストップビット数を得る。
+     * 使うのはP6TapeSynthesizerのみ。変換では数えず、データの後の高周波数はブランクと同じく
+     * 次のスタートビットまで読み飛ばす（ストップビットが欠けても失敗しない）。
+     *
+     * @return ストップビット数
+     */
+    public int getStopBits() {
+        return _stopBits;
+    }
+
+    /**
+     * ブランクとみなす高周波数の最小の波数を得る。
+     * ストップビットとバイト間の高周波数より長くする。
+     *
+     * @return 波数
+     */
+    public int getMinLeaderWaves() {
+        return _minLeaderWaves;
+    }
+
+    /**
+     * 変換を終えるまでのブランクの数を得る。
+     *
+     * @return ブランクの数（最初のブランクを含む）
+     */
+    public int getLeaderCount() {
+        return _leaderCount;
+    }
+
+    /**
+     * データの後のファイルの終わりを正常終了とするかを返す。
+     * falseの場合は、ブランクの数に達する前のファイルの終わりは不正なファイル終了とする。
+     *
+     * @return 正常終了とする場合はtrue
+     */
+    public boolean isEndAtStreamEnd() {
+        return _endAtStreamEnd;
+    }
+}
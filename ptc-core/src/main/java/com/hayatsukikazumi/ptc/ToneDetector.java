@@ -0,0 +1,118 @@
+/**
+ * @(#)ToneDetector.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+/**
+ * FSK変調の2つの周波数の成分の割合を求めるクラス
+ * <p>
+ * ブロックごとにGoertzel法で低周波数と高周波数の成分を求め、
+ * ブロック全体（直流成分を除く）に対する割合を返す。
+ * ブロックの長さは低周波数の整数倍の周期とする。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class ToneDetector {
+
+    /** ブロックに含める低周波数の周期数 */
+    private static final int BLOCK_CYCLES = 8;
+
+    private int _blockSize;
+
+    private double _coeffLow;
+
+    private double _coeffHigh;
+
+    /**
+     * コンストラクタ。
+     * @param sampleRate サンプリングレート(Hz)
+     * @param lowFreq 低い側の周波数(Hz)（高い側はその2倍）
+     */
+    public ToneDetector(int sampleRate, double lowFreq) {
+
+        if (sampleRate <= 0 || lowFreq <= 0) {
+            throw new IllegalArgumentException("Please set positive value in parameters.");
+        }
+
+        _blockSize = (int) Math.round(sampleRate / lowFreq * BLOCK_CYCLES);
+        _coeffLow = 2 * Math.cos(2 * Math.PI * lowFreq / sampleRate);
+        _coeffHigh = 2 * Math.cos(2 * Math.PI * lowFreq * 2 / sampleRate);
+    }
+
+    /**
+     * ブロックの長さを得る。
+     * @return ブロックの長さ（サンプル数）
+     */
+    public int getBlockSize() {
+        return _blockSize;
+    }
+
+    /**
+     * ブロック内の、低周波数と高周波数の成分の割合を得る。
+     * @param buf 信号バッファ
+     * @param pos ブロックの先頭
+     * @return 成分の割合（0〜1程度）。無音の場合は0
+     */
+    public double getToneRatio(float[] buf, int pos) {
+        double sum = 0;
+        double sum2 = 0;
+        double l1 = 0, l2 = 0;
+        double h1 = 0, h2 = 0;
+        for (int i = pos; i < pos + _blockSize; i++) {
+            double v = buf[i];
+            sum += v;
+            sum2 += v * v;
+            double l0 = v + _coeffLow * l1 - l2;
+            l2 = l1;
+            l1 = l0;
+            double h0 = v + _coeffHigh * h1 - h2;
+            h2 = h1;
+            h1 = h0;
+        }
+        return getRatio(sum, sum2, l1, l2, h1, h2);
+    }
+
+    /**
+     * ブロック内の、低周波数と高周波数の成分の割合を得る。
+     * @param buf 信号バッファ（整数のPCMデータ）
+     * @param pos ブロックの先頭
+     * @return 成分の割合（0〜1程度）。無音の場合は0
+     */
+    public double getToneRatio(int[] buf, int pos) {
+        long sum = 0;
+        double sum2 = 0;
+        double l1 = 0, l2 = 0;
+        double h1 = 0, h2 = 0;
+        for (int i = pos; i < pos + _blockSize; i++) {
+            int v = buf[i];
+            sum += v;
+            sum2 += (double) v * v;
+            double l0 = v + _coeffLow * l1 - l2;
+            l2 = l1;
+            l1 = l0;
+            double h0 = v + _coeffHigh * h1 - h2;
+            h2 = h1;
+            h1 = h0;
+        }
+        return getRatio(sum, sum2, l1, l2, h1, h2);
+    }
+
+    /**
+     * Goertzel法の結果から成分の割合を求める。
+     * 振幅Aの正弦波の成分は(A * N / 2)^2、エネルギーはA^2 * N / 2なので、
+     * 成分 * 2 / N をエネルギーで割る。
+     */
+    private double getRatio(double sum, double sum2, double l1, double l2, double h1, double h2) {
+        double energy = sum2 - sum * sum / _blockSize;
+        if (energy <= 0) {
+            return 0;
+        }
+
+        double low = l1 * l1 + l2 * l2 - _coeffLow * l1 * l2;
+        double high = h1 * h1 + h2 * h2 - _coeffHigh * h1 * h2;
+        return (low + high) * 2 / _blockSize / energy;
+    }
+}
@@ -0,0 +1,282 @@
+/**
+ * @(#)WAVDecoder.java 2021/04/29
+ *
+ *                     Copyright(c) HayatsukiKazumi 2021 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * WAVフォーマットのデータのバイナリを変換するクラス
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public abstract class WAVDecoder {
+
+    public static final int FORMAT_ID_LINEAR_PCM = 1;
+    public static final int FORMAT_ID_IEEE_FLOAT = 3;
+    public static final int FORMAT_ID_ALAW = 6;
+    public static final int FORMAT_ID_MLAW = 7;
+    public static final int FORMAT_ID_EXTENSIBLE = 0xfffe;
+
+    /**
+     * デコードする。
+     * @param buf 元のバイナリデータ
+     * @param off 変換位置
+     * @return 変換後の値
+     */
+    public abstract float decode(byte[] buf, int off);
+
+    /**
+     * 整数のPCMデータのままデコードできるかを返す。
+     * @return decodeIntでデコードできる場合はtrue
+     */
+    public boolean isInteger() {
+        return false;
+    }
+
+    /**
+     * 整数のPCMデータのままデコードする。
+     * 値はdecodeの結果の定数倍になる。
+     * @param buf 元のバイナリデータ
+     * @param off 変換位置
+     * @return 変換後の値
+     * @throws UnsupportedOperationException 整数のPCMデータでない場合
+     */
+    public int decodeInt(byte[] buf, int off) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 一定間隔で並んだデータをまとめてデコードする。
+     * @param buf 元のバイナリデータ
+     * @param off 最初の変換位置
+     * @param stride 変換位置の間隔（バイト数）
+     * @param dest 出力先
+     * @param destOff 書き込み位置
+     * @param len 変換する数
+     */
+    public void decode(byte[] buf, int off, int stride, float[] dest, int destOff, int len) {
+        for (int i = 0; i < len; i++) {
+            dest[destOff + i] = decode(buf, off);
+            off += stride;
+        }
+    }
+
+    /**
+     * 一定間隔で並んだデータを、整数のPCMデータのまままとめてデコードする。
+     * @param buf 元のバイナリデータ
+     * @param off 最初の変換位置
+     * @param stride 変換位置の間隔（バイト数）
+     * @param dest 出力先
+     * @param destOff 書き込み位置
+     * @param len 変換する数
+     * @throws UnsupportedOperationException 整数のPCMデータでない場合
+     */
+    public void decodeInt(byte[] buf, int off, int stride, int[] dest, int destOff, int len) {
+        for (int i = 0; i < len; i++) {
+            dest[destOff + i] = decodeInt(buf, off);
+            off += stride;
+        }
+    }
+
+    /**
+     * ファイルフォーマットに対応したデコーダを返す。
+     * @param formatId フォーマットID
+     * @param bytes 1音のバイト数
+     * @return デコーダ
+     * @throws UnsupportedAudioFileException サポートされていないフォーマット
+     */
+    public static WAVDecoder getDecoder(int formatId, int bytes) throws UnsupportedAudioFileException {
+        switch (formatId) {
+        case FORMAT_ID_LINEAR_PCM:
+            switch (bytes) {
+            case 1:
+                return new LINEAR8Decoder();
+            case 2:
+                return new LINEAR16Decoder();
+            case 3:
+                return new LINEAR24Decoder();
+            case 4:
+                return new LINEAR32Decoder();
+            default:
+                throw new UnsupportedAudioFileException("Format not supported. bytes = " + bytes);
+            }
+        case FORMAT_ID_IEEE_FLOAT:
+            if (bytes != 4) {
+                throw new UnsupportedAudioFileException("Format not supported. bytes = " + bytes);
+            }
+            return new FLOAT32Decoder();
+        case FORMAT_ID_ALAW:
+            return new ALAWDecoder();
+        case FORMAT_ID_MLAW:
+            return new MLAWDecoder();
+        default:
+            throw new UnsupportedAudioFileException("Format not supported. formatId = " + formatId);
+        }
+
+    }
+
+    static class LINEAR8Decoder extends WAVDecoder {
+        @Override
+        public float decode(byte[] buf, int off) {
+            return ((buf[off] & 0xff) - 128) / (float) 128;
+        }
+
+        @Override
+        public boolean isInteger() {
+            return true;
+        }
+
+        @Override
+        public int decodeInt(byte[] buf, int off) {
+            return (buf[off] & 0xff) - 128;
+        }
+
+        @Override
+        public void decode(byte[] buf, int off, int stride, float[] dest, int destOff, int len) {
+            for (int i = 0; i < len; i++) {
+                dest[destOff + i] = ((buf[off] & 0xff) - 128) / (float) 128;
+                off += stride;
+            }
+        }
+
+        @Override
+        public void decodeInt(byte[] buf, int off, int stride, int[] dest, int destOff, int len) {
+            for (int i = 0; i < len; i++) {
+                dest[destOff + i] = (buf[off] & 0xff) - 128;
+                off += stride;
+            }
+        }
+    }
+
+    static class LINEAR16Decoder extends WAVDecoder {
+        @Override
+        public float decode(byte[] buf, int off) {
+            return ((buf[off + 1] << 8) | (buf[off] & 0xff)) / (float) 0x8000;
+        }
+
+        @Override
+        public boolean isInteger() {
+            return true;
+        }
+
+        @Override
+        public int decodeInt(byte[] buf, int off) {
+            return (buf[off + 1] << 8) | (buf[off] & 0xff);
+        }
+
+        @Override
+        public void decode(byte[] buf, int off, int stride, float[] dest, int destOff, int len) {
+            for (int i = 0; i < len; i++) {
+                dest[destOff + i] = ((buf[off + 1] << 8) | (buf[off] & 0xff)) / (float) 0x8000;
+                off += stride;
+            }
+        }
+
+        @Override
+        public void decodeInt(byte[] buf, int off, int stride, int[] dest, int destOff, int len) {
+            for (int i = 0; i < len; i++) {
+                dest[destOff + i] = (buf[off + 1] << 8) | (buf[off] & 0xff);
+                off += stride;
+            }
+        }
+    }
+
+    static class LINEAR24Decoder extends WAVDecoder {
+        @Override
+        public float decode(byte[] buf, int off) {
+            return ((buf[off + 2] << 16) | ((buf[off + 1] << 8) & 0xff00) | (buf[off] & 0xff)) / (float) 0x800000;
+        }
+
+        @Override
+        public boolean isInteger() {
+            return true;
+        }
+
+        @Override
+        public int decodeInt(byte[] buf, int off) {
+            return (buf[off + 2] << 16) | ((buf[off + 1] << 8) & 0xff00) | (buf[off] & 0xff);
+        }
+
+        @Override
+        public void decodeInt(byte[] buf, int off, int stride, int[] dest, int destOff, int len) {
+            for (int i = 0; i < len; i++) {
+                dest[destOff + i] = (buf[off + 2] << 16) | ((buf[off + 1] << 8) & 0xff00) | (buf[off] & 0xff);
+                off += stride;
+            }
+        }
+    }
+
+    static class LINEAR32Decoder extends WAVDecoder {
+        @Override
+        public float decode(byte[] buf, int off) {
+            return ((buf[off + 3] << 24) | ((buf[off + 2] << 16) & 0xff0000) | ((buf[off + 1] << 8) & 0xff00)
+                    | (buf[off] & 0xff)) / (float) 0x80000000L;
+        }
+    }
+
+    static class FLOAT32Decoder extends WAVDecoder {
+        @Override
+        public float decode(byte[] buf, int off) {
+            return Float.intBitsToFloat((buf[off + 3] << 24) | ((buf[off + 2] << 16) & 0xff0000)
+                    | ((buf[off + 1] << 8) & 0xff00) | (buf[off] & 0xff));
+        }
+
+        @Override
+        public void decode(byte[] buf, int off, int stride, float[] dest, int destOff, int len) {
+            if (stride == 4) {
+                // 連続している場合は値をそのままコピーする
+                ByteBuffer.wrap(buf, off, len * 4).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(dest, destOff, len);
+                return;
+            }
+            super.decode(buf, off, stride, dest, destOff, len);
+        }
+    }
+
+    static class ALAWDecoder extends WAVDecoder {
+        @Override
+        public float decode(byte[] buf, int off) {
+            int src = buf[off] ^ 0x55;
+            boolean isMinus = ((src & 0x80) != 0);
+            int frac = src & 0x0f;
+            int expo = (src & 0x70) >> 4;
+            if (expo == 0) {
+                frac <<= 1;
+                frac++;
+            } else {
+                frac <<= 1;
+                frac += 33;
+                expo--;
+                frac <<= expo;
+            }
+
+            return (isMinus ? -frac : --frac) / 4096.0f;
+        }
+    }
+
+    static class MLAWDecoder extends WAVDecoder {
+        @Override
+        public float decode(byte[] buf, int off) {
+            int src = buf[off] ^ 0xff;
+            boolean isMinus = ((src & 0x80) != 0);
+            int expo = (src & 0x70) >> 4;
+            int frac = src & 0x0f;
+            frac <<= 1;
+            frac += 33;
+            frac <<= expo;
+            frac -= 33;
+            if (isMinus) {
+                frac = -frac;
+                frac--;
+            }
+
+            return frac / 8192.0f;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * @(#)WAVEncoder.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * WAVフォーマットのバイナリに変換するクラス
+ * <p>
+ * WAVDecoderの逆変換。整数のPCMデータでは、-1〜1の範囲外の値は範囲内に丸める。
+ * A-law、μ-lawには対応しない。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public abstract class WAVEncoder {
+
+    /**
+     * 1音のバイト数を得る。
+     * @return 1音のバイト数
+     */
+    public abstract int getBytes();
+
+    /**
+     * まとめてエンコードする。
+     * @param src 元の値
+     * @param srcOff 読み取り位置
+     * @param dest 出力先
+     * @param destOff 書き込み位置
+     * @param len 変換する数
+     */
+    public abstract void encode(float[] src, int srcOff, byte[] dest, int destOff, int len);
+
+    /**
+     * フォーマットに合ったエンコーダを得る。
+     * @param formatId フォーマットID
+     * @param bytes 1音のバイト数
+     * @return エンコーダ
+     * @throws UnsupportedAudioFileException サポートされていないフォーマット
+     */
+    public static WAVEncoder getEncoder(int formatId, int bytes) throws UnsupportedAudioFileException {
+        switch (formatId) {
+        case WAVDecoder.FORMAT_ID_LINEAR_PCM:
+            switch (bytes) {
+            case 1:
+                return new LINEAR8Encoder();
+            case 2:
+                return new LINEAR16Encoder();
+            case 3:
+                return new LINEAR24Encoder();
+            case 4:
+                return new LINEAR32Encoder();
+            default:
+                throw new UnsupportedAudioFileException("Format not supported. bytes = " + bytes);
+            }
+        case WAVDecoder.FORMAT_ID_IEEE_FLOAT:
+            if (bytes != 4) {
+                throw new UnsupportedAudioFileException("Format not supported. bytes = " + bytes);
+            }
+            return new FLOAT32Encoder();
+        default:
+            throw new UnsupportedAudioFileException("Format not supported. formatId = " + formatId);
+        }
+    }
+
+    /**
+     * 値を指定の範囲の整数に変換する。
+     * @param v 値
+     * @param scale 1に対応する整数
+     * @return 変換後の値（-scale〜scale-1）
+     */
+    static int toInt(float v, double scale) {
+        double d = Math.floor(v * scale + 0.5);
+        if (d >= scale) {
+            return (int) (scale - 1);
+        }
+        if (d < -scale) {
+            return (int) -scale;
+        }
+        return (int) d;
+    }
+
+    static class LINEAR8Encoder extends WAVEncoder {
+        @Override
+        public int getBytes() {
+            return 1;
+        }
+
+        @Override
+        public void encode(float[] src, int srcOff, byte[] dest, int destOff, int len) {
+            for (int i = 0; i < len; i++) {
+                dest[destOff + i] = (byte) (toInt(src[srcOff + i], 0x80) + 128);
+            }
+        }
+    }
+
+    static class LINEAR16Encoder extends WAVEncoder {
+        @Override
+        public int getBytes() {
+            return 2;
+        }
+
+        @Override
+        public void encode(float[] src, int srcOff, byte[] dest, int destOff, int len) {
+            for (int i = 0; i < len; i++) {
+                int v = toInt(src[srcOff + i], 0x8000);
+                dest[destOff++] = (byte) v;
+                dest[destOff++] = (byte) (v >> 8);
+            }
+        }
+    }
+
+    static class LINEAR24Encoder extends WAVEncoder {
+        @Override
+        public int getBytes() {
+            return 3;
+        }
+
+        @Override
+        public void encode(float[] src, int srcOff, byte[] dest, int destOff, int len) {
+            for (int i = 0; i < len; i++) {
+                int v = toInt(src[srcOff + i], 0x800000);
+                dest[destOff++] = (byte) v;
+                dest[destOff++] = (byte) (v >> 8);
+                dest[destOff++] = (byte) (v >> 16);
+            }
+        }
+    }
+
+    static class LINEAR32Encoder extends WAVEncoder {
+        @Override
+        public int getBytes() {
+            return 4;
+        }
+
+        @Override
+        public void encode(float[] src, int srcOff, byte[] dest, int destOff, int len) {
+            for (int i = 0; i < len; i++) {
+                int v = toInt(src[srcOff + i], 0x80000000L);
+                dest[destOff++] = (byte) v;
+                dest[destOff++] = (byte) (v >> 8);
+                dest[destOff++] = (byte) (v >> 16);
+                dest[destOff++] = (byte) (v >> 24);
+            }
+        }
+    }
+
+    static class FLOAT32Encoder extends WAVEncoder {
+        @Override
+        public int getBytes() {
+            return 4;
+        }
+
+        @Override
+        public void encode(float[] src, int srcOff, byte[] dest, int destOff, int len) {
+            // 値をそのままコピーする（範囲外の値も丸めない）
+            ByteBuffer.wrap(dest, destOff, len * 4).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(src, srcOff, len);
+        }
+    }
+}
@@ -0,0 +1,524 @@
+/**
+ * @(#)WAVFilterInputStream.java 2005/08/04
+ *
+ *                               Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * WAVフォーマットを読み取るためのInputStream
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class WAVInputStream extends BufferedInputStream implements SoundSource {
+    /** まとめて読み取るフレーム数 */
+    private static final int CHUNK_FRAMES = 1024;
+    /** データ長が不明（ファイルの終わりまで） */
+    private static final long LENGTH_UNKNOWN = -1;
+    /** RF64でds64チャンクを参照することを示すサイズ */
+    private static final long SIZE_DS64 = 0xffffffffL;
+
+    /** チャネル数 */
+    private int _channels;
+    /** フォーマットID */
+    private int _formatId;
+    /** サンプリング周波数 */
+    private int _samplingRate;
+    /** ビット数 */
+    private int _bits;
+    /** バイト数 */
+    private int _bytes;
+    /** データサイズ（バイト数） */
+    private long _dataLength = LENGTH_UNKNOWN;
+    /** dataチャンクの残りのバイト数 */
+    private long _remaining = LENGTH_UNKNOWN;
+    /** 1フレーム（全チャネル分）のバイト数 */
+    private int _frameBytes;
+    /** 処理用バッファ（CHUNK_FRAMES分） */
+    private byte[] _buf;
+    /** デコーダ */
+    private WAVDecoder _decoder;
+
+    /**
+     * 元となるInputStreamからヘッダー部分を読みこむ。
+     *
+     * @param in 元となるInputStream
+     * @throws WrongFormatException WAVファイルの形式が正しくない場合
+     * @throws IOException 読み取りに失敗した場合
+     */
+    public WAVInputStream(InputStream in) throws UnsupportedAudioFileException, IOException {
+        super(in);
+        readHeader();
+    }
+
+    /**
+     * チャンネル数を得る。
+     *
+     * @return チャンネル数
+     */
+    public int getChannels() {
+        return _channels;
+    }
+
+    /**
+     * フォーマットIDを得る。
+     *
+     * @return フォーマットID
+     */
+    public int getFormatId() {
+        return _formatId;
+    }
+
+    /**
+     * サンプリング周波数を得る。
+     *
+     * @return サンプリング周波数(Hz)
+     */
+    public int getSamplingRate() {
+        return _samplingRate;
+    }
+
+    /**
+     * ビット数を得る。
+     *
+     * @return ビット数
+     */
+    public int getBits() {
+        return _bits;
+    }
+
+    /**
+     * データサイズを得る。2GB以上の場合はInteger.MAX_VALUEを返す。
+     *
+     * @return データサイズ。不明の場合は-1
+     * @see #getDataLength()
+     */
+    public int getDataSize() {
+        return (int) Math.min(_dataLength, Integer.MAX_VALUE);
+    }
+
+    /**
+     * データサイズを得る。
+     *
+     * @return データサイズ（バイト数）。不明の場合は-1
+     */
+    public long getDataLength() {
+        return _dataLength;
+    }
+
+    /**
+     * dataチャンクの終わりまで読み取る。
+     */
+    @Override
+    public synchronized int read() throws IOException {
+        if (_remaining == 0) {
+            return -1;
+        }
+        int b = super.read();
+        if (b >= 0 && _remaining > 0) {
+            _remaining--;
+        }
+        return b;
+    }
+
+    /**
+     * dataチャンクの終わりまで読み取る。
+     */
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (_remaining == 0) {
+            return (len == 0) ? 0 : -1;
+        }
+        if (_remaining > 0 && len > _remaining) {
+            len = (int) _remaining;
+        }
+        int n = super.read(b, off, len);
+        if (n > 0 && _remaining > 0) {
+            _remaining -= n;
+        }
+        return n;
+    }
+
+    /**
+     * dataチャンクの終わりまで読み飛ばす。
+     */
+    @Override
+    public synchronized long skip(long n) throws IOException {
+        if (_remaining >= 0 && n > _remaining) {
+            n = _remaining;
+        }
+        long skipped = super.skip(n);
+        if (skipped > 0 && _remaining > 0) {
+            _remaining -= skipped;
+        }
+        return skipped;
+    }
+
+    @Override
+    public synchronized int available() throws IOException {
+        int n = super.available();
+        return (_remaining >= 0 && n > _remaining) ? (int) _remaining : n;
+    }
+
+    /**
+     * 音声データを読み取る。 channelに負の数を指定した場合、出力先配列にはステレオ音声ではL,R,L,R,…の順に出力される。
+     *
+     * @param channel どのチャネルを取得するか（負の数：全部のチャネル）
+     * @param buf 出力先
+     * @param off 書き込み位置
+     * @param len 最大書き込み数
+     * @return 書き込んだ配列の数。既にストリームの終端に達している場合は-1
+     * @throws IOException
+     * @throws IllegalArgumentException channel &gt;= チャネル数の場合
+     */
+    public int readSound(int channel, float[] buf, int off, int len) throws IOException {
+
+        if (channel >= _channels) {
+            throw new IllegalArgumentException("Illegal channel.");
+        }
+
+        int maxlen = (channel < 0) ? (len / _channels) * _channels : len;
+        int retlen = 0;
+
+        while (retlen < maxlen) {
+
+            int frames = readFrames(getFrameCount(channel, maxlen - retlen));
+            if (frames <= 0) {
+                return (retlen == 0) ? -1 : retlen;
+            }
+
+            retlen += decodeFrames(channel, frames, buf, off + retlen);
+        }
+
+        return retlen;
+    }
+
+    /**
+     * 整数のPCMデータのまま読み取れるかを返す。リニアPCMの場合に読み取れる。
+     *
+     * @return readSound(int, int[], int, int)で読み取れる場合はtrue
+     */
+    public boolean canReadInt() {
+        return _decoder.isInteger();
+    }
+
+    /**
+     * 音声データを整数のPCMデータのまま読み取る。 channelに負の数を指定した場合、出力先配列にはステレオ音声ではL,R,L,R,…の順に出力される。
+     *
+     * @param channel どのチャネルを取得するか（負の数：全部のチャネル）
+     * @param buf 出力先
+     * @param off 書き込み位置
+     * @param len 最大書き込み数
+     * @return 書き込んだ配列の数。既にストリームの終端に達している場合は-1
+     * @throws IOException
+     * @throws IllegalArgumentException channel &gt;= チャネル数の場合
+     * @throws UnsupportedOperationException 整数のPCMデータのまま読み取れない場合
+     */
+    public int readSound(int channel, int[] buf, int off, int len) throws IOException {
+
+        if (channel >= _channels) {
+            throw new IllegalArgumentException("Illegal channel.");
+        }
+        if (!_decoder.isInteger()) {
+            throw new UnsupportedOperationException();
+        }
+
+        int maxlen = (channel < 0) ? (len / _channels) * _channels : len;
+        int retlen = 0;
+
+        while (retlen < maxlen) {
+
+            int frames = readFrames(getFrameCount(channel, maxlen - retlen));
+            if (frames <= 0) {
+                return (retlen == 0) ? -1 : retlen;
+            }
+
+            retlen += decodeFrames(channel, frames, buf, off + retlen);
+        }
+
+        return retlen;
+    }
+
+    /**
+     * 出力する数から、読み取るフレーム数を求める。
+     *
+     * @param channel どのチャネルを取得するか（負の数：全部のチャネル）
+     * @param len 出力する数
+     * @return 読み取るフレーム数
+     */
+    private int getFrameCount(int channel, int len) {
+        int frames = (channel < 0) ? len / _channels : len;
+        return Math.min(frames, CHUNK_FRAMES);
+    }
+
+    /**
+     * 指定のフレーム数を読み飛ばす。
+     * dataチャンクの長さが分かっている場合は、バイト単位で読み飛ばす（ファイルの場合はシークになる）。
+     * それ以外の場合は、読み取って捨てる。
+     *
+     * @param frames 読み飛ばすフレーム数
+     * @return 読み飛ばしたフレーム数。ストリームの終端に達した場合は指定より少ない
+     * @throws IOException
+     */
+    public long skipSound(long frames) throws IOException {
+        long done = 0;
+        if (_remaining >= 0) {
+            long bytes = Math.min(frames, _remaining / _frameBytes) * _frameBytes;
+            long skipped = 0;
+            while (skipped < bytes) {
+                long n = skip(bytes - skipped);
+                if (n <= 0) {
+                    break;
+                }
+                skipped += n;
+            }
+            if (skipped < bytes) {
+                // 途中までのフレームは含まない
+                return skipped / _frameBytes;
+            }
+            done = skipped / _frameBytes;
+        }
+
+        while (done < frames) {
+            int n = readFrames((int) Math.min(frames - done, CHUNK_FRAMES));
+            if (n <= 0) {
+                break;
+            }
+            done += n;
+        }
+        return done;
+    }
+
+    /**
+     * 処理用バッファにフレームを読み取る。
+     *
+     * @param frames 読み取るフレーム数
+     * @return 読み取れたフレーム数（途中までのフレームは含まない）
+     * @throws IOException
+     */
+    private int readFrames(int frames) throws IOException {
+        int size = frames * _frameBytes;
+        int pos = 0;
+        int b;
+        while (pos < size && (b = read(_buf, pos, size - pos)) > 0) {
+            pos += b;
+        }
+        return pos / _frameBytes;
+    }
+
+    /**
+     * 処理用バッファのフレームをデコードする。
+     *
+     * @param channel どのチャネルを取得するか（負の数：全部のチャネル）
+     * @param frames フレーム数
+     * @param buf 出力先
+     * @param off 書き込み位置
+     * @return 書き込んだ配列の数
+     */
+    private int decodeFrames(int channel, int frames, float[] buf, int off) {
+        if (channel >= 0) {
+            _decoder.decode(_buf, channel * _bytes, _frameBytes, buf, off, frames);
+            return frames;
+        }
+        int count = frames * _channels;
+        _decoder.decode(_buf, 0, _bytes, buf, off, count);
+        return count;
+    }
+
+    /**
+     * 処理用バッファのフレームを整数のPCMデータのままデコードする。
+     *
+     * @param channel どのチャネルを取得するか（負の数：全部のチャネル）
+     * @param frames フレーム数
+     * @param buf 出力先
+     * @param off 書き込み位置
+     * @return 書き込んだ配列の数
+     */
+    private int decodeFrames(int channel, int frames, int[] buf, int off) {
+        if (channel >= 0) {
+            _decoder.decodeInt(_buf, channel * _bytes, _frameBytes, buf, off, frames);
+            return frames;
+        }
+        int count = frames * _channels;
+        _decoder.decodeInt(_buf, 0, _bytes, buf, off, count);
+        return count;
+    }
+
+    /**
+     * 実際にヘッダ部分を読み取る。
+     * チャンクを順に読み、fmtチャンクとdataチャンク以外はサイズ分読み飛ばす。
+     * RF64（BW64）の64ビットのサイズ、WAVE_FORMAT_EXTENSIBLEに対応する。
+     *
+     * @throws UnsupportedAudioFileException WAVファイルの形式が正しくない場合
+     * @throws IOException 読み取りに失敗した場合
+     */
+    private void readHeader() throws UnsupportedAudioFileException, IOException {
+        byte[] buf = new byte[8];
+
+        // RIFFヘッダ
+        String riff = readId(buf);
+        boolean rf64 = "RF64".equals(riff) || "BW64".equals(riff);
+        if (!rf64 && !"RIFF".equals(riff)) {
+            throw new UnsupportedAudioFileException();
+        }
+
+        // 空読み
+        readInt(buf, 4);
+
+        // WAVEヘッダ
+        if (!"WAVE".equals(readId(buf))) {
+            throw new UnsupportedAudioFileException();
+        }
+
+        long ds64DataSize = LENGTH_UNKNOWN;
+        boolean hasFormat = false;
+
+        while (true) {
+            String id = readId(buf);
+            long size = readInt(buf, 4);
+
+            if ("ds64".equals(id) && size >= 16) {
+                // RIFFサイズ、dataサイズ
+                readInt(buf, 8);
+                ds64DataSize = readInt(buf, 8);
+                skipFully(size - 16 + (size & 1));
+
+            } else if ("fmt ".equals(id) && size >= 16) {
+                // フォーマット、チャンネル数
+                _formatId = (int) readInt(buf, 2);
+                _channels = (int) readInt(buf, 2);
+
+                // サンプリングレート
+                _samplingRate = (int) readInt(buf, 4);
+
+                // 空読み（バイトレート、ブロックサイズ）
+                readInt(buf, 4);
+                readInt(buf, 2);
+
+                // ビット数
+                _bits = (int) readInt(buf, 2);
+                long rest = size - 16;
+
+                // WAVE_FORMAT_EXTENSIBLEはサブフォーマットの先頭2バイトがフォーマット
+                if (_formatId == WAVDecoder.FORMAT_ID_EXTENSIBLE && rest >= 2 + 22) {
+                    readInt(buf, 2);
+                    readInt(buf, 2);
+                    readInt(buf, 4);
+                    _formatId = (int) readInt(buf, 2);
+                    rest -= 2 + 2 + 4 + 2;
+                }
+                // 奇数サイズは1バイト詰め物がある
+                skipFully(rest + (size & 1));
+                hasFormat = true;
+
+            } else if ("data".equals(id)) {
+                if (!hasFormat) {
+                    throw new UnsupportedAudioFileException();
+                }
+                if (rf64 && size == SIZE_DS64) {
+                    _dataLength = ds64DataSize;
+                } else if (size != 0 && size != SIZE_DS64) {
+                    _dataLength = size;
+                }
+                // サイズが0または0xFFFFFFFFの場合は、書き込み中のファイルとしてファイルの終わりまで読む
+                break;
+
+            } else {
+                // 不明なチャンク（奇数サイズは1バイト詰め物がある）
+                skipFully(size + (size & 1));
+            }
+        }
+
+        if (_channels <= 0) {
+            throw new UnsupportedAudioFileException();
+        }
+
+        // リードバッファ
+        _bytes = (_bits + 7) / 8;
+        _frameBytes = _bytes * _channels;
+        _buf = new byte[_frameBytes * CHUNK_FRAMES];
+
+        // デコーダ
+        _decoder = WAVDecoder.getDecoder(_formatId, _bytes);
+
+        // 以降はdataチャンクの終わりまで読む
+        _remaining = _dataLength;
+    }
+
+    /**
+     * チャンクIDを読み取る。
+     *
+     * @param buf 作業用バッファ
+     * @return チャンクID
+     * @throws UnsupportedAudioFileException ファイルの終わりに達した場合
+     * @throws IOException 読み取りに失敗した場合
+     */
+    private String readId(byte[] buf) throws UnsupportedAudioFileException, IOException {
+        readFully(buf, 4);
+        return new String(buf, 0, 4, "ISO-8859-1");
+    }
+
+    /**
+     * リトルエンディアンの符号なし整数を読み取る。
+     *
+     * @param buf 作業用バッファ
+     * @param bytes バイト数（8以下）
+     * @return 値
+     * @throws UnsupportedAudioFileException ファイルの終わりに達した場合
+     * @throws IOException 読み取りに失敗した場合
+     */
+    private long readInt(byte[] buf, int bytes) throws UnsupportedAudioFileException, IOException {
+        readFully(buf, bytes);
+        long v = 0;
+        for (int i = bytes - 1; i >= 0; i--) {
+            v = (v << 8) | (buf[i] & 255);
+        }
+        return v;
+    }
+
+    /**
+     * 指定のバイト数を読み取る。
+     *
+     * @param buf 出力先
+     * @param len バイト数
+     * @throws UnsupportedAudioFileException ファイルの終わりに達した場合
+     * @throws IOException 読み取りに失敗した場合
+     */
+    private void readFully(byte[] buf, int len) throws UnsupportedAudioFileException, IOException {
+        int pos = 0;
+        while (pos < len) {
+            int b = read(buf, pos, len - pos);
+            if (b < 0) {
+                throw new UnsupportedAudioFileException();
+            }
+            pos += b;
+        }
+    }
+
+    /**
+     * 指定のバイト数を読み飛ばす。
+     *
+     * @param len バイト数
+     * @throws UnsupportedAudioFileException ファイルの終わりに達した場合
+     * @throws IOException 読み取りに失敗した場合
+     */
+    private void skipFully(long len) throws UnsupportedAudioFileException, IOException {
+        while (len > 0) {
+            long n = skip(len);
+            if (n <= 0) {
+                if (read() < 0) {
+                    throw new UnsupportedAudioFileException();
+                }
+                n = 1;
+            }
+            len -= n;
+        }
+    }
+}
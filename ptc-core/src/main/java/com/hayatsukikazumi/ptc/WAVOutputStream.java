@@ -0,0 +1,147 @@
+/**
+ * @(#)WAVOutputStream.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * WAVフォーマットで書き込むためのOutputStream（1チャネルのみ）
+ * <p>
+ * ヘッダのサイズは0で書き込み、閉じるときに実際のサイズに書き換える。
+ * dataチャンクが4GBを超えた場合はサイズを0xFFFFFFFFのままにする
+ * （WAVInputStreamはファイルの終わりまで読み取る）。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class WAVOutputStream extends BufferedOutputStream {
+    /** まとめて変換する数 */
+    private static final int CHUNK_SAMPLES = 4096;
+    /** ヘッダのサイズ */
+    private static final int HEADER_SIZE = 44;
+    /** dataチャンクの最大サイズ */
+    private static final long SIZE_MAX = 0xffffffffL;
+
+    /** 書き込み先のファイル */
+    private RandomAccessFile _file;
+    /** エンコーダ */
+    private WAVEncoder _encoder;
+    /** 処理用バッファ（CHUNK_SAMPLES分） */
+    private byte[] _buf;
+    /** 書き込んだデータのバイト数 */
+    private long _dataLength;
+
+    /**
+     * ファイルを作成し、ヘッダ部分を書き込む。
+     *
+     * @param file 書き込み先のファイル
+     * @param samplingRate サンプリング周波数
+     * @param formatId フォーマットID（WAVDecoder.FORMAT_ID_LINEAR_PCMまたはFORMAT_ID_IEEE_FLOAT）
+     * @param bits ビット数
+     * @throws UnsupportedAudioFileException サポートされていないフォーマットの場合
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public WAVOutputStream(File file, int samplingRate, int formatId, int bits)
+            throws UnsupportedAudioFileException, IOException {
+        this(new RandomAccessFile(file, "rw"), samplingRate, WAVEncoder.getEncoder(formatId, bits / 8),
+                formatId, bits);
+    }
+
+    private WAVOutputStream(RandomAccessFile file, int samplingRate, WAVEncoder encoder, int formatId, int bits)
+            throws IOException {
+        super(new FileOutputStream(file.getFD()), CHUNK_SAMPLES * 4);
+        _file = file;
+        _encoder = encoder;
+        _buf = new byte[CHUNK_SAMPLES * encoder.getBytes()];
+
+        _file.setLength(0);
+        int bytes = encoder.getBytes();
+        byte[] h = new byte[HEADER_SIZE];
+        putId(h, 0, "RIFF");
+        putId(h, 8, "WAVE");
+        putId(h, 12, "fmt ");
+        putInt(h, 16, 16, 4);
+        putInt(h, 20, formatId, 2);
+        putInt(h, 22, 1, 2);
+        putInt(h, 24, samplingRate, 4);
+        putInt(h, 28, (long) samplingRate * bytes, 4);
+        putInt(h, 32, bytes, 2);
+        putInt(h, 34, bits, 2);
+        putId(h, 36, "data");
+        write(h);
+    }
+
+    /**
+     * 音声データを書き込む。
+     *
+     * @param buf 書き込むデータ（-1〜1）
+     * @param off 読み取り位置
+     * @param len 書き込む数
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public synchronized void writeSound(float[] buf, int off, int len) throws IOException {
+        int bytes = _encoder.getBytes();
+        while (len > 0) {
+            int n = Math.min(len, CHUNK_SAMPLES);
+            _encoder.encode(buf, off, _buf, 0, n);
+            write(_buf, 0, n * bytes);
+            _dataLength += n * bytes;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * ヘッダのサイズを書き換えて閉じる。
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+
+            // 奇数サイズは1バイト詰め物を入れる
+            if ((_dataLength & 1) != 0) {
+                _file.write(0);
+            }
+
+            byte[] b = new byte[4];
+            putInt(b, 0, Math.min(SIZE_MAX, _dataLength + (_dataLength & 1) + HEADER_SIZE - 8), 4);
+            _file.seek(4);
+            _file.write(b);
+            putInt(b, 0, Math.min(SIZE_MAX, _dataLength), 4);
+            _file.seek(40);
+            _file.write(b);
+        } finally {
+            _file.close();
+        }
+    }
+
+    /**
+     * IDを書き込む。
+     */
+    private static void putId(byte[] buf, int off, String id) {
+        for (int i = 0; i < 4; i++) {
+            buf[off + i] = (byte) id.charAt(i);
+        }
+    }
+
+    /**
+     * リトルエンディアンで整数を書き込む。
+     */
+    private static void putInt(byte[] buf, int off, long value, int bytes) {
+        for (int i = 0; i < bytes; i++) {
+            buf[off + i] = (byte) (value >> (i * 8));
+        }
+    }
+}
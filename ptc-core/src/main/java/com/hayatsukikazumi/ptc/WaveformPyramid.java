@@ -0,0 +1,221 @@
+/**
+ * @(#)WaveformPyramid.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.IOException;
+
+/**
+ * 波形の概要表示用の、最小値と最大値の多段の縮小データ
+ * <p>
+ * 音声データを先頭から1回だけ読み取り、BASE_FRAMESフレームごとの最小値、最大値を
+ * 最下段とし、上の段は下の段のFACTOR個分をまとめる。
+ * 表示の倍率に合った段から読み出すため、長時間の音声でも全サンプルをメモリに置かずに
+ * 一定の時間で描画できる（サンプル数の1/BASE_FRAMESの2倍程度のメモリを使う）。
+ * <p>
+ * 1列あたりBASE_FRAMESフレーム未満に拡大した場合は、音声データを直接読み取ること。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class WaveformPyramid {
+
+    /** 最下段の1要素あたりのフレーム数 */
+    public static final int BASE_FRAMES = 256;
+
+    /** 上の段で1要素にまとめる数 */
+    private static final int FACTOR = 4;
+
+    /** 読み取りの単位（フレーム数） */
+    private static final int READ_FRAMES = BASE_FRAMES * 64;
+
+    private int _samplingRate;
+
+    private long _frames;
+
+    /** 段ごとの最小値（[0]が最下段） */
+    private float[][] _min;
+
+    /** 段ごとの最大値（[0]が最下段） */
+    private float[][] _max;
+
+    private WaveformPyramid() {
+    }
+
+    /**
+     * 音声データを最後まで読み取り、縮小データを作成する。最初のチャネルのみを使う。
+     *
+     * @param in 音声データの読み取り元（閉じない）
+     * @return 縮小データ
+     * @throws IOException 読み取りに失敗した場合
+     */
+    public static WaveformPyramid build(SoundSource in) throws IOException {
+        WaveformPyramid p = new WaveformPyramid();
+        p._samplingRate = in.getSamplingRate();
+
+        float[] buf = new float[READ_FRAMES];
+        float[] min = new float[1024];
+        float[] max = new float[1024];
+        int count = 0;
+        long frames = 0;
+        int filled = 0;
+
+        while (true) {
+            int n = in.readSound(0, buf, filled, READ_FRAMES - filled);
+            if (n > 0) {
+                filled += n;
+                frames += n;
+            }
+            if (n > 0 && filled < READ_FRAMES) {
+                continue;
+            }
+
+            // 読み取った分をBASE_FRAMESごとにまとめる（最後の端数もまとめる）
+            for (int off = 0; off < filled; off += BASE_FRAMES) {
+                int end = Math.min(filled, off + BASE_FRAMES);
+                float lo = buf[off];
+                float hi = buf[off];
+                for (int i = off + 1; i < end; i++) {
+                    float v = buf[i];
+                    if (v < lo) {
+                        lo = v;
+                    } else if (v > hi) {
+                        hi = v;
+                    }
+                }
+                if (count == min.length) {
+                    min = grow(min);
+                    max = grow(max);
+                }
+                min[count] = lo;
+                max[count] = hi;
+                count++;
+            }
+            filled = 0;
+
+            if (n <= 0) {
+                break;
+            }
+        }
+        p._frames = frames;
+
+        // 上の段を作る
+        int levels = 1;
+        for (int c = count; c > 1; c = (c + FACTOR - 1) / FACTOR) {
+            levels++;
+        }
+        p._min = new float[levels][];
+        p._max = new float[levels][];
+        p._min[0] = trim(min, count);
+        p._max[0] = trim(max, count);
+        for (int lv = 1; lv < levels; lv++) {
+            float[] lmin = p._min[lv - 1];
+            float[] lmax = p._max[lv - 1];
+            int c = (lmin.length + FACTOR - 1) / FACTOR;
+            float[] umin = new float[c];
+            float[] umax = new float[c];
+            for (int i = 0; i < c; i++) {
+                int from = i * FACTOR;
+                int to = Math.min(lmin.length, from + FACTOR);
+                float lo = lmin[from];
+                float hi = lmax[from];
+                for (int j = from + 1; j < to; j++) {
+                    lo = Math.min(lo, lmin[j]);
+                    hi = Math.max(hi, lmax[j]);
+                }
+                umin[i] = lo;
+                umax[i] = hi;
+            }
+            p._min[lv] = umin;
+            p._max[lv] = umax;
+        }
+        return p;
+    }
+
+    /**
+     * サンプリング周波数を得る。
+     *
+     * @return サンプリング周波数(Hz)
+     */
+    public int getSamplingRate() {
+        return _samplingRate;
+    }
+
+    /**
+     * 音声データのフレーム数を得る。
+     *
+     * @return フレーム数
+     */
+    public long getFrameCount() {
+        return _frames;
+    }
+
+    /**
+     * 音声データ全体の、絶対値の最大値を得る。
+     *
+     * @return 絶対値の最大値
+     */
+    public float getPeak() {
+        int top = _min.length - 1;
+        if (_min[top].length == 0) {
+            return 0;
+        }
+        return Math.max(Math.abs(_min[top][0]), Math.abs(_max[top][0]));
+    }
+
+    /**
+     * 表示の列ごとの最小値、最大値を得る。
+     * 1列あたりのフレーム数以下で最も粗い段から読み出す。
+     * 音声データの範囲外の列はNaNにする。
+     *
+     * @param from 最初の列の先頭位置（フレーム数）
+     * @param framesPerColumn 1列あたりのフレーム数
+     * @param min 最小値の出力先
+     * @param max 最大値の出力先
+     * @param columns 列数
+     */
+    public void getMinMax(long from, double framesPerColumn, float[] min, float[] max, int columns) {
+        int lv = 0;
+        long unit = BASE_FRAMES;
+        while (lv + 1 < _min.length && unit * FACTOR <= framesPerColumn) {
+            lv++;
+            unit *= FACTOR;
+        }
+        float[] lmin = _min[lv];
+        float[] lmax = _max[lv];
+
+        for (int x = 0; x < columns; x++) {
+            long start = from + (long) (x * framesPerColumn);
+            long end = from + (long) ((x + 1) * framesPerColumn);
+            int i = (int) Math.max(0, start / unit);
+            int to = (int) Math.min(lmin.length, Math.max(i + 1, (end + unit - 1) / unit));
+            if (start >= _frames || end <= 0 || i >= to) {
+                min[x] = Float.NaN;
+                max[x] = Float.NaN;
+                continue;
+            }
+            float lo = lmin[i];
+            float hi = lmax[i];
+            for (i++; i < to; i++) {
+                lo = Math.min(lo, lmin[i]);
+                hi = Math.max(hi, lmax[i]);
+            }
+            min[x] = lo;
+            max[x] = hi;
+        }
+    }
+
+    private static float[] grow(float[] a) {
+        float[] b = new float[a.length * 2];
+        System.arraycopy(a, 0, b, 0, a.length);
+        return b;
+    }
+
+    private static float[] trim(float[] a, int len) {
+        float[] b = new float[len];
+        System.arraycopy(a, 0, b, 0, len);
+        return b;
+    }
+}
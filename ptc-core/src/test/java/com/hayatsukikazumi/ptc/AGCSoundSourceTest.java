@@ -0,0 +1,115 @@
+/**
+ * @(#)AGCSoundSourceTest.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * AGCSoundSourceのドロップアウトの検出のテスト（合成したテープの音声を使う）
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class AGCSoundSourceTest {
+
+    private static final int RATE = 44100;
+
+    /** 合成するドロップアウトの長さ（秒）（P6TapeSynthesizerと同じ） */
+    private static final double DROPOUT_TIME = 0.02;
+
+    /** 合成する末尾の無音の長さ（秒）（P6TapeSynthesizerと同じ） */
+    private static final double SILENCE_TIME = 0.5;
+
+    @Rule
+    public TemporaryFolder _temp = new TemporaryFolder();
+
+    @Test
+    public void testCountDropouts() throws Exception {
+        assertDropouts(2.0, 0.005);
+    }
+
+    @Test
+    public void testCountDropoutsOtherPhase() throws Exception {
+        // ブランクの途中やバイトの途中など、ドロップアウトの位置を変える
+        assertDropouts(2.3, 0.005);
+        assertDropouts(3.3, 0.005);
+    }
+
+    @Test
+    public void testNoFalseDropouts() throws Exception {
+        // 雑音だけでは（末尾の無音も）ドロップアウトとして数えない
+        assertDropouts(0, 0.08);
+    }
+
+    /**
+     * ドロップアウトを入れたテープの音声にAGCをかけ、数が合成したものと同じであること、
+     * ドロップアウトの後に直前の利得に戻ること、変換結果が元のデータと同じことを確認する。
+     *
+     * @param interval ドロップアウトの間隔（秒）（0の場合はドロップアウトなし）
+     * @param noise 雑音のRMS
+     */
+    private void assertDropouts(double interval, double noise) throws Exception {
+        byte[] data = TapeFixture.createP6Data(2500);
+        File wav = TapeFixture.synthesize(_temp.newFile(), data, RATE, WAVDecoder.FORMAT_ID_LINEAR_PCM, 16, noise,
+                interval);
+
+        AGCSoundSource agc = new AGCSoundSource(P6TapeConvertorMain.openSoundSource(wav), 0);
+        float[] out = readAll(agc);
+        agc.close();
+
+        // 信号のある部分（末尾の無音より前）に入ったドロップアウトの数
+        int period = (int) (interval * RATE);
+        int dropoutLen = (int) (DROPOUT_TIME * RATE);
+        int signalEnd = out.length - (int) (SILENCE_TIME * RATE);
+        int expected = 0;
+        for (int pos = period; period > 0 && pos + dropoutLen <= signalEnd; pos += period) {
+            expected++;
+
+            // ドロップアウトの後は、すぐに直前の利得（目標レベル）に戻る
+            float peak = peak(out, pos + dropoutLen + RATE / 1000, pos + dropoutLen + RATE / 200);
+            assertTrue("level after dropout at " + pos + " : " + peak, peak > 0.4f && peak < 0.6f);
+        }
+        assertEquals(expected, agc.getDropoutCount());
+
+        PTCLogic biz = P6TapeConvertorMain.createLogic(new PTCOptions());
+        assertArrayEquals(data,
+                TapeFixture.convert(new AGCSoundSource(P6TapeConvertorMain.openSoundSource(wav), 0), biz));
+    }
+
+    /**
+     * 最後まで読み取る。
+     */
+    private static float[] readAll(SoundSource in) throws Exception {
+        float[] buf = new float[RATE * 60];
+        int len = 0;
+        int n;
+        while (len < buf.length && (n = in.readSound(0, buf, len, buf.length - len)) > 0) {
+            len += n;
+        }
+        float[] ret = new float[len];
+        System.arraycopy(buf, 0, ret, 0, len);
+        return ret;
+    }
+
+    /**
+     * 範囲の絶対値の最大値を得る。
+     */
+    private static float peak(float[] buf, int from, int to) {
+        float peak = 0;
+        for (int i = from; i < to; i++) {
+            peak = Math.max(peak, Math.abs(buf[i]));
+        }
+        return peak;
+    }
+}
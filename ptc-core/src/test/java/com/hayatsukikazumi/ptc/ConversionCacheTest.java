@@ -0,0 +1,160 @@
+/**
+ * @(#)ConversionCacheTest.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 変換結果のキャッシュのキーと、古いものからの削除のテスト
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class ConversionCacheTest {
+
+    /** WAVファイルのfmtチャンクの終わり（WAVOutputStreamの出力） */
+    private static final int FMT_END = 36;
+
+    @Rule
+    public TemporaryFolder _temp = new TemporaryFolder();
+
+    private byte[] _data;
+
+    private File _wav;
+
+    @Before
+    public void setUp() throws Exception {
+        _data = TapeFixture.createP6Data(100);
+        _wav = TapeFixture.synthesize(_temp.newFile("tape.wav"), _data, 44100, WAVDecoder.FORMAT_ID_LINEAR_PCM, 16,
+                0.02);
+    }
+
+    @Test
+    public void testKey() throws Exception {
+        ConversionCache cache = new ConversionCache(_temp.newFolder(), 1024 * 1024);
+        String key = cache.getKey(_wav, "p");
+
+        // ファイル名、更新日時、dataチャンク以外のチャンクはキーに含めない
+        File copy = new File(_temp.newFolder(), "other.wav");
+        Files.copy(_wav.toPath(), copy.toPath());
+        copy.setLastModified(_wav.lastModified() - 60000);
+        assertEquals(key, cache.getKey(copy, "p"));
+        assertEquals(key, new ConversionCache(_temp.newFolder(), 0).getKey(copy, "p"));
+
+        byte[] wav = Files.readAllBytes(_wav.toPath());
+        File tagged = writeWithChunk(wav, "LIST", "INFOtest".getBytes("US-ASCII"));
+        assertEquals(key, cache.getKey(tagged, "p"));
+
+        // 変換パラメータ、音声データ、フォーマットが異なればキーも異なる
+        assertNotEquals(key, cache.getKey(_wav, "q"));
+        byte[] changed = wav.clone();
+        changed[changed.length - 1] ^= 1;
+        assertNotEquals(key, cache.getKey(write(changed), "p"));
+        byte[] rate = wav.clone();
+        rate[24] ^= 1;
+        assertNotEquals(key, cache.getKey(write(rate), "p"));
+    }
+
+    @Test
+    public void testEvict() throws Exception {
+        File dir = _temp.newFolder();
+        File p6 = write(new byte[1000]);
+        File report = _temp.newFile();
+        Files.write(report.toPath(), "out\nline\n".getBytes("UTF-8"));
+
+        // 2つ分まで入る大きさ
+        long entrySize = 1000 + "line\n".length() + "0\n".length();
+        ConversionCache cache = new ConversionCache(dir, entrySize * 2 + entrySize / 2);
+        long now = System.currentTimeMillis();
+        cache.store("a", 0, p6, report);
+        new File(dir, "a").setLastModified(now - 30000);
+        cache.store("b", 0, p6, report);
+        new File(dir, "b").setLastModified(now - 20000);
+
+        // 使われたものは最後に使われた日時が更新され、使われていないものから削除される
+        assertEquals(0, cache.getResult("a"));
+        cache.store("c", 3, p6, report);
+        assertEquals(0, cache.getResult("a"));
+        assertEquals(-1, cache.getResult("b"));
+        assertEquals(3, cache.getResult("c"));
+        assertFalse(new File(dir, "b").exists());
+    }
+
+    @Test
+    public void testExecute() throws Exception {
+        PTCOptions options = PTCOptions.parse(new String[] { "-c" + _temp.newFolder().getPath() });
+        File first = _temp.newFolder();
+        assertEquals(P6TapeConvertorMain.RESULT_OK, P6TapeConvertorMain.execute(_wav, first, options));
+
+        // 別のディレクトリには、キャッシュから出力ファイル名を書き換えたレポートを書き出す
+        File second = _temp.newFolder();
+        assertEquals(P6TapeConvertorMain.RESULT_OK, P6TapeConvertorMain.execute(_wav, second, options));
+        assertArrayEquals(_data, Files.readAllBytes(new File(second, "tape" + P6TapeConvertorMain.EXT_P6).toPath()));
+        List<String> a = readReport(new File(first, "tape" + P6TapeConvertorMain.EXT_REPORT));
+        List<String> b = readReport(new File(second, "tape" + P6TapeConvertorMain.EXT_REPORT));
+        assertEquals(P6TapeConvertorMain.REPORT_OUTPUT_FILE
+                + new File(second, "tape" + P6TapeConvertorMain.EXT_P6).getAbsolutePath(), b.get(0));
+        assertEquals(a.subList(1, a.size()), b.subList(1, b.size()));
+
+        // 同じ内容のP6ファイルが既にある場合は、新しいファイルを作らない
+        assertEquals(P6TapeConvertorMain.RESULT_OK, P6TapeConvertorMain.execute(_wav, second, options));
+        assertTrue(new File(second, "tape" + P6TapeConvertorMain.EXT_P6).isFile());
+        assertFalse(new File(second, "tape_1" + P6TapeConvertorMain.EXT_P6).exists());
+    }
+
+    /**
+     * fmtチャンクの後にチャンクを入れたWAVファイルを書き込む。
+     */
+    private File writeWithChunk(byte[] wav, String id, byte[] body) throws IOException {
+        byte[] chunk = new byte[8 + body.length];
+        System.arraycopy(id.getBytes("US-ASCII"), 0, chunk, 0, 4);
+        chunk[4] = (byte) body.length;
+        System.arraycopy(body, 0, chunk, 8, body.length);
+
+        byte[] ret = new byte[wav.length + chunk.length];
+        System.arraycopy(wav, 0, ret, 0, FMT_END);
+        System.arraycopy(chunk, 0, ret, FMT_END, chunk.length);
+        System.arraycopy(wav, FMT_END, ret, FMT_END + chunk.length, wav.length - FMT_END);
+
+        // RIFFチャンクのサイズ
+        int riff = ret.length - 8;
+        for (int i = 0; i < 4; i++) {
+            ret[4 + i] = (byte) (riff >> (i * 8));
+        }
+        return write(ret);
+    }
+
+    /**
+     * 一時ファイルに書き込む。
+     */
+    private File write(byte[] data) throws IOException {
+        File file = _temp.newFile();
+        Files.write(file.toPath(), data);
+        return file;
+    }
+
+    /**
+     * レポートファイルを読み取る。
+     */
+    private static List<String> readReport(File file) throws IOException {
+        return Files.readAllLines(file.toPath(), Charset.defaultCharset());
+    }
+}
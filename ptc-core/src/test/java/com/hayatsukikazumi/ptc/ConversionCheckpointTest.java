@@ -0,0 +1,147 @@
+/**
+ * @(#)ConversionCheckpointTest.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 途中経過から再開した変換結果が、途中で終了しなかった場合と同じになることのテスト
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class ConversionCheckpointTest {
+
+    private static final String WAV_NAME = "tape.wav";
+
+    private static final String P6_NAME = "tape" + P6TapeConvertorMain.EXT_P6;
+
+    private static final String REPORT_NAME = "tape" + P6TapeConvertorMain.EXT_REPORT;
+
+    @Rule
+    public TemporaryFolder _temp = new TemporaryFolder();
+
+    /**
+     * 途中経過を記録するたびに、その時点の途中経過と出力ファイルの写しを作る。
+     */
+    private static class SnapshotCheckpoint extends ConversionCheckpoint {
+
+        private File _dir;
+
+        private File _snapshotRoot;
+
+        /** 写しのディレクトリ */
+        List<File> _snapshots = new ArrayList<File>();
+
+        /** 写しごとの、ブランクの中で記録したか */
+        List<Boolean> _inLeaders = new ArrayList<Boolean>();
+
+        SnapshotCheckpoint(File dir, File source, String params, File snapshotRoot) {
+            super(getCheckpointFile(WAV_NAME, dir), source, params, new File(dir, P6_NAME),
+                    new File(dir, REPORT_NAME));
+            _dir = dir;
+            _snapshotRoot = snapshotRoot;
+        }
+
+        @Override
+        void save() throws IOException {
+            super.save();
+
+            File snapshot = new File(_snapshotRoot, String.valueOf(_snapshots.size()));
+            snapshot.mkdirs();
+            for (String name : new String[] { getCheckpointFile(WAV_NAME, null).getName(), P6_NAME, REPORT_NAME }) {
+                Files.copy(new File(_dir, name).toPath(), new File(snapshot, name).toPath());
+            }
+            _snapshots.add(snapshot);
+            _inLeaders.add(Boolean.valueOf(_inLeader));
+        }
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        byte[] data = TapeFixture.createP6Data(2500);
+        File wav = TapeFixture.synthesize(new File(_temp.newFolder(), WAV_NAME), data, 44100,
+                WAVDecoder.FORMAT_ID_LINEAR_PCM, 16, 0.02);
+        PTCOptions options = new PTCOptions();
+        options.setCheckpoint(true);
+
+        // 途中で終了しない変換
+        File full = _temp.newFolder();
+        assertEquals(P6TapeConvertorMain.RESULT_OK, P6TapeConvertorMain.execute(wav, full, options));
+        assertFalse(ConversionCheckpoint.getCheckpointFile(WAV_NAME, full).exists());
+
+        // 途中経過を記録するたびに写しを作る変換
+        File dir = _temp.newFolder();
+        SnapshotCheckpoint checkpoint = new SnapshotCheckpoint(dir, wav,
+                PTCLogic.DECODER_VERSION + "," + options.getDecodeParams(), _temp.newFolder());
+        checkpoint.write();
+        assertEquals(P6TapeConvertorMain.RESULT_OK, P6TapeConvertorMain.convert(new FileInputStream(wav),
+                checkpoint.getP6File(), checkpoint.getReportFile(), P6TapeConvertorMain.getSkip(options), options,
+                null, null, checkpoint));
+
+        // ブランクの位置とブロックの途中の両方で記録している
+        assertTrue(checkpoint._inLeaders.contains(Boolean.TRUE));
+        assertTrue(checkpoint._inLeaders.contains(Boolean.FALSE));
+
+        byte[] p6 = readFile(new File(full, P6_NAME));
+        assertArrayEquals(data, p6);
+        List<String> report = readReport(new File(full, REPORT_NAME));
+        for (File snapshot : checkpoint._snapshots) {
+            // 記録した後に書き込んだ部分は、再開時に捨てる
+            append(new File(snapshot, P6_NAME), new byte[] { 1, 2, 3 });
+            append(new File(snapshot, REPORT_NAME), "0 - garbage\n".getBytes("UTF-8"));
+
+            assertEquals(P6TapeConvertorMain.RESULT_OK, P6TapeConvertorMain.execute(wav, snapshot, options));
+            assertArrayEquals(snapshot.getName(), p6, readFile(new File(snapshot, P6_NAME)));
+            assertEquals(snapshot.getName(), report, readReport(new File(snapshot, REPORT_NAME)));
+            assertFalse(ConversionCheckpoint.getCheckpointFile(WAV_NAME, snapshot).exists());
+            assertFalse(new File(snapshot, "tape_1" + P6TapeConvertorMain.EXT_P6).exists());
+        }
+    }
+
+    /**
+     * ファイルの内容を読み取る。
+     */
+    private static byte[] readFile(File file) throws IOException {
+        return Files.readAllBytes(file.toPath());
+    }
+
+    /**
+     * レポートファイルを、出力ファイル名の行（ディレクトリが異なる）を除いて読み取る。
+     */
+    private static List<String> readReport(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath(), Charset.defaultCharset());
+        return lines.subList(1, lines.size());
+    }
+
+    /**
+     * ファイルの後ろに書き込む。
+     */
+    private static void append(File file, byte[] data) throws IOException {
+        FileOutputStream out = new FileOutputStream(file, true);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+}
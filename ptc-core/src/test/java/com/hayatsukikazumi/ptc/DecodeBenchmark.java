@@ -0,0 +1,245 @@
+/**
+ * @(#)DecodeBenchmark.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * WAVのデコードと包絡線（最小値、最大値）の計算の速度を、
+ * 1フレームずつ処理する以前の方法と比較する（テストではない）。
+ * <p>
+ * 実行方法<br>
+ * java -cp target/classes:target/test-classes com.hayatsukikazumi.ptc.DecodeBenchmark [秒数]<br>
+ * 同じ合成音声をメモリ上で読み取り、各方法を繰り返して1秒あたりのサンプル数の中央値を出力する。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class DecodeBenchmark {
+
+    /** 1回の読み取り数 */
+    private static final int READ_SIZE = 4096;
+
+    /** 計測の回数 */
+    private static final int ROUNDS = 15;
+
+    /** 結果を捨てないための値 */
+    private static double _sink;
+
+    /**
+     * 比較を実行する。
+     *
+     * @param args 合成するデータの量（秒数の目安、省略時は60）
+     * @throws Exception 失敗した場合
+     */
+    public static void main(String[] args) throws Exception {
+        int seconds = (args.length > 0) ? Integer.parseInt(args[0]) : 60;
+        System.out.println("java " + System.getProperty("java.version"));
+
+        for (int bits : new int[] { 8, 16, 24 }) {
+            byte[] wav = createWAV(seconds, bits);
+            long samples = (wav.length - 44) / (bits / 8);
+            print(bits + "bit float  frame", samples, new FrameDecode(wav, false));
+            print(bits + "bit float  bulk ", samples, new BulkDecode(wav, false));
+            print(bits + "bit int    frame", samples, new FrameDecode(wav, true));
+            print(bits + "bit int    bulk ", samples, new BulkDecode(wav, true));
+        }
+
+        // 44100Hzの低周波数の1周期分（上限の位置まで）の包絡線を、ずらしながら求める
+        final float[] buf = new float[1 << 20];
+        InputStream in = new ByteArrayInputStream(createWAV(30, 16));
+        WAVInputStream src = new WAVInputStream(in);
+        src.readSound(0, buf, 0, buf.length);
+        src.close();
+        final int span = (int) (44100 / 1200.0 * 8.25 / 8.0) + 1;
+        long count = (long) (buf.length - span) * 8;
+        print("envelope double   ", count, new Task() {
+            @Override
+            public void run() {
+                double s = 0;
+                for (int r = 0; r < 8; r++) {
+                    for (int i = 0; i < buf.length - span; i += 1) {
+                        s += envelopeDouble(buf, i, i + span);
+                    }
+                }
+                _sink += s;
+            }
+        });
+        print("envelope float    ", count, new Task() {
+            @Override
+            public void run() {
+                double s = 0;
+                for (int r = 0; r < 8; r++) {
+                    for (int i = 0; i < buf.length - span; i += 1) {
+                        s += envelopeFloat(buf, i, i + span);
+                    }
+                }
+                _sink += s;
+            }
+        });
+        if (_sink == 0.5) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * 計測する処理
+     */
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    /**
+     * 繰り返し実行し、1秒あたりの処理数の中央値を出力する（最初の5回は除く）。
+     */
+    private static void print(String name, long count, Task task) throws Exception {
+        for (int i = 0; i < 5; i++) {
+            task.run();
+        }
+        double[] rates = new double[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long t = System.nanoTime();
+            task.run();
+            rates[i] = count / ((System.nanoTime() - t) / 1e9);
+        }
+        Arrays.sort(rates);
+        System.out.println(String.format(Locale.ROOT, "%s %8.1f M/sec", name, rates[ROUNDS / 2] / 1e6));
+    }
+
+    /**
+     * 合成したテープの音声のWAVファイルの内容を作る（ステレオにはしない）。
+     */
+    private static byte[] createWAV(int seconds, int bits) throws UnsupportedAudioFileException, IOException {
+        byte[] data = new byte[seconds * 1200 / 8 / 2];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 37);
+        }
+        File file = File.createTempFile("bench", ".wav");
+        try {
+            TapeFixture.synthesize(file, data, 44100, WAVDecoder.FORMAT_ID_LINEAR_PCM, bits, 0.05);
+            return Files.readAllBytes(file.toPath());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * 現在の方法：WAVInputStreamでまとめて読み取り、デコードする。
+     */
+    private static class BulkDecode implements Task {
+        private byte[] _wav;
+        private boolean _int;
+
+        BulkDecode(byte[] wav, boolean useInt) {
+            _wav = wav;
+            _int = useInt;
+        }
+
+        @Override
+        public void run() throws Exception {
+            WAVInputStream in = new WAVInputStream(new ByteArrayInputStream(_wav));
+            float[] fbuf = new float[READ_SIZE];
+            int[] ibuf = new int[READ_SIZE];
+            double s = 0;
+            int n;
+            if (_int) {
+                while ((n = in.readSound(0, ibuf, 0, READ_SIZE)) > 0) {
+                    s += ibuf[n - 1];
+                }
+            } else {
+                while ((n = in.readSound(0, fbuf, 0, READ_SIZE)) > 0) {
+                    s += fbuf[n - 1];
+                }
+            }
+            in.close();
+            _sink += s;
+        }
+    }
+
+    /**
+     * 以前の方法：1フレームずつread()で読み取り、1サンプルずつデコードする。
+     */
+    private static class FrameDecode implements Task {
+        private byte[] _wav;
+        private boolean _int;
+
+        FrameDecode(byte[] wav, boolean useInt) {
+            _wav = wav;
+            _int = useInt;
+        }
+
+        @Override
+        public void run() throws Exception {
+            // ヘッダはWAVInputStreamと同じ44バイト
+            InputStream in = new BufferedInputStream(new ByteArrayInputStream(_wav));
+            in.skip(44);
+            int bytes = (_wav[34] & 0xff) / 8;
+            WAVDecoder decoder = WAVDecoder.getDecoder(WAVDecoder.FORMAT_ID_LINEAR_PCM, bytes);
+            byte[] frame = new byte[bytes];
+            float[] fbuf = new float[READ_SIZE];
+            int[] ibuf = new int[READ_SIZE];
+            double s = 0;
+            boolean end = false;
+            while (!end) {
+                int n = 0;
+                while (n < READ_SIZE) {
+                    if (in.read(frame) < frame.length) {
+                        end = true;
+                        break;
+                    }
+                    if (_int) {
+                        ibuf[n] = decoder.decodeInt(frame, 0);
+                    } else {
+                        fbuf[n] = decoder.decode(frame, 0);
+                    }
+                    n++;
+                }
+                if (n > 0) {
+                    s += _int ? ibuf[n - 1] : fbuf[n - 1];
+                }
+            }
+            in.close();
+            _sink += s;
+        }
+    }
+
+    /**
+     * 以前の方法：doubleに変換しながら最小値、最大値を求める。
+     */
+    static double envelopeDouble(float[] buf, int startPos, int limitPos) {
+        double max = buf[startPos];
+        double min = buf[startPos];
+        for (int i = startPos; i < limitPos; i++) {
+            max = Math.max(max, buf[i]);
+            min = Math.min(min, buf[i]);
+        }
+        return (max + min) / 2.0;
+    }
+
+    /**
+     * 現在の方法：floatのまま最小値、最大値を求め、最後にdoubleにする。
+     */
+    static double envelopeFloat(float[] buf, int startPos, int limitPos) {
+        float fmax = buf[startPos];
+        float fmin = buf[startPos];
+        for (int i = startPos; i < limitPos; i++) {
+            fmax = Math.max(fmax, buf[i]);
+            fmin = Math.min(fmin, buf[i]);
+        }
+        double max = fmax;
+        double min = fmin;
+        return (max + min) / 2.0;
+    }
+}
@@ -0,0 +1,718 @@
+/**
+ * @(#)FLACInputStreamTest.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * FLACInputStreamのデコードのテスト
+ * <p>
+ * テスト内の簡易エンコーダで、サブフレームの種類（CONSTANT、VERBATIM、FIXED、LPC）、
+ * ステレオの相関の方式、使われない下位ビットを指定してFLACファイルを作り、
+ * 同じPCMデータのWAVファイルと同じ値に読み取れることを確認する。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class FLACInputStreamTest {
+
+    /** サブフレームの種類 */
+    private static final int CONSTANT = 0;
+    private static final int VERBATIM = 1;
+    private static final int FIXED = 8;
+    private static final int LPC = 32;
+
+    /** チャネルの割り当て */
+    private static final int INDEPENDENT = 0;
+    private static final int LEFT_SIDE = 8;
+    private static final int SIDE_RIGHT = 9;
+    private static final int MID_SIDE = 10;
+
+    private static final int RATE = 44100;
+
+    @Test
+    public void testConstant() throws Exception {
+        int[] s = new int[1000];
+        Arrays.fill(s, -1234);
+        FLACWriter w = new FLACWriter(1, 16, s.length);
+        w.frame(INDEPENDENT, new int[][] { s }, new Sub(CONSTANT));
+        assertSameAsWAV(w, 16, s);
+    }
+
+    @Test
+    public void testVerbatim() throws Exception {
+        int[] s = signal(1000, 16, 1);
+        FLACWriter w = new FLACWriter(1, 16, s.length);
+        w.frame(INDEPENDENT, new int[][] { s }, new Sub(VERBATIM));
+        assertSameAsWAV(w, 16, s);
+    }
+
+    @Test
+    public void testFixed() throws Exception {
+        // 次数0〜4、Riceパラメータ4ビット／5ビット、パーティション分割、エスケープ
+        int[] s = signal(4096 * 5 + 100, 16, 2);
+        FLACWriter w = new FLACWriter(1, 16, s.length);
+        for (int order = 0; order <= 4; order++) {
+            Sub sub = new Sub(FIXED + order);
+            sub._method = order % 2;
+            sub._partitionOrder = order;
+            sub._escape = (order == 3);
+            w.frame(INDEPENDENT, new int[][] { slice(s, order * 4096, 4096) }, sub);
+        }
+        w.frame(INDEPENDENT, new int[][] { slice(s, 5 * 4096, 100) }, new Sub(FIXED + 2));
+        assertSameAsWAV(w, 16, s);
+    }
+
+    @Test
+    public void testLPC() throws Exception {
+        int[] s = signal(4096 * 3, 16, 3);
+        FLACWriter w = new FLACWriter(1, 16, s.length);
+
+        // 2次（x[i] = 2x[i-1] - x[i-2]に近い係数）、8次、32次
+        Sub sub = new Sub(LPC + 1);
+        sub._coefs = new int[] { 2000, -1000 };
+        sub._precision = 12;
+        sub._shift = 10;
+        w.frame(INDEPENDENT, new int[][] { slice(s, 0, 4096) }, sub);
+
+        sub = new Sub(LPC + 7);
+        sub._coefs = new int[] { 900, 100, -50, 20, -10, 5, -3, 1 };
+        sub._precision = 15;
+        sub._shift = 9;
+        sub._partitionOrder = 3;
+        w.frame(INDEPENDENT, new int[][] { slice(s, 4096, 4096) }, sub);
+
+        sub = new Sub(LPC + 31);
+        sub._coefs = new int[32];
+        sub._coefs[0] = 1 << 13;
+        sub._coefs[31] = -3;
+        sub._precision = 15;
+        sub._shift = 13;
+        sub._method = 1;
+        w.frame(INDEPENDENT, new int[][] { slice(s, 8192, 4096) }, sub);
+        assertSameAsWAV(w, 16, s);
+    }
+
+    @Test
+    public void testStereoModes() throws Exception {
+        int[] l = signal(4096 * 4, 16, 4);
+        int[] r = signal(4096 * 4, 16, 5);
+        int[] modes = { INDEPENDENT + 1, LEFT_SIDE, SIDE_RIGHT, MID_SIDE };
+        FLACWriter w = new FLACWriter(2, 16, l.length);
+        for (int i = 0; i < modes.length; i++) {
+            Sub sub = new Sub(FIXED + 2);
+            sub._partitionOrder = 2;
+            w.frame(modes[i], new int[][] { slice(l, i * 4096, 4096), slice(r, i * 4096, 4096) }, sub);
+        }
+        assertSameAsWAV(w, 16, l, r);
+    }
+
+    @Test
+    public void testStereoExtremes() throws Exception {
+        // sideチャネルが元のビット数を超える値（最大値と最小値の差）
+        int[] l = { 32767, -32768, 32767, -32768, 0, 1, -1 };
+        int[] r = { -32768, 32767, 32767, -32768, 1, 0, 0 };
+        FLACWriter w = new FLACWriter(2, 16, l.length);
+        w.frame(LEFT_SIDE, new int[][] { l, r }, new Sub(VERBATIM));
+        w.frame(SIDE_RIGHT, new int[][] { l, r }, new Sub(FIXED + 1));
+        w.frame(MID_SIDE, new int[][] { l, r }, new Sub(VERBATIM));
+        assertSameAsWAV(w, 16, concat(l, l, l), concat(r, r, r));
+    }
+
+    @Test
+    public void testWastedBits() throws Exception {
+        int[] s = signal(3000, 16, 6);
+        for (int i = 0; i < s.length; i++) {
+            s[i] &= ~7;
+        }
+        FLACWriter w = new FLACWriter(1, 16, s.length);
+        Sub sub = new Sub(FIXED + 1);
+        sub._wasted = 3;
+        w.frame(INDEPENDENT, new int[][] { slice(s, 0, 1000) }, sub);
+        sub = new Sub(VERBATIM);
+        sub._wasted = 2;
+        w.frame(INDEPENDENT, new int[][] { slice(s, 1000, 1000) }, sub);
+        sub = new Sub(LPC);
+        sub._coefs = new int[] { 1 << 10 };
+        sub._precision = 12;
+        sub._shift = 10;
+        sub._wasted = 3;
+        w.frame(INDEPENDENT, new int[][] { slice(s, 2000, 1000) }, sub);
+        assertSameAsWAV(w, 16, s);
+    }
+
+    @Test
+    public void testWastedBitsSide() throws Exception {
+        int[] l = signal(2000, 16, 7);
+        int[] r = signal(2000, 16, 8);
+        for (int i = 0; i < l.length; i++) {
+            l[i] &= ~3;
+            r[i] &= ~3;
+        }
+        FLACWriter w = new FLACWriter(2, 16, l.length);
+        Sub sub = new Sub(FIXED + 2);
+        sub._wasted = 2;
+        w.frame(LEFT_SIDE, new int[][] { l, r }, sub);
+        assertSameAsWAV(w, 16, l, r);
+    }
+
+    @Test
+    public void testBits() throws Exception {
+        for (int bits : new int[] { 8, 24 }) {
+            int[] s = signal(5000, bits, bits);
+            FLACWriter w = new FLACWriter(1, bits, s.length);
+            w.frame(INDEPENDENT, new int[][] { slice(s, 0, 4096) }, new Sub(FIXED + 2));
+            w.frame(INDEPENDENT, new int[][] { slice(s, 4096, 904) }, new Sub(VERBATIM));
+            assertSameAsWAV(w, bits, s);
+        }
+    }
+
+    @Test
+    public void testBlockSizeCodes() throws Exception {
+        // 192、576×2^n、8ビット指定、16ビット指定、256×2^n
+        int[] sizes = { 192, 1152, 100, 1000, 512 };
+        int total = 0;
+        for (int n : sizes) {
+            total += n;
+        }
+        int[] s = signal(total, 16, 9);
+        FLACWriter w = new FLACWriter(1, 16, total);
+        int pos = 0;
+        for (int n : sizes) {
+            w.frame(INDEPENDENT, new int[][] { slice(s, pos, n) }, new Sub(FIXED + 1));
+            pos += n;
+        }
+        assertSameAsWAV(w, 16, s);
+    }
+
+    @Test
+    public void testCRCMismatch() throws Exception {
+        int[] s = signal(1000, 16, 10);
+        FLACWriter w = new FLACWriter(1, 16, s.length);
+        w.frame(INDEPENDENT, new int[][] { s }, new Sub(VERBATIM));
+        byte[] flac = w.toByteArray();
+
+        // サブフレームの途中を壊す
+        flac[flac.length - 100] ^= 0x10;
+        FLACInputStream in = new FLACInputStream(new ByteArrayInputStream(flac));
+        try {
+            in.readSound(0, new int[s.length], 0, s.length);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("CRC"));
+        }
+    }
+
+    @Test
+    public void testSkipSound() throws Exception {
+        int[] s = signal(5000, 16, 11);
+        FLACWriter w = new FLACWriter(1, 16, s.length);
+        w.frame(INDEPENDENT, new int[][] { slice(s, 0, 4096) }, new Sub(FIXED + 2));
+        w.frame(INDEPENDENT, new int[][] { slice(s, 4096, 904) }, new Sub(FIXED + 2));
+        FLACInputStream in = new FLACInputStream(new ByteArrayInputStream(w.toByteArray()));
+        assertEquals(4500, in.skipSound(4500));
+        int[] buf = new int[1000];
+        assertEquals(500, in.readSound(0, buf, 0, buf.length));
+        assertEquals(s[4500], buf[0]);
+        assertEquals(s[4999], buf[499]);
+        assertEquals(-1, in.readSound(0, buf, 0, buf.length));
+    }
+
+    /**
+     * FLACファイルとWAVファイルを読み取り、整数、floatのどちらでも元のPCMデータと同じ値になることを確認する。
+     */
+    private static void assertSameAsWAV(FLACWriter w, int bits, int[]... channels) throws Exception {
+        int frames = channels[0].length;
+        int[] expected = new int[frames * channels.length];
+        for (int i = 0; i < frames; i++) {
+            for (int c = 0; c < channels.length; c++) {
+                expected[i * channels.length + c] = channels[c][i];
+            }
+        }
+        byte[] wav = wav(bits, channels.length, expected);
+
+        SoundSource flac = P6TapeConvertorMain.openSoundSource(new ByteArrayInputStream(w.toByteArray()));
+        assertTrue(flac instanceof FLACInputStream);
+        assertEquals(channels.length, flac.getChannels());
+        assertEquals(RATE, flac.getSamplingRate());
+        assertArrayEquals(expected, readAll(flac, expected.length));
+        assertArrayEquals(expected, readAll(P6TapeConvertorMain.openSoundSource(new ByteArrayInputStream(wav)),
+                expected.length));
+
+        // floatの値もWAVファイルと同じ
+        float[] f1 = readAllFloat(P6TapeConvertorMain.openSoundSource(new ByteArrayInputStream(w.toByteArray())),
+                expected.length);
+        float[] f2 = readAllFloat(P6TapeConvertorMain.openSoundSource(new ByteArrayInputStream(wav)), expected.length);
+        assertArrayEquals(f2, f1, 0f);
+
+        // チャネルごと
+        for (int c = 0; c < channels.length; c++) {
+            FLACInputStream in = new FLACInputStream(new ByteArrayInputStream(w.toByteArray()));
+            int[] buf = new int[frames];
+            int len = 0;
+            int n;
+            while (len < frames && (n = in.readSound(c, buf, len, Math.min(333, frames - len))) > 0) {
+                len += n;
+            }
+            assertArrayEquals(channels[c], buf);
+        }
+    }
+
+    private static int[] readAll(SoundSource in, int total) throws IOException {
+        int[] buf = new int[total + 10];
+        int len = 0;
+        int n;
+        while ((n = in.readSound(-1, buf, len, Math.min(1000, buf.length - len))) > 0) {
+            len += n;
+        }
+        in.close();
+        int[] ret = new int[len];
+        System.arraycopy(buf, 0, ret, 0, len);
+        return ret;
+    }
+
+    private static float[] readAllFloat(SoundSource in, int total) throws IOException {
+        float[] buf = new float[total];
+        int len = 0;
+        int n;
+        while (len < total && (n = in.readSound(-1, buf, len, total - len)) > 0) {
+            len += n;
+        }
+        in.close();
+        assertEquals(total, len);
+        return buf;
+    }
+
+    /**
+     * 正弦波と雑音のPCMデータを作る。
+     */
+    private static int[] signal(int len, int bits, long seed) {
+        Random random = new Random(seed);
+        double amp = (1 << (bits - 1)) * 0.7;
+        int max = (1 << (bits - 1)) - 1;
+        int[] s = new int[len];
+        for (int i = 0; i < len; i++) {
+            double v = amp * Math.sin(2 * Math.PI * 1200 * i / RATE) + random.nextGaussian() * amp / 100;
+            s[i] = (int) Math.max(-max - 1, Math.min(max, Math.round(v)));
+        }
+        return s;
+    }
+
+    private static int[] slice(int[] s, int from, int len) {
+        int[] ret = new int[len];
+        System.arraycopy(s, from, ret, 0, len);
+        return ret;
+    }
+
+    private static int[] concat(int[]... parts) {
+        int len = 0;
+        for (int[] p : parts) {
+            len += p.length;
+        }
+        int[] ret = new int[len];
+        int pos = 0;
+        for (int[] p : parts) {
+            System.arraycopy(p, 0, ret, pos, p.length);
+            pos += p.length;
+        }
+        return ret;
+    }
+
+    /**
+     * 同じPCMデータのWAVファイルを作る（8ビットは符号なし）。
+     */
+    private static byte[] wav(int bits, int channels, int[] samples) {
+        int bytes = bits / 8;
+        int dataSize = samples.length * bytes;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('R');
+        out.write('I');
+        out.write('F');
+        out.write('F');
+        putLE(out, 36 + dataSize, 4);
+        out.write('W');
+        out.write('A');
+        out.write('V');
+        out.write('E');
+        out.write('f');
+        out.write('m');
+        out.write('t');
+        out.write(' ');
+        putLE(out, 16, 4);
+        putLE(out, WAVDecoder.FORMAT_ID_LINEAR_PCM, 2);
+        putLE(out, channels, 2);
+        putLE(out, RATE, 4);
+        putLE(out, RATE * channels * bytes, 4);
+        putLE(out, channels * bytes, 2);
+        putLE(out, bits, 2);
+        out.write('d');
+        out.write('a');
+        out.write('t');
+        out.write('a');
+        putLE(out, dataSize, 4);
+        for (int s : samples) {
+            putLE(out, (bits == 8) ? s + 128 : s, bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static void putLE(ByteArrayOutputStream out, int v, int bytes) {
+        for (int i = 0; i < bytes; i++) {
+            out.write((v >> (i * 8)) & 0xff);
+        }
+    }
+
+    /**
+     * サブフレームの符号化方法
+     */
+    private static class Sub {
+        /** 種類（FIXED、LPCは次数を足す。LPCは次数-1） */
+        int _type;
+        /** 使われない下位ビット数 */
+        int _wasted;
+        /** 残差の符号化方式（0：Riceパラメータ4ビット、1：5ビット） */
+        int _method;
+        /** パーティションの分割数 */
+        int _partitionOrder;
+        /** 最初のパーティションを符号化しない */
+        boolean _escape;
+        /** LPCの係数、精度、シフト量 */
+        int[] _coefs;
+        int _precision;
+        int _shift;
+
+        Sub(int type) {
+            _type = type;
+        }
+    }
+
+    /**
+     * テスト用の簡易FLACエンコーダ
+     */
+    private static class FLACWriter {
+        private int _channels;
+        private int _bits;
+        private long _totalSamples;
+        private ByteArrayOutputStream _frames = new ByteArrayOutputStream();
+        private int _frameNumber;
+
+        FLACWriter(int channels, int bits, long totalSamples) {
+            _channels = channels;
+            _bits = bits;
+            _totalSamples = totalSamples;
+        }
+
+        /**
+         * 1フレームを書き込む。
+         */
+        void frame(int assignment, int[][] ch, Sub sub) throws IOException {
+            int size = ch[0].length;
+            BitWriter bw = new BitWriter();
+            bw.write(0x3ffe, 14);
+            bw.write(0, 2);
+            int sizeCode;
+            if (size == 192) {
+                sizeCode = 1;
+            } else if (size == 1152) {
+                sizeCode = 3;
+            } else if (size == 4096) {
+                sizeCode = 12;
+            } else if (size == 512) {
+                sizeCode = 9;
+            } else if (size <= 256) {
+                sizeCode = 6;
+            } else {
+                sizeCode = 7;
+            }
+            bw.write(sizeCode, 4);
+            bw.write(0, 4);
+            bw.write(assignment, 4);
+            bw.write((_bits == 8) ? 1 : (_bits == 16) ? 4 : 6, 3);
+            bw.write(0, 1);
+            bw.write(_frameNumber++, 8);
+            if (sizeCode == 6) {
+                bw.write(size - 1, 8);
+            } else if (sizeCode == 7) {
+                bw.write(size - 1, 16);
+            }
+            bw.write(crc8(bw.toByteArray()), 8);
+
+            int[][] data = new int[ch.length][];
+            int[] bits = new int[ch.length];
+            for (int c = 0; c < ch.length; c++) {
+                data[c] = ch[c];
+                bits[c] = _bits;
+            }
+            if (assignment >= LEFT_SIDE) {
+                int[] side = new int[size];
+                int[] mid = new int[size];
+                for (int i = 0; i < size; i++) {
+                    side[i] = ch[0][i] - ch[1][i];
+                    mid[i] = (ch[0][i] + ch[1][i]) >> 1;
+                }
+                if (assignment == LEFT_SIDE) {
+                    data[1] = side;
+                    bits[1]++;
+                } else if (assignment == SIDE_RIGHT) {
+                    data[0] = side;
+                    bits[0]++;
+                } else {
+                    data[0] = mid;
+                    data[1] = side;
+                    bits[1]++;
+                }
+            }
+            for (int c = 0; c < ch.length; c++) {
+                subframe(bw, data[c], bits[c], sub);
+            }
+            bw.align();
+            byte[] frame = bw.toByteArray();
+            _frames.write(frame);
+            int crc = crc16(frame);
+            _frames.write(crc >> 8);
+            _frames.write(crc & 0xff);
+        }
+
+        /**
+         * サブフレームを書き込む。
+         */
+        private void subframe(BitWriter bw, int[] s, int bits, Sub sub) {
+            int type = sub._type;
+            bw.write(0, 1);
+            bw.write(type, 6);
+            if (sub._wasted > 0) {
+                bw.write(1, 1);
+                bw.unary(sub._wasted - 1);
+            } else {
+                bw.write(0, 1);
+            }
+            int w = sub._wasted;
+            bits -= w;
+            int[] v = new int[s.length];
+            for (int i = 0; i < s.length; i++) {
+                v[i] = s[i] >> w;
+            }
+
+            if (type == CONSTANT) {
+                bw.writeSigned(v[0], bits);
+            } else if (type == VERBATIM) {
+                for (int x : v) {
+                    bw.writeSigned(x, bits);
+                }
+            } else if (type < LPC) {
+                int order = type - FIXED;
+                for (int i = 0; i < order; i++) {
+                    bw.writeSigned(v[i], bits);
+                }
+                int[] res = new int[v.length];
+                for (int i = order; i < v.length; i++) {
+                    long p;
+                    switch (order) {
+                    case 0:
+                        p = 0;
+                        break;
+                    case 1:
+                        p = v[i - 1];
+                        break;
+                    case 2:
+                        p = 2L * v[i - 1] - v[i - 2];
+                        break;
+                    case 3:
+                        p = 3L * v[i - 1] - 3L * v[i - 2] + v[i - 3];
+                        break;
+                    default:
+                        p = 4L * v[i - 1] - 6L * v[i - 2] + 4L * v[i - 3] - v[i - 4];
+                        break;
+                    }
+                    res[i] = (int) (v[i] - p);
+                }
+                residual(bw, res, order, sub);
+            } else {
+                int order = type - LPC + 1;
+                for (int i = 0; i < order; i++) {
+                    bw.writeSigned(v[i], bits);
+                }
+                bw.write(sub._precision - 1, 4);
+                bw.writeSigned(sub._shift, 5);
+                for (int c : sub._coefs) {
+                    bw.writeSigned(c, sub._precision);
+                }
+                int[] res = new int[v.length];
+                for (int i = order; i < v.length; i++) {
+                    long sum = 0;
+                    for (int j = 0; j < order; j++) {
+                        sum += (long) sub._coefs[j] * v[i - 1 - j];
+                    }
+                    res[i] = v[i] - (int) (sum >> sub._shift);
+                }
+                residual(bw, res, order, sub);
+            }
+        }
+
+        /**
+         * 残差をRiceコードで書き込む。
+         */
+        private void residual(BitWriter bw, int[] res, int order, Sub sub) {
+            int paramBits = (sub._method == 0) ? 4 : 5;
+            int escape = (1 << paramBits) - 1;
+            bw.write(sub._method, 2);
+            bw.write(sub._partitionOrder, 4);
+            int partitions = 1 << sub._partitionOrder;
+            int pos = order;
+            for (int p = 0; p < partitions; p++) {
+                int count = (res.length >> sub._partitionOrder) - ((p == 0) ? order : 0);
+                if (p == 0 && sub._escape) {
+                    int n = 1;
+                    for (int i = pos; i < pos + count; i++) {
+                        while (res[i] >= (1 << (n - 1)) || res[i] < -(1 << (n - 1))) {
+                            n++;
+                        }
+                    }
+                    bw.write(escape, paramBits);
+                    bw.write(n, 5);
+                    for (int i = pos; i < pos + count; i++) {
+                        bw.writeSigned(res[i], n);
+                    }
+                    pos += count;
+                    continue;
+                }
+
+                long sum = 0;
+                for (int i = pos; i < pos + count; i++) {
+                    sum += Math.abs((long) res[i]);
+                }
+                int param = 0;
+                while (count > 0 && (sum >> param) > count && param < escape - 1) {
+                    param++;
+                }
+                bw.write(param, paramBits);
+                for (int i = pos; i < pos + count; i++) {
+                    int u = (res[i] << 1) ^ (res[i] >> 31);
+                    bw.unary(u >>> param);
+                    bw.write(u & ((1 << param) - 1), param);
+                }
+                pos += count;
+            }
+        }
+
+        /**
+         * メタデータとフレームを合わせたFLACファイルの内容を得る。
+         */
+        byte[] toByteArray() {
+            BitWriter bw = new BitWriter();
+            bw.write('f', 8);
+            bw.write('L', 8);
+            bw.write('a', 8);
+            bw.write('C', 8);
+
+            // 別のブロックを読み飛ばせること
+            bw.write(4, 8);
+            bw.write(8, 24);
+            bw.write(0, 32);
+            bw.write(0, 32);
+
+            // STREAMINFO（最後のブロック）
+            bw.write(0x80, 8);
+            bw.write(34, 24);
+            bw.write(16, 16);
+            bw.write(4096, 16);
+            bw.write(0, 24);
+            bw.write(0, 24);
+            bw.write(RATE, 20);
+            bw.write(_channels - 1, 3);
+            bw.write(_bits - 1, 5);
+            bw.write((int) (_totalSamples >>> 32), 4);
+            bw.write((int) _totalSamples, 32);
+            for (int i = 0; i < 4; i++) {
+                bw.write(0, 32);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] head = bw.toByteArray();
+            out.write(head, 0, head.length);
+            byte[] frames = _frames.toByteArray();
+            out.write(frames, 0, frames.length);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * ビット単位で書き込む（上位ビットから）。
+     */
+    private static class BitWriter {
+        private ByteArrayOutputStream _out = new ByteArrayOutputStream();
+        private long _buf;
+        private int _count;
+
+        void write(int v, int n) {
+            for (int i = n - 1; i >= 0; i--) {
+                bit((v >>> i) & 1);
+            }
+        }
+
+        void writeSigned(int v, int n) {
+            write(v & (int) ((1L << n) - 1), n);
+        }
+
+        void unary(int zeros) {
+            for (int i = 0; i < zeros; i++) {
+                bit(0);
+            }
+            bit(1);
+        }
+
+        void align() {
+            while (_count != 0) {
+                bit(0);
+            }
+        }
+
+        private void bit(int b) {
+            _buf = (_buf << 1) | b;
+            if (++_count == 8) {
+                _out.write((int) _buf & 0xff);
+                _count = 0;
+                _buf = 0;
+            }
+        }
+
+        byte[] toByteArray() {
+            return _out.toByteArray();
+        }
+    }
+
+    private static int crc8(byte[] b) {
+        int c = 0;
+        for (byte x : b) {
+            c ^= x & 0xff;
+            for (int i = 0; i < 8; i++) {
+                c = ((c & 0x80) != 0) ? ((c << 1) ^ 0x07) & 0xff : (c << 1) & 0xff;
+            }
+        }
+        return c;
+    }
+
+    private static int crc16(byte[] b) {
+        int c = 0;
+        for (byte x : b) {
+            c ^= (x & 0xff) << 8;
+            for (int i = 0; i < 8; i++) {
+                c = ((c & 0x8000) != 0) ? ((c << 1) ^ 0x8005) & 0xffff : (c << 1) & 0xffff;
+            }
+        }
+        return c;
+    }
+}
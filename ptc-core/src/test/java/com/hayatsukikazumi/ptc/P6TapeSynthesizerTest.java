@@ -0,0 +1,83 @@
+/**
+ * @(#)P6TapeSynthesizerTest.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 合成したテープの音声を変換して、元のP6ファイルと同じになることのテスト
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class P6TapeSynthesizerTest {
+
+    private static final int[] RATES = { 8000, 22050, 44100, 96000 };
+
+    @Rule
+    public TemporaryFolder _temp = new TemporaryFolder();
+
+    @Test
+    public void testPCM8() throws Exception {
+        assertRoundTrip(WAVDecoder.FORMAT_ID_LINEAR_PCM, 8);
+    }
+
+    @Test
+    public void testPCM16() throws Exception {
+        assertRoundTrip(WAVDecoder.FORMAT_ID_LINEAR_PCM, 16);
+    }
+
+    @Test
+    public void testPCM24() throws Exception {
+        assertRoundTrip(WAVDecoder.FORMAT_ID_LINEAR_PCM, 24);
+    }
+
+    @Test
+    public void testPCM32() throws Exception {
+        assertRoundTrip(WAVDecoder.FORMAT_ID_LINEAR_PCM, 32);
+    }
+
+    @Test
+    public void testFloat() throws Exception {
+        assertRoundTrip(WAVDecoder.FORMAT_ID_IEEE_FLOAT, 32);
+    }
+
+    @Test
+    public void testBlockEnds() {
+        // BASICのヘッダの後ろでブロックを分ける
+        byte[] data = TapeFixture.createP6Data();
+        assertEquals(2, P6TapeSynthesizer.getBlockEnds(data).size());
+        assertEquals(16, P6TapeSynthesizer.getBlockEnds(data).get(0).intValue());
+        assertEquals(1, P6TapeSynthesizer.getBlockEnds(new byte[] { 1, 2, 3 }).size());
+    }
+
+    /**
+     * 各サンプリング周波数で合成、変換し、P6ファイルのデータとWAVファイルのヘッダを確認する。
+     */
+    private void assertRoundTrip(int formatId, int bits) throws Exception {
+        byte[] data = TapeFixture.createP6Data();
+        for (int rate : RATES) {
+            File wav = TapeFixture.synthesize(_temp.newFile(rate + "_" + bits + ".wav"), data, rate, formatId,
+                    bits, 0.02);
+
+            WAVInputStream in = new WAVInputStream(new FileInputStream(wav));
+            assertEquals(rate, in.getSamplingRate());
+            assertEquals(bits, in.getBits());
+            assertEquals(formatId, in.getFormatId());
+
+            byte[] result = TapeFixture.convert(in, P6TapeConvertorMain.createLogic(new PTCOptions()));
+            assertArrayEquals(rate + "Hz " + bits + "bit", data, result);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * @(#)PTCBatchWorkerTest.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 分担変換モードのファイルの取得、キューに戻す処理、状態ファイルのテスト
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class PTCBatchWorkerTest {
+
+    @Rule
+    public TemporaryFolder _temp = new TemporaryFolder();
+
+    private byte[] _data;
+
+    private File _wav;
+
+    private File _queue;
+
+    private ByteArrayOutputStream _log = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() throws Exception {
+        _data = TapeFixture.createP6Data(100);
+        _wav = TapeFixture.synthesize(_temp.newFile("tape.wav"), _data, 44100, WAVDecoder.FORMAT_ID_LINEAR_PCM, 16,
+                0.02);
+        _queue = _temp.newFolder("queue");
+    }
+
+    @Test
+    public void testConvertQueue() throws Exception {
+        enqueue("a.wav");
+        enqueue("b.wav");
+        Files.write(new File(_queue, "c.wav").toPath(), new byte[] { 1, 2, 3, 4 });
+
+        assertEquals(P6TapeConvertorMain.RESULT_WRONG_FORMAT, run(2));
+
+        // 成功したファイルは出力ファイルとともにdoneに、失敗したファイルはfailedに移動する
+        File done = new File(_queue, PTCWatcher.DIR_DONE);
+        for (String name : new String[] { "a", "b" }) {
+            assertTrue(new File(done, name + ".wav").isFile());
+            assertArrayEquals(_data, Files.readAllBytes(new File(done, name + P6TapeConvertorMain.EXT_P6).toPath()));
+            assertTrue(new File(done, name + P6TapeConvertorMain.EXT_REPORT).isFile());
+            assertStatus(name + ".wav", PTCBatchWorker.STATE_DONE, P6TapeConvertorMain.RESULT_OK);
+        }
+        assertTrue(new File(new File(_queue, PTCWatcher.DIR_FAILED), "c.wav").isFile());
+        assertStatus("c.wav", PTCBatchWorker.STATE_FAILED, P6TapeConvertorMain.RESULT_WRONG_FORMAT);
+
+        // キュー、workディレクトリには何も残らない（ロックファイル、作業ディレクトリ、状態の一時ファイルも）
+        assertEquals(Arrays.asList(PTCWatcher.DIR_DONE, PTCWatcher.DIR_FAILED, PTCBatchWorker.DIR_STATUS,
+                PTCBatchWorker.DIR_WORK), list(_queue));
+        assertTrue(list(new File(_queue, PTCBatchWorker.DIR_WORK)).isEmpty());
+        assertEquals(Arrays.asList("a.wav.status", "b.wav.status", "c.wav.status"),
+                list(new File(_queue, PTCBatchWorker.DIR_STATUS)));
+    }
+
+    @Test
+    public void testRecover() throws Exception {
+        // 変換中に終了したプロセスのファイル（ロックファイルと途中の作業ディレクトリが残っている）
+        File work = new File(_queue, PTCBatchWorker.DIR_WORK);
+        work.mkdirs();
+        Files.copy(_wav.toPath(), new File(work, "a.wav").toPath());
+        Files.write(new File(work, "a.wav.lock").toPath(), new byte[0]);
+        File temp = new File(work, "a.wav" + PTCWatcher.EXT_WORK);
+        temp.mkdirs();
+        Files.write(new File(temp, "a" + P6TapeConvertorMain.EXT_P6).toPath(), new byte[] { 1, 2, 3 });
+
+        assertEquals(P6TapeConvertorMain.RESULT_OK, run(1));
+
+        // キューに戻してから、もう一度取得して変換する
+        assertTrue(_log.toString("UTF-8").contains("a.wav (requeued)"));
+        File done = new File(_queue, PTCWatcher.DIR_DONE);
+        assertEquals(Arrays.asList("a" + P6TapeConvertorMain.EXT_P6, "a" + P6TapeConvertorMain.EXT_REPORT, "a.wav"),
+                list(done));
+        assertArrayEquals(_data, Files.readAllBytes(new File(done, "a" + P6TapeConvertorMain.EXT_P6).toPath()));
+        assertStatus("a.wav", PTCBatchWorker.STATE_DONE, P6TapeConvertorMain.RESULT_OK);
+        assertTrue(list(work).isEmpty());
+    }
+
+    @Test
+    public void testSkipLocked() throws Exception {
+        // 他のプロセスが変換中のファイル（workディレクトリのファイルをロックしている）
+        File work = new File(_queue, PTCBatchWorker.DIR_WORK);
+        work.mkdirs();
+        Files.copy(_wav.toPath(), new File(work, "a.wav").toPath());
+        enqueue("b.wav");
+
+        // 他のプロセスが取得しようとしているファイル（ロックしているが、まだ移動していない）
+        enqueue("c.wav");
+
+        FileChannel a = FileChannel.open(new File(work, "a.wav.lock").toPath(), CREATE, WRITE);
+        FileChannel c = FileChannel.open(new File(work, "c.wav.lock").toPath(), CREATE, WRITE);
+        try {
+            a.lock();
+            c.lock();
+            assertEquals(P6TapeConvertorMain.RESULT_OK, run(1));
+        } finally {
+            a.close();
+            c.close();
+        }
+
+        // ロックしているファイルはキューに戻さず、取得もしない
+        assertFalse(_log.toString("UTF-8").contains("requeued"));
+        assertEquals(Arrays.asList("a.wav", "a.wav.lock", "c.wav.lock"), list(work));
+        assertTrue(new File(_queue, "c.wav").isFile());
+        assertTrue(new File(new File(_queue, PTCWatcher.DIR_DONE), "b.wav").isFile());
+        assertEquals(Arrays.asList("b.wav.status"), list(new File(_queue, PTCBatchWorker.DIR_STATUS)));
+    }
+
+    /**
+     * キューにWAVファイルを置く。
+     */
+    private void enqueue(String name) throws IOException {
+        Files.copy(_wav.toPath(), new File(_queue, name).toPath());
+    }
+
+    /**
+     * キューのファイルがなくなるまで変換する。
+     */
+    private int run(int threads) throws IOException {
+        PTCBatchWorker worker = new PTCBatchWorker(new PTCOptions(), threads, new PrintStream(_log, true, "UTF-8"));
+        return worker.run(Arrays.asList(_queue));
+    }
+
+    /**
+     * 状態ファイルの内容を確認する。
+     */
+    private void assertStatus(String name, String state, int result) throws IOException {
+        List<String> lines = Files.readAllLines(
+                new File(new File(_queue, PTCBatchWorker.DIR_STATUS), name + PTCBatchWorker.EXT_STATUS).toPath(),
+                Charset.forName("UTF-8"));
+        assertEquals(PTCBatchWorker.STATUS_STATE + state, lines.get(0));
+        assertEquals(PTCBatchWorker.STATUS_RESULT + result, lines.get(1));
+        assertTrue(lines.get(2).startsWith(PTCBatchWorker.STATUS_WORKER));
+        assertTrue(lines.get(3).startsWith(PTCBatchWorker.STATUS_TIME));
+    }
+
+    /**
+     * ディレクトリのファイル名を名前の順に得る。
+     */
+    private static List<String> list(File dir) {
+        String[] names = dir.list();
+        Arrays.sort(names);
+        return Arrays.asList(names);
+    }
+}
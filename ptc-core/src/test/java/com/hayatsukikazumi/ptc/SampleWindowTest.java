@@ -0,0 +1,64 @@
+/**
+ * @(#)SampleWindowTest.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 整数とfloatの解析ウインドウが同じ変換結果になることのテスト
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class SampleWindowTest {
+
+    @Rule
+    public TemporaryFolder _temp = new TemporaryFolder();
+
+    @Test
+    public void testSameResult() throws Exception {
+        assertSameResult(new PTCOptions(), 0.02);
+    }
+
+    @Test
+    public void testSameResultNoisy() throws Exception {
+        assertSameResult(PTCOptions.parse(new String[] { "-t", "-f" }), 0.1);
+    }
+
+    @Test
+    public void testSameResultSkipGaps() throws Exception {
+        assertSameResult(PTCOptions.parse(new String[] { "-g", "-l512" }), 0.05);
+    }
+
+    /**
+     * 同じ音声を整数とfloatの解析ウインドウで変換し、P6ファイルのデータと判定結果が同じことを確認する。
+     */
+    private void assertSameResult(PTCOptions options, double noise) throws Exception {
+        byte[] data = TapeFixture.createP6Data();
+        File wav = TapeFixture.synthesize(_temp.newFile("tape.wav"), data, 44100,
+                WAVDecoder.FORMAT_ID_LINEAR_PCM, 16, noise);
+
+        SoundSource in = P6TapeConvertorMain.openSoundSource(wav);
+        assertTrue(in.canReadInt());
+        PTCLogic intLogic = P6TapeConvertorMain.createLogic(options);
+        byte[] intResult = TapeFixture.convert(in, intLogic);
+
+        PTCLogic floatLogic = P6TapeConvertorMain.createLogic(options);
+        byte[] floatResult = TapeFixture.convert(
+                new TapeFixture.FloatOnlySource(P6TapeConvertorMain.openSoundSource(wav)), floatLogic);
+
+        assertArrayEquals(data, intResult);
+        assertArrayEquals(intResult, floatResult);
+        assertArrayEquals(intLogic.getJudgeCounts(), floatLogic.getJudgeCounts());
+    }
+}
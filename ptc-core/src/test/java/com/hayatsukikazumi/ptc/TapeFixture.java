@@ -0,0 +1,192 @@
+/**
+ * @(#)TapeFixture.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * テスト用のテープの音声を作成し、変換する。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+final class TapeFixture {
+
+    /** BASICのヘッダの識別子 */
+    private static final int HEADER_MARK = 0xd3;
+
+    private TapeFixture() {
+    }
+
+    /**
+     * BASICのヘッダと、0〜255の全部の値を含むプログラムのP6ファイルのデータを作成する。
+     *
+     * @return P6ファイルのデータ
+     */
+    static byte[] createP6Data() {
+        return createP6Data(512);
+    }
+
+    /**
+     * BASICのヘッダと、指定の長さのプログラムのP6ファイルのデータを作成する。
+     *
+     * @param programLength プログラムの長さ（512以上で0〜255の全部の値を含む）
+     * @return P6ファイルのデータ
+     */
+    static byte[] createP6Data(int programLength) {
+        byte[] data = new byte[16 + programLength + 12];
+        for (int i = 0; i < 10; i++) {
+            data[i] = (byte) HEADER_MARK;
+        }
+        byte[] name = "TEST".getBytes();
+        System.arraycopy(name, 0, data, 10, name.length);
+        for (int i = 0; i < programLength; i++) {
+            data[16 + i] = (byte) (i * 37 + (i >> 8));
+        }
+        return data;
+    }
+
+    /**
+     * P6ファイルのデータをテープの音声にしてWAVファイルに書き込む。
+     *
+     * @param file 書き込み先
+     * @param data P6ファイルのデータ
+     * @param samplingRate サンプリング周波数
+     * @param formatId フォーマットID
+     * @param bits ビット数
+     * @param noise 雑音のRMS
+     * @return 書き込み先
+     * @throws UnsupportedAudioFileException サポートされていないフォーマットの場合
+     * @throws IOException 書き込みに失敗した場合
+     */
+    static File synthesize(File file, byte[] data, int samplingRate, int formatId, int bits, double noise)
+            throws UnsupportedAudioFileException, IOException {
+        return synthesize(file, data, samplingRate, formatId, bits, noise, 0);
+    }
+
+    /**
+     * P6ファイルのデータを、ドロップアウトを入れたテープの音声にしてWAVファイルに書き込む。
+     *
+     * @param file 書き込み先
+     * @param data P6ファイルのデータ
+     * @param samplingRate サンプリング周波数
+     * @param formatId フォーマットID
+     * @param bits ビット数
+     * @param noise 雑音のRMS
+     * @param dropoutInterval ドロップアウトの間隔（秒）（0の場合はドロップアウトなし）
+     * @return 書き込み先
+     * @throws UnsupportedAudioFileException サポートされていないフォーマットの場合
+     * @throws IOException 書き込みに失敗した場合
+     */
+    static File synthesize(File file, byte[] data, int samplingRate, int formatId, int bits, double noise,
+            double dropoutInterval) throws UnsupportedAudioFileException, IOException {
+        return synthesize(file, data, samplingRate, formatId, bits, noise, dropoutInterval, TapeProfile.P6);
+    }
+
+    /**
+     * P6ファイルのデータを、指定の記録方式のテープの音声にしてWAVファイルに書き込む。
+     *
+     * @param file 書き込み先
+     * @param data P6ファイルのデータ
+     * @param samplingRate サンプリング周波数
+     * @param formatId フォーマットID
+     * @param bits ビット数
+     * @param noise 雑音のRMS
+     * @param dropoutInterval ドロップアウトの間隔（秒）（0の場合はドロップアウトなし）
+     * @param profile 記録方式
+     * @return 書き込み先
+     * @throws UnsupportedAudioFileException サポートされていないフォーマットの場合
+     * @throws IOException 書き込みに失敗した場合
+     */
+    static File synthesize(File file, byte[] data, int samplingRate, int formatId, int bits, double noise,
+            double dropoutInterval, TapeProfile profile) throws UnsupportedAudioFileException, IOException {
+        P6TapeSynthesizer synth = new P6TapeSynthesizer(samplingRate);
+        synth.setProfile(profile);
+        synth.setLevel(0.5);
+        synth.setNoise(noise);
+        synth.setWow(0.01);
+        synth.setSeed(12345);
+        synth.setDropoutInterval(dropoutInterval);
+        WAVOutputStream out = new WAVOutputStream(file, samplingRate, formatId, bits);
+        try {
+            synth.synthesize(data, out);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    /**
+     * 音声を変換してP6ファイルのデータを得る（スキップ時間はデフォルト値）。
+     *
+     * @param in 読み取り元（閉じる）
+     * @param biz 変換ロジック
+     * @return P6ファイルのデータ
+     * @throws Exception 変換に失敗した場合
+     */
+    static byte[] convert(SoundSource in, PTCLogic biz) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream report = new PrintStream(new ByteArrayOutputStream());
+        try {
+            biz.analyze(in, out, report, PTCOptions.SKIP_DEFAULT, false);
+        } finally {
+            in.close();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 整数のPCMデータのまま読み取れないことにする読み取り元（floatの解析ウインドウを使わせる）。
+     */
+    static class FloatOnlySource implements SoundSource {
+
+        private SoundSource _src;
+
+        FloatOnlySource(SoundSource src) {
+            _src = src;
+        }
+
+        @Override
+        public int getChannels() {
+            return _src.getChannels();
+        }
+
+        @Override
+        public int getSamplingRate() {
+            return _src.getSamplingRate();
+        }
+
+        @Override
+        public int readSound(int channel, float[] buf, int off, int len) throws IOException {
+            return _src.readSound(channel, buf, off, len);
+        }
+
+        @Override
+        public boolean canReadInt() {
+            return false;
+        }
+
+        @Override
+        public int readSound(int channel, int[] buf, int off, int len) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long skipSound(long frames) throws IOException {
+            return _src.skipSound(frames);
+        }
+
+        @Override
+        public void close() throws IOException {
+            _src.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * @(#)TapeProfileTest.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * PC-6001以外の記録方式で、合成したテープの音声を変換すると元のデータに戻ることのテスト
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class TapeProfileTest {
+
+    private static final int RATE = 44100;
+
+    @Rule
+    public TemporaryFolder _temp = new TemporaryFolder();
+
+    @Test
+    public void testMSX1200() throws Exception {
+        assertRoundTrip(TapeProfile.MSX1200);
+    }
+
+    @Test
+    public void testMSX2400() throws Exception {
+        assertRoundTrip(TapeProfile.MSX2400);
+    }
+
+    @Test
+    public void testKCS300() throws Exception {
+        assertRoundTrip(TapeProfile.KCS300);
+    }
+
+    @Test
+    public void testCUTS1200() throws Exception {
+        assertRoundTrip(TapeProfile.CUTS1200);
+    }
+
+    @Test
+    public void testForName() {
+        assertEquals(TapeProfile.MSX2400, TapeProfile.forName("msx2400"));
+        assertEquals(TapeProfile.KCS300, TapeProfile.forName("KCS300"));
+        try {
+            TapeProfile.forName("X1");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // 不明な名前
+        }
+    }
+
+    /**
+     * 記録方式を指定して合成と変換をし、元のデータに戻ることを確認する。
+     * 周波数や1ビットの長さが異なる場合は、PC-6001の方式では元のデータにならないことも確認する。
+     *
+     * @param profile 記録方式
+     */
+    private void assertRoundTrip(TapeProfile profile) throws Exception {
+        byte[] data = TapeFixture.createP6Data(300);
+        File wav = TapeFixture.synthesize(new File(_temp.newFolder(), "tape.wav"), data, RATE,
+                WAVDecoder.FORMAT_ID_LINEAR_PCM, 16, 0.02, 0, profile);
+
+        PTCLogic biz = new PTCLogic();
+        biz.setProfile(profile);
+        assertArrayEquals(data, TapeFixture.convert(P6TapeConvertorMain.openSoundSource(wav), biz));
+
+        // P6ファイルに書き出す変換でも同じ
+        PTCOptions options = new PTCOptions();
+        options.setProfile(profile);
+        File dir = _temp.newFolder();
+        assertEquals(P6TapeConvertorMain.RESULT_OK, P6TapeConvertorMain.execute(wav, dir, options));
+        assertArrayEquals(data, Files.readAllBytes(new File(dir, "tape" + P6TapeConvertorMain.EXT_P6).toPath()));
+
+        // 周波数と1ビットの長さが同じ場合（MSX1200）は、PC-6001の方式でも変換できる
+        if (profile.getLowFrequency() == TapeProfile.P6.getLowFrequency()
+                && profile.getCyclesPerBit() == TapeProfile.P6.getCyclesPerBit()) {
+            return;
+        }
+        byte[] p6;
+        try {
+            p6 = TapeFixture.convert(P6TapeConvertorMain.openSoundSource(wav), new PTCLogic());
+        } catch (IllegalEndDetectedException e) {
+            p6 = new byte[0];
+        }
+        assertFalse(Arrays.equals(data, p6));
+    }
+}
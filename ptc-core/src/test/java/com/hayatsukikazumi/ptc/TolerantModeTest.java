@@ -0,0 +1,178 @@
+/**
+ * @(#)TolerantModeTest.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 寛容モード（ドロップアウトを読み飛ばして再同期する）のテスト
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class TolerantModeTest {
+
+    private static final int RATE = 44100;
+
+    /** 合成する先頭の無音の長さ（秒）（P6TapeSynthesizerと同じ） */
+    private static final double SILENCE_TIME = 0.5;
+
+    /** 雑音のRMS（テープの無音部分と同じ） */
+    private static final double NOISE = 0.02;
+
+    @Rule
+    public TemporaryFolder _temp = new TemporaryFolder();
+
+    /** 最後の変換のレポート */
+    private String _report;
+
+    @Test
+    public void testResync() throws Exception {
+        byte[] data = TapeFixture.createP6Data(2500);
+        float[] tape = readAll(TapeFixture.synthesize(_temp.newFile(), data, RATE, WAVDecoder.FORMAT_ID_LINEAR_PCM,
+                16, NOISE));
+
+        // ブロックの途中で0.1秒、信号が途切れる
+        int from = tape.length / 2;
+        float[] noise = noise(RATE / 10, 1);
+        System.arraycopy(noise, 0, tape, from, noise.length);
+        File wav = write(tape);
+
+        // 寛容モードでない場合は、ドロップアウトの直後のブランクとみなしたところで終わる
+        byte[] strict = convert(wav, false);
+        int head = matchLength(data, strict);
+        assertTrue("head " + head, head > data.length / 3 && head < data.length * 2 / 3);
+        assertTrue(strict.length <= head + 5);
+
+        // 寛容モードでは、ドロップアウトを読み飛ばして続きを変換する（途切れた部分の数バイトは失われる）
+        byte[] tolerant = convert(wav, true);
+        assertTrue(_report.contains("Detected dropout"));
+        assertTrue(matchLength(data, tolerant) >= head);
+        assertTrue("length " + tolerant.length, Math.abs(tolerant.length - data.length) <= 20);
+        int tail = data.length - head - 20;
+        assertArrayEquals(Arrays.copyOfRange(data, data.length - tail, data.length),
+                Arrays.copyOfRange(tolerant, tolerant.length - tail, tolerant.length));
+    }
+
+    @Test
+    public void testNoDropout() throws Exception {
+        // 途切れがなければ、寛容モードでも同じに変換する
+        byte[] data = TapeFixture.createP6Data(2500);
+        File wav = TapeFixture.synthesize(_temp.newFile(), data, RATE, WAVDecoder.FORMAT_ID_LINEAR_PCM, 16, NOISE);
+        assertArrayEquals(data, convert(wav, true));
+        assertTrue(!_report.contains("Detected dropout"));
+    }
+
+    @Test
+    public void testIgnoreBeforeLeader() throws Exception {
+        byte[] data = TapeFixture.createP6Data(100);
+
+        // ブランクの前に、ブランクでない1200Hzの信号がある（先頭の無音の代わり）
+        float[] tape = readAll(TapeFixture.synthesize(_temp.newFile(), data, RATE, WAVDecoder.FORMAT_ID_LINEAR_PCM,
+                16, NOISE));
+        int silence = (int) (SILENCE_TIME * RATE);
+        float[] buf = new float[RATE * 2 + tape.length - silence];
+        for (int i = 0; i < RATE * 2; i++) {
+            buf[i] = (float) (0.5 * Math.sin(2 * Math.PI * 1200 * i / RATE));
+        }
+        System.arraycopy(tape, silence, buf, RATE * 2, tape.length - silence);
+        File wav = write(buf);
+
+        // 寛容モードでない場合は不正なファイル終了
+        try {
+            convert(wav, false);
+            fail();
+        } catch (IllegalEndDetectedException e) {
+            // 最初のブランクより前のデータ
+        }
+
+        // 寛容モードでは、最初のブランクまで無視する
+        assertArrayEquals(data, convert(wav, true));
+        assertTrue(_report.contains("Ignored data before"));
+    }
+
+    /**
+     * 先頭から一致するバイト数を得る。
+     */
+    private static int matchLength(byte[] a, byte[] b) {
+        int len = 0;
+        while (len < a.length && len < b.length && a[len] == b[len]) {
+            len++;
+        }
+        return len;
+    }
+
+    /**
+     * 変換する。
+     */
+    private byte[] convert(File wav, boolean tolerant) throws Exception {
+        PTCLogic biz = new PTCLogic();
+        biz.setTolerant(tolerant);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        SoundSource in = P6TapeConvertorMain.openSoundSource(wav);
+        try {
+            biz.analyze(in, out, new PrintStream(report, true, "UTF-8"), PTCOptions.SKIP_DEFAULT, false);
+        } finally {
+            in.close();
+            _report = report.toString("UTF-8");
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 最後まで読み取る。
+     */
+    private static float[] readAll(File wav) throws Exception {
+        SoundSource in = P6TapeConvertorMain.openSoundSource(wav);
+        try {
+            float[] buf = new float[RATE * 60];
+            int len = 0;
+            int n;
+            while (len < buf.length && (n = in.readSound(0, buf, len, buf.length - len)) > 0) {
+                len += n;
+            }
+            return Arrays.copyOf(buf, len);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * WAVファイルに書き込む。
+     */
+    private File write(float[] buf) throws Exception {
+        File file = _temp.newFile();
+        WAVOutputStream out = new WAVOutputStream(file, RATE, WAVDecoder.FORMAT_ID_LINEAR_PCM, 16);
+        try {
+            out.writeSound(buf, 0, buf.length);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static float[] noise(int len, int seed) {
+        Random random = new Random(seed);
+        float[] buf = new float[len];
+        for (int i = 0; i < len; i++) {
+            buf[i] = (float) (random.nextGaussian() * NOISE);
+        }
+        return buf;
+    }
+}
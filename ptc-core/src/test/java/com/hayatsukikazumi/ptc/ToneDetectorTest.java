@@ -0,0 +1,247 @@
+/**
+ * @(#)ToneDetectorTest.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * FSK変調の信号がない音声の打ち切りのテスト
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class ToneDetectorTest {
+
+    private static final int RATE = 44100;
+
+    @Rule
+    public TemporaryFolder _temp = new TemporaryFolder();
+
+    @Test
+    public void testToneRatio() {
+        ToneDetector tone = new ToneDetector(RATE, 1200);
+        int size = tone.getBlockSize();
+
+        // FSK変調の周波数はほぼ1、雑音や音楽は小さい
+        assertRatio(tone, sine(size, 1200, 0), 0.9, 1.1);
+        assertRatio(tone, sine(size, 2400, 0.3), 0.9, 1.1);
+        assertRatio(tone, noise(size, 0.3, 1), 0, 0.2);
+        assertRatio(tone, music(size, 0), 0, 0.2);
+        assertEquals(0, tone.getToneRatio(new float[size], 0), 0);
+
+        // 整数のPCMデータでも同じ
+        float[] fsk = sine(size, 1200, 0);
+        int[] pcm = new int[size];
+        float[] rounded = new float[size];
+        for (int i = 0; i < size; i++) {
+            pcm[i] = Math.round(fsk[i] * 32767);
+            rounded[i] = pcm[i];
+        }
+        assertEquals(tone.getToneRatio(rounded, 0), tone.getToneRatio(pcm, 0), 1e-9);
+    }
+
+    @Test
+    public void testRejectNoise() throws Exception {
+        File wav = _temp.newFile();
+        WAVOutputStream out = new WAVOutputStream(wav, RATE, WAVDecoder.FORMAT_ID_LINEAR_PCM, 16);
+        try {
+            out.writeSound(noise(RATE * 20, 0.3, 1), 0, RATE * 20);
+        } finally {
+            out.close();
+        }
+        assertRejected(wav, 2, RATE * 20);
+    }
+
+    @Test
+    public void testRejectMusic() throws Exception {
+        File wav = _temp.newFile();
+        WAVOutputStream out = new WAVOutputStream(wav, RATE, WAVDecoder.FORMAT_ID_LINEAR_PCM, 16);
+        try {
+            out.writeSound(music(RATE * 20, 0.02), 0, RATE * 20);
+        } finally {
+            out.close();
+        }
+        assertRejected(wav, 2, RATE * 20);
+    }
+
+    @Test
+    public void testAcceptTape() throws Exception {
+        byte[] data = TapeFixture.createP6Data(100);
+        File wav = TapeFixture.synthesize(_temp.newFile(), data, RATE, WAVDecoder.FORMAT_ID_LINEAR_PCM, 16, 0.02);
+
+        // テープの信号があれば、打ち切らない場合と同じに変換する
+        assertArrayEquals(data, convert(wav, 0, PTCOptions.SKIP_DEFAULT));
+        assertArrayEquals(data, convert(wav, 2, PTCOptions.SKIP_DEFAULT));
+    }
+
+    @Test
+    public void testCheckFromSkip() throws Exception {
+        byte[] data = TapeFixture.createP6Data(100);
+
+        // テープの前に4秒の音楽がある
+        File wav = _temp.newFile();
+        WAVOutputStream out = new WAVOutputStream(wav, RATE, WAVDecoder.FORMAT_ID_LINEAR_PCM, 16);
+        try {
+            out.writeSound(music(RATE * 4, 0.02), 0, RATE * 4);
+            P6TapeSynthesizer synth = new P6TapeSynthesizer(RATE);
+            synth.setLevel(0.5);
+            synth.setNoise(0.02);
+            synth.setSeed(12345);
+            synth.synthesize(data, out);
+        } finally {
+            out.close();
+        }
+
+        // 調べる範囲はスキップした位置から数える
+        assertArrayEquals(data, convert(wav, 2, 4 + PTCOptions.SKIP_DEFAULT));
+        assertRejected(wav, 2, Long.MAX_VALUE);
+    }
+
+    /**
+     * 打ち切られること、調べる範囲と解析ウインドウ程度しか読み取らないことを確認する。
+     *
+     * @param wav 音声ファイル
+     * @param rejectTime 調べる長さ（秒）
+     * @param total 音声ファイルのサンプル数
+     */
+    private static void assertRejected(File wav, int rejectTime, long total) throws Exception {
+        CountingSource in = new CountingSource(P6TapeConvertorMain.openSoundSource(wav));
+        PTCLogic biz = new PTCLogic();
+        biz.setRejectTime(rejectTime);
+        try {
+            TapeFixture.convert(in, biz);
+            fail();
+        } catch (NoSignalDetectedException e) {
+            // 打ち切った
+        }
+        assertTrue("read " + in._count, in._count < RATE * (rejectTime + 5) && in._count < total);
+
+        PTCOptions options = new PTCOptions();
+        options.setRejectTime(rejectTime);
+        assertEquals(P6TapeConvertorMain.RESULT_NO_SIGNAL, P6TapeConvertorMain.execute(wav, wav.getParentFile(),
+                options));
+    }
+
+    /**
+     * 調べる長さとスキップ時間を指定して変換する。
+     */
+    private static byte[] convert(File wav, int rejectTime, double skip) throws Exception {
+        PTCLogic biz = new PTCLogic();
+        biz.setRejectTime(rejectTime);
+        SoundSource in = P6TapeConvertorMain.openSoundSource(wav);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            biz.analyze(in, out, new PrintStream(new ByteArrayOutputStream()), skip, false);
+        } finally {
+            in.close();
+        }
+        return out.toByteArray();
+    }
+
+    private static void assertRatio(ToneDetector tone, float[] buf, double min, double max) {
+        double ratio = tone.getToneRatio(buf, 0);
+        assertTrue("ratio " + ratio, ratio >= min && ratio <= max);
+    }
+
+    private static float[] sine(int len, double freq, double phase) {
+        float[] buf = new float[len];
+        for (int i = 0; i < len; i++) {
+            buf[i] = (float) (0.5 * Math.sin(2 * Math.PI * freq * i / RATE + phase));
+        }
+        return buf;
+    }
+
+    private static float[] noise(int len, double rms, int seed) {
+        Random random = new Random(seed);
+        float[] buf = new float[len];
+        for (int i = 0; i < len; i++) {
+            buf[i] = (float) (random.nextGaussian() * rms);
+        }
+        return buf;
+    }
+
+    /**
+     * 和音（A、C#、E）を、音量を揺らして雑音を加えたもの。
+     */
+    private static float[] music(int len, double noise) {
+        float[] buf = noise(len, noise, 2);
+        for (int i = 0; i < len; i++) {
+            double t = (double) i / RATE;
+            double env = 0.6 + 0.4 * Math.sin(2 * Math.PI * 2 * t);
+            buf[i] += (float) (0.15 * env * (Math.sin(2 * Math.PI * 440 * t) + Math.sin(2 * Math.PI * 554.4 * t)
+                    + Math.sin(2 * Math.PI * 659.3 * t)));
+        }
+        return buf;
+    }
+
+    /**
+     * 読み取ったサンプル数を数える読み取り元
+     */
+    private static class CountingSource implements SoundSource {
+
+        private SoundSource _src;
+
+        long _count;
+
+        CountingSource(SoundSource src) {
+            _src = src;
+        }
+
+        @Override
+        public int getChannels() {
+            return _src.getChannels();
+        }
+
+        @Override
+        public int getSamplingRate() {
+            return _src.getSamplingRate();
+        }
+
+        @Override
+        public int readSound(int channel, float[] buf, int off, int len) throws IOException {
+            int n = _src.readSound(channel, buf, off, len);
+            _count += Math.max(n, 0);
+            return n;
+        }
+
+        @Override
+        public boolean canReadInt() {
+            return _src.canReadInt();
+        }
+
+        @Override
+        public int readSound(int channel, int[] buf, int off, int len) throws IOException {
+            int n = _src.readSound(channel, buf, off, len);
+            _count += Math.max(n, 0);
+            return n;
+        }
+
+        @Override
+        public long skipSound(long frames) throws IOException {
+            long n = _src.skipSound(frames);
+            _count += Math.max(n, 0);
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            _src.close();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/**
+ * @(#)WAVInputStreamTest.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.junit.Test;
+
+/**
+ * WAVInputStreamのヘッダの読み取りのテスト（バイト配列で作ったWAVファイルを使う）
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class WAVInputStreamTest {
+
+    /** KSDATAFORMAT_SUBTYPE_PCM、IEEE_FLOATのGUIDの先頭2バイトより後ろ */
+    private static final byte[] SUBTYPE_GUID_TAIL = { 0x00, 0x00, 0x00, 0x00, 0x10, 0x00, (byte) 0x80, 0x00, 0x00,
+            (byte) 0xaa, 0x00, 0x38, (byte) 0x9b, 0x71 };
+
+    /** 16ビットのサンプル */
+    private static final int[] SAMPLES16 = { 0, 1, -1, 0x7fff, -0x8000, 1234, -4321 };
+
+    @Test
+    public void testPlain() throws Exception {
+        WAVInputStream in = open(riff("RIFF", fmt(1, 1, 16, 0), chunk("data", pcm16(SAMPLES16))));
+        assertEquals(1, in.getChannels());
+        assertEquals(44100, in.getSamplingRate());
+        assertEquals(16, in.getBits());
+        assertEquals(SAMPLES16.length * 2, in.getDataLength());
+        assertTrue(in.canReadInt());
+        assertArrayEquals(SAMPLES16, readAllInt(in, SAMPLES16.length));
+    }
+
+    @Test
+    public void testRF64() throws Exception {
+        byte[] data = pcm16(SAMPLES16);
+        ByteArrayOutputStream ds64 = new ByteArrayOutputStream();
+        putInt(ds64, 0, 8); // RIFFサイズ（使わない）
+        putInt(ds64, data.length, 8);
+        putInt(ds64, 0, 8); // sampleCount
+        putInt(ds64, 0, 4); // tableLength
+
+        // dataチャンクのサイズは0xFFFFFFFFで、ds64のサイズを使う。後ろのチャンクは読まない
+        byte[] wav = riff("RF64", chunk("ds64", ds64.toByteArray()), fmt(1, 1, 16, 0),
+                chunk("data", data, 0xffffffffL), chunk("LIST", new byte[] { 1, 2, 3, 4 }));
+        WAVInputStream in = open(wav);
+        assertEquals(data.length, in.getDataLength());
+        assertArrayEquals(SAMPLES16, readAllInt(in, SAMPLES16.length + 2));
+    }
+
+    @Test
+    public void testBW64() throws Exception {
+        byte[] data = pcm16(SAMPLES16);
+        ByteArrayOutputStream ds64 = new ByteArrayOutputStream();
+        putInt(ds64, 0, 8);
+        putInt(ds64, data.length, 8);
+        putInt(ds64, 0, 8);
+        putInt(ds64, 0, 4);
+        WAVInputStream in = open(riff("BW64", chunk("ds64", ds64.toByteArray()), fmt(1, 1, 16, 0),
+                chunk("data", data, 0xffffffffL)));
+        assertArrayEquals(SAMPLES16, readAllInt(in, SAMPLES16.length));
+    }
+
+    @Test
+    public void testOddChunkPadding() throws Exception {
+        // 奇数サイズのチャンクの後ろの詰め物を読み飛ばす
+        byte[] wav = riff("RIFF", chunk("junk", new byte[] { 9, 9, 9 }), fmt(1, 1, 16, 0),
+                chunk("fact", new byte[] { 5 }), chunk("data", pcm16(SAMPLES16)));
+        assertArrayEquals(SAMPLES16, readAllInt(open(wav), SAMPLES16.length));
+    }
+
+    @Test
+    public void testOddFormatChunk() throws Exception {
+        // 拡張部分が奇数サイズのfmtチャンク
+        byte[] wav = riff("RIFF", fmt(1, 1, 16, 1), chunk("data", pcm16(SAMPLES16)));
+        assertArrayEquals(SAMPLES16, readAllInt(open(wav), SAMPLES16.length));
+    }
+
+    @Test
+    public void testListBeforeFormat() throws Exception {
+        byte[] list = chunk("LIST", concat("INFO".getBytes("ISO-8859-1"), chunk("INAM", "tape\0".getBytes("ISO-8859-1"))));
+        byte[] wav = riff("RIFF", list, fmt(1, 1, 16, 0), chunk("data", pcm16(SAMPLES16)));
+        WAVInputStream in = open(wav);
+        assertEquals(44100, in.getSamplingRate());
+        assertArrayEquals(SAMPLES16, readAllInt(in, SAMPLES16.length));
+    }
+
+    @Test(expected = UnsupportedAudioFileException.class)
+    public void testDataBeforeFormat() throws Exception {
+        open(riff("RIFF", chunk("data", pcm16(SAMPLES16)), fmt(1, 1, 16, 0)));
+    }
+
+    @Test
+    public void testUnknownDataSize() throws Exception {
+        // 書き込み中のファイル（dataチャンクのサイズが0）はファイルの終わりまで読む
+        WAVInputStream in = open(riff("RIFF", fmt(1, 1, 16, 0), chunk("data", pcm16(SAMPLES16), 0)));
+        assertEquals(-1, in.getDataLength());
+        assertArrayEquals(SAMPLES16, readAllInt(in, SAMPLES16.length));
+    }
+
+    @Test
+    public void testExtensiblePCM24() throws Exception {
+        // 24ビット、ステレオ
+        int[] samples = { 0, 0x7fffff, -0x800000, 1, -1, 0x123456 };
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (int s : samples) {
+            putInt(data, s & 0xffffff, 3);
+        }
+        WAVInputStream in = open(riff("RIFF", extensible(WAVDecoder.FORMAT_ID_LINEAR_PCM, 2, 24),
+                chunk("data", data.toByteArray())));
+        assertEquals(WAVDecoder.FORMAT_ID_LINEAR_PCM, in.getFormatId());
+        assertEquals(2, in.getChannels());
+        assertTrue(in.canReadInt());
+        assertArrayEquals(new int[] { 0, -0x800000, -1 }, readAllInt(in, 3));
+    }
+
+    @Test
+    public void testExtensibleFloat() throws Exception {
+        float[] samples = { 0f, 0.5f, -0.25f, 1f, -1f };
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (float s : samples) {
+            putInt(data, Float.floatToIntBits(s) & 0xffffffffL, 4);
+        }
+        WAVInputStream in = open(riff("RIFF", extensible(WAVDecoder.FORMAT_ID_IEEE_FLOAT, 1, 32),
+                chunk("data", data.toByteArray())));
+        assertEquals(WAVDecoder.FORMAT_ID_IEEE_FLOAT, in.getFormatId());
+        assertFalse(in.canReadInt());
+        float[] buf = new float[samples.length + 1];
+        assertEquals(samples.length, in.readSound(0, buf, 0, buf.length));
+        for (int i = 0; i < samples.length; i++) {
+            assertEquals(samples[i], buf[i], 0f);
+        }
+        assertEquals(-1, in.readSound(0, buf, 0, buf.length));
+    }
+
+    @Test
+    public void testFloatMatchesInt() throws Exception {
+        WAVInputStream in = open(riff("RIFF", fmt(1, 1, 16, 0), chunk("data", pcm16(SAMPLES16))));
+        float[] buf = new float[SAMPLES16.length];
+        assertEquals(SAMPLES16.length, in.readSound(0, buf, 0, buf.length));
+        for (int i = 0; i < SAMPLES16.length; i++) {
+            assertEquals(SAMPLES16[i] / 32768f, buf[i], 0f);
+        }
+    }
+
+    @Test(expected = UnsupportedAudioFileException.class)
+    public void testNotWAV() throws Exception {
+        open("RIFX....WAVE".getBytes("ISO-8859-1"));
+    }
+
+    /**
+     * WAVファイルを開く。
+     */
+    private static WAVInputStream open(byte[] wav) throws UnsupportedAudioFileException, IOException {
+        return new WAVInputStream(new ByteArrayInputStream(wav));
+    }
+
+    /**
+     * チャネル0のデータを最後まで整数で読み取る。
+     */
+    private static int[] readAllInt(WAVInputStream in, int max) throws IOException {
+        int[] buf = new int[max];
+        int len = 0;
+        int n;
+        while (len < max && (n = in.readSound(0, buf, len, max - len)) > 0) {
+            len += n;
+        }
+        int[] ret = new int[len];
+        System.arraycopy(buf, 0, ret, 0, len);
+        return ret;
+    }
+
+    /**
+     * RIFFヘッダをつける。
+     */
+    private static byte[] riff(String id, byte[]... chunks) throws IOException {
+        byte[] body = concat("WAVE".getBytes("ISO-8859-1"), concat(chunks));
+        return chunk(id, body, (id.equals("RIFF")) ? body.length : 0xffffffffL);
+    }
+
+    /**
+     * fmtチャンクを作る（44100Hz）。
+     *
+     * @param extra 拡張部分のバイト数
+     */
+    private static byte[] fmt(int formatId, int channels, int bits, int extra) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int block = channels * bits / 8;
+        putInt(out, formatId, 2);
+        putInt(out, channels, 2);
+        putInt(out, 44100, 4);
+        putInt(out, 44100 * block, 4);
+        putInt(out, block, 2);
+        putInt(out, bits, 2);
+        out.write(new byte[extra]);
+        return chunk("fmt ", out.toByteArray());
+    }
+
+    /**
+     * WAVE_FORMAT_EXTENSIBLEのfmtチャンクを作る（44100Hz）。
+     */
+    private static byte[] extensible(int subFormat, int channels, int bits) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int block = channels * bits / 8;
+        putInt(out, WAVDecoder.FORMAT_ID_EXTENSIBLE, 2);
+        putInt(out, channels, 2);
+        putInt(out, 44100, 4);
+        putInt(out, 44100 * block, 4);
+        putInt(out, block, 2);
+        putInt(out, bits, 2);
+        putInt(out, 22, 2); // cbSize
+        putInt(out, bits, 2); // validBitsPerSample
+        putInt(out, (channels == 1) ? 4 : 3, 4); // channelMask
+        putInt(out, subFormat, 2);
+        out.write(SUBTYPE_GUID_TAIL);
+        return chunk("fmt ", out.toByteArray());
+    }
+
+    /**
+     * 16ビットのPCMデータを作る。
+     */
+    private static byte[] pcm16(int[] samples) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int s : samples) {
+            putInt(out, s & 0xffff, 2);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * チャンクを作る（奇数サイズは詰め物を入れる）。
+     */
+    private static byte[] chunk(String id, byte[] body) throws IOException {
+        return chunk(id, body, body.length);
+    }
+
+    private static byte[] chunk(String id, byte[] body, long size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(id.getBytes("ISO-8859-1"));
+        putInt(out, size, 4);
+        out.write(body);
+        if ((body.length & 1) != 0) {
+            out.write(0x55);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] b : parts) {
+            out.write(b);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * リトルエンディアンで書き込む。
+     */
+    private static void putInt(ByteArrayOutputStream out, long v, int bytes) {
+        for (int i = 0; i < bytes; i++) {
+            out.write((int) (v >> (i * 8)) & 0xff);
+        }
+    }
+}
@@ -21,12 +21,13 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.File;
 
 /**
  * PAPICOM TAPE CONVERTOR（WAVファイル→P6ファイルに変換するソフトウェア）のメインクラス
  *
  * @author HayatsukiKazumi
- * @version 1.1.0
+ * @version 1.2.0
  */
 public class P6TapeConvertor extends Frame {
 
@@ -35,30 +36,10 @@ public class P6TapeConvertor extends Frame {
      */
     private static final long serialVersionUID = 1L;
 
-    private static final String APP_NAME = "PAPICOM TAPE CONVERTOR";
-
-    private static final String APP_VERSION = "1.1.1";
-
-    private static final String APP_COPYRIGHT = "Copyright(c) はやつきかづみ 2005-2019";
-
-    private static final String MSG_OK = "変換処理が完了しました";
-
-    private static final String MSG_ILLEGAL_END = "読み込み途中でファイルの終わりに達しました";
-
-    private static final String MSG_WAV_FORMAT = "8ビットまたは16ビットのWAVファイルのみ対応しています";
-
-    private static final String MSG_WRONG_FORMAT = "ファイルフォーマットが正しくありません";
-
-    private static final String MSG_FAILED = "処理に失敗しました";
-
-    private static final String MSG_CANNOT_READ = "ファイルを読み取ることができません";
-
-    private static final String MSG_SKIP_TIME = "スキップ時間は、0〜1000の数値を入力して\nください（小数可）";
-
-    private static final double SKIP_DEFAULT = 1.0;
-
     private MenuItem _open;
 
+    private MenuItem _wave;
+
     private MenuItem _quit;
 
     private MenuItem _version;
@@ -76,7 +57,7 @@ public class P6TapeConvertor extends Frame {
      *
      */
     public P6TapeConvertor() {
-        super(APP_NAME);
+        super(P6TapeConvertorCLI.APP_NAME);
         setSize(360, 180);
         setResizable(false);
         setLayout(null);
@@ -88,6 +69,8 @@ public class P6TapeConvertor extends Frame {
         Menu fm = new Menu("ファイル", true);
         _open = new MenuItem("開く", new MenuShortcut(KeyEvent.VK_O));
         fm.add(_open);
+        _wave = new MenuItem("波形を表示", new MenuShortcut(KeyEvent.VK_W));
+        fm.add(_wave);
         _quit = new MenuItem("終了", new MenuShortcut(KeyEvent.VK_Q));
         fm.add(_quit);
         mb.add(fm);
@@ -146,6 +129,14 @@ public class P6TapeConvertor extends Frame {
             }
         });
 
+        // ActionListener（波形を表示）
+        _wave.addActionListener(new ActionListener() {
+
+            public void actionPerformed(ActionEvent e) {
+                actionPerformed_wave(e);
+            }
+        });
+
         // ActionListener（終了）
         _quit.addActionListener(new ActionListener() {
 
@@ -166,86 +157,26 @@ public class P6TapeConvertor extends Frame {
     /**
      * mainメソッド。
      * <p>
-     * 実行オプション<br>
-     * java -jar WAV2P6.jar [fileName] [-sXXXX] [-n]<br>
-     * fileName : ファイル名<br>
-     * -sXXXX : 頭だしスキップ時間をXXXX秒に設定する。<br>
-     * -n : 極性反転モードにする。<br>
-     * その他 ファイル名を指定する。<br>
+     * 実行オプションはP6TapeConvertorCLIと同じ。
      * ※ファイル名の指定がない場合は、GUI画面が開く。
      *
      * @param args パラメータ
      */
     public static void main(String[] args) {
-        // パラメータ解析
-        String fileName = null;
-        String skip = String.valueOf(SKIP_DEFAULT);
-        boolean negate = false;
-
-        for (int i = 0; i < args.length; i++) {
-            if (args[i].startsWith("-s")) {
-                skip = args[i].substring(2);
-            } else if (args[i].startsWith("-n")) {
-                negate = true;
-            } else if (args[i].startsWith("-")) {
-                System.out.println(APP_NAME);
-                System.out.println("Ver. " + APP_VERSION);
-                System.out.println(APP_COPYRIGHT);
-                System.out.println();
-                System.out.println("使い方: java jar PTC.java [-sXXXX] [-n] file");
-                System.out.println("  -sXXXX    スキップ時間を指定");
-                System.out.println("  -n        極性反転する");
-                System.exit(0);
-                return;
-            } else {
-                fileName = args[i];
-            }
-        }
-
-        // GUIモード、テキストモード切替
-        if (fileName == null) {
-            P6TapeConvertor window = new P6TapeConvertor();
-            window._skip.setText(skip);
-            window._negate.setState(negate);
-            window.setVisible(true);
-            return;
-        }
-
-        System.out.println(APP_NAME);
-        System.out.println("Ver. " + APP_VERSION);
-        System.out.println(APP_COPYRIGHT);
-        System.out.println();
-        System.out.println("Source File = " + fileName);
+        P6TapeConvertorCLI.main(args);
+    }
 
-        // 実行する。
-        int result = P6TapeConvertorMain.execute(null, fileName, skip, negate);
-        switch (result) {
-        case P6TapeConvertorMain.RESULT_FILE_NOT_FOUND:
-            System.out.print(MSG_CANNOT_READ);
-            break;
-        case P6TapeConvertorMain.RESULT_ILLEGAL_END:
-            System.out.print(MSG_ILLEGAL_END);
-            break;
-        case P6TapeConvertorMain.RESULT_IO_ERROR:
-            System.out.print(MSG_FAILED);
-            break;
-        case P6TapeConvertorMain.RESULT_NOT_SUPPORTED_WAV:
-            System.out.print(MSG_WAV_FORMAT);
-            break;
-        case P6TapeConvertorMain.RESULT_SKIP_TIME:
-            System.out.print(MSG_SKIP_TIME);
-            break;
-        case P6TapeConvertorMain.RESULT_WRONG_FORMAT:
-            System.out.print(MSG_WRONG_FORMAT);
-            break;
-        case P6TapeConvertorMain.RESULT_OK:
-            System.out.print(MSG_OK);
-            break;
-        default:
-        // 何もしない
-        }
-        System.out.println(" (" + result + ")");
-        System.exit(result);
+    /**
+     * GUI画面を開く。
+     *
+     * @param skip スキップ時間（秒）
+     * @param negate 極性反転フラグ
+     */
+    public static void open(String skip, boolean negate) {
+        P6TapeConvertor window = new P6TapeConvertor();
+        window._skip.setText(skip);
+        window._negate.setState(negate);
+        window.setVisible(true);
     }
 
     /**
@@ -285,36 +216,33 @@ public class P6TapeConvertor extends Frame {
         _status.setText("処理完了 : " + _selectFile.getFile());
 
         // エラーメッセージ設定
-        String errMsg = null;
-        switch (result) {
-        case P6TapeConvertorMain.RESULT_FILE_NOT_FOUND:
-            errMsg = MSG_CANNOT_READ;
-            break;
-        case P6TapeConvertorMain.RESULT_ILLEGAL_END:
-            errMsg = MSG_ILLEGAL_END;
-            break;
-        case P6TapeConvertorMain.RESULT_IO_ERROR:
-            errMsg = MSG_FAILED;
-            break;
-        case P6TapeConvertorMain.RESULT_NOT_SUPPORTED_WAV:
-            errMsg = MSG_WAV_FORMAT;
-            break;
-        case P6TapeConvertorMain.RESULT_SKIP_TIME:
-            errMsg = MSG_SKIP_TIME;
-            break;
-        case P6TapeConvertorMain.RESULT_WRONG_FORMAT:
-            errMsg = MSG_WRONG_FORMAT;
-            break;
-        case P6TapeConvertorMain.RESULT_OK:
-        default:
-        // 何もしない
-        }
+        String errMsg = P6TapeConvertorCLI.getResultMessage(result);
 
         if (errMsg != null) {
             SimpleDialog.showErrorDialog(this, String.valueOf(result), errMsg);
         }
     }
 
+    /**
+     * 波形を表示メニューのアクション
+     * <p>
+     * 選択したファイルの波形を、最新のログファイルの内容と重ねて表示する。
+     *
+     * @param e イベント
+     */
+    private void actionPerformed_wave(ActionEvent e) {
+
+        // ファイル選択ダイアログを表示する。
+        _selectFile.setVisible(true);
+
+        // ファイルが選択されない場合は何もしない。
+        if (_selectFile.getFile() == null) {
+            return;
+        }
+
+        WaveformViewer.open(new File(_selectFile.getDirectory(), _selectFile.getFile()));
+    }
+
     /**
      * 終了メニューのアクション
      *
@@ -331,6 +259,7 @@ public class P6TapeConvertor extends Frame {
      */
     private void actionPerformed_version(ActionEvent e) {
         SimpleDialog
-                .showAboutDialog(this, APP_NAME, APP_VERSION, APP_COPYRIGHT);
+                .showAboutDialog(this, P6TapeConvertorCLI.APP_NAME,
+                        P6TapeConvertorCLI.APP_VERSION, P6TapeConvertorCLI.APP_COPYRIGHT);
     }
 }
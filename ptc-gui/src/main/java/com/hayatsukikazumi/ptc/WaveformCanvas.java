@@ -0,0 +1,493 @@
+/**
+ * @(#)WaveformCanvas.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.EventQueue;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * 音声の波形と、レポートの内容（変換したバイト、判定、ブランクなど）を重ねて表示するAWTコンポーネント。
+ * <p>
+ * 1ピクセルあたりWaveformPyramid.BASE_FRAMESフレーム以上の場合は縮小データから、
+ * それより拡大した場合は音声ファイルの表示範囲だけを読み取って描画する。
+ * 音声ファイルは読み取りスレッドで開いたままにして、後ろへの移動は続きから読み飛ばす
+ * （前に戻る場合のみ開き直す）。読み取り終わったら、イベントディスパッチスレッドで描画し直す。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class WaveformCanvas extends Canvas {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    /** 1ピクセルあたりのフレーム数の最小値 */
+    public static final double MIN_FRAMES_PER_PIXEL = 1.0 / 16;
+
+    /** マークを表示する帯の高さ */
+    private static final int MARK_HEIGHT = 14;
+
+    /** バイトの値を表示する、1バイトあたりの最小の幅 */
+    private static final int MIN_TEXT_WIDTH = 48;
+
+    private static final Color COLOR_WAVE = new Color(0x206020);
+
+    private static final Color COLOR_AXIS = new Color(0xcccccc);
+
+    private static final Color COLOR_EVENT = new Color(0xc000c0);
+
+    private File _file;
+
+    private WaveformPyramid _pyramid;
+
+    private List<PTCReport.Mark> _marks;
+
+    private float _peak = 1;
+
+    /** 左端の位置（フレーム数） */
+    private long _start;
+
+    /** 1ピクセルあたりのフレーム数 */
+    private double _framesPerPixel = WaveformPyramid.BASE_FRAMES;
+
+    /** 直接読み取ったデータ（拡大時） */
+    private float[] _raw = new float[0];
+
+    private long _rawStart = -1;
+
+    /** 直接読み取ったデータの数（ファイルの終わりでは要求より少ない） */
+    private int _rawLength;
+
+    /** 直接読み取った範囲の終わり */
+    private long _rawEnd;
+
+    /** 最後に読み取りを要求した範囲（同じ範囲を何度も要求しないため） */
+    private long _requestedStart = -1;
+
+    private int _requestedSize;
+
+    /** 読み取りスレッドとの受け渡し（以下のフィールドは_lockで同期する） */
+    private final Object _lock = new Object();
+
+    /** 読み取りスレッド（nullの場合は終了を指示した） */
+    private Thread _loader;
+
+    /** 読み取る音声ファイル（nullの場合は要求なし） */
+    private File _requestFile;
+
+    private long _requestStart;
+
+    private int _requestSize;
+
+    private Image _buffer;
+
+    /**
+     * 表示するデータを設定する。
+     *
+     * @param file 音声ファイル（拡大時に読み取る）
+     * @param pyramid 縮小データ
+     * @param marks レポートの位置のある行（位置の順）。nullの場合は表示しない
+     */
+    public void setData(File file, WaveformPyramid pyramid, List<PTCReport.Mark> marks) {
+        _file = file;
+        _pyramid = pyramid;
+        _marks = marks;
+        _peak = (pyramid.getPeak() > 0) ? pyramid.getPeak() : 1;
+        _rawStart = -1;
+        _requestedStart = -1;
+        repaint();
+    }
+
+    /**
+     * 縮小データを得る。
+     *
+     * @return 縮小データ。未設定の場合はnull
+     */
+    public WaveformPyramid getPyramid() {
+        return _pyramid;
+    }
+
+    /**
+     * 左端の位置を得る。
+     *
+     * @return 左端の位置（フレーム数）
+     */
+    public long getStart() {
+        return _start;
+    }
+
+    /**
+     * 1ピクセルあたりのフレーム数を得る。
+     *
+     * @return 1ピクセルあたりのフレーム数
+     */
+    public double getFramesPerPixel() {
+        return _framesPerPixel;
+    }
+
+    /**
+     * 表示範囲を設定する。
+     *
+     * @param start 左端の位置（フレーム数）
+     * @param framesPerPixel 1ピクセルあたりのフレーム数
+     */
+    public void setView(long start, double framesPerPixel) {
+        _framesPerPixel = Math.max(MIN_FRAMES_PER_PIXEL, framesPerPixel);
+        long frames = (_pyramid != null) ? _pyramid.getFrameCount() : 0;
+        _start = Math.max(0, Math.min(start, frames - (long) (getWidth() * _framesPerPixel / 2)));
+        repaint();
+    }
+
+    /**
+     * 指定の位置を中心に表示する。
+     *
+     * @param position 位置（フレーム数）
+     * @param framesPerPixel 1ピクセルあたりのフレーム数
+     */
+    public void setCenter(long position, double framesPerPixel) {
+        setView(position - (long) (getWidth() / 2 * Math.max(MIN_FRAMES_PER_PIXEL, framesPerPixel)),
+                framesPerPixel);
+    }
+
+    /**
+     * X座標の位置を得る。
+     *
+     * @param x X座標
+     * @return 位置（フレーム数）
+     */
+    public long getPosition(int x) {
+        return _start + (long) Math.floor(x * _framesPerPixel);
+    }
+
+    /**
+     * 読み取りスレッドを終了する（音声ファイルを閉じる）。
+     */
+    @Override
+    public void removeNotify() {
+        _requestedStart = -1;
+        synchronized (_lock) {
+            _loader = null;
+            _requestFile = null;
+            _lock.notifyAll();
+        }
+        super.removeNotify();
+    }
+
+    @Override
+    public void update(Graphics g) {
+        paint(g);
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        int w = getWidth();
+        int h = getHeight();
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+
+        // ちらつかないように、裏画面に描画する
+        if (_buffer == null || _buffer.getWidth(null) != w || _buffer.getHeight(null) != h) {
+            _buffer = createImage(w, h);
+            if (_buffer == null) {
+                return;
+            }
+        }
+        Graphics bg = _buffer.getGraphics();
+        bg.setColor(Color.white);
+        bg.fillRect(0, 0, w, h);
+
+        int top = MARK_HEIGHT * 2;
+        int mid = top + (h - top) / 2;
+        double scale = (h - top) / 2.0 / _peak * 0.95;
+        bg.setColor(COLOR_AXIS);
+        bg.drawLine(0, mid, w, mid);
+
+        if (_pyramid != null) {
+            drawWave(bg, w, mid, scale);
+            if (_marks != null) {
+                drawMarks(bg, w, h);
+            }
+        }
+
+        bg.dispose();
+        g.drawImage(_buffer, 0, 0, null);
+    }
+
+    /**
+     * 波形を描画する。
+     */
+    private void drawWave(Graphics g, int w, int mid, double scale) {
+        g.setColor(COLOR_WAVE);
+
+        if (_framesPerPixel >= WaveformPyramid.BASE_FRAMES) {
+            float[] min = new float[w];
+            float[] max = new float[w];
+            _pyramid.getMinMax(_start, _framesPerPixel, min, max, w);
+            for (int x = 0; x < w; x++) {
+                if (!Float.isNaN(min[x])) {
+                    g.drawLine(x, mid - (int) (max[x] * scale), x, mid - (int) (min[x] * scale));
+                }
+            }
+            return;
+        }
+
+        // 拡大時は、表示範囲を音声ファイルから読み取る（読み取り終わるまでは描画しない）
+        int len = (int) Math.ceil(w * _framesPerPixel) + 2;
+        if (_rawStart < 0 || _start < _rawStart || _start + len > _rawEnd) {
+            requestRaw(_start, len);
+            return;
+        }
+        int off = (int) (_start - _rawStart);
+        if (_framesPerPixel < 1) {
+            // サンプルを線で結ぶ
+            int px = 0;
+            int py = mid;
+            for (int i = 0; i < len && off + i < _rawLength; i++) {
+                int x = (int) Math.round(i / _framesPerPixel);
+                int y = mid - (int) (_raw[off + i] * scale);
+                if (i > 0) {
+                    g.drawLine(px, py, x, y);
+                }
+                g.fillRect(x - 1, y - 1, 3, 3);
+                px = x;
+                py = y;
+            }
+        } else {
+            for (int x = 0; x < w; x++) {
+                int from = off + (int) (x * _framesPerPixel);
+                int to = Math.min(_rawLength, off + (int) ((x + 1) * _framesPerPixel) + 1);
+                if (from >= to) {
+                    break;
+                }
+                float lo = _raw[from];
+                float hi = _raw[from];
+                for (int i = from + 1; i < to; i++) {
+                    lo = Math.min(lo, _raw[i]);
+                    hi = Math.max(hi, _raw[i]);
+                }
+                g.drawLine(x, mid - (int) (hi * scale), x, mid - (int) (lo * scale));
+            }
+        }
+    }
+
+    /**
+     * 音声ファイルの指定の範囲の読み取りを、読み取りスレッドに要求する。
+     * 前回と同じ範囲の場合は要求しない（読み取れなかった場合も再び要求しない）。
+     * 読み取りスレッドが処理する前に次の要求があった場合は、次の要求のみを読み取る。
+     */
+    private void requestRaw(long start, int len) {
+        // 前後に余裕を持たせて読み取る
+        long from = Math.max(0, start - len);
+        int size = len * 3;
+        if (from == _requestedStart && size == _requestedSize) {
+            return;
+        }
+        _requestedStart = from;
+        _requestedSize = size;
+
+        synchronized (_lock) {
+            _requestFile = _file;
+            _requestStart = from;
+            _requestSize = size;
+            if (_loader == null) {
+                _loader = new Thread(new Runnable() {
+
+                    public void run() {
+                        loadRaw();
+                    }
+                }, "WaveformCanvas");
+                _loader.setDaemon(true);
+                _loader.start();
+            }
+            _lock.notifyAll();
+        }
+    }
+
+    /**
+     * 読み取りスレッドの処理。要求された範囲を読み取り、イベントディスパッチスレッドに渡す。
+     */
+    private void loadRaw() {
+        SoundSource in = null;
+        File inFile = null;
+        long inPos = 0;
+        try {
+            while (true) {
+                final File file;
+                final long from;
+                int size;
+                synchronized (_lock) {
+                    while (_requestFile == null && _loader == Thread.currentThread()) {
+                        _lock.wait();
+                    }
+                    if (_loader != Thread.currentThread()) {
+                        return;
+                    }
+                    file = _requestFile;
+                    from = _requestStart;
+                    size = _requestSize;
+                    _requestFile = null;
+                }
+
+                final float[] raw = new float[size];
+                int n = 0;
+                try {
+                    // 別のファイルか、前に戻る場合のみ開き直す
+                    if (in == null || file != inFile || from < inPos) {
+                        close(in);
+                        in = null;
+                        in = P6TapeConvertorMain.openSoundSource(file);
+                        inFile = file;
+                        inPos = 0;
+                    }
+                    inPos += in.skipSound(from - inPos);
+                    while (inPos >= from && n < size) {
+                        int r = in.readSound(0, raw, n, size - n);
+                        if (r <= 0) {
+                            break;
+                        }
+                        n += r;
+                    }
+                    inPos += n;
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    close(in);
+                    in = null;
+                    continue;
+                } catch (UnsupportedAudioFileException e) {
+                    continue;
+                }
+
+                final int length = n;
+                EventQueue.invokeLater(new Runnable() {
+
+                    public void run() {
+                        // 読み取り中に別のファイルを設定した場合は捨てる
+                        if (file != _file) {
+                            return;
+                        }
+                        _raw = raw;
+                        _rawStart = from;
+                        _rawLength = length;
+                        _rawEnd = from + raw.length;
+                        repaint();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            // 終了する
+        } finally {
+            close(in);
+            synchronized (_lock) {
+                if (_loader == Thread.currentThread()) {
+                    _loader = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 読み取り元を閉じる（失敗は無視する）。
+     */
+    private static void close(SoundSource in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    /**
+     * レポートの内容を描画する。
+     * 上の帯にバイトの判定（拡大時は値）、その下の帯にブランクなどの行の内容を表示する。
+     */
+    private void drawMarks(Graphics g, int w, int h) {
+        FontMetrics fm = g.getFontMetrics();
+        long end = getPosition(w);
+        int i = findMark(_start);
+        int lastText = Integer.MIN_VALUE;
+        int prevX = Integer.MIN_VALUE;
+
+        for (; i < _marks.size(); i++) {
+            PTCReport.Mark m = _marks.get(i);
+            if (m.getPosition() > end) {
+                break;
+            }
+            int x = (int) ((m.getPosition() - _start) / _framesPerPixel);
+
+            if (m.isData()) {
+                // 同じピクセルに重なる場合は、A以外の判定を上書きする
+                if (x == prevX && "A".equals(m.getJudge())) {
+                    continue;
+                }
+                prevX = x;
+                g.setColor(getJudgeColor(m.getJudge()));
+                g.fillRect(x, 1, 2, MARK_HEIGHT - 2);
+
+                // 1バイトの幅が十分ある場合は、値を表示する
+                if (i + 1 < _marks.size()
+                        && (_marks.get(i + 1).getPosition() - m.getPosition()) / _framesPerPixel >= MIN_TEXT_WIDTH) {
+                    String s = String.format("%04X:%02X", m.getWritePosition(), m.getValue());
+                    g.setColor(Color.black);
+                    g.drawString(s, x + 3, MARK_HEIGHT - 3);
+                }
+            } else {
+                g.setColor(COLOR_EVENT);
+                g.drawLine(x, MARK_HEIGHT, x, h);
+                if (x > lastText) {
+                    g.drawString(m.getMessage(), x + 3, MARK_HEIGHT * 2 - 3);
+                    lastText = x + 3 + fm.stringWidth(m.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 指定の位置以降の最初の行を探す。
+     *
+     * @param position 位置
+     * @return 行の番号
+     */
+    int findMark(long position) {
+        int lo = 0;
+        int hi = _marks.size();
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (_marks.get(m).getPosition() < position) {
+                lo = m + 1;
+            } else {
+                hi = m;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 判定の表示色を得る。
+     */
+    private static Color getJudgeColor(String judge) {
+        if ("A".equals(judge)) {
+            return new Color(0x00a000);
+        } else if ("B".equals(judge)) {
+            return new Color(0x0060ff);
+        } else if ("C".equals(judge)) {
+            return new Color(0xff8000);
+        }
+        return Color.red;
+    }
+}
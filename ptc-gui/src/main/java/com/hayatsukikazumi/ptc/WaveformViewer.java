@@ -0,0 +1,451 @@
+/**
+ * @(#)WaveformViewer.java  2026/10/19
+ *
+ * Copyright(c) HayatsukiKazumi 2005 - All Rights Reserved.
+ */
+package com.hayatsukikazumi.ptc;
+
+import java.awt.BorderLayout;
+import java.awt.Button;
+import java.awt.EventQueue;
+import java.awt.FlowLayout;
+import java.awt.Frame;
+import java.awt.Label;
+import java.awt.Panel;
+import java.awt.Scrollbar;
+import java.awt.TextField;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.AdjustmentEvent;
+import java.awt.event.AdjustmentListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * 音声ファイルの波形と変換ログを表示するウインドウ
+ * <p>
+ * 開くときに音声ファイルを1回だけ読み取ってWaveformPyramidを作成し、
+ * 以後は拡大、縮小、スクロールしても全体を読み直さない。
+ * 最新のログファイルがあれば、変換したバイトの判定やブランクなどを重ねて表示し、
+ * 不正なファイル終了を検出した位置を最初に表示する。
+ *
+ * @author HayatsukiKazumi
+ * @version 1.2.0
+ */
+public class WaveformViewer extends Frame {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    /** 拡大、縮小の倍率 */
+    private static final double ZOOM_STEP = 2.0;
+
+    /** スクロールバーの最大値 */
+    private static final int SCROLL_MAX = 1 << 20;
+
+    /** 注目する位置へ移動したときの、1ピクセルあたりのフレーム数 */
+    private static final double DETAIL_FRAMES_PER_PIXEL = 1.0;
+
+    private File _wavFile;
+
+    private List<PTCReport.Mark> _marks;
+
+    private WaveformCanvas _canvas;
+
+    private Scrollbar _scroll;
+
+    private TextField _position;
+
+    private Label _status;
+
+    private Button _zoomIn;
+
+    private Button _zoomOut;
+
+    private Button _fit;
+
+    private Button _go;
+
+    private Button _next;
+
+    /** ドラッグを始めたX座標と、その時の左端の位置 */
+    private int _dragX;
+
+    private long _dragStart;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param wavFile 音声ファイル
+     */
+    public WaveformViewer(File wavFile) {
+        super("波形 - " + wavFile.getName());
+        _wavFile = wavFile;
+        setSize(800, 400);
+        setLayout(new BorderLayout());
+
+        Panel tools = new Panel(new FlowLayout(FlowLayout.LEFT));
+        _zoomIn = new Button("拡大");
+        tools.add(_zoomIn);
+        _zoomOut = new Button("縮小");
+        tools.add(_zoomOut);
+        _fit = new Button("全体");
+        tools.add(_fit);
+        tools.add(new Label("位置"));
+        _position = new TextField(10);
+        tools.add(_position);
+        _go = new Button("移動");
+        tools.add(_go);
+        _next = new Button("次の注目点");
+        tools.add(_next);
+        add(tools, BorderLayout.NORTH);
+
+        _canvas = new WaveformCanvas();
+        add(_canvas, BorderLayout.CENTER);
+
+        Panel bottom = new Panel(new BorderLayout());
+        _scroll = new Scrollbar(Scrollbar.HORIZONTAL, 0, SCROLL_MAX, 0, SCROLL_MAX);
+        bottom.add(_scroll, BorderLayout.NORTH);
+        _status = new Label("読み込み中 : " + wavFile.getName());
+        bottom.add(_status, BorderLayout.SOUTH);
+        add(bottom, BorderLayout.SOUTH);
+
+        addListeners();
+    }
+
+    /**
+     * 波形のウインドウを開き、音声ファイルとログファイルを別スレッドで読み込む。
+     *
+     * @param wavFile 音声ファイル
+     */
+    public static void open(File wavFile) {
+        final WaveformViewer window = new WaveformViewer(wavFile);
+        window.setVisible(true);
+
+        Thread t = new Thread(new Runnable() {
+
+            public void run() {
+                window.load();
+            }
+        }, "WaveformViewer");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void addListeners() {
+        // WindowListener
+        addWindowListener(new WindowAdapter() {
+
+            public void windowClosing(WindowEvent e) {
+                setVisible(false);
+                dispose();
+            }
+        });
+
+        // ActionListener（拡大）
+        _zoomIn.addActionListener(new ActionListener() {
+
+            public void actionPerformed(ActionEvent e) {
+                zoom(1 / ZOOM_STEP, _canvas.getWidth() / 2);
+            }
+        });
+
+        // ActionListener（縮小）
+        _zoomOut.addActionListener(new ActionListener() {
+
+            public void actionPerformed(ActionEvent e) {
+                zoom(ZOOM_STEP, _canvas.getWidth() / 2);
+            }
+        });
+
+        // ActionListener（全体）
+        _fit.addActionListener(new ActionListener() {
+
+            public void actionPerformed(ActionEvent e) {
+                fit();
+            }
+        });
+
+        // ActionListener（移動）
+        ActionListener go = new ActionListener() {
+
+            public void actionPerformed(ActionEvent e) {
+                actionPerformed_go(e);
+            }
+        };
+        _go.addActionListener(go);
+        _position.addActionListener(go);
+
+        // ActionListener（次の注目点）
+        _next.addActionListener(new ActionListener() {
+
+            public void actionPerformed(ActionEvent e) {
+                actionPerformed_next(e);
+            }
+        });
+
+        // AdjustmentListener（スクロール）
+        _scroll.addAdjustmentListener(new AdjustmentListener() {
+
+            public void adjustmentValueChanged(AdjustmentEvent e) {
+                WaveformPyramid p = _canvas.getPyramid();
+                if (p != null) {
+                    long start = (long) ((double) e.getValue() / SCROLL_MAX * p.getFrameCount());
+                    _canvas.setView(start, _canvas.getFramesPerPixel());
+                    updateStatus(-1);
+                }
+            }
+        });
+
+        // MouseListener（ドラッグでスクロール、ホイールで拡大、縮小）
+        MouseAdapter mouse = new MouseAdapter() {
+
+            public void mousePressed(MouseEvent e) {
+                _dragX = e.getX();
+                _dragStart = _canvas.getStart();
+            }
+
+            public void mouseDragged(MouseEvent e) {
+                double fpp = _canvas.getFramesPerPixel();
+                _canvas.setView(_dragStart + (long) ((_dragX - e.getX()) * fpp), fpp);
+                updateScroll();
+                updateStatus(e.getX());
+            }
+
+            public void mouseMoved(MouseEvent e) {
+                updateStatus(e.getX());
+            }
+
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(Math.pow(ZOOM_STEP, e.getWheelRotation()), e.getX());
+                updateStatus(e.getX());
+            }
+        };
+        _canvas.addMouseListener(mouse);
+        _canvas.addMouseMotionListener(mouse);
+        _canvas.addMouseWheelListener(mouse);
+
+        // ComponentListener（大きさの変更）
+        _canvas.addComponentListener(new ComponentAdapter() {
+
+            public void componentResized(ComponentEvent e) {
+                updateScroll();
+            }
+        });
+    }
+
+    /**
+     * 音声ファイルとログファイルを読み込む。表示はイベントディスパッチスレッドで更新する。
+     */
+    private void load() {
+        SoundSource in = null;
+        WaveformPyramid pyramid;
+        try {
+            in = P6TapeConvertorMain.openSoundSource(_wavFile);
+            pyramid = WaveformPyramid.build(in);
+        } catch (IOException e) {
+            e.printStackTrace();
+            showStatus("読み込みエラー : " + _wavFile.getName());
+            return;
+        } catch (UnsupportedAudioFileException e) {
+            showStatus(P6TapeConvertorCLI.getResultMessage(P6TapeConvertorMain.RESULT_WRONG_FORMAT));
+            return;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+
+        // ログファイルがない場合は、波形のみを表示する
+        List<PTCReport.Mark> marks = null;
+        File repFile = P6TapeConvertorMain.findReportFile(_wavFile, _wavFile.getParentFile());
+        if (repFile != null) {
+            try {
+                marks = PTCReport.readMarks(repFile);
+                Collections.sort(marks, new Comparator<PTCReport.Mark>() {
+
+                    public int compare(PTCReport.Mark o1, PTCReport.Mark o2) {
+                        return Long.compare(o1.getPosition(), o2.getPosition());
+                    }
+                });
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        final WaveformPyramid p = pyramid;
+        final List<PTCReport.Mark> m = marks;
+        final String name = (repFile != null) ? repFile.getName() : "ログなし";
+        EventQueue.invokeLater(new Runnable() {
+
+            public void run() {
+                _marks = m;
+                _canvas.setData(_wavFile, p, m);
+                fit();
+                _status.setText(_wavFile.getName() + " (" + name + ")");
+
+                // 不正なファイル終了の位置を表示する
+                if (m != null) {
+                    for (PTCReport.Mark mark : m) {
+                        if (mark.getMessage().startsWith("Detected illegal end")) {
+                            showPosition(mark.getPosition());
+                            break;
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * ステータスの表示を変更する（他のスレッドから呼んでもよい）。
+     */
+    private void showStatus(final String text) {
+        EventQueue.invokeLater(new Runnable() {
+
+            public void run() {
+                _status.setText(text);
+            }
+        });
+    }
+
+    /**
+     * 全体を表示する。
+     */
+    private void fit() {
+        WaveformPyramid p = _canvas.getPyramid();
+        if (p == null) {
+            return;
+        }
+        _canvas.setView(0, Math.max(1.0, (double) p.getFrameCount() / Math.max(1, _canvas.getWidth())));
+        updateScroll();
+    }
+
+    /**
+     * 指定のX座標の位置を変えずに、拡大、縮小する。
+     *
+     * @param factor 1ピクセルあたりのフレーム数に掛ける倍率
+     * @param x X座標
+     */
+    private void zoom(double factor, int x) {
+        if (_canvas.getPyramid() == null) {
+            return;
+        }
+        long pos = _canvas.getPosition(x);
+        double fpp = _canvas.getFramesPerPixel() * factor;
+        _canvas.setView(pos - (long) (x * Math.max(WaveformCanvas.MIN_FRAMES_PER_PIXEL, fpp)), fpp);
+        updateScroll();
+    }
+
+    /**
+     * 指定の位置を拡大して中心に表示する。
+     *
+     * @param position 位置（フレーム数）
+     */
+    private void showPosition(long position) {
+        _canvas.setCenter(position, DETAIL_FRAMES_PER_PIXEL);
+        _position.setText(String.valueOf(position));
+        updateScroll();
+        updateStatus(-1);
+    }
+
+    /**
+     * スクロールバーを表示範囲に合わせる。
+     */
+    private void updateScroll() {
+        WaveformPyramid p = _canvas.getPyramid();
+        if (p == null || p.getFrameCount() == 0) {
+            return;
+        }
+        double frames = p.getFrameCount();
+        int visible = (int) Math.max(1, Math.min(SCROLL_MAX, _canvas.getWidth() * _canvas.getFramesPerPixel()
+                / frames * SCROLL_MAX));
+        int value = (int) Math.min(SCROLL_MAX - visible, _canvas.getStart() / frames * SCROLL_MAX);
+        _scroll.setValues(value, visible, 0, SCROLL_MAX);
+        _scroll.setBlockIncrement(Math.max(1, visible * 9 / 10));
+        _scroll.setUnitIncrement(Math.max(1, visible / 10));
+    }
+
+    /**
+     * ステータスに、表示範囲とマウスの位置を表示する。
+     *
+     * @param x マウスのX座標（負の数の場合は表示しない）
+     */
+    private void updateStatus(int x) {
+        WaveformPyramid p = _canvas.getPyramid();
+        if (p == null) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(_canvas.getStart()).append(" - ").append(_canvas.getPosition(_canvas.getWidth()));
+        if (x >= 0) {
+            long pos = _canvas.getPosition(x);
+            sb.append("  位置 ").append(pos).append(" (");
+            sb.append(Math.round(pos * 1000.0 / p.getSamplingRate()) / 1000.0).append(" 秒)");
+        }
+        _status.setText(sb.toString());
+    }
+
+    /**
+     * 移動ボタンのアクション
+     *
+     * @param e イベント
+     */
+    private void actionPerformed_go(ActionEvent e) {
+        try {
+            showPosition(Long.parseLong(_position.getText().trim()));
+        } catch (NumberFormatException ex) {
+            _status.setText("位置はサンプル数で指定してください");
+        }
+    }
+
+    /**
+     * 次の注目点ボタンのアクション
+     * <p>
+     * 表示の中心より後ろで、判定がC、Dのバイトか、
+     * ブランク、速度以外の行（ドロップアウト、不正なファイル終了など）の位置に移動する。
+     *
+     * @param e イベント
+     */
+    private void actionPerformed_next(ActionEvent e) {
+        if (_marks == null) {
+            return;
+        }
+        long center = _canvas.getPosition(_canvas.getWidth() / 2);
+        for (int i = _canvas.findMark(center + 1); i < _marks.size(); i++) {
+            if (isNotable(_marks.get(i))) {
+                showPosition(_marks.get(i).getPosition());
+                return;
+            }
+        }
+        _status.setText("これより後ろに注目点はありません");
+    }
+
+    /**
+     * 注目する行かを返す。
+     */
+    private static boolean isNotable(PTCReport.Mark mark) {
+        if (mark.isData()) {
+            return "C".equals(mark.getJudge()) || "D".equals(mark.getJudge());
+        }
+        String s = mark.getMessage();
+        return !s.startsWith("Skiped") && !s.startsWith("Detected 2400Hz") && !s.startsWith("Estimated");
+    }
+}